@@ -28,6 +28,7 @@ import org.macroing.image4j.RGBColorSpace;
  * <li>Color conversion methods</li>
  * <li>Image rendering methods</li>
  * <li>Monte Carlo-method based image sampling using a stable Moving Average algorithm</li>
+ * <li>Adaptive sampling of the pixels that have not yet converged, based on the variance of their samples</li>
  * </ul>
  * 
  * @since 1.0.0
@@ -73,6 +74,11 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 */
 	protected float[] filmData;
 	
+	/**
+	 * A {@code float} array with the sum of the squared deviations from the mean of the luminance of the samples for each pixel of the film.
+	 */
+	protected float[] filmDataSquaredDeviations;
+	
 	/**
 	 * A {@code float} array with image data.
 	 */
@@ -83,11 +89,31 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 */
 	protected int filmFlags;
 	
+	/**
+	 * The number of pixels of the film that are sampled in the current render pass, or {@code -1} if all pixels are sampled.
+	 */
+	protected int filmPixelsCount;
+	
+	/**
+	 * The offset in {@code filmPixels} to the indices of the pixels of the film that are sampled in the current render pass.
+	 */
+	protected int filmPixelsOffset;
+	
 	/**
 	 * An {@code int} array with film data samples.
 	 */
 	protected int[] filmDataSamples;
 	
+	/**
+	 * An {@code int} array with the indices of the pixels of the film that are sampled in the current and the next render pass.
+	 */
+	protected int[] filmPixels;
+	
+	/**
+	 * An {@code int} array with the number of pixels of the film that are sampled in the next render pass.
+	 */
+	protected int[] filmPixelsCountNext;
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	/**
@@ -104,7 +130,12 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 //		Initialize the film variables:
 		this.filmData = new float[1];
 		this.filmDataSamples = new int[1];
+		this.filmDataSquaredDeviations = new float[1];
 		this.filmFlags = 0;
+		this.filmPixels = new int[1];
+		this.filmPixelsCount = -1;
+		this.filmPixelsCountNext = new int[1];
+		this.filmPixelsOffset = 0;
 		
 //		Initialize the image variables:
 		this.imageDataByte = new byte[1];
@@ -118,6 +149,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 */
 	public final void clear() {
 		this.filmFlags |= FILM_FLAG_CLEAR;
+		this.filmPixelsCount = -1;
 	}
 	
 	/**
@@ -127,6 +159,55 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 		this.filmFlags = 0;
 	}
 	
+	/**
+	 * Returns the number of pixels of the film that are sampled in the next render pass, or {@code -1} if all pixels are sampled.
+	 * 
+	 * @return the number of pixels of the film that are sampled in the next render pass, or {@code -1} if all pixels are sampled
+	 */
+	public final int getFilmPixelsCount() {
+		return this.filmPixelsCount;
+	}
+	
+	/**
+	 * Sets the pixels of the film that can be sampled by {@link #setFilmPixelsRange(int, int)}.
+	 * <p>
+	 * The pixel indices in {@code filmPixels} are computed as {@code y * resolutionX + x}. Their order is the order in which the global IDs are mapped to pixels.
+	 * <p>
+	 * This method overwrites the pixels that were added by {@link #filmRetainIfNotConverged(float, int)}, so it should not be combined with adaptive sampling.
+	 * <p>
+	 * If {@code filmPixels} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If {@code filmPixels.length} is greater than {@code resolutionX * resolutionY}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param filmPixels an {@code int} array with pixel indices
+	 * @throws IllegalArgumentException thrown if, and only if, {@code filmPixels.length} is greater than {@code resolutionX * resolutionY}
+	 * @throws NullPointerException thrown if, and only if, {@code filmPixels} is {@code null}
+	 */
+	public final void setFilmPixels(final int[] filmPixels) {
+		if(filmPixels.length > this.filmPixels.length / 2) {
+			throw new IllegalArgumentException(String.format("filmPixels.length > resolutionX * resolutionY: filmPixels.length=%s", Integer.toString(filmPixels.length)));
+		}
+		
+		System.arraycopy(filmPixels, 0, this.filmPixels, 0, filmPixels.length);
+		
+		put(this.filmPixels);
+	}
+	
+	/**
+	 * Sets the range of the pixels given to {@link #setFilmPixels(int[])} that are sampled in the next render pass.
+	 * <p>
+	 * The global IDs from {@code 0} (inclusive) to {@code count} (exclusive) are mapped to the pixels from {@code offset} (inclusive) to {@code offset + count} (exclusive). The range should be launched with at least {@code count} work items.
+	 * <p>
+	 * This method has to be called before each render pass, because {@link #updateFilmPixels(boolean)} resets the range.
+	 * 
+	 * @param offset the offset of the first pixel
+	 * @param count the number of pixels
+	 */
+	public final void setFilmPixelsRange(final int offset, final int count) {
+		this.filmPixelsCount = count;
+		this.filmPixelsOffset = offset;
+	}
+	
 	/**
 	 * Updates all necessary variables in this {@code AbstractImageKernel} instance.
 	 * <p>
@@ -152,7 +233,12 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 //		Initialize the film variables:
 		this.filmData = new float[resolutionX * resolutionY * 3];
 		this.filmDataSamples = new int[resolutionX * resolutionY];
+		this.filmDataSquaredDeviations = new float[resolutionX * resolutionY];
 		this.filmFlags = 0;
+		this.filmPixels = new int[resolutionX * resolutionY * 2];
+		this.filmPixelsCount = -1;
+		this.filmPixelsCountNext = new int[1];
+		this.filmPixelsOffset = 0;
 		
 //		Initialize the image variables:
 		this.imageDataByte = imageDataByte;
@@ -160,12 +246,46 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 		
 		put(this.filmData);
 		put(this.filmDataSamples);
+		put(this.filmDataSquaredDeviations);
+		put(this.filmPixels);
+		put(this.filmPixelsCountNext);
 		put(this.imageDataByte);
 		put(this.imageDataFloat);
 	}
 	
+	/**
+	 * Updates the pixels of the film that are sampled in the next render pass.
+	 * <p>
+	 * This method should be called after each render pass. If {@code isAdaptive} is {@code true}, only the pixels that were added by {@link #filmRetainIfNotConverged(float, int)} in the render pass are sampled in the next one. Otherwise all pixels are sampled.
+	 * 
+	 * @param isAdaptive {@code true} if, and only if, only the pixels that have not yet converged should be sampled, {@code false} otherwise
+	 */
+	public final void updateFilmPixels(final boolean isAdaptive) {
+		if(isAdaptive) {
+			get(this.filmPixelsCountNext);
+			
+			this.filmPixelsCount = this.filmPixelsCountNext[0];
+			this.filmPixelsCountNext[0] = 0;
+			this.filmPixelsOffset = this.filmPixelsOffset == 0 ? this.filmPixels.length / 2 : 0;
+			
+			put(this.filmPixelsCountNext);
+		} else {
+			this.filmPixelsCount = -1;
+			this.filmPixelsOffset = 0;
+		}
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * Returns {@code true} if, and only if, the current global ID refers to a pixel of the film that is sampled in the current render pass, {@code false} otherwise.
+	 * 
+	 * @return {@code true} if, and only if, the current global ID refers to a pixel of the film that is sampled in the current render pass, {@code false} otherwise
+	 */
+	protected final boolean filmHasIndex() {
+		return this.filmPixelsCount == -1 || getGlobalId() < this.filmPixelsCount;
+	}
+	
 	/**
 	 * Returns the B-component value of {@code rGB} as a {@code float}.
 	 * <p>
@@ -211,7 +331,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the RGB-component value of B from the current pixel of the image
 	 */
 	protected final float imageGetB() {
-		return this.imageDataFloat[getGlobalId() * 3 + 2];
+		return this.imageDataFloat[filmGetIndex() * 3 + 2];
 	}
 	
 	/**
@@ -220,7 +340,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the RGB-component value of G from the current pixel of the image
 	 */
 	protected final float imageGetG() {
-		return this.imageDataFloat[getGlobalId() * 3 + 1];
+		return this.imageDataFloat[filmGetIndex() * 3 + 1];
 	}
 	
 	/**
@@ -229,7 +349,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the RGB-component value of R from the current pixel of the image
 	 */
 	protected final float imageGetR() {
-		return this.imageDataFloat[getGlobalId() * 3 + 0];
+		return this.imageDataFloat[filmGetIndex() * 3 + 0];
 	}
 	
 	/**
@@ -247,6 +367,28 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 		return (((int)(r * 255.0F + 0.5F) & 0xFF) << 16) | (((int)(g * 255.0F + 0.5F) & 0xFF) << 8) | (((int)(b * 255.0F + 0.5F) & 0xFF));
 	}
 	
+	/**
+	 * Returns the index of the current pixel of the film.
+	 * <p>
+	 * If all pixels of the film are sampled in the current render pass, this is the global ID. Otherwise it is looked up in {@code filmPixels}.
+	 * 
+	 * @return the index of the current pixel of the film
+	 */
+	protected final int filmGetIndex() {
+		return this.filmPixelsCount == -1 ? getGlobalId() : this.filmPixels[this.filmPixelsOffset + getGlobalId()];
+	}
+	
+	/**
+	 * Returns the number of samples that have been added to the current pixel of the film.
+	 * <p>
+	 * Before a sample is added, this is the index of that sample.
+	 * 
+	 * @return the number of samples that have been added to the current pixel of the film
+	 */
+	protected final int filmGetSamples() {
+		return this.filmDataSamples[filmGetIndex()];
+	}
+	
 	/**
 	 * Returns the resolution along the X-axis of the film.
 	 * 
@@ -271,7 +413,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the X-coordinate of the film
 	 */
 	protected final int filmGetX() {
-		return getGlobalId() % super.resolutionX;
+		return filmGetIndex() % super.resolutionX;
 	}
 	
 	/**
@@ -280,7 +422,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the Y-coordinate of the film
 	 */
 	protected final int filmGetY() {
-		return getGlobalId() / super.resolutionX;
+		return filmGetIndex() / super.resolutionX;
 	}
 	
 	/**
@@ -307,7 +449,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the X-coordinate of the image
 	 */
 	protected final int imageGetX() {
-		return getGlobalId() % super.resolutionX;
+		return filmGetIndex() % super.resolutionX;
 	}
 	
 	/**
@@ -316,7 +458,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @return the Y-coordinate of the image
 	 */
 	protected final int imageGetY() {
-		return getGlobalId() / super.resolutionX;
+		return filmGetIndex() / super.resolutionX;
 	}
 	
 	/**
@@ -325,36 +467,85 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * This method is useful for Monte Carlo-method based rendering. It should be avoided if you already know the final RGB-color.
 	 * <p>
 	 * The current moving average algorithm used by this method is stable enough, that adding the same RGB-color repeatedly won't cause major precision loss.
+	 * <p>
+	 * If the film should be cleared, {@link #filmBegin()} has to be called before the first sample is added.
 	 * 
 	 * @param r the value of the RGB-component R
 	 * @param g the value of the RGB-component G
 	 * @param b the value of the RGB-component B
 	 */
 	protected final void filmAddColor(final float r, final float g, final float b) {
-		final int filmDataOffset = getGlobalId() * 3;
-		final int filmDataSamplesOffset = getGlobalId();
+		final int filmDataOffset = filmGetIndex() * 3;
+		final int filmDataSamplesOffset = filmGetIndex();
 		
+		final int oldFilmDataSample = this.filmDataSamples[filmDataSamplesOffset];
+		final int newFilmDataSample = oldFilmDataSample + 1;
+		
+		final float oldAverageR = this.filmData[filmDataOffset + 0];
+		final float oldAverageG = this.filmData[filmDataOffset + 1];
+		final float oldAverageB = this.filmData[filmDataOffset + 2];
+		
+		final float newAverageR = oldAverageR + ((r - oldAverageR) / newFilmDataSample);
+		final float newAverageG = oldAverageG + ((g - oldAverageG) / newFilmDataSample);
+		final float newAverageB = oldAverageB + ((b - oldAverageB) / newFilmDataSample);
+		
+//		Update the sum of the squared deviations from the mean of the luminance, using Welford's algorithm:
+		final float luminance = 0.212671F * r + 0.715160F * g + 0.072169F * b;
+		final float oldAverageLuminance = 0.212671F * oldAverageR + 0.715160F * oldAverageG + 0.072169F * oldAverageB;
+		final float newAverageLuminance = 0.212671F * newAverageR + 0.715160F * newAverageG + 0.072169F * newAverageB;
+		final float oldSquaredDeviations = this.filmDataSquaredDeviations[filmDataSamplesOffset];
+		final float newSquaredDeviations = oldSquaredDeviations + (luminance - oldAverageLuminance) * (luminance - newAverageLuminance);
+		
+		this.filmData[filmDataOffset + 0] = newAverageR;
+		this.filmData[filmDataOffset + 1] = newAverageG;
+		this.filmData[filmDataOffset + 2] = newAverageB;
+		this.filmDataSamples[filmDataSamplesOffset] = newFilmDataSample;
+		this.filmDataSquaredDeviations[filmDataSamplesOffset] = newSquaredDeviations;
+	}
+	
+	/**
+	 * The film sampling stage begins for the current pixel of the film.
+	 * <p>
+	 * This method resets the current pixel of the film if it should be cleared, so the samples added by {@link #filmAddColor(float, float, float)} replace the old ones. It has to be called once per render pass, before the first sample is added.
+	 */
+	protected final void filmBegin() {
 		if((this.filmFlags & FILM_FLAG_CLEAR) != 0) {
-			this.filmData[filmDataOffset + 0] = r;
-			this.filmData[filmDataOffset + 1] = g;
-			this.filmData[filmDataOffset + 2] = b;
-			this.filmDataSamples[filmDataSamplesOffset] = 1;
-		} else {
-			final int oldFilmDataSample = this.filmDataSamples[filmDataSamplesOffset];
-			final int newFilmDataSample = oldFilmDataSample + 1;
-			
-			final float oldAverageR = this.filmData[filmDataOffset + 0];
-			final float oldAverageG = this.filmData[filmDataOffset + 1];
-			final float oldAverageB = this.filmData[filmDataOffset + 2];
+			final int filmDataOffset = filmGetIndex() * 3;
+			final int filmDataSamplesOffset = filmGetIndex();
 			
-			final float newAverageR = oldAverageR + ((r - oldAverageR) / newFilmDataSample);
-			final float newAverageG = oldAverageG + ((g - oldAverageG) / newFilmDataSample);
-			final float newAverageB = oldAverageB + ((b - oldAverageB) / newFilmDataSample);
+			this.filmData[filmDataOffset + 0] = 0.0F;
+			this.filmData[filmDataOffset + 1] = 0.0F;
+			this.filmData[filmDataOffset + 2] = 0.0F;
+			this.filmDataSamples[filmDataSamplesOffset] = 0;
+			this.filmDataSquaredDeviations[filmDataSamplesOffset] = 0.0F;
+		}
+	}
+	
+	/**
+	 * Adds the current pixel of the film to the pixels that are sampled in the next render pass, unless it has converged.
+	 * <p>
+	 * The current pixel has converged if it has at least {@code minimumSamples} samples and the standard error of the mean of the luminance of its samples is at most {@code threshold} times that mean.
+	 * <p>
+	 * This method should be called once per render pass, after the last sample is added, if {@link #updateFilmPixels(boolean)} is called with {@code isAdaptive} set to {@code true}.
+	 * 
+	 * @param threshold the maximum standard error relative to the mean of the luminance
+	 * @param minimumSamples the minimum number of samples
+	 */
+	protected final void filmRetainIfNotConverged(final float threshold, final int minimumSamples) {
+		final int filmDataOffset = filmGetIndex() * 3;
+		final int filmDataSamplesOffset = filmGetIndex();
+		
+		final int filmDataSample = this.filmDataSamples[filmDataSamplesOffset];
+		
+		final float averageLuminance = 0.212671F * this.filmData[filmDataOffset + 0] + 0.715160F * this.filmData[filmDataOffset + 1] + 0.072169F * this.filmData[filmDataOffset + 2];
+		final float variance = filmDataSample > 1 ? this.filmDataSquaredDeviations[filmDataSamplesOffset] / (filmDataSample - 1) : 0.0F;
+		final float standardError = sqrt(variance / max(filmDataSample, 1));
+		
+		if(filmDataSample < minimumSamples || standardError > threshold * max(averageLuminance, 0.001F)) {
+			final int filmPixelsIndex = atomicAdd(this.filmPixelsCountNext, 0, 1);
+			final int filmPixelsOffset = this.filmPixelsOffset == 0 ? super.resolutionX * super.resolutionY : 0;
 			
-			this.filmData[filmDataOffset + 0] = newAverageR;
-			this.filmData[filmDataOffset + 1] = newAverageG;
-			this.filmData[filmDataOffset + 2] = newAverageB;
-			this.filmDataSamples[filmDataSamplesOffset] = newFilmDataSample;
+			this.filmPixels[filmPixelsOffset + filmPixelsIndex] = filmDataSamplesOffset;
 		}
 	}
 	
@@ -368,13 +559,14 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param b the value of the RGB-component B
 	 */
 	protected final void filmSetColor(final float r, final float g, final float b) {
-		final int filmDataOffset = getGlobalId() * 3;
-		final int filmDataSamplesOffset = getGlobalId();
+		final int filmDataOffset = filmGetIndex() * 3;
+		final int filmDataSamplesOffset = filmGetIndex();
 		
 		this.filmData[filmDataOffset + 0] = r;
 		this.filmData[filmDataOffset + 1] = g;
 		this.filmData[filmDataOffset + 2] = b;
 		this.filmDataSamples[filmDataSamplesOffset] = 1;
+		this.filmDataSquaredDeviations[filmDataSamplesOffset] = 0.0F;
 	}
 	
 	/**
@@ -385,7 +577,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param b the value of the RGB-component B
 	 */
 	protected final void imageAddColor(final float r, final float g, final float b) {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -408,8 +600,8 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * When the image processing is done, {@link #imageEnd()} has to be called in order to end the image processing stage.
 	 */
 	protected final void imageBegin() {
-		final int filmDataOffset = getGlobalId() * 3;
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int filmDataOffset = filmGetIndex() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float r = this.filmData[filmDataOffset + 0];
 		final float g = this.filmData[filmDataOffset + 1];
@@ -427,7 +619,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 */
 	protected final void imageEnd() {
 //		Retrieve the current color:
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float r = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float g = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -440,7 +632,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 		final int imageDataA = 255;
 		
 //		Update the image data with the new color:
-		final int imageDataByteOffset = getGlobalId() * 4;
+		final int imageDataByteOffset = filmGetIndex() * 4;
 		
 		this.imageDataByte[imageDataByteOffset + 0] = (byte)(imageDataB);
 		this.imageDataByte[imageDataByteOffset + 1] = (byte)(imageDataG);
@@ -456,7 +648,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The gamma correction is performed in the color space sRGB.
 	 */
 	protected final void imageRedoGammaCorrection() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -479,7 +671,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param b the value of the RGB-component B
 	 */
 	protected final void imageSetColor(final float r, final float g, final float b) {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		this.imageDataFloat[imageDataFloatOffset + 0] = r;
 		this.imageDataFloat[imageDataFloatOffset + 1] = g;
@@ -501,7 +693,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param minimum the minimum value allowed for each R-, G- and B-component
 	 */
 	protected final void imageSetFilmicCurve(final float exposure, final float a, final float b, final float c, final float d, final float e, final float subtract, final float minimum) {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -550,7 +742,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The grayscale is based on the average of the current RGB-component values.
 	 */
 	protected final void imageSetGrayscaleAverage() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -573,7 +765,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The grayscale is based on the current value of the RGB-component B.
 	 */
 	protected final void imageSetGrayscaleB() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldB = this.imageDataFloat[imageDataFloatOffset + 2];
 		
@@ -592,7 +784,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The grayscale is based on the current value of the RGB-component G.
 	 */
 	protected final void imageSetGrayscaleG() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
 		
@@ -611,7 +803,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The grayscale is based on the lightness of the current RGB-component values.
 	 */
 	protected final void imageSetGrayscaleLightness() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -637,7 +829,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The grayscale is based on the luminance of the current RGB-component values.
 	 */
 	protected final void imageSetGrayscaleLuminance() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -660,7 +852,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The grayscale is based on the current value of the RGB-component R.
 	 */
 	protected final void imageSetGrayscaleR() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		
@@ -677,7 +869,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * Sets the RGB-color of the current pixel to the inverse of the current RGB-color.
 	 */
 	protected final void imageSetInverse() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -700,7 +892,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param exposure the exposure to use
 	 */
 	protected final void imageSetReinhard(final float exposure) {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -727,7 +919,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param exposure the exposure to use
 	 */
 	protected final void imageSetReinhardModified1(final float exposure) {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -750,7 +942,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * @param exposure the exposure to use
 	 */
 	protected final void imageSetReinhardModified2(final float exposure) {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float lWhite = 4.0F;
 		final float lWhite2 = lWhite * lWhite;
@@ -777,7 +969,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * Sets the RGB-color of the current pixel to the sepia tone of the current RGB-color.
 	 */
 	protected final void imageSetSepia() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
@@ -800,7 +992,7 @@ public abstract class AbstractImageKernel extends AbstractKernel {
 	 * The gamma correction is performed in the color space sRGB.
 	 */
 	protected final void imageUndoGammaCorrection() {
-		final int imageDataFloatOffset = getGlobalId() * 3;
+		final int imageDataFloatOffset = filmGetIndex() * 3;
 		
 		final float oldR = this.imageDataFloat[imageDataFloatOffset + 0];
 		final float oldG = this.imageDataFloat[imageDataFloatOffset + 1];
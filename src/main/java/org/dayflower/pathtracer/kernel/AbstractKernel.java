@@ -21,8 +21,7 @@ package org.dayflower.pathtracer.kernel;
 import static org.macroing.math4j.MathF.PI_DIVIDED_BY_180;
 import static org.macroing.math4j.MathF.PI_MULTIPLIED_BY_TWO;
 
-import java.util.concurrent.ThreadLocalRandom;
-
+import org.dayflower.pathtracer.util.IntArrayThreadLocal;
 import org.macroing.math4j.MathF;
 
 import com.amd.aparapi.Kernel;
@@ -32,7 +31,7 @@ import com.amd.aparapi.Kernel;
  * <p>
  * The features added are the following:
  * <ul>
- * <li>A pseudo-random number generator</li>
+ * <li>A stateless pseudo-random number generator</li>
  * <li>Constants such as {@code PI}</li>
  * <li>Methods that approximates sine and cosine based on tables</li>
  * <li>Methods that computes Perlin- and Simplex noise</li>
@@ -72,9 +71,13 @@ public abstract class AbstractKernel extends Kernel {
 	private static final int COS_TABLE_AND_SIN_TABLE_BITS = 12;
 	private static final int COS_TABLE_AND_SIN_TABLE_COUNT = ~(-1 << COS_TABLE_AND_SIN_TABLE_BITS) + 1;
 	private static final int COS_TABLE_AND_SIN_TABLE_MASK = ~(-1 << COS_TABLE_AND_SIN_TABLE_BITS);
-	private static final long PRNG_ADDEND = 0xBL;
-	private static final long PRNG_MASK = (1L << 48L) - 1L;
-	private static final long PRNG_MULTIPLIER = 0x5DEECE66DL;
+	private static final int PRNG_DIMENSION_INCREMENT = 0x9E3779B9;
+	private static final int PRNG_HASH_ADDEND = 0xAC564B05;
+	private static final int PRNG_HASH_MULTIPLIER_0 = 747796405;
+	private static final int PRNG_HASH_MULTIPLIER_1 = 277803737;
+	private static final int PRNG_STATE_DIMENSION = 1;
+	private static final int PRNG_STATE_KEY = 0;
+	private static final int SIZE_PRNG_STATE = 2;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
@@ -156,11 +159,13 @@ public abstract class AbstractKernel extends Kernel {
 	protected int[] noisePermutationsModulo12;
 	
 	/**
-	 * The seed array used by this {@code AbstractKernel} instance.
+	 * The state of the PRNG of the current work-item, which consists of a key and a dimension.
 	 * <p>
 	 * It appears that it cannot be private for Aparapi and OpenCL to work.
 	 */
-	protected long[] seeds;
+	protected int[] prngState_$private$2;
+	
+	private final ThreadLocal<int[]> prngStateThreadLocal;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
@@ -192,7 +197,8 @@ public abstract class AbstractKernel extends Kernel {
 		this.sinTable = new float[1];
 		
 //		Initialize the PRNG variables:
-		this.seeds = new long[this.resolutionX * this.resolutionY];
+		this.prngState_$private$2 = new int[SIZE_PRNG_STATE];
+		this.prngStateThreadLocal = new IntArrayThreadLocal(SIZE_PRNG_STATE);
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -290,7 +296,7 @@ public abstract class AbstractKernel extends Kernel {
 	/**
 	 * Updates all necessary variables in this {@code AbstractKernel} instance.
 	 * <p>
-	 * This method should not be called by {@code run()}-reachable code, because it uses a {@code ThreadLocalRandom} to update the PRNG.
+	 * This method should not be called by {@code run()}-reachable code, because it creates the tables used by the noise, sine and cosine methods.
 	 * 
 	 * @param resolutionX the resolution along the X-axis
 	 * @param resolutionY the resolution along the Y-axis
@@ -300,7 +306,6 @@ public abstract class AbstractKernel extends Kernel {
 		doUpdateCosTable();
 		doUpdateSinTable();
 		doUpdateNoise();
-		doUpdateSeed();
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -431,7 +436,7 @@ public abstract class AbstractKernel extends Kernel {
 	/**
 	 * Returns the next pseudorandom, uniformly distributed {@code float} value between {@code 0.0} and {@code 1.0} from the random number generator's sequence.
 	 * <p>
-	 * This method is intended to be used by {@code run()}-reachable code.
+	 * This method is intended to be used by {@code run()}-reachable code, after {@link #prngBegin(int, int)} has been called by the current work-item.
 	 * 
 	 * @return the next pseudorandom, uniformly distributed {@code float} value between {@code 0.0} and {@code 1.0} from the random number generator's sequence
 	 */
@@ -1096,17 +1101,59 @@ public abstract class AbstractKernel extends Kernel {
 		return this.resolutionY;
 	}
 	
+	/**
+	 * Returns the dimension of the PRNG of the current work-item, which is the number of values it has returned since {@link #prngBegin(int, int)} was called.
+	 * <p>
+	 * This method is intended to be used by {@code run()}-reachable code that has to continue a sequence in a later render pass.
+	 * 
+	 * @return the dimension of the PRNG of the current work-item
+	 */
+	protected final int prngGetDimension() {
+		return this.prngState_$private$2[PRNG_STATE_DIMENSION];
+	}
+	
+	/**
+	 * Begins a new sequence for the PRNG of the current work-item.
+	 * <p>
+	 * The PRNG is stateless in the sense that the {@code n}th value of a sequence only depends on {@code index}, {@code sample} and {@code n}. So the same pixel and sample always produce the same values, regardless of the work-item or render pass that
+	 * computes them.
+	 * <p>
+	 * This method is intended to be used by {@code run()}-reachable code, once per sample.
+	 * 
+	 * @param index the index of the pixel
+	 * @param sample the index of the sample of the pixel
+	 */
+	protected final void prngBegin(final int index, final int sample) {
+		doNoOpenCL();
+		
+		this.prngState_$private$2[PRNG_STATE_KEY] = doHash(doHash(sample) + index);
+		this.prngState_$private$2[PRNG_STATE_DIMENSION] = 0;
+	}
+	
+	/**
+	 * Sets the dimension of the PRNG of the current work-item.
+	 * <p>
+	 * This method is intended to be used by {@code run()}-reachable code, together with {@link #prngGetDimension()}, to continue a sequence in a later render pass.
+	 * 
+	 * @param dimension the dimension of the PRNG of the current work-item
+	 */
+	protected final void prngSetDimension(final int dimension) {
+		this.prngState_$private$2[PRNG_STATE_DIMENSION] = dimension;
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private int doNext(final int bits) {
-		final int index = getGlobalId();
-		
-		final long oldSeed = this.seeds[index];
-		final long newSeed = (oldSeed * PRNG_MULTIPLIER + PRNG_ADDEND) & PRNG_MASK;
+		final int dimension = this.prngState_$private$2[PRNG_STATE_DIMENSION];
 		
-		this.seeds[index] = newSeed;
+		this.prngState_$private$2[PRNG_STATE_DIMENSION] = dimension + 1;
 		
-		return (int)(newSeed >>> (48 - bits));
+		return doHash(this.prngState_$private$2[PRNG_STATE_KEY] + dimension * PRNG_DIMENSION_INCREMENT) >>> (32 - bits);
+	}
+	
+	@NoCL
+	private void doNoOpenCL() {
+		this.prngState_$private$2 = this.prngStateThreadLocal.get();
 	}
 	
 	private void doUpdateCosTable() {
@@ -1145,16 +1192,6 @@ public abstract class AbstractKernel extends Kernel {
 		this.resolutionY = resolutionY;
 	}
 	
-	private void doUpdateSeed() {
-		this.seeds = new long[this.resolutionX * this.resolutionY];
-		
-		for(int i = 0; i < this.seeds.length; i++) {
-			this.seeds[i] = ThreadLocalRandom.current().nextLong();
-		}
-		
-		put(this.seeds);
-	}
-	
 	private void doUpdateSinTable() {
 		this.sinTable = new float[COS_TABLE_AND_SIN_TABLE_COUNT];
 		
@@ -1188,4 +1225,12 @@ public abstract class AbstractKernel extends Kernel {
 		
 		return value < i ? i - 1 : i;
 	}
+	
+	private static int doHash(final int value) {
+//		This is the PCG hash, which permutes a 32-bit value using one step of a PCG generator followed by its output permutation:
+		final int state = value * PRNG_HASH_MULTIPLIER_0 + PRNG_HASH_ADDEND;
+		final int word = ((state >>> ((state >>> 28) + 4)) ^ state) * PRNG_HASH_MULTIPLIER_1;
+		
+		return (word >>> 22) ^ word;
+	}
 }
\ No newline at end of file
@@ -74,6 +74,11 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 	 */
 	public static final int RENDERER_TYPE_SURFACE_NORMALS = 6;
 	
+	/**
+	 * The renderer type for rendering the bounding volume hierarchy traversal statistics as a heatmap, which is {@code 7}.
+	 */
+	public static final int RENDERER_TYPE_TRAVERSAL_STATISTICS = 7;
+	
 	/**
 	 * The shader type for flat shading, which is {@code 1}.
 	 */
@@ -111,11 +116,26 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 	 */
 	protected float rendererAOMaximumDistance;
 	
+	/**
+	 * The maximum standard error of a pixel relative to its mean luminance for adaptive sampling.
+	 */
+	protected float rendererAdaptiveSamplingThreshold;
+	
 	/**
 	 * The tone mapper exposure.
 	 */
 	protected float toneMapperExposure;
 	
+	/**
+	 * The adaptive sampling state for the renderer.
+	 */
+	protected int rendererAdaptiveSampling;
+	
+	/**
+	 * The minimum number of samples of a pixel for adaptive sampling.
+	 */
+	protected int rendererAdaptiveSamplingMinimumSamples;
+	
 	/**
 	 * The normal mapping state for the renderer.
 	 */
@@ -131,6 +151,16 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 	 */
 	protected int rendererPTRayDepthRussianRoulette;
 	
+	/**
+	 * The wavefront state for Path Tracing.
+	 */
+	protected int rendererPTWavefront;
+	
+	/**
+	 * The number of samples per pixel that are rendered in each render pass.
+	 */
+	protected int rendererSamplesPerLaunch;
+	
 	/**
 	 * The renderer type.
 	 */
@@ -170,10 +200,15 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 	 */
 	protected AbstractRendererKernel(final SceneLoader sceneLoader) {
 		this.rendererAOMaximumDistance = 200.0F;
+		this.rendererAdaptiveSamplingThreshold = 0.01F;
 		this.toneMapperExposure = 1.0F;
+		this.rendererAdaptiveSampling = BOOLEAN_FALSE;
+		this.rendererAdaptiveSamplingMinimumSamples = 16;
 		this.rendererNormalMapping = BOOLEAN_TRUE;
 		this.rendererPTRayDepthMaximum = 5;
 		this.rendererPTRayDepthRussianRoulette = 5;
+		this.rendererPTWavefront = BOOLEAN_FALSE;
+		this.rendererSamplesPerLaunch = 1;
 		this.rendererType = RENDERER_TYPE_PATH_TRACER;
 		this.rendererWireframes = BOOLEAN_FALSE;
 		this.shaderType = SHADER_TYPE_GOURAUD;
@@ -293,6 +328,15 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		return this.rendererType == RENDERER_TYPE_SURFACE_NORMALS;
 	}
 	
+	/**
+	 * Returns {@code true} if, and only if, the renderer type is traversal statistics, {@code false} otherwise.
+	 * 
+	 * @return {@code true} if, and only if, the renderer type is traversal statistics, {@code false} otherwise
+	 */
+	public final boolean isRendererTypeTraversalStatistics() {
+		return this.rendererType == RENDERER_TYPE_TRAVERSAL_STATISTICS;
+	}
+	
 	/**
 	 * Returns the maximum distance for Ambient Occlusion.
 	 * 
@@ -302,6 +346,15 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		return this.rendererAOMaximumDistance;
 	}
 	
+	/**
+	 * Returns the maximum standard error of a pixel relative to its mean luminance for adaptive sampling.
+	 * 
+	 * @return the maximum standard error of a pixel relative to its mean luminance for adaptive sampling
+	 */
+	public final float getRendererAdaptiveSamplingThreshold() {
+		return this.rendererAdaptiveSamplingThreshold;
+	}
+	
 	/**
 	 * Returns the exposure for the tone mapper.
 	 * 
@@ -311,6 +364,33 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		return this.toneMapperExposure;
 	}
 	
+	/**
+	 * Returns the number of passes that {@code execute(range, passes)} should be called with to render one frame.
+	 * <p>
+	 * This is {@code 1}, unless the renderer is split up into multiple stages, such as the wavefront mode for Path Tracing.
+	 * 
+	 * @return the number of passes that {@code execute(range, passes)} should be called with to render one frame
+	 */
+	public abstract int getPasses();
+	
+	/**
+	 * Returns the adaptive sampling state for the renderer.
+	 * 
+	 * @return the adaptive sampling state for the renderer
+	 */
+	public final int getRendererAdaptiveSampling() {
+		return this.rendererAdaptiveSampling;
+	}
+	
+	/**
+	 * Returns the minimum number of samples of a pixel for adaptive sampling.
+	 * 
+	 * @return the minimum number of samples of a pixel for adaptive sampling
+	 */
+	public final int getRendererAdaptiveSamplingMinimumSamples() {
+		return this.rendererAdaptiveSamplingMinimumSamples;
+	}
+	
 	/**
 	 * Returns the normal mapping state for the renderer.
 	 * 
@@ -338,6 +418,24 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		return this.rendererPTRayDepthRussianRoulette;
 	}
 	
+	/**
+	 * Returns the wavefront state for Path Tracing.
+	 * 
+	 * @return the wavefront state for Path Tracing
+	 */
+	public final int getRendererPTWavefront() {
+		return this.rendererPTWavefront;
+	}
+	
+	/**
+	 * Returns the number of samples per pixel that are rendered in each render pass.
+	 * 
+	 * @return the number of samples per pixel that are rendered in each render pass
+	 */
+	public final int getRendererSamplesPerLaunch() {
+		return this.rendererSamplesPerLaunch;
+	}
+	
 	/**
 	 * Returns the renderer type that is currently enabled.
 	 * 
@@ -372,6 +470,24 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		return this.shaderType;
 	}
 	
+	/**
+	 * Returns the total number of bounding volume hierarchy nodes visited by the primary rays in the last run.
+	 * <p>
+	 * The count is only updated while the renderer type is {@code RENDERER_TYPE_TRAVERSAL_STATISTICS}.
+	 * 
+	 * @return the total number of bounding volume hierarchy nodes visited by the primary rays in the last run
+	 */
+	public abstract long getTraversalStatisticsNodeCount();
+	
+	/**
+	 * Returns the total number of triangles tested by the primary rays in the last run.
+	 * <p>
+	 * The count is only updated while the renderer type is {@code RENDERER_TYPE_TRAVERSAL_STATISTICS}.
+	 * 
+	 * @return the total number of triangles tested by the primary rays in the last run
+	 */
+	public abstract long getTraversalStatisticsTriangleCount();
+	
 	/**
 	 * Sets the changed state for this {@code AbstractRendererKernel} instance.
 	 * <p>
@@ -396,6 +512,62 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		}
 	}
 	
+	/**
+	 * Sets the adaptive sampling state for the renderer.
+	 * <p>
+	 * The adaptive sampling state can be one of:
+	 * <ul>
+	 * <li>{@code BOOLEAN_FALSE}</li>
+	 * <li>{@code BOOLEAN_TRUE}</li>
+	 * </ul>
+	 * <p>
+	 * If adaptive sampling is enabled, the pixels that have converged are no longer sampled. See {@link #setRendererAdaptiveSamplingThreshold(float)}.
+	 * 
+	 * @param rendererAdaptiveSampling the adaptive sampling state for the renderer
+	 */
+	public final void setRendererAdaptiveSampling(final int rendererAdaptiveSampling) {
+		if(this.rendererAdaptiveSampling != rendererAdaptiveSampling) {
+			switch(rendererAdaptiveSampling) {
+				case BOOLEAN_FALSE:
+				case BOOLEAN_TRUE:
+					this.rendererAdaptiveSampling = rendererAdaptiveSampling;
+					this.hasChanged = true;
+					
+					break;
+				default:
+					break;
+			}
+		}
+	}
+	
+	/**
+	 * Sets the minimum number of samples of a pixel for adaptive sampling.
+	 * <p>
+	 * If {@code rendererAdaptiveSamplingMinimumSamples} is less than {@code 2}, nothing will happen.
+	 * 
+	 * @param rendererAdaptiveSamplingMinimumSamples the minimum number of samples of a pixel for adaptive sampling
+	 */
+	public final void setRendererAdaptiveSamplingMinimumSamples(final int rendererAdaptiveSamplingMinimumSamples) {
+		if(this.rendererAdaptiveSamplingMinimumSamples != rendererAdaptiveSamplingMinimumSamples && rendererAdaptiveSamplingMinimumSamples >= 2) {
+			this.rendererAdaptiveSamplingMinimumSamples = rendererAdaptiveSamplingMinimumSamples;
+			this.hasChanged = true;
+		}
+	}
+	
+	/**
+	 * Sets the maximum standard error of a pixel relative to its mean luminance for adaptive sampling.
+	 * <p>
+	 * A pixel has converged if it has at least the minimum number of samples and the standard error of the mean of the luminance of its samples is at most {@code rendererAdaptiveSamplingThreshold} times that mean.
+	 * 
+	 * @param rendererAdaptiveSamplingThreshold the maximum standard error of a pixel relative to its mean luminance for adaptive sampling
+	 */
+	public final void setRendererAdaptiveSamplingThreshold(final float rendererAdaptiveSamplingThreshold) {
+		if(Float.compare(this.rendererAdaptiveSamplingThreshold, rendererAdaptiveSamplingThreshold) != 0) {
+			this.rendererAdaptiveSamplingThreshold = rendererAdaptiveSamplingThreshold;
+			this.hasChanged = true;
+		}
+	}
+	
 	/**
 	 * Sets the normal mapping state for the renderer.
 	 * <p>
@@ -446,6 +618,48 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		}
 	}
 	
+	/**
+	 * Sets the wavefront state for Path Tracing.
+	 * <p>
+	 * The wavefront state can be one of:
+	 * <ul>
+	 * <li>{@code BOOLEAN_FALSE}</li>
+	 * <li>{@code BOOLEAN_TRUE}</li>
+	 * </ul>
+	 * 
+	 * @param rendererPTWavefront the wavefront state for Path Tracing
+	 */
+	public final void setRendererPTWavefront(final int rendererPTWavefront) {
+		if(this.rendererPTWavefront != rendererPTWavefront) {
+			switch(rendererPTWavefront) {
+				case BOOLEAN_FALSE:
+				case BOOLEAN_TRUE:
+					this.rendererPTWavefront = rendererPTWavefront;
+					this.hasChanged = true;
+					
+					break;
+				default:
+					break;
+			}
+		}
+	}
+	
+	/**
+	 * Sets the number of samples per pixel that are rendered in each render pass.
+	 * <p>
+	 * Rendering more than one sample per pixel in each render pass amortizes the cost of the render pass itself, such as reading back and post-processing the image, at the expense of a lower frame rate.
+	 * <p>
+	 * If {@code rendererSamplesPerLaunch} is less than {@code 1}, nothing will happen.
+	 * 
+	 * @param rendererSamplesPerLaunch the number of samples per pixel that are rendered in each render pass
+	 */
+	public final void setRendererSamplesPerLaunch(final int rendererSamplesPerLaunch) {
+		if(this.rendererSamplesPerLaunch != rendererSamplesPerLaunch && rendererSamplesPerLaunch >= 1) {
+			this.rendererSamplesPerLaunch = rendererSamplesPerLaunch;
+			this.hasChanged = true;
+		}
+	}
+	
 	/**
 	 * Sets the renderer type.
 	 * <p>
@@ -457,6 +671,7 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 	 * <li>{@code RENDERER_TYPE_RAY_MARCHER}</li>
 	 * <li>{@code RENDERER_TYPE_RAY_TRACER}</li>
 	 * <li>{@code RENDERER_TYPE_SURFACE_NORMALS}</li>
+	 * <li>{@code RENDERER_TYPE_TRAVERSAL_STATISTICS}</li>
 	 * </ul>
 	 * 
 	 * @param rendererType the renderer type
@@ -470,6 +685,7 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 				case RENDERER_TYPE_RAY_MARCHER:
 				case RENDERER_TYPE_RAY_TRACER:
 				case RENDERER_TYPE_SURFACE_NORMALS:
+				case RENDERER_TYPE_TRAVERSAL_STATISTICS:
 					this.rendererType = rendererType;
 					this.hasChanged = true;
 					
@@ -587,6 +803,26 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 	 */
 	public abstract void togglePrimitiveSelection(final int x, final int y);
 	
+	/**
+	 * Toggles the adaptive sampling state for the renderer.
+	 */
+	public final void toggleRendererAdaptiveSampling() {
+		switch(this.rendererAdaptiveSampling) {
+			case BOOLEAN_FALSE:
+				this.rendererAdaptiveSampling = BOOLEAN_TRUE;
+				this.hasChanged = true;
+				
+				break;
+			case BOOLEAN_TRUE:
+				this.rendererAdaptiveSampling = BOOLEAN_FALSE;
+				this.hasChanged = true;
+				
+				break;
+			default:
+				break;
+		}
+	}
+	
 	/**
 	 * Toggles the normal mapping state for the renderer.
 	 */
@@ -607,6 +843,26 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 		}
 	}
 	
+	/**
+	 * Toggles the wavefront state for Path Tracing.
+	 */
+	public final void toggleRendererPTWavefront() {
+		switch(this.rendererPTWavefront) {
+			case BOOLEAN_FALSE:
+				this.rendererPTWavefront = BOOLEAN_TRUE;
+				this.hasChanged = true;
+				
+				break;
+			case BOOLEAN_TRUE:
+				this.rendererPTWavefront = BOOLEAN_FALSE;
+				this.hasChanged = true;
+				
+				break;
+			default:
+				break;
+		}
+	}
+	
 	/**
 	 * Toggles to the next renderer type.
 	 */
@@ -638,6 +894,11 @@ public abstract class AbstractRendererKernel extends AbstractImageKernel {
 				
 				break;
 			case RENDERER_TYPE_SURFACE_NORMALS:
+				this.rendererType = RENDERER_TYPE_TRAVERSAL_STATISTICS;
+				this.hasChanged = true;
+				
+				break;
+			case RENDERER_TYPE_TRAVERSAL_STATISTICS:
 				this.rendererType = RENDERER_TYPE_AMBIENT_OCCLUSION;
 				this.hasChanged = true;
 				
@@ -65,6 +65,16 @@ public final class CPURendererKernel extends AbstractRendererKernel {
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * Returns the number of passes that {@code execute(range, passes)} should be called with to render one frame.
+	 * 
+	 * @return the number of passes that {@code execute(range, passes)} should be called with to render one frame
+	 */
+	@Override
+	public int getPasses() {
+		return 1;
+	}
+	
 	/**
 	 * Returns the selected {@link Primitive} index or {@code -1} if no {@code Primitive} has been selected.
 	 * 
@@ -75,31 +85,71 @@ public final class CPURendererKernel extends AbstractRendererKernel {
 		return this.selectedPrimitiveIndex;
 	}
 	
+	/**
+	 * Returns the total number of bounding volume hierarchy nodes visited by the primary rays in the last run.
+	 * <p>
+	 * The count is only updated while the renderer type is {@code RENDERER_TYPE_TRAVERSAL_STATISTICS}.
+	 * 
+	 * @return the total number of bounding volume hierarchy nodes visited by the primary rays in the last run
+	 */
+	@Override
+	public long getTraversalStatisticsNodeCount() {
+//		TODO: Implement!
+		return 0L;
+	}
+	
+	/**
+	 * Returns the total number of triangles tested by the primary rays in the last run.
+	 * <p>
+	 * The count is only updated while the renderer type is {@code RENDERER_TYPE_TRAVERSAL_STATISTICS}.
+	 * 
+	 * @return the total number of triangles tested by the primary rays in the last run
+	 */
+	@Override
+	public long getTraversalStatisticsTriangleCount() {
+//		TODO: Implement!
+		return 0L;
+	}
+	
 	/**
 	 * Performs the rendering.
 	 */
 	@Override
 	public void run() {
-		if(doCreatePrimaryRay()) {
-			final SceneLoader sceneLoader = getSceneLoader();
-			
-			final Scene scene = sceneLoader.loadScene();
-			
-			final Optional<PrimitiveIntersection> optionalPrimitiveIntersection = scene.intersection(doGetPrimaryRay());
+		if(!filmHasIndex()) {
+			return;
+		}
+		
+		filmBegin();
+		
+		for(int sample = 0; sample < super.rendererSamplesPerLaunch; sample++) {
+			prngBegin(filmGetIndex(), filmGetSamples());
 			
-			if(optionalPrimitiveIntersection.isPresent()) {
-				final PrimitiveIntersection primitiveIntersection = optionalPrimitiveIntersection.get();
+			if(doCreatePrimaryRay()) {
+				final SceneLoader sceneLoader = getSceneLoader();
 				
-				final Texture textureEmission = primitiveIntersection.getPrimitive().getSurface().getTextureAlbedo();
+				final Scene scene = sceneLoader.loadScene();
 				
-				final Color color = textureEmission.getColor(primitiveIntersection);
+				final Optional<PrimitiveIntersection> optionalPrimitiveIntersection = scene.intersection(doGetPrimaryRay());
 				
-				filmAddColor(color.r, color.g, color.b);
+				if(optionalPrimitiveIntersection.isPresent()) {
+					final PrimitiveIntersection primitiveIntersection = optionalPrimitiveIntersection.get();
+					
+					final Texture textureEmission = primitiveIntersection.getPrimitive().getSurface().getTextureAlbedo();
+					
+					final Color color = textureEmission.getColor(primitiveIntersection);
+					
+					filmAddColor(color.r, color.g, color.b);
+				} else {
+					filmAddColor(0.0F, 0.0F, 0.0F);
+				}
 			} else {
-				filmAddColor(0.0F, 0.0F, 0.0F);
+				filmSetColor(0.0F, 0.0F, 0.0F);
 			}
-		} else {
-			filmSetColor(0.0F, 0.0F, 0.0F);
+		}
+		
+		if(super.rendererAdaptiveSampling == BOOLEAN_TRUE) {
+			filmRetainIfNotConverged(super.rendererAdaptiveSamplingThreshold, super.rendererAdaptiveSamplingMinimumSamples);
 		}
 		
 		imageBegin();
@@ -205,15 +255,12 @@ public final class CPURendererKernel extends AbstractRendererKernel {
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private Ray3F doGetPrimaryRay() {
-		return this.primaryRays[getGlobalId()];
+		return this.primaryRays[filmGetIndex()];
 	}
 	
 	private boolean doCreatePrimaryRay() {
-//		Retrieve the global ID:
-		final int globalId = getGlobalId();
-		
-//		Retrieve the index:
-		final int index = globalId;
+//		Retrieve the index of the current pixel:
+		final int index = filmGetIndex();
 		
 //		Calculate the X- and Y-coordinates on the screen:
 		final int y = index / super.resolutionX;
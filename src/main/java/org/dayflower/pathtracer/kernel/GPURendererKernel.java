@@ -34,6 +34,8 @@ import org.dayflower.pathtracer.scene.Sky;
 import org.dayflower.pathtracer.scene.Surface;
 import org.dayflower.pathtracer.scene.Texture;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.PrimitiveBoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.WideBoundingVolumeHierarchy;
 import org.dayflower.pathtracer.scene.compiler.CompiledScene;
 import org.dayflower.pathtracer.scene.loader.SceneLoader;
 import org.dayflower.pathtracer.scene.material.ClearCoatMaterial;
@@ -55,6 +57,7 @@ import org.dayflower.pathtracer.scene.texture.ImageTexture;
 import org.dayflower.pathtracer.scene.texture.SurfaceNormalTexture;
 import org.dayflower.pathtracer.scene.texture.UVTexture;
 import org.dayflower.pathtracer.util.FloatArrayThreadLocal;
+import org.dayflower.pathtracer.util.IntArrayThreadLocal;
 import org.macroing.math4j.Matrix44F;
 
 /**
@@ -68,6 +71,10 @@ import org.macroing.math4j.Matrix44F;
  * <li>Ray Marcher</li>
  * <li>Ray Tracer</li>
  * </ul>
+ * <p>
+ * It can also render the number of bounding volume hierarchy nodes visited and triangles tested by the primary rays as a heatmap.
+ * <p>
+ * The Path Tracer can also run in a wavefront mode, where the generate, extend, shade and connect stages are performed in separate passes over queues of the paths that are still alive.
  * 
  * @since 1.0.0
  * @author J&#246;rgen Lundgren
@@ -76,6 +83,12 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 	private static final float COLOR_RECIPROCAL = 1.0F / 255.0F;
 	private static final float REFRACTIVE_INDEX_AIR = 1.0F;
 	private static final float REFRACTIVE_INDEX_GLASS = 1.5F;
+	private static final int BOUNDING_VOLUME_HIERARCHY_STATE_FROM_CHILD = 0;
+	private static final int BOUNDING_VOLUME_HIERARCHY_STATE_FROM_PARENT = 1;
+	private static final int BOUNDING_VOLUME_HIERARCHY_STATE_FROM_SIBLING = 2;
+	private static final int PATH_QUEUE_CONNECT = 4;
+	private static final int PATH_QUEUE_EXTEND = 0;
+	private static final int PATH_QUEUE_SHADE = 2;
 	private static final int RELATIVE_OFFSET_INTERSECTION_DISTANCE = 0;
 	private static final int RELATIVE_OFFSET_INTERSECTION_ORTHO_NORMAL_BASIS_U = 10;
 	private static final int RELATIVE_OFFSET_INTERSECTION_ORTHO_NORMAL_BASIS_V = 13;
@@ -88,14 +101,29 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 	private static final int RELATIVE_OFFSET_INTERSECTION_SURFACE_NORMAL_SHADING = 19;
 	private static final int RELATIVE_OFFSET_INTERSECTION_SURFACE_TANGENT = 24;
 	private static final int RELATIVE_OFFSET_INTERSECTION_TEXTURE_COORDINATES = 8;
+	private static final int RELATIVE_OFFSET_PATH_COLOR = 9;
+	private static final int RELATIVE_OFFSET_PATH_DIRECTION = 3;
+	private static final int RELATIVE_OFFSET_PATH_ORIGIN = 0;
+	private static final int RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER = 6;
+	private static final int RELATIVE_OFFSET_PATH_STATE_INTERSECTION = 12;
+	private static final int RELATIVE_OFFSET_PATH_STATE_IS_VALID = 16;
+	private static final int RELATIVE_OFFSET_PATH_STATE_PRNG = 17;
 	private static final int SIZE_COLOR_RGB = 3;
 	private static final int SIZE_INTERSECTION = 27;
 	private static final int SIZE_MATRIX = 16;
+	private static final int SIZE_PATH = 12;
+	private static final int SIZE_PATH_QUEUE_SIZES = 5;
+	private static final int SIZE_PATH_STATE = 20;
 	private static final int SIZE_RAY = 6;
+	private static final int SIZE_TRAVERSAL_STATISTICS = 2;
+	private static final int TRAVERSAL_STATISTICS_MAXIMUM = 128;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	private final PrimitiveBoundingVolumeHierarchy primitiveBoundingVolumeHierarchy;
+	private final ThreadLocal<int[]> boundingVolumeHierarchyStackThreadLocal;
 	private final ThreadLocal<float[]> colorTemporarySamplesThreadLocal;
+	private final ThreadLocal<float[]> pathsThreadLocal;
 	private final ThreadLocal<float[]> raysThreadLocal;
 	private double sunAndSkyZenithRelativeLuminance;
 	private double sunAndSkyZenithX;
@@ -126,32 +154,45 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 	private float sunAndSkySunOriginZ;
 	private float sunAndSkyTheta;
 	private float[] colorTemporarySamples_$private$3;
+	private float[] sceneBoundingVolumeHierarchiesWide_$constant$;
 	private float[] sceneCamera_$constant$;
 	private float[] scenePoint2Fs_$constant$;
 	private float[] scenePoint3Fs_$constant$;
+	private float[] scenePrimitivesBoundingVolumeHierarchyBounds_$constant$;
 	private float[] scenePrimitivesObjectToWorld_$constant$;
 	private float[] scenePrimitivesWorldToObject_$constant$;
 	private float[] sceneSpheres_$constant$;
 	private float[] sceneSurfaces_$constant$;
 	private float[] sceneTerrains_$constant$;
 	private float[] sceneTextures_$constant$;
+	private float[] sceneTrianglesPrecomputed_$constant$;
 	private float[] sceneVector3Fs_$constant$;
 	private float[] sunAndSkyColHistogram_$constant$;
 	private float[] sunAndSkyImageHistogram_$constant$;
 	private float[] intersections_$local$;
+	private float[] pathStates;
+	private float[] paths_$private$12;
 	private float[] rays_$private$6;
+	private int boundingVolumeHierarchyIsTraversalOrdered;
 	private int scenePrimitivesCount;
+	private int sceneTrianglesIsPrecomputed;
 //	private int scenePrimitivesEmittingLightCount;
 	private int selectedPrimitiveIndex = -1;
 	private int selectedPrimitiveOffset = -1;
 	private int sunAndSkyIsSkyActive;
 	private int sunAndSkyIsSunActive;
+	private int[] boundingVolumeHierarchyStack_$private$64;
+	private int[] pathQueueSizes;
+	private int[] pathQueues;
 	private int[] primitiveOffsets;
 	private int[] sceneBoundingVolumeHierarchies_$constant$;
 	private int[] scenePlanes_$constant$;
 	private int[] scenePrimitives_$constant$;
+	private int[] scenePrimitivesBoundingVolumeHierarchy_$constant$;
 //	private int[] scenePrimitivesEmittingLight_$constant$;
+	private int[] scenePrimitivesUnbounded_$constant$;
 	private int[] sceneTriangles_$constant$;
+	private int[] traversalStatistics;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
@@ -176,27 +217,40 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		
 		final Sky sky = scene.getSky();
 		
+		this.boundingVolumeHierarchyStackThreadLocal = new IntArrayThreadLocal(WideBoundingVolumeHierarchy.STACK_SIZE);
 		this.colorTemporarySamplesThreadLocal = new FloatArrayThreadLocal(SIZE_COLOR_RGB);
+		this.pathsThreadLocal = new FloatArrayThreadLocal(SIZE_PATH);
 		this.raysThreadLocal = new FloatArrayThreadLocal(SIZE_RAY);
 		
 //		Initialize the scene variables:
+		this.sceneBoundingVolumeHierarchiesWide_$constant$ = compiledScene.getBoundingVolumeHierarchiesWide();
 		this.sceneCamera_$constant$ = compiledScene.getCamera();
 		this.scenePoint2Fs_$constant$ = compiledScene.getPoint2Fs();
 		this.scenePoint3Fs_$constant$ = compiledScene.getPoint3Fs();
+		this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$ = compiledScene.getPrimitivesBoundingVolumeHierarchyBounds();
 		this.scenePrimitivesObjectToWorld_$constant$ = compiledScene.getPrimitivesObjectToWorld();
 		this.scenePrimitivesWorldToObject_$constant$ = compiledScene.getPrimitivesWorldToObject();
 		this.sceneSpheres_$constant$ = compiledScene.getSpheres();
 		this.sceneSurfaces_$constant$ = compiledScene.getSurfaces();
 		this.sceneTerrains_$constant$ = compiledScene.getTerrains();
 		this.sceneTextures_$constant$ = compiledScene.getTextures();
+		this.sceneTrianglesPrecomputed_$constant$ = compiledScene.getTrianglesPrecomputed();
 		this.sceneVector3Fs_$constant$ = compiledScene.getVector3Fs();
 		this.sceneBoundingVolumeHierarchies_$constant$ = compiledScene.getBoundingVolumeHierarchies();
 		this.scenePlanes_$constant$ = compiledScene.getPlanes();
 		this.scenePrimitives_$constant$ = compiledScene.getPrimitives();
+		this.scenePrimitivesBoundingVolumeHierarchy_$constant$ = compiledScene.getPrimitivesBoundingVolumeHierarchy();
 		this.scenePrimitivesCount = this.scenePrimitives_$constant$.length / Primitive.SIZE;
 //		this.scenePrimitivesEmittingLight_$constant$ = compiledScene.getPrimitivesEmittingLight();
 //		this.scenePrimitivesEmittingLightCount = this.scenePrimitivesEmittingLight_$constant$[0];
+		this.scenePrimitivesUnbounded_$constant$ = compiledScene.getPrimitivesUnbounded();
 		this.sceneTriangles_$constant$ = compiledScene.getTriangles();
+		this.sceneTrianglesIsPrecomputed = this.sceneTrianglesPrecomputed_$constant$.length > 1 ? BOOLEAN_TRUE : BOOLEAN_FALSE;
+		
+		this.primitiveBoundingVolumeHierarchy = new PrimitiveBoundingVolumeHierarchy(this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$, this.scenePrimitivesBoundingVolumeHierarchy_$constant$, this.scenePrimitivesUnbounded_$constant$);
+		
+//		The binary BVH structures are traversed near-first by following the links to the parent nodes, unless the skip pointers are selected by 'setBoundingVolumeHierarchyTraversalOrdered':
+		this.boundingVolumeHierarchyIsTraversalOrdered = BOOLEAN_TRUE;
 		
 //		Initialize the sun and sky variables:
 		this.sunAndSkyColHistogram_$constant$ = sky.getColHistogram();
@@ -235,6 +289,29 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * Returns {@code true} if, and only if, the binary bounding volume hierarchies are traversed near-first, {@code false} otherwise.
+	 * <p>
+	 * By default, the binary bounding volume hierarchies are traversed near-first.
+	 * 
+	 * @return {@code true} if, and only if, the binary bounding volume hierarchies are traversed near-first, {@code false} otherwise
+	 */
+	public boolean isBoundingVolumeHierarchyTraversalOrdered() {
+		return this.boundingVolumeHierarchyIsTraversalOrdered == BOOLEAN_TRUE;
+	}
+	
+	/**
+	 * Returns the number of passes that {@code execute(range, passes)} should be called with to render one frame.
+	 * <p>
+	 * If the wavefront mode for Path Tracing is enabled, each pass performs one of its stages. Otherwise this is {@code 1}.
+	 * 
+	 * @return the number of passes that {@code execute(range, passes)} should be called with to render one frame
+	 */
+	@Override
+	public int getPasses() {
+		return doGetPasses();
+	}
+	
 	/**
 	 * Returns the selected {@link Primitive} index or {@code -1} if no {@code Primitive} has been selected.
 	 * 
@@ -245,41 +322,106 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		return this.selectedPrimitiveIndex;
 	}
 	
+	/**
+	 * Returns the total number of bounding volume hierarchy nodes visited by the primary rays in the last run.
+	 * <p>
+	 * The count is only updated while the renderer type is {@code RENDERER_TYPE_TRAVERSAL_STATISTICS}.
+	 * 
+	 * @return the total number of bounding volume hierarchy nodes visited by the primary rays in the last run
+	 */
+	@Override
+	public long getTraversalStatisticsNodeCount() {
+		return doGetTraversalStatisticsCount(0);
+	}
+	
+	/**
+	 * Returns the total number of triangles tested by the primary rays in the last run.
+	 * <p>
+	 * The count is only updated while the renderer type is {@code RENDERER_TYPE_TRAVERSAL_STATISTICS}.
+	 * 
+	 * @return the total number of triangles tested by the primary rays in the last run
+	 */
+	@Override
+	public long getTraversalStatisticsTriangleCount() {
+		return doGetTraversalStatisticsCount(1);
+	}
+	
 	/**
 	 * Performs the rendering.
 	 */
 	@Override
 	public void run() {
+//		The range may be larger than the number of pixels that are sampled with adaptive sampling, so the remaining work-items have nothing to do:
+		if(!filmHasIndex()) {
+			return;
+		}
+		
 		doNoOpenCL();
 		
 		final boolean isSkyActive = this.sunAndSkyIsSkyActive == BOOLEAN_TRUE;
 		final boolean isSunActive = this.sunAndSkyIsSunActive == BOOLEAN_TRUE;
 		
-		if(doCreatePrimaryRay()) {
-			if(super.rendererType == RENDERER_TYPE_AMBIENT_OCCLUSION) {
-				doRenderWithAmbientOcclusion(1.0F, 1.0F, 1.0F, 0.0F, 0.0F, 0.0F);
-			} else if(super.rendererType == RENDERER_TYPE_PATH_TRACER) {
-				doRenderWithPathTracer(isSkyActive, isSunActive);
-			} else if(super.rendererType == RENDERER_TYPE_RAY_CASTER) {
-				doRenderWithRayCaster(isSkyActive);
-			} else if(super.rendererType == RENDERER_TYPE_RAY_MARCHER) {
-				doRenderWithRayMarcher(isSkyActive);
-			} else if(super.rendererType == RENDERER_TYPE_RAY_TRACER) {
-				doRenderWithRayTracer(isSkyActive);
-			} else if(super.rendererType == RENDERER_TYPE_SURFACE_NORMALS) {
-				doRenderSurfaceNormals(isSkyActive);
+		final int passes = doGetPasses();
+		final int pass = getPassId();
+		final int samplesPerLaunch = max(super.rendererSamplesPerLaunch, 1);
+		
+//		The film is reset, if it should be cleared, before the first sample of the first pass is added to it:
+		if(pass == 0) {
+			filmBegin();
+		}
+		
+		if(passes > 1) {
+//			The wavefront mode for Path Tracing performs one stage per pass, where the last stage of each sample resolves its paths into the film:
+			final int passesPerSample = passes / samplesPerLaunch;
+			final int passOfSample = pass % passesPerSample;
+			
+			if(passOfSample + 1 < passesPerSample) {
+				doRenderWithPathTracerWavefront(isSkyActive, isSunActive, passOfSample);
 			} else {
-				doRenderWithPathTracer(isSkyActive, isSunActive);
+				doPathTracerWavefrontResolve();
 			}
 			
-			if(super.rendererWireframes == BOOLEAN_TRUE) {
-				doRenderWireframes();
+//			Only the last pass writes the film to the image:
+			if(pass + 1 < passes) {
+				return;
 			}
 		} else {
-			filmSetColor(0.0F, 0.0F, 0.0F);
+			for(int sample = 0; sample < samplesPerLaunch; sample++) {
+				prngBegin(filmGetIndex(), filmGetSamples());
+				
+				if(doCreatePrimaryRay()) {
+					if(super.rendererType == RENDERER_TYPE_AMBIENT_OCCLUSION) {
+						doRenderWithAmbientOcclusion(1.0F, 1.0F, 1.0F, 0.0F, 0.0F, 0.0F);
+					} else if(super.rendererType == RENDERER_TYPE_PATH_TRACER) {
+						doRenderWithPathTracer(isSkyActive, isSunActive);
+					} else if(super.rendererType == RENDERER_TYPE_RAY_CASTER) {
+						doRenderWithRayCaster(isSkyActive);
+					} else if(super.rendererType == RENDERER_TYPE_RAY_MARCHER) {
+						doRenderWithRayMarcher(isSkyActive);
+					} else if(super.rendererType == RENDERER_TYPE_RAY_TRACER) {
+						doRenderWithRayTracer(isSkyActive);
+					} else if(super.rendererType == RENDERER_TYPE_SURFACE_NORMALS) {
+						doRenderSurfaceNormals(isSkyActive);
+					} else if(super.rendererType == RENDERER_TYPE_TRAVERSAL_STATISTICS) {
+						doRenderTraversalStatistics();
+					} else {
+						doRenderWithPathTracer(isSkyActive, isSunActive);
+					}
+					
+					if(super.rendererWireframes == BOOLEAN_TRUE) {
+						doRenderWireframes();
+					}
+				} else {
+					filmSetColor(0.0F, 0.0F, 0.0F);
+				}
+			}
+		}
+		
+		if(super.rendererAdaptiveSampling == BOOLEAN_TRUE) {
+			filmRetainIfNotConverged(super.rendererAdaptiveSamplingThreshold, super.rendererAdaptiveSamplingMinimumSamples);
 		}
 		
-		final int primitiveOffsetsOffset = getGlobalId();
+		final int primitiveOffsetsOffset = filmGetIndex();
 		final int primitiveOffset = this.primitiveOffsets[primitiveOffsetsOffset];
 		
 		final float r = 0.0F;
@@ -307,6 +449,22 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		imageEnd();
 	}
 	
+	/**
+	 * Sets whether the binary bounding volume hierarchies should be traversed near-first.
+	 * <p>
+	 * If {@code isBoundingVolumeHierarchyTraversalOrdered} is {@code true}, the nearest child of each tree node is visited first, by following the links to the parent and the sibling of each node. Otherwise the skip pointers are followed, which
+	 * visits the nodes in a fixed order.
+	 * <p>
+	 * This has no effect on scenes with wide bounding volume hierarchies, which are traversed with a stack instead.
+	 * 
+	 * @param isBoundingVolumeHierarchyTraversalOrdered {@code true} if, and only if, the binary bounding volume hierarchies should be traversed near-first
+	 */
+	public void setBoundingVolumeHierarchyTraversalOrdered(final boolean isBoundingVolumeHierarchyTraversalOrdered) {
+		this.boundingVolumeHierarchyIsTraversalOrdered = isBoundingVolumeHierarchyTraversalOrdered ? BOOLEAN_TRUE : BOOLEAN_FALSE;
+		
+		setChanged(true);
+	}
+	
 	/**
 	 * Toggles the material for the selected primitive.
 	 */
@@ -414,9 +572,15 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //		Initialize the color variables:
 		this.colorTemporarySamples_$private$3 = new float[SIZE_COLOR_RGB];
 		
+		this.boundingVolumeHierarchyStack_$private$64 = new int[WideBoundingVolumeHierarchy.STACK_SIZE];
 		this.intersections_$local$ = new float[localSize * SIZE_INTERSECTION];
+		this.pathQueueSizes = new int[SIZE_PATH_QUEUE_SIZES];
+		this.pathQueues = new int[resolutionX * resolutionY * SIZE_PATH_QUEUE_SIZES];
+		this.pathStates = new float[resolutionX * resolutionY * SIZE_PATH_STATE];
+		this.paths_$private$12 = new float[SIZE_PATH];
 		this.primitiveOffsets = new int[resolutionX * resolutionY];
 		this.rays_$private$6 = new float[SIZE_RAY];
+		this.traversalStatistics = new int[resolutionX * resolutionY * SIZE_TRAVERSAL_STATISTICS];
 		
 		Arrays.fill(this.primitiveOffsets, -1);
 		
@@ -424,12 +588,16 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //		setExecutionMode(EXECUTION_MODE.JTP);
 		
 		put(this.sceneBoundingVolumeHierarchies_$constant$);
+		put(this.sceneBoundingVolumeHierarchiesWide_$constant$);
 		put(this.sceneCamera_$constant$);
 		put(this.scenePlanes_$constant$);
 		put(this.scenePoint2Fs_$constant$);
 		put(this.scenePoint3Fs_$constant$);
 		put(this.scenePrimitives_$constant$);
+		put(this.scenePrimitivesBoundingVolumeHierarchy_$constant$);
+		put(this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$);
 //		put(this.scenePrimitivesEmittingLight_$constant$);
+		put(this.scenePrimitivesUnbounded_$constant$);
 		put(this.scenePrimitivesObjectToWorld_$constant$);
 		put(this.scenePrimitivesWorldToObject_$constant$);
 		put(this.sceneSpheres_$constant$);
@@ -437,6 +605,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		put(this.sceneTerrains_$constant$);
 		put(this.sceneTextures_$constant$);
 		put(this.sceneTriangles_$constant$);
+		put(this.sceneTrianglesPrecomputed_$constant$);
 		put(this.sceneVector3Fs_$constant$);
 		
 		put(this.sunAndSkyColHistogram_$constant$);
@@ -445,7 +614,11 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		put(this.sunAndSkyPerezX_$constant$);
 		put(this.sunAndSkyPerezY_$constant$);
 		
+		put(this.pathQueueSizes);
+		put(this.pathQueues);
+		put(this.pathStates);
 		put(this.primitiveOffsets);
+		put(this.traversalStatistics);
 	}
 	
 	/**
@@ -470,11 +643,22 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		if(scene.isPrimitiveUpdateRequired()) {
 			final List<Primitive> primitives = scene.getPrimitives();
 			
+			final int[] primitiveIndices = new int[primitives.size()];
+			
+			int primitiveIndicesLength = 0;
+			
+//			Only the Primitives whose Transforms have been changed are updated:
 			for(int i = 0; i < primitives.size(); i++) {
-				final
-				Primitive primitive = primitives.get(i);
+				final Primitive primitive = primitives.get(i);
+				
+				if(!primitive.isUpdateRequired()) {
+					continue;
+				}
+				
 				primitive.update();
 				
+				primitiveIndices[primitiveIndicesLength++] = i;
+				
 				final Matrix44F objectToWorld = primitive.getTransform().getObjectToWorld();
 				final Matrix44F worldToObject = primitive.getTransform().getWorldToObject();
 				
@@ -513,6 +697,19 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 				this.scenePrimitivesWorldToObject_$constant$[i * SIZE_MATRIX + 15] = worldToObject.element44;
 			}
 			
+			boolean isBoundsChanged = false;
+			
+//			Refit the PrimitiveBoundingVolumeHierarchy to the new world space bounds of the updated Primitives, from their leaf nodes and up:
+			for(int i = 0; i < primitiveIndicesLength; i++) {
+				if(this.primitiveBoundingVolumeHierarchy.refit(primitives, primitiveIndices[i])) {
+					isBoundsChanged = true;
+				}
+			}
+			
+			if(isBoundsChanged) {
+				put(this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$);
+			}
+			
 			put(this.scenePrimitivesObjectToWorld_$constant$);
 			put(this.scenePrimitivesWorldToObject_$constant$);
 			
@@ -571,12 +768,12 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private boolean doCreatePrimaryRay() {
-//		Retrieve the global ID:
-		final int globalId = getGlobalId();
+//		Retrieve the index of the current pixel:
+		final int index = filmGetIndex();
 		
 //		Calculate the X- and Y-coordinates on the screen:
-		final int y = globalId / super.resolutionX;
-		final int x = globalId - y * super.resolutionX;
+		final int y = index / super.resolutionX;
+		final int x = index - y * super.resolutionX;
 		
 //		Retrieve the current X-, Y- and Z-coordinates of the camera lens (eye) in the scene:
 		final float eyeX = this.sceneCamera_$constant$[Camera.ABSOLUTE_OFFSET_EYE_X];
@@ -723,6 +920,514 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		return true;
 	}
 	
+	private boolean doIntersectPrimitivesOcclusion(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final float distanceMaximum) {
+//		Perform an any-hit intersection test, which returns at the first intersection closer than distanceMaximum and never writes to the intersections array:
+		return doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, distanceMaximum, true, false) < distanceMaximum;
+	}
+	
+	private boolean doShadeWithPathTracer(final boolean isSunActive, final int depthCurrent) {
+//		Retrieve the depth at which to use Russian Roulette to test for path termination:
+		final int depthRussianRoulette = this.rendererPTRayDepthRussianRoulette;
+		
+//		Calculate the current offset to the intersections array:
+		final int intersectionsOffset = getLocalId() * SIZE_INTERSECTION;
+		
+//		Retrieve the offset in the primitives array of the intersected primitive:
+		final int primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
+		
+//		Initialize the origin from the current ray of the path:
+		float originX = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0];
+		float originY = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1];
+		float originZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2];
+		
+//		Initialize the direction from the current ray of the path:
+		float directionX = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0];
+		float directionY = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1];
+		float directionZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2];
+		
+//		Initialize the pixel color from the path:
+		float pixelColorR = this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0];
+		float pixelColorG = this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1];
+		float pixelColorB = this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2];
+		
+//		Initialize the radiance multiplier from the path:
+		float radianceMultiplierR = this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 0];
+		float radianceMultiplierG = this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 1];
+		float radianceMultiplierB = this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 2];
+		
+//		Retrieve the offset to the surfaces array for the given shape:
+		final int surfacesOffset = this.scenePrimitives_$constant$[primitivesOffset + Primitive.RELATIVE_OFFSET_SURFACE_OFFSET];
+		
+//		Retrieve the offsets of the surface intersection point and the surface normal:
+		final int offsetIntersectionSurfaceIntersectionPoint = intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SURFACE_INTERSECTION_POINT;
+		final int offsetIntersectionSurfaceNormalShading = intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SURFACE_NORMAL_SHADING;
+		
+//		Retrieve the surface intersection point:
+		final float surfaceIntersectionPointX = this.intersections_$local$[offsetIntersectionSurfaceIntersectionPoint + 0];
+		final float surfaceIntersectionPointY = this.intersections_$local$[offsetIntersectionSurfaceIntersectionPoint + 1];
+		final float surfaceIntersectionPointZ = this.intersections_$local$[offsetIntersectionSurfaceIntersectionPoint + 2];
+		
+//		Retrieve the surface normal for shading:
+		final float surfaceNormalShadingX = this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 0];
+		final float surfaceNormalShadingY = this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 1];
+		final float surfaceNormalShadingZ = this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 2];
+		
+//		Calculate the dot product between the surface normal of the intersected shape and the current ray direction:
+		final float dotProduct = surfaceNormalShadingX * directionX + surfaceNormalShadingY * directionY + surfaceNormalShadingZ * directionZ;
+		final float dotProductMultipliedByTwo = dotProduct * 2.0F;
+		
+//		Check if the surface normal is correctly oriented:
+		final boolean isCorrectlyOriented = dotProduct < 0.0F;
+		
+//		Retrieve the correctly oriented surface normal:
+		final float surfaceNormalWNormalizedX = isCorrectlyOriented ? surfaceNormalShadingX : -surfaceNormalShadingX;
+		final float surfaceNormalWNormalizedY = isCorrectlyOriented ? surfaceNormalShadingY : -surfaceNormalShadingY;
+		final float surfaceNormalWNormalizedZ = isCorrectlyOriented ? surfaceNormalShadingZ : -surfaceNormalShadingZ;
+		
+		final int textureOffsetAlbedo = (int)(this.sceneSurfaces_$constant$[surfacesOffset + Surface.RELATIVE_OFFSET_TEXTURE_ALBEDO_OFFSET]);
+		final int textureOffsetEmission = (int)(this.sceneSurfaces_$constant$[surfacesOffset + Surface.RELATIVE_OFFSET_TEXTURE_EMISSION_OFFSET]);
+		
+//		Calculate the albedo texture color for the intersected primitive:
+		final int albedoColorRGB = doGetTextureColor(textureOffsetAlbedo);
+		
+//		Get the color of the primitive from the albedo texture color that was looked up:
+		float albedoColorR = ((albedoColorRGB >> 16) & 0xFF) * COLOR_RECIPROCAL;
+		float albedoColorG = ((albedoColorRGB >>  8) & 0xFF) * COLOR_RECIPROCAL;
+		float albedoColorB = ((albedoColorRGB >>  0) & 0xFF) * COLOR_RECIPROCAL;
+		
+//		Calculate the emission texture color for the intersected primitive:
+		final int emissionColorRGB = doGetTextureColor(textureOffsetEmission);
+		
+//		Get the color of the primitive from the emission texture color that was looked up:
+		float emissionColorR = ((emissionColorRGB >> 16) & 0xFF) * COLOR_RECIPROCAL;
+		float emissionColorG = ((emissionColorRGB >>  8) & 0xFF) * COLOR_RECIPROCAL;
+		float emissionColorB = ((emissionColorRGB >>  0) & 0xFF) * COLOR_RECIPROCAL;
+		
+//		Retrieve the material type of the intersected shape:
+		final int material = (int)(this.sceneSurfaces_$constant$[surfacesOffset + Surface.RELATIVE_OFFSET_MATERIAL]);
+		
+		if(material == ClearCoatMaterial.TYPE || material == LambertianMaterial.TYPE || material == PhongMaterial.TYPE) {
+			doCalculateColorForSun(isSunActive, surfaceIntersectionPointX, surfaceIntersectionPointY, surfaceIntersectionPointZ, surfaceNormalWNormalizedX, surfaceNormalWNormalizedY, surfaceNormalWNormalizedZ, albedoColorR, albedoColorG, albedoColorB);
+		} else {
+			this.colorTemporarySamples_$private$3[0] = 0.0F;
+			this.colorTemporarySamples_$private$3[1] = 0.0F;
+			this.colorTemporarySamples_$private$3[2] = 0.0F;
+		}
+		
+		final float sunColorR = this.colorTemporarySamples_$private$3[0];
+		final float sunColorG = this.colorTemporarySamples_$private$3[1];
+		final float sunColorB = this.colorTemporarySamples_$private$3[2];
+		
+//		Add the current radiance multiplied by the emission of the intersected primitive to the current pixel color:
+		pixelColorR += radianceMultiplierR * (emissionColorR + sunColorR);
+		pixelColorG += radianceMultiplierG * (emissionColorG + sunColorG);
+		pixelColorB += radianceMultiplierB * (emissionColorB + sunColorB);
+		
+//		Check if the current depth is great enough to perform Russian Roulette to probabilistically terminate the path:
+		if(depthCurrent >= depthRussianRoulette) {
+//			Calculate the Russian Roulette Probability Density Function (PDF) using the maximum color component of the albedo of the intersected shape:
+			final float probabilityDensityFunction = max(albedoColorR, max(albedoColorG, albedoColorB));
+			
+//			Calculate a random number that will be used when determining whether or not the path should be terminated:
+			final float random = nextFloat();
+			
+//			If the random number is greater than or equal to the Russian Roulette PDF, then terminate the path, which still has to be connected to the sky along the current ray:
+			if(random >= probabilityDensityFunction) {
+//				Update the pixel color of the path:
+				this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0] = pixelColorR;
+				this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1] = pixelColorG;
+				this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2] = pixelColorB;
+				
+				return false;
+			}
+			
+//			Calculate the reciprocal of the Russian Roulette PDF, so no divisions are needed next:
+			final float probabilityDensityFunctionReciprocal = 1.0F / probabilityDensityFunction;
+			
+//			Because the path was not terminated this time, the albedo color has to be multiplied with the reciprocal of the Russian Roulette PDF:
+			albedoColorR *= probabilityDensityFunctionReciprocal;
+			albedoColorG *= probabilityDensityFunctionReciprocal;
+			albedoColorB *= probabilityDensityFunctionReciprocal;
+		}
+		
+		if(material == ClearCoatMaterial.TYPE) {
+			final float a = REFRACTIVE_INDEX_GLASS - REFRACTIVE_INDEX_AIR;
+			final float b = REFRACTIVE_INDEX_GLASS + REFRACTIVE_INDEX_AIR;
+			final float c = REFRACTIVE_INDEX_AIR / REFRACTIVE_INDEX_GLASS;
+			final float e = (a * a) / (b * b);
+			
+//			TODO: Write explanation!
+			final float nnt = c;
+			
+//			Calculate the dot product between the W direction and the current ray direction:
+			final float dotProduct0 = surfaceNormalWNormalizedX * directionX + surfaceNormalWNormalizedY * directionY + surfaceNormalWNormalizedZ * directionZ;
+			
+//			Calculate the total internal reflection:
+			final float totalInternalReflection = 1.0F - nnt * nnt * (1.0F - dotProduct0 * dotProduct0);
+			
+//			Calculate the reflection direction:
+			final float reflectionDirectionX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
+			final float reflectionDirectionY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
+			final float reflectionDirectionZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
+			
+//			Initialize the specular color component values to be used:
+			final float specularColorR = 1.0F;
+			final float specularColorG = 1.0F;
+			final float specularColorB = 1.0F;
+			
+			if(totalInternalReflection < 0.0F) {
+//				Update the ray origin for the next iteration:
+				originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.02F;
+				originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.02F;
+				originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.02F;
+				
+//				Update the ray direction for the next iteration:
+				directionX = reflectionDirectionX;
+				directionY = reflectionDirectionY;
+				directionZ = reflectionDirectionZ;
+				
+//				Multiply the current radiance multiplier with the specular color:
+				radianceMultiplierR *= specularColorR;
+				radianceMultiplierG *= specularColorG;
+				radianceMultiplierB *= specularColorB;
+			} else {
+//				Calculate some angles:
+				final float angle1 = -dotProduct0;
+				final float angle2 = 1.0F - angle1;
+				
+//				Calculate the reflectance:
+				final float reflectance = e + (1.0F - e) * angle2 * angle2 * angle2 * angle2 * angle2;
+				
+//				Calculate the transmittance:
+				final float transmittance = 1.0F - reflectance;
+				
+//				Calculate a probability for the reflection- or the transmission direction:
+				final float probability = 0.25F + 0.5F * reflectance;
+				
+//				Calculate the probability that the direction for the next iteration will be the reflection direction:
+				final float reflectanceProbability = reflectance / probability;
+				
+//				Calculate the probability that the direction for the next iteration will be the transmission direction:
+				final float transmittanceProbability = transmittance / (1.0F - probability);
+				
+//				Check if the direction for the next iteration is the reflection direction or the transmission direction:
+				final boolean isReflectionDirection = nextFloat() < probability;
+				
+//				Retrieve the value to multiply the current radiance multiplier with:
+				final float multiplier = isReflectionDirection ? reflectanceProbability : transmittanceProbability;
+				
+//				Multiply the current radiance multiplier with either the reflectance probability or the transmittance probability:
+				radianceMultiplierR *= multiplier;
+				radianceMultiplierG *= multiplier;
+				radianceMultiplierB *= multiplier;
+				
+				if(isReflectionDirection) {
+//					Update the ray origin for the next iteration:
+					originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.02F;
+					originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.02F;
+					originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.02F;
+					
+//					Update the ray direction for the next iteration:
+					directionX = reflectionDirectionX;
+					directionY = reflectionDirectionY;
+					directionZ = reflectionDirectionZ;
+					
+//					Multiply the current radiance multiplier with the specular color:
+					radianceMultiplierR *= specularColorR;
+					radianceMultiplierG *= specularColorG;
+					radianceMultiplierB *= specularColorB;
+				} else {
+//					Compute cosine weighted hemisphere sample:
+					final float u = nextFloat();
+					final float v = nextFloat();
+					final float phi = PI_MULTIPLIED_BY_TWO * u;
+					final float cosTheta = sqrt(v);
+					final float sinTheta = sqrt(1.0F - v);
+					final float x = cos(phi) * sinTheta;
+					final float y = sin(phi) * sinTheta;
+					final float z = cosTheta;
+					
+//					Check if the direction is the Y-direction:
+					final boolean isY = abs(surfaceNormalWNormalizedX) > 0.1F;
+					
+//					Calculate the orthonormal basis U vector:
+					final float surfaceNormalUX = (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedZ;
+					final float surfaceNormalUY = -((isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedZ);
+					final float surfaceNormalUZ = (isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedY - (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedX;
+					final float surfaceNormalULengthReciprocal = rsqrt(surfaceNormalUX * surfaceNormalUX + surfaceNormalUY * surfaceNormalUY + surfaceNormalUZ * surfaceNormalUZ);
+					final float surfaceNormalUNormalizedX = surfaceNormalUX * surfaceNormalULengthReciprocal;
+					final float surfaceNormalUNormalizedY = surfaceNormalUY * surfaceNormalULengthReciprocal;
+					final float surfaceNormalUNormalizedZ = surfaceNormalUZ * surfaceNormalULengthReciprocal;
+					
+//					Calculate the orthonormal basis V vector:
+					final float surfaceNormalVNormalizedX = surfaceNormalWNormalizedY * surfaceNormalUNormalizedZ - surfaceNormalWNormalizedZ * surfaceNormalUNormalizedY;
+					final float surfaceNormalVNormalizedY = surfaceNormalWNormalizedZ * surfaceNormalUNormalizedX - surfaceNormalWNormalizedX * surfaceNormalUNormalizedZ;
+					final float surfaceNormalVNormalizedZ = surfaceNormalWNormalizedX * surfaceNormalUNormalizedY - surfaceNormalWNormalizedY * surfaceNormalUNormalizedX;
+					
+//					Calculate the direction for the next iteration:
+					final float lambertianDirectionX = surfaceNormalUNormalizedX * x + surfaceNormalVNormalizedX * y + surfaceNormalWNormalizedX * z;
+					final float lambertianDirectionY = surfaceNormalUNormalizedY * x + surfaceNormalVNormalizedY * y + surfaceNormalWNormalizedY * z;
+					final float lambertianDirectionZ = surfaceNormalUNormalizedZ * x + surfaceNormalVNormalizedZ * y + surfaceNormalWNormalizedZ * z;
+					final float lambertianDirectionLengthReciprocal = rsqrt(lambertianDirectionX * lambertianDirectionX + lambertianDirectionY * lambertianDirectionY + lambertianDirectionZ * lambertianDirectionZ);
+					final float lambertianDirectionNormalizedX = lambertianDirectionX * lambertianDirectionLengthReciprocal;
+					final float lambertianDirectionNormalizedY = lambertianDirectionY * lambertianDirectionLengthReciprocal;
+					final float lambertianDirectionNormalizedZ = lambertianDirectionZ * lambertianDirectionLengthReciprocal;
+					
+//					Update the ray origin for the next iteration:
+					originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.01F;
+					originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.01F;
+					originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.01F;
+					
+//					Update the ray direction for the next iteration:
+					directionX = lambertianDirectionNormalizedX;
+					directionY = lambertianDirectionNormalizedY;
+					directionZ = lambertianDirectionNormalizedZ;
+					
+//					Multiply the current radiance multiplier with the albedo:
+					radianceMultiplierR *= albedoColorR;
+					radianceMultiplierG *= albedoColorG;
+					radianceMultiplierB *= albedoColorB;
+				}
+			}
+
+		} else if(material == LambertianMaterial.TYPE) {
+//			Compute cosine weighted hemisphere sample:
+			final float u = nextFloat();
+			final float v = nextFloat();
+			final float phi = PI_MULTIPLIED_BY_TWO * u;
+			final float cosTheta = sqrt(v);
+			final float sinTheta = sqrt(1.0F - v);
+			final float x = cos(phi) * sinTheta;
+			final float y = sin(phi) * sinTheta;
+			final float z = cosTheta;
+			
+//			Check if the direction is the Y-direction:
+			final boolean isY = abs(surfaceNormalWNormalizedX) > 0.1F;
+			
+//			Calculate the orthonormal basis U vector:
+			final float surfaceNormalUX = (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedZ;
+			final float surfaceNormalUY = -((isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedZ);
+			final float surfaceNormalUZ = (isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedY - (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedX;
+			final float surfaceNormalULengthReciprocal = rsqrt(surfaceNormalUX * surfaceNormalUX + surfaceNormalUY * surfaceNormalUY + surfaceNormalUZ * surfaceNormalUZ);
+			final float surfaceNormalUNormalizedX = surfaceNormalUX * surfaceNormalULengthReciprocal;
+			final float surfaceNormalUNormalizedY = surfaceNormalUY * surfaceNormalULengthReciprocal;
+			final float surfaceNormalUNormalizedZ = surfaceNormalUZ * surfaceNormalULengthReciprocal;
+			
+//			Calculate the orthonormal basis V vector:
+			final float surfaceNormalVNormalizedX = surfaceNormalWNormalizedY * surfaceNormalUNormalizedZ - surfaceNormalWNormalizedZ * surfaceNormalUNormalizedY;
+			final float surfaceNormalVNormalizedY = surfaceNormalWNormalizedZ * surfaceNormalUNormalizedX - surfaceNormalWNormalizedX * surfaceNormalUNormalizedZ;
+			final float surfaceNormalVNormalizedZ = surfaceNormalWNormalizedX * surfaceNormalUNormalizedY - surfaceNormalWNormalizedY * surfaceNormalUNormalizedX;
+			
+//			Calculate the direction for the next iteration:
+			final float lambertianDirectionX = surfaceNormalUNormalizedX * x + surfaceNormalVNormalizedX * y + surfaceNormalWNormalizedX * z;
+			final float lambertianDirectionY = surfaceNormalUNormalizedY * x + surfaceNormalVNormalizedY * y + surfaceNormalWNormalizedY * z;
+			final float lambertianDirectionZ = surfaceNormalUNormalizedZ * x + surfaceNormalVNormalizedZ * y + surfaceNormalWNormalizedZ * z;
+			final float lambertianDirectionLengthReciprocal = rsqrt(lambertianDirectionX * lambertianDirectionX + lambertianDirectionY * lambertianDirectionY + lambertianDirectionZ * lambertianDirectionZ);
+			final float lambertianDirectionNormalizedX = lambertianDirectionX * lambertianDirectionLengthReciprocal;
+			final float lambertianDirectionNormalizedY = lambertianDirectionY * lambertianDirectionLengthReciprocal;
+			final float lambertianDirectionNormalizedZ = lambertianDirectionZ * lambertianDirectionLengthReciprocal;
+			
+//			Update the ray origin for the next iteration:
+			originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.01F;
+			originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.01F;
+			originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.01F;
+			
+//			Update the ray direction for the next iteration:
+			directionX = lambertianDirectionNormalizedX;
+			directionY = lambertianDirectionNormalizedY;
+			directionZ = lambertianDirectionNormalizedZ;
+			
+//			Multiply the current radiance multiplier with the albedo:
+			radianceMultiplierR *= albedoColorR;
+			radianceMultiplierG *= albedoColorG;
+			radianceMultiplierB *= albedoColorB;
+		} else if(material == PhongMaterial.TYPE) {
+//			Compute power cosine weighted hemisphere sample:
+			final float exponent = 50.0F;
+			final float u = nextFloat();
+			final float v = nextFloat();
+			final float phi = PI_MULTIPLIED_BY_TWO * u;
+			final float cosTheta = pow(1.0F - v, 1.0F / (exponent + 1.0F));
+			final float sinTheta = sqrt(max(0.0F, 1.0F - cosTheta * cosTheta));
+			final float x = cos(phi) * sinTheta;
+			final float y = sin(phi) * sinTheta;
+			final float z = cosTheta;
+			
+//			Calculate the orthonormal basis W vector:
+			final float reflectionDirectionWX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
+			final float reflectionDirectionWY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
+			final float reflectionDirectionWZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
+			final float reflectionDirectionWLengthReciprocal = rsqrt(reflectionDirectionWX * reflectionDirectionWX + reflectionDirectionWY * reflectionDirectionWY + reflectionDirectionWZ * reflectionDirectionWZ);
+			final float reflectionDirectionWNormalizedX = reflectionDirectionWX * reflectionDirectionWLengthReciprocal;
+			final float reflectionDirectionWNormalizedY = reflectionDirectionWY * reflectionDirectionWLengthReciprocal;
+			final float reflectionDirectionWNormalizedZ = reflectionDirectionWZ * reflectionDirectionWLengthReciprocal;
+			
+//			Check if the direction is the Y-direction:
+			final boolean isY = abs(reflectionDirectionWNormalizedX) > 0.1F;
+			
+//			Calculate the orthonormal basis U vector:
+			final float reflectionDirectionUX = (isY ? 1.0F : 0.0F) * reflectionDirectionWNormalizedZ;
+			final float reflectionDirectionUY = -((isY ? 0.0F : 1.0F) * reflectionDirectionWNormalizedZ);
+			final float reflectionDirectionUZ = (isY ? 0.0F : 1.0F) * reflectionDirectionWNormalizedY - (isY ? 1.0F : 0.0F) * reflectionDirectionWNormalizedX;
+			final float reflectionDirectionULengthReciprocal = rsqrt(reflectionDirectionUX * reflectionDirectionUX + reflectionDirectionUY * reflectionDirectionUY + reflectionDirectionUZ * reflectionDirectionUZ);
+			final float reflectionDirectionUNormalizedX = reflectionDirectionUX * reflectionDirectionULengthReciprocal;
+			final float reflectionDirectionUNormalizedY = reflectionDirectionUY * reflectionDirectionULengthReciprocal;
+			final float reflectionDirectionUNormalizedZ = reflectionDirectionUZ * reflectionDirectionULengthReciprocal;
+			
+//			Calculate the orthonormal basis V vector:
+			final float reflectionDirectionVNormalizedX = reflectionDirectionWNormalizedY * reflectionDirectionUNormalizedZ - reflectionDirectionWNormalizedZ * reflectionDirectionUNormalizedY;
+			final float reflectionDirectionVNormalizedY = reflectionDirectionWNormalizedZ * reflectionDirectionUNormalizedX - reflectionDirectionWNormalizedX * reflectionDirectionUNormalizedZ;
+			final float reflectionDirectionVNormalizedZ = reflectionDirectionWNormalizedX * reflectionDirectionUNormalizedY - reflectionDirectionWNormalizedY * reflectionDirectionUNormalizedX;
+			
+//			Calculate the direction for the next iteration:
+			final float phongDirectionX = reflectionDirectionUNormalizedX * x + reflectionDirectionVNormalizedX * y + reflectionDirectionWX * z;
+			final float phongDirectionY = reflectionDirectionUNormalizedY * x + reflectionDirectionVNormalizedY * y + reflectionDirectionWY * z;
+			final float phongDirectionZ = reflectionDirectionUNormalizedZ * x + reflectionDirectionVNormalizedZ * y + reflectionDirectionWZ * z;
+			final float phongDirectionLengthReciprocal = rsqrt(phongDirectionX * phongDirectionX + phongDirectionY * phongDirectionY + phongDirectionZ * phongDirectionZ);
+			final float phongDirectionNormalizedX = phongDirectionX * phongDirectionLengthReciprocal;
+			final float phongDirectionNormalizedY = phongDirectionY * phongDirectionLengthReciprocal;
+			final float phongDirectionNormalizedZ = phongDirectionZ * phongDirectionLengthReciprocal;
+			
+//			Update the ray origin for the next iteration:
+			originX = surfaceIntersectionPointX + reflectionDirectionWNormalizedX * 0.01F;
+			originY = surfaceIntersectionPointY + reflectionDirectionWNormalizedY * 0.01F;
+			originZ = surfaceIntersectionPointZ + reflectionDirectionWNormalizedZ * 0.01F;
+			
+//			Update the ray direction for the next iteration:
+			directionX = phongDirectionNormalizedX;
+			directionY = phongDirectionNormalizedY;
+			directionZ = phongDirectionNormalizedZ;
+			
+//			Multiply the current radiance multiplier with the albedo:
+			radianceMultiplierR *= albedoColorR;
+			radianceMultiplierG *= albedoColorG;
+			radianceMultiplierB *= albedoColorB;
+		} else if(material == GlassMaterial.TYPE) {
+			final float a = REFRACTIVE_INDEX_GLASS - REFRACTIVE_INDEX_AIR;
+			final float b = REFRACTIVE_INDEX_GLASS + REFRACTIVE_INDEX_AIR;
+			final float c = REFRACTIVE_INDEX_AIR / REFRACTIVE_INDEX_GLASS;
+			final float d = REFRACTIVE_INDEX_GLASS / REFRACTIVE_INDEX_AIR;
+			final float e = (a * a) / (b * b);
+			
+//			Check if the current ray is going in towards the same shape or out of it:
+			final boolean isGoingIn = surfaceNormalShadingX * surfaceNormalWNormalizedX + surfaceNormalShadingY * surfaceNormalWNormalizedY + surfaceNormalShadingZ * surfaceNormalWNormalizedZ > 0.0F;
+			
+//			TODO: Write explanation!
+			final float nnt = isGoingIn ? c : d;
+			
+//			Calculate the dot product between the orthonormal basis W vector and the current direction vector:
+			final float dotProductOfW0AndDirection = surfaceNormalWNormalizedX * directionX + surfaceNormalWNormalizedY * directionY + surfaceNormalWNormalizedZ * directionZ;
+			
+//			Calculate the total internal reflection:
+			final float totalInternalReflection = 1.0F - nnt * nnt * (1.0F - dotProductOfW0AndDirection * dotProductOfW0AndDirection);
+			
+//			Calculate the reflection direction:
+			final float reflectionDirectionX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
+			final float reflectionDirectionY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
+			final float reflectionDirectionZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
+			
+			if(totalInternalReflection < 0.0F) {
+//				Update the ray origin for the next iteration:
+				originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.01F;
+				originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.01F;
+				originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.01F;
+				
+//				Update the ray direction for the next iteration:
+				directionX = reflectionDirectionX;
+				directionY = reflectionDirectionY;
+				directionZ = reflectionDirectionZ;
+			} else {
+//				Calculate the square root of the total internal reflection:
+				final float sqrtTotalInternalReflection = sqrt(totalInternalReflection);
+				
+//				Calculate the transmission direction:
+				final float scalar = isGoingIn ? dotProductOfW0AndDirection * nnt + sqrtTotalInternalReflection : -(dotProductOfW0AndDirection * nnt + sqrtTotalInternalReflection);
+				final float direction0X = directionX * nnt - surfaceNormalShadingX * scalar;
+				final float direction0Y = directionY * nnt - surfaceNormalShadingY * scalar;
+				final float direction0Z = directionZ * nnt - surfaceNormalShadingZ * scalar;
+				final float direction0LengthReciprocal = rsqrt(direction0X * direction0X + direction0Y * direction0Y + direction0Z * direction0Z);
+				final float transmissionDirectionX = direction0X * direction0LengthReciprocal;
+				final float transmissionDirectionY = direction0Y * direction0LengthReciprocal;
+				final float transmissionDirectionZ = direction0Z * direction0LengthReciprocal;
+				
+//				Calculate some angles:
+				final float angle1 = (isGoingIn ? -dotProductOfW0AndDirection : transmissionDirectionX * surfaceNormalShadingX + transmissionDirectionY * surfaceNormalShadingY + transmissionDirectionZ * surfaceNormalShadingZ);
+				final float angle2 = 1.0F - angle1;
+				
+//				Calculate the reflectance:
+				final float reflectance = e + (1.0F - e) * angle2 * angle2 * angle2 * angle2 * angle2;
+				
+//				Calculate the transmittance:
+				final float transmittance = 1.0F - reflectance;
+				
+//				Calculate a probability for the reflection- or the transmission direction:
+				final float probability = 0.25F + 0.5F * reflectance;
+				
+//				Calculate the probability that the direction for the next iteration will be the reflection direction:
+				final float reflectanceProbability = reflectance / probability;
+				
+//				Calculate the probability that the direction for the next iteration will be the transmission direction:
+				final float transmittanceProbability = transmittance / (1.0F - probability);
+				
+//				Check if the direction for the next iteration is the reflection direction or the transmission direction:
+				final boolean isReflectionDirection = nextFloat() < probability;
+				
+//				Retrieve the value to multiply the current radiance multiplier with:
+				final float multiplier = isReflectionDirection ? reflectanceProbability : transmittanceProbability;
+				
+//				Multiply the current radiance multiplier with either the reflectance probability or the transmittance probability:
+				radianceMultiplierR *= multiplier;
+				radianceMultiplierG *= multiplier;
+				radianceMultiplierB *= multiplier;
+				
+//				Retrieve the epsilon value that offsets the ray origin to mitigate self intersections:
+				final float epsilon = isReflectionDirection ? 0.01F : 0.000001F;
+				
+//				Update the ray origin for the next iteration:
+				originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * epsilon;
+				originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * epsilon;
+				originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * epsilon;
+				
+//				Update the ray direction for the next iteration:
+				directionX = isReflectionDirection ? reflectionDirectionX : transmissionDirectionX;
+				directionY = isReflectionDirection ? reflectionDirectionY : transmissionDirectionY;
+				directionZ = isReflectionDirection ? reflectionDirectionZ : transmissionDirectionZ;
+			}
+
+		} else if(material == ReflectionMaterial.TYPE) {
+//			Update the ray origin for the next iteration:
+			originX = surfaceIntersectionPointX + surfaceNormalShadingX * 0.000001F;
+			originY = surfaceIntersectionPointY + surfaceNormalShadingY * 0.000001F;
+			originZ = surfaceIntersectionPointZ + surfaceNormalShadingZ * 0.000001F;
+			
+//			Update the ray direction for the next iteration:
+			directionX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
+			directionY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
+			directionZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
+			
+//			Multiply the current radiance multiplier with the albedo:
+			radianceMultiplierR *= albedoColorR;
+			radianceMultiplierG *= albedoColorG;
+			radianceMultiplierB *= albedoColorB;
+		}
+		
+//		Update the path with the ray for the next iteration, its pixel color and its radiance multiplier:
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0] = originX;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1] = originY;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2] = originZ;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0] = directionX;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1] = directionY;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2] = directionZ;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0] = pixelColorR;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1] = pixelColorG;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2] = pixelColorB;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 0] = radianceMultiplierR;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 1] = radianceMultiplierG;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 2] = radianceMultiplierB;
+		
+		return true;
+	}
+	
 	private float doGetY(final float x, final float z) {
 		return simplexFractalXY(getGlobalAmplitude(), getGlobalFrequency(), getGlobalGain(), getGlobalLacunarity(), getGlobalOctaves(), x, z);
 	}
@@ -825,7 +1530,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //							Loop through all triangles in the current BVH node:
 							while(j < triangleCount) {
 //								Retrieve the offset to the current triangle:
-								final int currentTriangleOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 5 + j];
+								final int currentTriangleOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 5] + j * Triangle.SIZE;
 								
 								final int offsetAPosition = this.sceneTriangles_$constant$[currentTriangleOffset + Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET];
 								final int offsetBPosition = this.sceneTriangles_$constant$[currentTriangleOffset + Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET];
@@ -1045,136 +1750,235 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		return closestDistance;
 	}
 	
-	private float doIntersectPrimitives(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final boolean isTesting) {
+	private float doIntersectPrimitives(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final float distanceMaximum, final boolean isTesting, final boolean isCalculatingSurfaceProperties) {
 //		Compute the offset for the array containing intersection data:
 		final int intersectionsOffset = getLocalId() * SIZE_INTERSECTION;
 		
-//		Initialize the distance to the closest primitive to INFINITY:
-		float closestDistance = INFINITY;
+//		Initialize the distance to the closest primitive to the maximum distance, so nothing farther away is accepted:
+		float closestDistance = distanceMaximum;
 		
 //		Initialize the offset to the closest primitive, the shape type of the closest primitive and the shape offset of the closest primitive to -1:
-		int closestMatrixOffset = -1;
 		int closestPrimitiveOffset = -1;
 		int closestShapeType = -1;
 		int closestShapeOffset = -1;
 		
-		final int scenePrimitivesCount = this.scenePrimitivesCount;
+//		Compute the reciprocal of the direction, for use with the bounding boxes of the PrimitiveBoundingVolumeHierarchy:
+		final float directionXReciprocal = 1.0F / directionX;
+		final float directionYReciprocal = 1.0F / directionY;
+		final float directionZReciprocal = 1.0F / directionZ;
 		
-		for(int i = 0; i < scenePrimitivesCount; i++) {
-			float currentDistance = INFINITY;
-			
-			final int currentPrimitiveOffset = i * Primitive.SIZE;
-			final int currentMatrixOffset = i * SIZE_MATRIX;
-			
-			int currentShapeType = this.scenePrimitives_$constant$[currentPrimitiveOffset + Primitive.RELATIVE_OFFSET_SHAPE_TYPE];
-			int currentShapeOffset = this.scenePrimitives_$constant$[currentPrimitiveOffset + Primitive.RELATIVE_OFFSET_SHAPE_OFFSET];
+//		Initialize the offset to the root of the PrimitiveBoundingVolumeHierarchy, or -1 if it is empty:
+		int primitivesBoundingVolumeHierarchyOffset = this.scenePrimitivesBoundingVolumeHierarchy_$constant$.length > 1 ? 0 : -1;
+		
+//		Initialize the offset to the current leaf node, the index of the next Primitive in it and the number of Primitives in it:
+		int leafOffset = 0;
+		int leafPrimitiveIndex = 0;
+		int leafPrimitiveCount = 0;
+		
+//		Initialize the index of the next unbounded Primitive and the number of unbounded Primitives:
+		int unboundedPrimitiveIndex = 0;
+		
+		final int unboundedPrimitiveCount = this.scenePrimitivesUnbounded_$constant$[0];
+		
+//		Initialize the number of BVH nodes visited and triangles tested, for the traversal statistics:
+		int traversalStatisticsNodeCount = 0;
+		int traversalStatisticsTriangleCount = 0;
+		
+		int i;
+		
+//		Loop through the Primitives in all leaf nodes hit by the ray, followed by all unbounded Primitives:
+		do {
+			i = -1;
 			
-			final float worldToObjectElement11 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  0];
-			final float worldToObjectElement12 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  1];
-			final float worldToObjectElement13 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  2];
-			final float worldToObjectElement14 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  3];
-			final float worldToObjectElement21 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  4];
-			final float worldToObjectElement22 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  5];
-			final float worldToObjectElement23 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  6];
-			final float worldToObjectElement24 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  7];
-			final float worldToObjectElement31 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  8];
-			final float worldToObjectElement32 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  9];
-			final float worldToObjectElement33 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset + 10];
-			final float worldToObjectElement34 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset + 11];
-			
-			final float originXObjectSpace = worldToObjectElement11 * originX + worldToObjectElement12 * originY + worldToObjectElement13 * originZ + worldToObjectElement14;
-			final float originYObjectSpace = worldToObjectElement21 * originX + worldToObjectElement22 * originY + worldToObjectElement23 * originZ + worldToObjectElement24;
-			final float originZObjectSpace = worldToObjectElement31 * originX + worldToObjectElement32 * originY + worldToObjectElement33 * originZ + worldToObjectElement34;
-			
-			final float directionXObjectSpace = worldToObjectElement11 * directionX + worldToObjectElement12 * directionY + worldToObjectElement13 * directionZ;
-			final float directionYObjectSpace = worldToObjectElement21 * directionX + worldToObjectElement22 * directionY + worldToObjectElement23 * directionZ;
-			final float directionZObjectSpace = worldToObjectElement31 * directionX + worldToObjectElement32 * directionY + worldToObjectElement33 * directionZ;
-			
-			final float directionXObjectSpaceReciprocal = 1.0F / directionXObjectSpace;
-			final float directionYObjectSpaceReciprocal = 1.0F / directionYObjectSpace;
-			final float directionZObjectSpaceReciprocal = 1.0F / directionZObjectSpace;
+//			Loop through the PrimitiveBoundingVolumeHierarchy until a leaf node is hit, unless there are Primitives left in the current leaf node:
+			while(primitivesBoundingVolumeHierarchyOffset != -1 && leafPrimitiveIndex >= leafPrimitiveCount) {
+				traversalStatisticsNodeCount++;
+				
+//				Retrieve the offset to the bounds of the current node:
+				final int boundsOffset = this.scenePrimitivesBoundingVolumeHierarchy_$constant$[primitivesBoundingVolumeHierarchyOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_BOUNDS_OFFSET];
+				
+//				Retrieve the minimum point location of the current bounding box:
+				final float minimumX = this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$[boundsOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_MINIMUM + 0];
+				final float minimumY = this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$[boundsOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_MINIMUM + 1];
+				final float minimumZ = this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$[boundsOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_MINIMUM + 2];
+				
+//				Retrieve the maximum point location of the current bounding box:
+				final float maximumX = this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$[boundsOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_MAXIMUM + 0];
+				final float maximumY = this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$[boundsOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_MAXIMUM + 1];
+				final float maximumZ = this.scenePrimitivesBoundingVolumeHierarchyBounds_$constant$[boundsOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_MAXIMUM + 2];
+				
+//				Calculate the distance to the minimum point location of the bounding box:
+				final float t0X = (minimumX - originX) * directionXReciprocal;
+				final float t0Y = (minimumY - originY) * directionYReciprocal;
+				final float t0Z = (minimumZ - originZ) * directionZReciprocal;
+				
+//				Calculate the distance to the maximum point location of the bounding box:
+				final float t1X = (maximumX - originX) * directionXReciprocal;
+				final float t1Y = (maximumY - originY) * directionYReciprocal;
+				final float t1Z = (maximumZ - originZ) * directionZReciprocal;
+				
+//				Calculate the minimum and maximum distance values of the X-, Y- and Z-components above:
+				final float tMaximum = min(max(t0X, t1X), min(max(t0Y, t1Y), max(t0Z, t1Z)));
+				final float tMinimum = max(min(t0X, t1X), max(min(t0Y, t1Y), min(t0Z, t1Z)));
+				
+				if(tMinimum <= tMaximum && tMaximum > 0.001F && tMinimum < closestDistance) {
+					if(this.scenePrimitivesBoundingVolumeHierarchy_$constant$[primitivesBoundingVolumeHierarchyOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_TYPE] == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+//						This node is a tree node, so continue with its left child:
+						primitivesBoundingVolumeHierarchyOffset = this.scenePrimitivesBoundingVolumeHierarchy_$constant$[primitivesBoundingVolumeHierarchyOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_LEFT_OFFSET];
+					} else {
+//						This node is a leaf node, so make it the current leaf node and continue with the next node once its Primitives have been tested:
+						leafOffset = primitivesBoundingVolumeHierarchyOffset;
+						leafPrimitiveIndex = 0;
+						leafPrimitiveCount = this.scenePrimitivesBoundingVolumeHierarchy_$constant$[primitivesBoundingVolumeHierarchyOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_PRIMITIVE_COUNT];
+						
+						primitivesBoundingVolumeHierarchyOffset = this.scenePrimitivesBoundingVolumeHierarchy_$constant$[primitivesBoundingVolumeHierarchyOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_NEXT_OFFSET];
+					}
+				} else {
+					primitivesBoundingVolumeHierarchyOffset = this.scenePrimitivesBoundingVolumeHierarchy_$constant$[primitivesBoundingVolumeHierarchyOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_NEXT_OFFSET];
+				}
+			}
 			
-			if(currentShapeType == TriangleMesh.TYPE) {
-//				Initialize the offset to the root of the BVH structure:
-				int boundingVolumeHierarchyAbsoluteOffset = currentShapeOffset;
-				int boundingVolumeHierarchyRelativeOffset = 0;
+			if(leafPrimitiveIndex < leafPrimitiveCount) {
+				i = this.scenePrimitivesBoundingVolumeHierarchy_$constant$[leafOffset + PrimitiveBoundingVolumeHierarchy.RELATIVE_OFFSET_PRIMITIVE_INDICES + leafPrimitiveIndex];
 				
-//				Loop through the BVH structure as long as the offset to the next node is not -1:
-				while(boundingVolumeHierarchyRelativeOffset != -1) {
-//					Calculate the current offset in the BVH structure:
-					final int boundingVolumeHierarchyOffset = boundingVolumeHierarchyAbsoluteOffset + boundingVolumeHierarchyRelativeOffset;
-					
-//					Retrieve the offsets to the points defining the minimum and maximum locations of the current bounding box:
-					final int minimumOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 2];
-					final int maximumOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 3];
-					
-//					Retrieve the minimum point location of the current bounding box:
-					final float minimumX = this.scenePoint3Fs_$constant$[minimumOffset + 0];
-					final float minimumY = this.scenePoint3Fs_$constant$[minimumOffset + 1];
-					final float minimumZ = this.scenePoint3Fs_$constant$[minimumOffset + 2];
-					
-//					Retrieve the maximum point location of the current bounding box:
-					final float maximumX = this.scenePoint3Fs_$constant$[maximumOffset + 0];
-					final float maximumY = this.scenePoint3Fs_$constant$[maximumOffset + 1];
-					final float maximumZ = this.scenePoint3Fs_$constant$[maximumOffset + 2];
-					
-//					Calculate the distance to the minimum point location of the bounding box:
-					final float t0X = (minimumX - originXObjectSpace) * directionXObjectSpaceReciprocal;
-					final float t0Y = (minimumY - originYObjectSpace) * directionYObjectSpaceReciprocal;
-					final float t0Z = (minimumZ - originZObjectSpace) * directionZObjectSpaceReciprocal;
-					
-//					Calculate the distance to the maximum point location of the bounding box:
-					final float t1X = (maximumX - originXObjectSpace) * directionXObjectSpaceReciprocal;
-					final float t1Y = (maximumY - originYObjectSpace) * directionYObjectSpaceReciprocal;
-					final float t1Z = (maximumZ - originZObjectSpace) * directionZObjectSpaceReciprocal;
+				leafPrimitiveIndex++;
+			} else if(unboundedPrimitiveIndex < unboundedPrimitiveCount) {
+				i = this.scenePrimitivesUnbounded_$constant$[1 + unboundedPrimitiveIndex];
+				
+				unboundedPrimitiveIndex++;
+			}
+			
+			if(i != -1) {
+				float currentDistance = INFINITY;
+				
+				final int currentPrimitiveOffset = i * Primitive.SIZE;
+				final int currentMatrixOffset = i * SIZE_MATRIX;
+				
+				int currentShapeType = this.scenePrimitives_$constant$[currentPrimitiveOffset + Primitive.RELATIVE_OFFSET_SHAPE_TYPE];
+				int currentShapeOffset = this.scenePrimitives_$constant$[currentPrimitiveOffset + Primitive.RELATIVE_OFFSET_SHAPE_OFFSET];
+				
+				final float worldToObjectElement11 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  0];
+				final float worldToObjectElement12 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  1];
+				final float worldToObjectElement13 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  2];
+				final float worldToObjectElement14 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  3];
+				final float worldToObjectElement21 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  4];
+				final float worldToObjectElement22 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  5];
+				final float worldToObjectElement23 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  6];
+				final float worldToObjectElement24 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  7];
+				final float worldToObjectElement31 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  8];
+				final float worldToObjectElement32 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset +  9];
+				final float worldToObjectElement33 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset + 10];
+				final float worldToObjectElement34 = this.scenePrimitivesWorldToObject_$constant$[currentMatrixOffset + 11];
+				
+				final float originXObjectSpace = worldToObjectElement11 * originX + worldToObjectElement12 * originY + worldToObjectElement13 * originZ + worldToObjectElement14;
+				final float originYObjectSpace = worldToObjectElement21 * originX + worldToObjectElement22 * originY + worldToObjectElement23 * originZ + worldToObjectElement24;
+				final float originZObjectSpace = worldToObjectElement31 * originX + worldToObjectElement32 * originY + worldToObjectElement33 * originZ + worldToObjectElement34;
+				
+				final float directionXObjectSpace = worldToObjectElement11 * directionX + worldToObjectElement12 * directionY + worldToObjectElement13 * directionZ;
+				final float directionYObjectSpace = worldToObjectElement21 * directionX + worldToObjectElement22 * directionY + worldToObjectElement23 * directionZ;
+				final float directionZObjectSpace = worldToObjectElement31 * directionX + worldToObjectElement32 * directionY + worldToObjectElement33 * directionZ;
+				
+				final float directionXObjectSpaceReciprocal = 1.0F / directionXObjectSpace;
+				final float directionYObjectSpaceReciprocal = 1.0F / directionYObjectSpace;
+				final float directionZObjectSpaceReciprocal = 1.0F / directionZObjectSpace;
+				
+				if(currentShapeType == TriangleMesh.TYPE && this.sceneBoundingVolumeHierarchiesWide_$constant$.length > 1) {
+//					Push the offset to the root of the wide BVH structure onto the stack:
+					this.boundingVolumeHierarchyStack_$private$64[0] = currentShapeOffset;
 					
-//					Calculate the minimum and maximum distance values of the X-, Y- and Z-components above:
-					final float tMaximum = min(max(t0X, t1X), min(max(t0Y, t1Y), max(t0Z, t1Z)));
-					final float tMinimum = max(min(t0X, t1X), max(min(t0Y, t1Y), min(t0Z, t1Z)));
-					final float t = tMinimum > tMaximum ? -1.0F : tMinimum > 0.001F && tMinimum < closestDistance ? tMinimum : tMaximum > 0.001F && tMaximum < closestDistance ? tMaximum : -1.0F;
+					int stackSize = 1;
 					
-					if(t < 0.0F) {
-//						Retrieve the offset to the next node in the BVH structure, relative to the current one:
-						boundingVolumeHierarchyRelativeOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 1];
-					} else {
-//						Retrieve the type of the current BVH node:
-						final int type = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset];
+//					Loop through the wide BVH structure as long as there are offsets to nodes on the stack:
+					do {
+						final int boundingVolumeHierarchyOffset = this.boundingVolumeHierarchyStack_$private$64[stackSize - 1];
 						
-						if(type == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
-//							This BVH node is a tree node, so retrieve the offset to the next node in the BVH structure, relative to the current one:
-							boundingVolumeHierarchyRelativeOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 4];
-						} else {
-//							Retrieve the triangle count in the current BVH node:
-							final int triangleCount = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 4];
+						stackSize--;
+						
+						traversalStatisticsNodeCount++;
+						
+						final int type = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_TYPE]);
+						
+						if(type == WideBoundingVolumeHierarchy.NODE_TYPE_TREE_QUANTIZED_8 || type == WideBoundingVolumeHierarchy.NODE_TYPE_TREE_QUANTIZED_12) {
+							final int childCount = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_COUNT]);
+							final int childSize = type == WideBoundingVolumeHierarchy.NODE_TYPE_TREE_QUANTIZED_8 ? 3 : 4;
+							final int quantizationBits = type == WideBoundingVolumeHierarchy.NODE_TYPE_TREE_QUANTIZED_8 ? 8 : 12;
+							final int quantizationMask = (1 << quantizationBits) - 1;
 							
-							int j = 0;
+//							Retrieve the minimum point location of the bounding box of the current node and the size of one quantization step along each axis:
+							final float quantizationOriginX = this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_ORIGIN + 0];
+							final float quantizationOriginY = this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_ORIGIN + 1];
+							final float quantizationOriginZ = this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_ORIGIN + 2];
+							final float quantizationScaleX = this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_SCALE + 0];
+							final float quantizationScaleY = this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_SCALE + 1];
+							final float quantizationScaleZ = this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_SCALE + 2];
 							
-//							Loop through all triangles in the current BVH node:
-							while(j < triangleCount) {
-//								Retrieve the offset to the current triangle:
-								final int currentTriangleOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 5 + j];
+//							Dequantize and test the bounding boxes of all children of the current node, and push the offsets to the children that are hit onto the stack:
+							for(int j = 0; j < childCount; j++) {
+								final int childOffset = boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILDREN_QUANTIZED + j * childSize;
 								
-								final int offsetAPosition = this.sceneTriangles_$constant$[currentTriangleOffset + Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET];
-								final int offsetBPosition = this.sceneTriangles_$constant$[currentTriangleOffset + Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET];
-								final int offsetCPosition = this.sceneTriangles_$constant$[currentTriangleOffset + Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET];
+								final int bounds0 = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_QUANTIZED_CHILD_BOUNDS + 0]);
+								final int bounds1 = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_QUANTIZED_CHILD_BOUNDS + 1]);
+								final int bounds2 = quantizationBits == 8 ? 0 : (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_QUANTIZED_CHILD_BOUNDS + 2]);
 								
-								final float aPositionX = this.scenePoint3Fs_$constant$[offsetAPosition + 0];
-								final float aPositionY = this.scenePoint3Fs_$constant$[offsetAPosition + 1];
-								final float aPositionZ = this.scenePoint3Fs_$constant$[offsetAPosition + 2];
-								final float bPositionX = this.scenePoint3Fs_$constant$[offsetBPosition + 0];
-								final float bPositionY = this.scenePoint3Fs_$constant$[offsetBPosition + 1];
-								final float bPositionZ = this.scenePoint3Fs_$constant$[offsetBPosition + 2];
-								final float cPositionX = this.scenePoint3Fs_$constant$[offsetCPosition + 0];
-								final float cPositionY = this.scenePoint3Fs_$constant$[offsetCPosition + 1];
-								final float cPositionZ = this.scenePoint3Fs_$constant$[offsetCPosition + 2];
+								final int quantizedMinimumX = bounds0 & quantizationMask;
+								final int quantizedMinimumY = (bounds0 >> quantizationBits) & quantizationMask;
+								final int quantizedMinimumZ = quantizationBits == 8 ? (bounds0 >> 16) & quantizationMask : bounds1 & quantizationMask;
+								final int quantizedMaximumX = quantizationBits == 8 ? bounds1 & quantizationMask : (bounds1 >> 12) & quantizationMask;
+								final int quantizedMaximumY = quantizationBits == 8 ? (bounds1 >> 8) & quantizationMask : bounds2 & quantizationMask;
+								final int quantizedMaximumZ = quantizationBits == 8 ? (bounds1 >> 16) & quantizationMask : (bounds2 >> 12) & quantizationMask;
 								
-//								Perform an intersection test with the current triangle:
-								currentDistance = doIntersectTriangle(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, aPositionX, aPositionY, aPositionZ, bPositionX, bPositionY, bPositionZ, cPositionX, cPositionY, cPositionZ, 0.001F, closestDistance);
+								final float t0X = (quantizationOriginX + quantizedMinimumX * quantizationScaleX - originXObjectSpace) * directionXObjectSpaceReciprocal;
+								final float t0Y = (quantizationOriginY + quantizedMinimumY * quantizationScaleY - originYObjectSpace) * directionYObjectSpaceReciprocal;
+								final float t0Z = (quantizationOriginZ + quantizedMinimumZ * quantizationScaleZ - originZObjectSpace) * directionZObjectSpaceReciprocal;
+								final float t1X = (quantizationOriginX + quantizedMaximumX * quantizationScaleX - originXObjectSpace) * directionXObjectSpaceReciprocal;
+								final float t1Y = (quantizationOriginY + quantizedMaximumY * quantizationScaleY - originYObjectSpace) * directionYObjectSpaceReciprocal;
+								final float t1Z = (quantizationOriginZ + quantizedMaximumZ * quantizationScaleZ - originZObjectSpace) * directionZObjectSpaceReciprocal;
+								
+								final float tMaximum = min(max(t0X, t1X), min(max(t0Y, t1Y), max(t0Z, t1Z)));
+								final float tMinimum = max(min(t0X, t1X), max(min(t0Y, t1Y), min(t0Z, t1Z)));
+								
+								if(tMinimum <= tMaximum && tMaximum > 0.001F && tMinimum < closestDistance && stackSize < WideBoundingVolumeHierarchy.STACK_SIZE) {
+									this.boundingVolumeHierarchyStack_$private$64[stackSize] = currentShapeOffset + (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_QUANTIZED_CHILD_OFFSET]);
+									
+									stackSize++;
+								}
+							}
+						} else if(type == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+							final int childCount = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_COUNT]);
+							
+//							Test the bounding boxes of all children of the current node, which are stored inline, and push the offsets to the children that are hit onto the stack:
+							for(int j = 0; j < childCount; j++) {
+								final int childOffset = boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILDREN + j * WideBoundingVolumeHierarchy.SIZE_CHILD;
+								
+								final float t0X = (this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_MINIMUM + 0] - originXObjectSpace) * directionXObjectSpaceReciprocal;
+								final float t0Y = (this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_MINIMUM + 1] - originYObjectSpace) * directionYObjectSpaceReciprocal;
+								final float t0Z = (this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_MINIMUM + 2] - originZObjectSpace) * directionZObjectSpaceReciprocal;
+								final float t1X = (this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_MAXIMUM + 0] - originXObjectSpace) * directionXObjectSpaceReciprocal;
+								final float t1Y = (this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_MAXIMUM + 1] - originYObjectSpace) * directionYObjectSpaceReciprocal;
+								final float t1Z = (this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_MAXIMUM + 2] - originZObjectSpace) * directionZObjectSpaceReciprocal;
+								
+								final float tMaximum = min(max(t0X, t1X), min(max(t0Y, t1Y), max(t0Z, t1Z)));
+								final float tMinimum = max(min(t0X, t1X), max(min(t0Y, t1Y), min(t0Z, t1Z)));
+								
+								if(tMinimum <= tMaximum && tMaximum > 0.001F && tMinimum < closestDistance && stackSize < WideBoundingVolumeHierarchy.STACK_SIZE) {
+									this.boundingVolumeHierarchyStack_$private$64[stackSize] = currentShapeOffset + (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[childOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_CHILD_OFFSET]);
+									
+									stackSize++;
+								}
+							}
+						} else {
+							final int triangleCount = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_TRIANGLE_COUNT]);
+							
+//							Loop through all triangles in the current leaf node:
+							for(int j = 0; j < triangleCount; j++) {
+								final int currentTriangleOffset = (int)(this.sceneBoundingVolumeHierarchiesWide_$constant$[boundingVolumeHierarchyOffset + WideBoundingVolumeHierarchy.RELATIVE_OFFSET_TRIANGLE_OFFSET]) + j * Triangle.SIZE;
+								
+								currentDistance = doIntersectTriangleAtOffset(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, currentTriangleOffset, 0.001F, closestDistance);
+								
+								traversalStatisticsTriangleCount++;
 								
-//								Check if the current distance is less than the distance to the closest primitive so far:
 								if(currentDistance < closestDistance) {
 									closestDistance = currentDistance;
-									closestMatrixOffset = currentMatrixOffset;
 									closestPrimitiveOffset = currentPrimitiveOffset;
 									closestShapeType = Triangle.TYPE;
 									closestShapeOffset = currentTriangleOffset;
@@ -1183,221 +1987,247 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 								if(isTesting && closestPrimitiveOffset != -1) {
 									return closestDistance;
 								}
-								
-								j++;
 							}
+						}
+					} while(stackSize > 0);
+				} else if(currentShapeType == TriangleMesh.TYPE && this.boundingVolumeHierarchyIsTraversalOrdered == BOOLEAN_TRUE) {
+//					Initialize the offset to the root of the BVH structure and the state that tells from where it was reached. The nearest child of a tree node only depends on the sign of the ray direction along its split axis, so the next node can always
+//					be found from the links to the parent and the sibling of the current node, without a stack:
+					int boundingVolumeHierarchyOffset = currentShapeOffset;
+					int boundingVolumeHierarchyState = BOUNDING_VOLUME_HIERARCHY_STATE_FROM_PARENT;
+					
+//					Loop through the BVH structure, visiting the nearest child first, as long as there is a current node:
+					while(boundingVolumeHierarchyOffset != -1) {
+						final int parentRelativeOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 6];
+						final int parentOffset = parentRelativeOffset != -1 ? currentShapeOffset + parentRelativeOffset : -1;
+						
+						if(boundingVolumeHierarchyState == BOUNDING_VOLUME_HIERARCHY_STATE_FROM_CHILD) {
+//							The subtree of the current node has been processed, so continue with its sibling if it is the nearest child of its parent, or return to its parent otherwise:
+							if(parentOffset == -1) {
+								boundingVolumeHierarchyOffset = -1;
+							} else if(boundingVolumeHierarchyOffset == doGetBoundingVolumeHierarchyNearestChildOffset(parentOffset, currentShapeOffset, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace)) {
+								boundingVolumeHierarchyOffset = doGetBoundingVolumeHierarchySiblingOffset(boundingVolumeHierarchyOffset, parentOffset, currentShapeOffset);
+								boundingVolumeHierarchyState = BOUNDING_VOLUME_HIERARCHY_STATE_FROM_SIBLING;
+							} else {
+								boundingVolumeHierarchyOffset = parentOffset;
+							}
+						} else {
+							final int minimumOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 2];
+							final int maximumOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 3];
 							
+							traversalStatisticsNodeCount++;
+							
+//							Calculate the entry and exit distances of the bounding box of the current node:
+							final float t0X = (this.scenePoint3Fs_$constant$[minimumOffset + 0] - originXObjectSpace) * directionXObjectSpaceReciprocal;
+							final float t0Y = (this.scenePoint3Fs_$constant$[minimumOffset + 1] - originYObjectSpace) * directionYObjectSpaceReciprocal;
+							final float t0Z = (this.scenePoint3Fs_$constant$[minimumOffset + 2] - originZObjectSpace) * directionZObjectSpaceReciprocal;
+							final float t1X = (this.scenePoint3Fs_$constant$[maximumOffset + 0] - originXObjectSpace) * directionXObjectSpaceReciprocal;
+							final float t1Y = (this.scenePoint3Fs_$constant$[maximumOffset + 1] - originYObjectSpace) * directionYObjectSpaceReciprocal;
+							final float t1Z = (this.scenePoint3Fs_$constant$[maximumOffset + 2] - originZObjectSpace) * directionZObjectSpaceReciprocal;
+							final float tMaximum = min(max(t0X, t1X), min(max(t0Y, t1Y), max(t0Z, t1Z)));
+							final float tMinimum = max(min(t0X, t1X), max(min(t0Y, t1Y), min(t0Z, t1Z)));
+							
+							final boolean isHitting = tMinimum <= tMaximum && tMaximum > 0.001F && tMinimum < closestDistance;
+							
+							final int type = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset];
+							
+							if(isHitting && type == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+//								The current node is a tree node that is hit, so continue with its nearest child:
+								boundingVolumeHierarchyOffset = doGetBoundingVolumeHierarchyNearestChildOffset(boundingVolumeHierarchyOffset, currentShapeOffset, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace);
+								boundingVolumeHierarchyState = BOUNDING_VOLUME_HIERARCHY_STATE_FROM_PARENT;
+							} else {
+								if(isHitting) {
+									final int triangleCount = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 4];
+									
+//									Loop through all triangles in the current leaf node:
+									for(int j = 0; j < triangleCount; j++) {
+										final int currentTriangleOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 5] + j * Triangle.SIZE;
+										
+										currentDistance = doIntersectTriangleAtOffset(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, currentTriangleOffset, 0.001F, closestDistance);
+										
+										traversalStatisticsTriangleCount++;
+										
+										if(currentDistance < closestDistance) {
+											closestDistance = currentDistance;
+											closestPrimitiveOffset = currentPrimitiveOffset;
+											closestShapeType = Triangle.TYPE;
+											closestShapeOffset = currentTriangleOffset;
+										}
+										
+										if(isTesting && closestPrimitiveOffset != -1) {
+											return closestDistance;
+										}
+									}
+								}
+								
+//								The current node is done, so continue with its sibling if it was reached from its parent, or return to its parent if it was reached from its sibling:
+								if(parentOffset == -1) {
+									boundingVolumeHierarchyOffset = -1;
+								} else if(boundingVolumeHierarchyState == BOUNDING_VOLUME_HIERARCHY_STATE_FROM_PARENT) {
+									boundingVolumeHierarchyOffset = doGetBoundingVolumeHierarchySiblingOffset(boundingVolumeHierarchyOffset, parentOffset, currentShapeOffset);
+									boundingVolumeHierarchyState = BOUNDING_VOLUME_HIERARCHY_STATE_FROM_SIBLING;
+								} else {
+									boundingVolumeHierarchyOffset = parentOffset;
+									boundingVolumeHierarchyState = BOUNDING_VOLUME_HIERARCHY_STATE_FROM_CHILD;
+								}
+							}
+						}
+					}
+				} else if(currentShapeType == TriangleMesh.TYPE) {
+//					Initialize the offset to the root of the BVH structure:
+					int boundingVolumeHierarchyAbsoluteOffset = currentShapeOffset;
+					int boundingVolumeHierarchyRelativeOffset = 0;
+					
+//					Loop through the BVH structure as long as the offset to the next node is not -1:
+					while(boundingVolumeHierarchyRelativeOffset != -1) {
+//						Calculate the current offset in the BVH structure:
+						final int boundingVolumeHierarchyOffset = boundingVolumeHierarchyAbsoluteOffset + boundingVolumeHierarchyRelativeOffset;
+						
+						traversalStatisticsNodeCount++;
+						
+//						Retrieve the offsets to the points defining the minimum and maximum locations of the current bounding box:
+						final int minimumOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 2];
+						final int maximumOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 3];
+						
+//						Retrieve the minimum point location of the current bounding box:
+						final float minimumX = this.scenePoint3Fs_$constant$[minimumOffset + 0];
+						final float minimumY = this.scenePoint3Fs_$constant$[minimumOffset + 1];
+						final float minimumZ = this.scenePoint3Fs_$constant$[minimumOffset + 2];
+						
+//						Retrieve the maximum point location of the current bounding box:
+						final float maximumX = this.scenePoint3Fs_$constant$[maximumOffset + 0];
+						final float maximumY = this.scenePoint3Fs_$constant$[maximumOffset + 1];
+						final float maximumZ = this.scenePoint3Fs_$constant$[maximumOffset + 2];
+						
+//						Calculate the distance to the minimum point location of the bounding box:
+						final float t0X = (minimumX - originXObjectSpace) * directionXObjectSpaceReciprocal;
+						final float t0Y = (minimumY - originYObjectSpace) * directionYObjectSpaceReciprocal;
+						final float t0Z = (minimumZ - originZObjectSpace) * directionZObjectSpaceReciprocal;
+						
+//						Calculate the distance to the maximum point location of the bounding box:
+						final float t1X = (maximumX - originXObjectSpace) * directionXObjectSpaceReciprocal;
+						final float t1Y = (maximumY - originYObjectSpace) * directionYObjectSpaceReciprocal;
+						final float t1Z = (maximumZ - originZObjectSpace) * directionZObjectSpaceReciprocal;
+						
+//						Calculate the minimum and maximum distance values of the X-, Y- and Z-components above:
+						final float tMaximum = min(max(t0X, t1X), min(max(t0Y, t1Y), max(t0Z, t1Z)));
+						final float tMinimum = max(min(t0X, t1X), max(min(t0Y, t1Y), min(t0Z, t1Z)));
+						final float t = tMinimum > tMaximum ? -1.0F : tMinimum > 0.001F && tMinimum < closestDistance ? tMinimum : tMaximum > 0.001F && tMaximum < closestDistance ? tMaximum : -1.0F;
+						
+						if(t < 0.0F) {
 //							Retrieve the offset to the next node in the BVH structure, relative to the current one:
 							boundingVolumeHierarchyRelativeOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 1];
+						} else {
+//							Retrieve the type of the current BVH node:
+							final int type = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset];
+							
+							if(type == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+//								This BVH node is a tree node, so retrieve the offset to the next node in the BVH structure, relative to the current one:
+								boundingVolumeHierarchyRelativeOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 4];
+							} else {
+//								Retrieve the triangle count in the current BVH node:
+								final int triangleCount = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 4];
+								
+								int j = 0;
+								
+//								Loop through all triangles in the current BVH node:
+								while(j < triangleCount) {
+//									Retrieve the offset to the current triangle:
+									final int currentTriangleOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 5] + j * Triangle.SIZE;
+									
+//									Perform an intersection test with the current triangle:
+									currentDistance = doIntersectTriangleAtOffset(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, currentTriangleOffset, 0.001F, closestDistance);
+									
+									traversalStatisticsTriangleCount++;
+									
+//									Check if the current distance is less than the distance to the closest primitive so far:
+									if(currentDistance < closestDistance) {
+										closestDistance = currentDistance;
+										closestPrimitiveOffset = currentPrimitiveOffset;
+										closestShapeType = Triangle.TYPE;
+										closestShapeOffset = currentTriangleOffset;
+									}
+									
+									if(isTesting && closestPrimitiveOffset != -1) {
+										return closestDistance;
+									}
+									
+									j++;
+								}
+								
+//								Retrieve the offset to the next node in the BVH structure, relative to the current one:
+								boundingVolumeHierarchyRelativeOffset = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 1];
+							}
 						}
 					}
-				}
-			} else if(currentShapeType == Plane.TYPE) {
-				final int offsetA = this.scenePlanes_$constant$[currentShapeOffset + Plane.RELATIVE_OFFSET_A_OFFSET];
-				final int offsetSurfaceNormal = this.scenePlanes_$constant$[currentShapeOffset + Plane.RELATIVE_OFFSET_SURFACE_NORMAL_OFFSET];
-				
-				final float aX = this.scenePoint3Fs_$constant$[offsetA + 0];
-				final float aY = this.scenePoint3Fs_$constant$[offsetA + 1];
-				final float aZ = this.scenePoint3Fs_$constant$[offsetA + 2];
-				
-				final float surfaceNormalX = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 0];
-				final float surfaceNormalY = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 1];
-				final float surfaceNormalZ = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 2];
-				
-				currentDistance = doIntersectPlane(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, aX, aY, aZ, surfaceNormalX, surfaceNormalY, surfaceNormalZ, 0.001F, closestDistance);
-			} else if(currentShapeType == Sphere.TYPE) {
-				final int offsetPosition = (int)(this.sceneSpheres_$constant$[currentShapeOffset + Sphere.RELATIVE_OFFSET_POSITION_OFFSET]);
-				
-				final float positionX = this.scenePoint3Fs_$constant$[offsetPosition + 0];
-				final float positionY = this.scenePoint3Fs_$constant$[offsetPosition + 1];
-				final float positionZ = this.scenePoint3Fs_$constant$[offsetPosition + 2];
-				
-				final float radius = this.sceneSpheres_$constant$[currentShapeOffset + Sphere.RELATIVE_OFFSET_RADIUS];
-				
-				currentDistance = doIntersectSphere(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, positionX, positionY, positionZ, radius, 0.001F, closestDistance);
-			} else if(currentShapeType == Terrain.TYPE) {
-				final float frequency = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_FREQUENCY];
-				final float gain = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_GAIN];
-				final float minimum = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_MINIMUM];
-				final float maximum = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_MAXIMUM];
-				
-				final int octaves = (int)(this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_OCTAVES]);
-				
-				currentDistance = doIntersectTerrain(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, frequency, gain, minimum, maximum, octaves);
-			} else if(currentShapeType == Triangle.TYPE) {
-				final int offsetAPosition = this.sceneTriangles_$constant$[currentShapeOffset + Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET];
-				final int offsetBPosition = this.sceneTriangles_$constant$[currentShapeOffset + Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET];
-				final int offsetCPosition = this.sceneTriangles_$constant$[currentShapeOffset + Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET];
-				
-				final float aPositionX = this.scenePoint3Fs_$constant$[offsetAPosition + 0];
-				final float aPositionY = this.scenePoint3Fs_$constant$[offsetAPosition + 1];
-				final float aPositionZ = this.scenePoint3Fs_$constant$[offsetAPosition + 2];
-				final float bPositionX = this.scenePoint3Fs_$constant$[offsetBPosition + 0];
-				final float bPositionY = this.scenePoint3Fs_$constant$[offsetBPosition + 1];
-				final float bPositionZ = this.scenePoint3Fs_$constant$[offsetBPosition + 2];
-				final float cPositionX = this.scenePoint3Fs_$constant$[offsetCPosition + 0];
-				final float cPositionY = this.scenePoint3Fs_$constant$[offsetCPosition + 1];
-				final float cPositionZ = this.scenePoint3Fs_$constant$[offsetCPosition + 2];
-				
-				currentDistance = doIntersectTriangle(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, aPositionX, aPositionY, aPositionZ, bPositionX, bPositionY, bPositionZ, cPositionX, cPositionY, cPositionZ, 0.001F, closestDistance);
-			}
-			
-			if(currentDistance < closestDistance) {
-				closestDistance = currentDistance;
-				closestMatrixOffset = currentMatrixOffset;
-				closestPrimitiveOffset = currentPrimitiveOffset;
-				closestShapeType = currentShapeType;
-				closestShapeOffset = currentShapeOffset;
-			}
-			
-			if(isTesting && closestPrimitiveOffset != -1) {
-				return closestDistance;
-			}
-		}
-		
-		if(!isTesting) {
-			if(closestPrimitiveOffset != -1) {
-				final float objectToWorldElement11 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  0];
-				final float objectToWorldElement12 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  1];
-				final float objectToWorldElement13 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  2];
-				final float objectToWorldElement14 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  3];
-				final float objectToWorldElement21 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  4];
-				final float objectToWorldElement22 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  5];
-				final float objectToWorldElement23 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  6];
-				final float objectToWorldElement24 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  7];
-				final float objectToWorldElement31 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  8];
-				final float objectToWorldElement32 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset +  9];
-				final float objectToWorldElement33 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset + 10];
-				final float objectToWorldElement34 = this.scenePrimitivesObjectToWorld_$constant$[closestMatrixOffset + 11];
-				
-				final float worldToObjectElement11 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  0];
-				final float worldToObjectElement12 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  1];
-				final float worldToObjectElement13 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  2];
-				final float worldToObjectElement14 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  3];
-				final float worldToObjectElement21 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  4];
-				final float worldToObjectElement22 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  5];
-				final float worldToObjectElement23 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  6];
-				final float worldToObjectElement24 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  7];
-				final float worldToObjectElement31 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  8];
-				final float worldToObjectElement32 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset +  9];
-				final float worldToObjectElement33 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset + 10];
-				final float worldToObjectElement34 = this.scenePrimitivesWorldToObject_$constant$[closestMatrixOffset + 11];
-				
-				final float originXObjectSpace = worldToObjectElement11 * originX + worldToObjectElement12 * originY + worldToObjectElement13 * originZ + worldToObjectElement14;
-				final float originYObjectSpace = worldToObjectElement21 * originX + worldToObjectElement22 * originY + worldToObjectElement23 * originZ + worldToObjectElement24;
-				final float originZObjectSpace = worldToObjectElement31 * originX + worldToObjectElement32 * originY + worldToObjectElement33 * originZ + worldToObjectElement34;
-				
-				final float directionXObjectSpace = worldToObjectElement11 * directionX + worldToObjectElement12 * directionY + worldToObjectElement13 * directionZ;
-				final float directionYObjectSpace = worldToObjectElement21 * directionX + worldToObjectElement22 * directionY + worldToObjectElement23 * directionZ;
-				final float directionZObjectSpace = worldToObjectElement31 * directionX + worldToObjectElement32 * directionY + worldToObjectElement33 * directionZ;
-				
-				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE] = closestDistance;
-				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET] = closestPrimitiveOffset;
-				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_TYPE] = closestShapeType;
-				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_OFFSET] = closestShapeOffset;
-				
-				if(closestShapeType == Plane.TYPE) {
-					final int offsetA = this.scenePlanes_$constant$[closestShapeOffset + Plane.RELATIVE_OFFSET_A_OFFSET];
-					final int offsetB = this.scenePlanes_$constant$[closestShapeOffset + Plane.RELATIVE_OFFSET_B_OFFSET];
-					final int offsetC = this.scenePlanes_$constant$[closestShapeOffset + Plane.RELATIVE_OFFSET_C_OFFSET];
-					final int offsetSurfaceNormal = this.scenePlanes_$constant$[closestShapeOffset + Plane.RELATIVE_OFFSET_SURFACE_NORMAL_OFFSET];
+				} else if(currentShapeType == Plane.TYPE) {
+					final int offsetA = this.scenePlanes_$constant$[currentShapeOffset + Plane.RELATIVE_OFFSET_A_OFFSET];
+					final int offsetSurfaceNormal = this.scenePlanes_$constant$[currentShapeOffset + Plane.RELATIVE_OFFSET_SURFACE_NORMAL_OFFSET];
 					
 					final float aX = this.scenePoint3Fs_$constant$[offsetA + 0];
 					final float aY = this.scenePoint3Fs_$constant$[offsetA + 1];
 					final float aZ = this.scenePoint3Fs_$constant$[offsetA + 2];
-					final float bX = this.scenePoint3Fs_$constant$[offsetB + 0];
-					final float bY = this.scenePoint3Fs_$constant$[offsetB + 1];
-					final float bZ = this.scenePoint3Fs_$constant$[offsetB + 2];
-					final float cX = this.scenePoint3Fs_$constant$[offsetC + 0];
-					final float cY = this.scenePoint3Fs_$constant$[offsetC + 1];
-					final float cZ = this.scenePoint3Fs_$constant$[offsetC + 2];
 					
 					final float surfaceNormalX = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 0];
 					final float surfaceNormalY = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 1];
 					final float surfaceNormalZ = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 2];
 					
-					doCalculateSurfacePropertiesForPlane(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, closestDistance, aX, aY, aZ, bX, bY, bZ, cX, cY, cZ, surfaceNormalX, surfaceNormalY, surfaceNormalZ);
-				} else if(closestShapeType == Sphere.TYPE) {
-					final int offsetPosition = (int)(this.sceneSpheres_$constant$[closestShapeOffset + Sphere.RELATIVE_OFFSET_POSITION_OFFSET]);
+					currentDistance = doIntersectPlane(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, aX, aY, aZ, surfaceNormalX, surfaceNormalY, surfaceNormalZ, 0.001F, closestDistance);
+				} else if(currentShapeType == Sphere.TYPE) {
+					final int offsetPosition = (int)(this.sceneSpheres_$constant$[currentShapeOffset + Sphere.RELATIVE_OFFSET_POSITION_OFFSET]);
 					
 					final float positionX = this.scenePoint3Fs_$constant$[offsetPosition + 0];
 					final float positionY = this.scenePoint3Fs_$constant$[offsetPosition + 1];
 					final float positionZ = this.scenePoint3Fs_$constant$[offsetPosition + 2];
 					
-					doCalculateSurfacePropertiesForSphere(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, closestDistance, positionX, positionY, positionZ);
-				} else if(closestShapeType == Terrain.TYPE) {
-					final float frequency = this.sceneTerrains_$constant$[closestShapeOffset + Terrain.RELATIVE_OFFSET_FREQUENCY];
-					final float gain = this.sceneTerrains_$constant$[closestShapeOffset + Terrain.RELATIVE_OFFSET_GAIN];
-					final float minimum = this.sceneTerrains_$constant$[closestShapeOffset + Terrain.RELATIVE_OFFSET_MINIMUM];
-					final float maximum = this.sceneTerrains_$constant$[closestShapeOffset + Terrain.RELATIVE_OFFSET_MAXIMUM];
-					
-					final int octaves = (int)(this.sceneTerrains_$constant$[closestShapeOffset + Terrain.RELATIVE_OFFSET_OCTAVES]);
-					
-					doCalculateSurfacePropertiesForTerrain(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, closestDistance, frequency, gain, minimum, maximum, octaves);
-				} else if(closestShapeType == Triangle.TYPE) {
-					final int offsetAPosition = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET];
-					final int offsetBPosition = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET];
-					final int offsetCPosition = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET];
-					
-					final int offsetASurfaceNormal = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_A_SURFACE_NORMAL_OFFSET];
-					final int offsetBSurfaceNormal = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_B_SURFACE_NORMAL_OFFSET];
-					final int offsetCSurfaceNormal = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_C_SURFACE_NORMAL_OFFSET];
-					
-					final int offsetASurfaceTangent = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_A_SURFACE_TANGENT_OFFSET];
-					final int offsetBSurfaceTangent = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_B_SURFACE_TANGENT_OFFSET];
-					final int offsetCSurfaceTangent = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_C_SURFACE_TANGENT_OFFSET];
-					
-					final int offsetATextureCoordinates = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_A_TEXTURE_COORDINATES_OFFSET];
-					final int offsetBTextureCoordinates = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_B_TEXTURE_COORDINATES_OFFSET];
-					final int offsetCTextureCoordinates = this.sceneTriangles_$constant$[closestShapeOffset + Triangle.RELATIVE_OFFSET_C_TEXTURE_COORDINATES_OFFSET];
+					final float radius = this.sceneSpheres_$constant$[currentShapeOffset + Sphere.RELATIVE_OFFSET_RADIUS];
 					
-					final float aPositionX = this.scenePoint3Fs_$constant$[offsetAPosition + 0];
-					final float aPositionY = this.scenePoint3Fs_$constant$[offsetAPosition + 1];
-					final float aPositionZ = this.scenePoint3Fs_$constant$[offsetAPosition + 2];
-					final float bPositionX = this.scenePoint3Fs_$constant$[offsetBPosition + 0];
-					final float bPositionY = this.scenePoint3Fs_$constant$[offsetBPosition + 1];
-					final float bPositionZ = this.scenePoint3Fs_$constant$[offsetBPosition + 2];
-					final float cPositionX = this.scenePoint3Fs_$constant$[offsetCPosition + 0];
-					final float cPositionY = this.scenePoint3Fs_$constant$[offsetCPosition + 1];
-					final float cPositionZ = this.scenePoint3Fs_$constant$[offsetCPosition + 2];
-					
-					final float aSurfaceNormalX = this.sceneVector3Fs_$constant$[offsetASurfaceNormal + 0];
-					final float aSurfaceNormalY = this.sceneVector3Fs_$constant$[offsetASurfaceNormal + 1];
-					final float aSurfaceNormalZ = this.sceneVector3Fs_$constant$[offsetASurfaceNormal + 2];
-					final float bSurfaceNormalX = this.sceneVector3Fs_$constant$[offsetBSurfaceNormal + 0];
-					final float bSurfaceNormalY = this.sceneVector3Fs_$constant$[offsetBSurfaceNormal + 1];
-					final float bSurfaceNormalZ = this.sceneVector3Fs_$constant$[offsetBSurfaceNormal + 2];
-					final float cSurfaceNormalX = this.sceneVector3Fs_$constant$[offsetCSurfaceNormal + 0];
-					final float cSurfaceNormalY = this.sceneVector3Fs_$constant$[offsetCSurfaceNormal + 1];
-					final float cSurfaceNormalZ = this.sceneVector3Fs_$constant$[offsetCSurfaceNormal + 2];
+					currentDistance = doIntersectSphere(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, positionX, positionY, positionZ, radius, 0.001F, closestDistance);
+				} else if(currentShapeType == Terrain.TYPE) {
+					final float frequency = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_FREQUENCY];
+					final float gain = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_GAIN];
+					final float minimum = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_MINIMUM];
+					final float maximum = this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_MAXIMUM];
 					
-					final float aSurfaceTangentX = this.sceneVector3Fs_$constant$[offsetASurfaceTangent + 0];
-					final float aSurfaceTangentY = this.sceneVector3Fs_$constant$[offsetASurfaceTangent + 1];
-					final float aSurfaceTangentZ = this.sceneVector3Fs_$constant$[offsetASurfaceTangent + 2];
-					final float bSurfaceTangentX = this.sceneVector3Fs_$constant$[offsetBSurfaceTangent + 0];
-					final float bSurfaceTangentY = this.sceneVector3Fs_$constant$[offsetBSurfaceTangent + 1];
-					final float bSurfaceTangentZ = this.sceneVector3Fs_$constant$[offsetBSurfaceTangent + 2];
-					final float cSurfaceTangentX = this.sceneVector3Fs_$constant$[offsetCSurfaceTangent + 0];
-					final float cSurfaceTangentY = this.sceneVector3Fs_$constant$[offsetCSurfaceTangent + 1];
-					final float cSurfaceTangentZ = this.sceneVector3Fs_$constant$[offsetCSurfaceTangent + 2];
+					final int octaves = (int)(this.sceneTerrains_$constant$[currentShapeOffset + Terrain.RELATIVE_OFFSET_OCTAVES]);
 					
-					final float aTextureCoordinatesU = this.scenePoint2Fs_$constant$[offsetATextureCoordinates + 0];
-					final float aTextureCoordinatesV = this.scenePoint2Fs_$constant$[offsetATextureCoordinates + 1];
-					final float bTextureCoordinatesU = this.scenePoint2Fs_$constant$[offsetBTextureCoordinates + 0];
-					final float bTextureCoordinatesV = this.scenePoint2Fs_$constant$[offsetBTextureCoordinates + 1];
-					final float cTextureCoordinatesU = this.scenePoint2Fs_$constant$[offsetCTextureCoordinates + 0];
-					final float cTextureCoordinatesV = this.scenePoint2Fs_$constant$[offsetCTextureCoordinates + 1];
+					currentDistance = doIntersectTerrain(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, frequency, gain, minimum, maximum, octaves);
+				} else if(currentShapeType == Triangle.TYPE) {
+					currentDistance = doIntersectTriangleAtOffset(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, currentShapeOffset, 0.001F, closestDistance);
 					
-					doCalculateSurfacePropertiesForTriangle(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, closestDistance, aPositionX, aPositionY, aPositionZ, bPositionX, bPositionY, bPositionZ, cPositionX, cPositionY, cPositionZ, aSurfaceNormalX, aSurfaceNormalY, aSurfaceNormalZ, bSurfaceNormalX, bSurfaceNormalY, bSurfaceNormalZ, cSurfaceNormalX, cSurfaceNormalY, cSurfaceNormalZ, aSurfaceTangentX, aSurfaceTangentY, aSurfaceTangentZ, bSurfaceTangentX, bSurfaceTangentY, bSurfaceTangentZ, cSurfaceTangentX, cSurfaceTangentY, cSurfaceTangentZ, aTextureCoordinatesU, aTextureCoordinatesV, bTextureCoordinatesU, bTextureCoordinatesV, cTextureCoordinatesU, cTextureCoordinatesV);
+					traversalStatisticsTriangleCount++;
 				}
 				
-				doTransformIntersectionToWorldSpace(objectToWorldElement11, objectToWorldElement12, objectToWorldElement13, objectToWorldElement14, objectToWorldElement21, objectToWorldElement22, objectToWorldElement23, objectToWorldElement24, objectToWorldElement31, objectToWorldElement32, objectToWorldElement33, objectToWorldElement34, worldToObjectElement11, worldToObjectElement12, worldToObjectElement13, worldToObjectElement21, worldToObjectElement22, worldToObjectElement23, worldToObjectElement31, worldToObjectElement32, worldToObjectElement33);
-				
-//				Perform Normal Mapping via Image Texture:
-				doPerformNormalMappingViaImageTexture(closestPrimitiveOffset);
+				if(currentDistance < closestDistance) {
+					closestDistance = currentDistance;
+					closestPrimitiveOffset = currentPrimitiveOffset;
+					closestShapeType = currentShapeType;
+					closestShapeOffset = currentShapeOffset;
+				}
 				
-//				Perform Normal Mapping via Noise:
-				doPerformNormalMappingViaNoise(closestPrimitiveOffset);
+				if(isTesting && closestPrimitiveOffset != -1) {
+					return closestDistance;
+				}
+			}
+		} while(i != -1);
+		
+//		Store the traversal statistics of the current pixel, which only traces its primary ray with this renderer type:
+		if(!isTesting && super.rendererType == RENDERER_TYPE_TRAVERSAL_STATISTICS) {
+			final int traversalStatisticsOffset = filmGetIndex() * SIZE_TRAVERSAL_STATISTICS;
+			
+			this.traversalStatistics[traversalStatisticsOffset + 0] = traversalStatisticsNodeCount;
+			this.traversalStatistics[traversalStatisticsOffset + 1] = traversalStatisticsTriangleCount;
+		}
+		
+		if(!isTesting) {
+			if(closestPrimitiveOffset != -1 && isCalculatingSurfaceProperties) {
+				doCalculateSurfaceProperties(originX, originY, originZ, directionX, directionY, directionZ, closestDistance, closestPrimitiveOffset, closestShapeType, closestShapeOffset);
+			} else if(closestPrimitiveOffset != -1) {
+//				Update the information in the intersections array, but leave the surface properties to be calculated later on:
+				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE] = closestDistance;
+				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET] = closestPrimitiveOffset;
+				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_TYPE] = closestShapeType;
+				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_OFFSET] = closestShapeOffset;
 			} else {
 //				Reset the information in the intersections array:
 				this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE] = INFINITY;
@@ -1471,10 +2301,13 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		final float scale = 10.0F;
 		final float scaleReciprocal = 1.0F / scale;
 		
+		final float originYScaled = originY * scaleReciprocal;
+		
 		float t = 0.0F;
 		
+//		The height of the terrain is never above 1.0 in the scaled space. A ray that starts above it and never gets below it before the march ends cannot hit the terrain, so the march is skipped by letting it end before it starts:
 		final float tMinimum = 0.001F;
-		final float tMaximum = 10.0F;
+		final float tMaximum = originYScaled >= 1.0F && (directionY >= 0.0F || originYScaled - 1.0F >= -directionY * 10.0F) ? 0.0F : 10.0F;
 		
 		float tDelta = 0.01F;
 		
@@ -1537,7 +2370,6 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		*/
 	}
 	
-	@SuppressWarnings("static-method")
 	private float doIntersectTriangle(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final float aX, final float aY, final float aZ, final float bX, final float bY, final float bZ, final float cX, final float cY, final float cZ, final float tMinimum, final float tMaximum) {
 //		Calculate the first edge between the points A and B:
 		final float edge0X = bX - aX;
@@ -1549,6 +2381,46 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		final float edge1Y = cY - aY;
 		final float edge1Z = cZ - aZ;
 		
+		return doIntersectTriangleWithEdges(originX, originY, originZ, directionX, directionY, directionZ, aX, aY, aZ, edge0X, edge0Y, edge0Z, edge1X, edge1Y, edge1Z, tMinimum, tMaximum);
+	}
+	
+	private float doIntersectTriangleAtOffset(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final int triangleOffset, final float tMinimum, final float tMaximum) {
+		if(this.sceneTrianglesIsPrecomputed == BOOLEAN_TRUE) {
+//			The position of the point A and the two edges are stored contiguously for each triangle, so they can be loaded without going through the offsets to the points:
+			final int trianglePrecomputedOffset = triangleOffset / Triangle.SIZE * Triangle.SIZE_PRECOMPUTED;
+			
+			final float aPositionX = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_A_POSITION + 0];
+			final float aPositionY = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_A_POSITION + 1];
+			final float aPositionZ = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_A_POSITION + 2];
+			final float edge0X = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B + 0];
+			final float edge0Y = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B + 1];
+			final float edge0Z = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B + 2];
+			final float edge1X = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C + 0];
+			final float edge1Y = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C + 1];
+			final float edge1Z = this.sceneTrianglesPrecomputed_$constant$[trianglePrecomputedOffset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C + 2];
+			
+			return doIntersectTriangleWithEdges(originX, originY, originZ, directionX, directionY, directionZ, aPositionX, aPositionY, aPositionZ, edge0X, edge0Y, edge0Z, edge1X, edge1Y, edge1Z, tMinimum, tMaximum);
+		}
+		
+		final int offsetAPosition = this.sceneTriangles_$constant$[triangleOffset + Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET];
+		final int offsetBPosition = this.sceneTriangles_$constant$[triangleOffset + Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET];
+		final int offsetCPosition = this.sceneTriangles_$constant$[triangleOffset + Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET];
+		
+		final float aPositionX = this.scenePoint3Fs_$constant$[offsetAPosition + 0];
+		final float aPositionY = this.scenePoint3Fs_$constant$[offsetAPosition + 1];
+		final float aPositionZ = this.scenePoint3Fs_$constant$[offsetAPosition + 2];
+		final float bPositionX = this.scenePoint3Fs_$constant$[offsetBPosition + 0];
+		final float bPositionY = this.scenePoint3Fs_$constant$[offsetBPosition + 1];
+		final float bPositionZ = this.scenePoint3Fs_$constant$[offsetBPosition + 2];
+		final float cPositionX = this.scenePoint3Fs_$constant$[offsetCPosition + 0];
+		final float cPositionY = this.scenePoint3Fs_$constant$[offsetCPosition + 1];
+		final float cPositionZ = this.scenePoint3Fs_$constant$[offsetCPosition + 2];
+		
+		return doIntersectTriangle(originX, originY, originZ, directionX, directionY, directionZ, aPositionX, aPositionY, aPositionZ, bPositionX, bPositionY, bPositionZ, cPositionX, cPositionY, cPositionZ, tMinimum, tMaximum);
+	}
+	
+	@SuppressWarnings("static-method")
+	private float doIntersectTriangleWithEdges(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final float aX, final float aY, final float aZ, final float edge0X, final float edge0Y, final float edge0Z, final float edge1X, final float edge1Y, final float edge1Z, final float tMinimum, final float tMaximum) {
 //		Calculate the cross product:
 		final float v0X = directionY * edge1Z - directionZ * edge1Y;
 		final float v0Y = directionZ * edge1X - directionX * edge1Z;
@@ -1593,6 +2465,34 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		return t;
 	}
 	
+	private int doGetBoundingVolumeHierarchyNearestChildOffset(final int boundingVolumeHierarchyOffset, final int rootOffset, final float directionX, final float directionY, final float directionZ) {
+//		Retrieve the offsets to the left and right children of the tree node, where the right child is the next node of the left child:
+		final int leftOffset = rootOffset + this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 4];
+		final int rightOffset = rootOffset + this.sceneBoundingVolumeHierarchies_$constant$[leftOffset + 1];
+		
+//		Retrieve the split axis, which is offset by 3 if the left child is the farthest one along it:
+		final int splitAxis = this.sceneBoundingVolumeHierarchies_$constant$[boundingVolumeHierarchyOffset + 5];
+		final int axis = splitAxis % 3;
+		
+		final float direction = axis == 0 ? directionX : axis == 1 ? directionY : directionZ;
+		
+		final boolean isLeftNearest = splitAxis < 3 ? direction >= 0.0F : direction < 0.0F;
+		
+		return isLeftNearest ? leftOffset : rightOffset;
+	}
+	
+	private int doGetBoundingVolumeHierarchySiblingOffset(final int boundingVolumeHierarchyOffset, final int parentOffset, final int rootOffset) {
+		final int leftOffset = rootOffset + this.sceneBoundingVolumeHierarchies_$constant$[parentOffset + 4];
+		final int rightOffset = rootOffset + this.sceneBoundingVolumeHierarchies_$constant$[leftOffset + 1];
+		
+		return boundingVolumeHierarchyOffset == leftOffset ? rightOffset : leftOffset;
+	}
+	
+	private int doGetPasses() {
+//		The wavefront mode for Path Tracing generates the paths of each sample in one pass, extends and shades them in two passes per depth, connects them to the sky and finally resolves them into the film:
+		return super.rendererType == RENDERER_TYPE_PATH_TRACER && super.rendererPTWavefront == BOOLEAN_TRUE ? max(super.rendererSamplesPerLaunch, 1) * (max(super.rendererPTRayDepthMaximum, 1) * 2 + 3) : 1;
+	}
+	
 	private int doGetTextureColor(final int texturesOffset) {
 		final int textureType = (int)(this.sceneTextures_$constant$[texturesOffset + Texture.RELATIVE_OFFSET_TYPE]);
 		
@@ -1988,15 +2888,10 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		final float lNormalizedY = lY * lLengthReciprocal;
 		final float lNormalizedZ = lZ * lLengthReciprocal;
 		
-		if(isCheckingForIntersections) {
-//			Perform an intersection test:
-			doIntersectPrimitives(pX, pY, pZ, lNormalizedX, lNormalizedY, lNormalizedZ, false);
-		}
+//		Check if there is anything between the intersection point and the point light, without touching the intersection record of the current ray:
+		final boolean isOccluded = isCheckingForIntersections && doIntersectPrimitivesOcclusion(pX, pY, pZ, lNormalizedX, lNormalizedY, lNormalizedZ, lLength);
 		
-//		Compute t, the closest intersection from the intersection point in the direction of L:
-		final float t = isCheckingForIntersections ? this.intersections_$local$[getLocalId() * SIZE_INTERSECTION + RELATIVE_OFFSET_INTERSECTION_DISTANCE] : INFINITY;
-		
-		if(t >= INFINITY || t > lLengthSquared) {
+		if(!isOccluded) {
 //			Compute the dot product between L and N:
 			final float lDotN = lNormalizedX * nX + lNormalizedY * nY + lNormalizedZ * nZ;
 			
@@ -2067,15 +2962,10 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		final float lNormalizedY = lY * lLengthReciprocal;
 		final float lNormalizedZ = lZ * lLengthReciprocal;
 		
-		if(isCheckingForIntersections) {
-//			Perform an intersection test:
-			doIntersectPrimitives(surfaceIntersectionPointX, surfaceIntersectionPointY, surfaceIntersectionPointZ, lNormalizedX, lNormalizedY, lNormalizedZ, false);
-		}
-		
-//		Compute t, the closest intersection from the intersection point in the direction of L:
-		final float t = isCheckingForIntersections ? this.intersections_$local$[getLocalId() * SIZE_INTERSECTION + RELATIVE_OFFSET_INTERSECTION_DISTANCE] : INFINITY;
+//		Check if there is anything between the intersection point and the point light, without touching the intersection record of the current ray:
+		final boolean isOccluded = isCheckingForIntersections && doIntersectPrimitivesOcclusion(surfaceIntersectionPointX, surfaceIntersectionPointY, surfaceIntersectionPointZ, lNormalizedX, lNormalizedY, lNormalizedZ, lLength);
 		
-		if(t >= INFINITY || t > lLengthSquared) {
+		if(!isOccluded) {
 			final float wiX = lPositionX - surfaceIntersectionPointX;
 			final float wiY = lPositionY - surfaceIntersectionPointY;
 			final float wiZ = lPositionZ - surfaceIntersectionPointZ;
@@ -2124,6 +3014,30 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		return (((int)(r * 255.0F + 0.5F) & 0xFF) << 16) | (((int)(g * 255.0F + 0.5F) & 0xFF) << 8) | (((int)(b * 255.0F + 0.5F) & 0xFF));
 	}
 	
+	private long doGetTraversalStatisticsCount(final int relativeOffset) {
+		get(this.traversalStatistics);
+		
+		final int[] traversalStatistics = this.traversalStatistics;
+		
+		long count = 0L;
+		
+		for(int i = relativeOffset; i < traversalStatistics.length; i += SIZE_TRAVERSAL_STATISTICS) {
+			count += traversalStatistics[i];
+		}
+		
+		return count;
+	}
+	
+	private void doAddColorForSkyToPath(final boolean isSkyActive) {
+//		Calculate the color for the sky in the direction of the current ray of the path:
+		doCalculateColorForSky(isSkyActive, this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0], this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1], this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2]);
+		
+//		Add the color for the sky, multiplied by the radiance multiplier, to the pixel color of the path:
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0] += this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 0] * this.colorTemporarySamples_$private$3[0] * PI_RECIPROCAL;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1] += this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 1] * this.colorTemporarySamples_$private$3[1] * PI_RECIPROCAL;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2] += this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 2] * this.colorTemporarySamples_$private$3[2] * PI_RECIPROCAL;
+	}
+	
 	private void doCalculateColorForSky(final boolean isSkyActive, final float directionX, final float directionY, final float directionZ) {
 //		Calculate the direction vector:
 		float direction0X = directionX * this.sunAndSkyOrthoNormalBasisUX + directionY * this.sunAndSkyOrthoNormalBasisUY + directionZ * this.sunAndSkyOrthoNormalBasisUZ;
@@ -2321,9 +3235,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 				final float directionY = randomSunDirectionWorldNormalizedY;
 				final float directionZ = randomSunDirectionWorldNormalizedZ;
 				
-				final float t = doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, true);
-				
-				if(t >= INFINITY - 0.0001F) {
+				if(!doIntersectPrimitivesOcclusion(originX, originY, originZ, directionX, directionY, directionZ, INFINITY)) {
 //					final float sunColorR = 0.001F;
 //					final float sunColorG = 0.001F;
 //					final float sunColorB = 0.001F;
@@ -2346,6 +3258,156 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		this.colorTemporarySamples_$private$3[2] = b;
 	}
 	
+	private void doCalculateSurfaceProperties(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final float distance, final int primitiveOffset, final int shapeType, final int shapeOffset) {
+//		Compute the offset for the array containing intersection data:
+		final int intersectionsOffset = getLocalId() * SIZE_INTERSECTION;
+		
+//		Compute the offset to the matrices of the intersected primitive:
+		final int matrixOffset = primitiveOffset / Primitive.SIZE * SIZE_MATRIX;
+		
+		final float objectToWorldElement11 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  0];
+		final float objectToWorldElement12 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  1];
+		final float objectToWorldElement13 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  2];
+		final float objectToWorldElement14 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  3];
+		final float objectToWorldElement21 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  4];
+		final float objectToWorldElement22 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  5];
+		final float objectToWorldElement23 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  6];
+		final float objectToWorldElement24 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  7];
+		final float objectToWorldElement31 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  8];
+		final float objectToWorldElement32 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset +  9];
+		final float objectToWorldElement33 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset + 10];
+		final float objectToWorldElement34 = this.scenePrimitivesObjectToWorld_$constant$[matrixOffset + 11];
+		
+		final float worldToObjectElement11 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  0];
+		final float worldToObjectElement12 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  1];
+		final float worldToObjectElement13 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  2];
+		final float worldToObjectElement14 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  3];
+		final float worldToObjectElement21 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  4];
+		final float worldToObjectElement22 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  5];
+		final float worldToObjectElement23 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  6];
+		final float worldToObjectElement24 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  7];
+		final float worldToObjectElement31 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  8];
+		final float worldToObjectElement32 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset +  9];
+		final float worldToObjectElement33 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset + 10];
+		final float worldToObjectElement34 = this.scenePrimitivesWorldToObject_$constant$[matrixOffset + 11];
+		
+		final float originXObjectSpace = worldToObjectElement11 * originX + worldToObjectElement12 * originY + worldToObjectElement13 * originZ + worldToObjectElement14;
+		final float originYObjectSpace = worldToObjectElement21 * originX + worldToObjectElement22 * originY + worldToObjectElement23 * originZ + worldToObjectElement24;
+		final float originZObjectSpace = worldToObjectElement31 * originX + worldToObjectElement32 * originY + worldToObjectElement33 * originZ + worldToObjectElement34;
+		
+		final float directionXObjectSpace = worldToObjectElement11 * directionX + worldToObjectElement12 * directionY + worldToObjectElement13 * directionZ;
+		final float directionYObjectSpace = worldToObjectElement21 * directionX + worldToObjectElement22 * directionY + worldToObjectElement23 * directionZ;
+		final float directionZObjectSpace = worldToObjectElement31 * directionX + worldToObjectElement32 * directionY + worldToObjectElement33 * directionZ;
+		
+		this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE] = distance;
+		this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET] = primitiveOffset;
+		this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_TYPE] = shapeType;
+		this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_OFFSET] = shapeOffset;
+		
+		if(shapeType == Plane.TYPE) {
+			final int offsetA = this.scenePlanes_$constant$[shapeOffset + Plane.RELATIVE_OFFSET_A_OFFSET];
+			final int offsetB = this.scenePlanes_$constant$[shapeOffset + Plane.RELATIVE_OFFSET_B_OFFSET];
+			final int offsetC = this.scenePlanes_$constant$[shapeOffset + Plane.RELATIVE_OFFSET_C_OFFSET];
+			final int offsetSurfaceNormal = this.scenePlanes_$constant$[shapeOffset + Plane.RELATIVE_OFFSET_SURFACE_NORMAL_OFFSET];
+			
+			final float aX = this.scenePoint3Fs_$constant$[offsetA + 0];
+			final float aY = this.scenePoint3Fs_$constant$[offsetA + 1];
+			final float aZ = this.scenePoint3Fs_$constant$[offsetA + 2];
+			final float bX = this.scenePoint3Fs_$constant$[offsetB + 0];
+			final float bY = this.scenePoint3Fs_$constant$[offsetB + 1];
+			final float bZ = this.scenePoint3Fs_$constant$[offsetB + 2];
+			final float cX = this.scenePoint3Fs_$constant$[offsetC + 0];
+			final float cY = this.scenePoint3Fs_$constant$[offsetC + 1];
+			final float cZ = this.scenePoint3Fs_$constant$[offsetC + 2];
+			
+			final float surfaceNormalX = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 0];
+			final float surfaceNormalY = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 1];
+			final float surfaceNormalZ = this.sceneVector3Fs_$constant$[offsetSurfaceNormal + 2];
+			
+			doCalculateSurfacePropertiesForPlane(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, distance, aX, aY, aZ, bX, bY, bZ, cX, cY, cZ, surfaceNormalX, surfaceNormalY, surfaceNormalZ);
+		} else if(shapeType == Sphere.TYPE) {
+			final int offsetPosition = (int)(this.sceneSpheres_$constant$[shapeOffset + Sphere.RELATIVE_OFFSET_POSITION_OFFSET]);
+			
+			final float positionX = this.scenePoint3Fs_$constant$[offsetPosition + 0];
+			final float positionY = this.scenePoint3Fs_$constant$[offsetPosition + 1];
+			final float positionZ = this.scenePoint3Fs_$constant$[offsetPosition + 2];
+			
+			doCalculateSurfacePropertiesForSphere(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, distance, positionX, positionY, positionZ);
+		} else if(shapeType == Terrain.TYPE) {
+			final float frequency = this.sceneTerrains_$constant$[shapeOffset + Terrain.RELATIVE_OFFSET_FREQUENCY];
+			final float gain = this.sceneTerrains_$constant$[shapeOffset + Terrain.RELATIVE_OFFSET_GAIN];
+			final float minimum = this.sceneTerrains_$constant$[shapeOffset + Terrain.RELATIVE_OFFSET_MINIMUM];
+			final float maximum = this.sceneTerrains_$constant$[shapeOffset + Terrain.RELATIVE_OFFSET_MAXIMUM];
+			
+			final int octaves = (int)(this.sceneTerrains_$constant$[shapeOffset + Terrain.RELATIVE_OFFSET_OCTAVES]);
+			
+			doCalculateSurfacePropertiesForTerrain(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, distance, frequency, gain, minimum, maximum, octaves);
+		} else if(shapeType == Triangle.TYPE) {
+			final int offsetAPosition = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET];
+			final int offsetBPosition = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET];
+			final int offsetCPosition = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET];
+			
+			final int offsetASurfaceNormal = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_A_SURFACE_NORMAL_OFFSET];
+			final int offsetBSurfaceNormal = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_B_SURFACE_NORMAL_OFFSET];
+			final int offsetCSurfaceNormal = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_C_SURFACE_NORMAL_OFFSET];
+			
+			final int offsetASurfaceTangent = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_A_SURFACE_TANGENT_OFFSET];
+			final int offsetBSurfaceTangent = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_B_SURFACE_TANGENT_OFFSET];
+			final int offsetCSurfaceTangent = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_C_SURFACE_TANGENT_OFFSET];
+			
+			final int offsetATextureCoordinates = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_A_TEXTURE_COORDINATES_OFFSET];
+			final int offsetBTextureCoordinates = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_B_TEXTURE_COORDINATES_OFFSET];
+			final int offsetCTextureCoordinates = this.sceneTriangles_$constant$[shapeOffset + Triangle.RELATIVE_OFFSET_C_TEXTURE_COORDINATES_OFFSET];
+			
+			final float aPositionX = this.scenePoint3Fs_$constant$[offsetAPosition + 0];
+			final float aPositionY = this.scenePoint3Fs_$constant$[offsetAPosition + 1];
+			final float aPositionZ = this.scenePoint3Fs_$constant$[offsetAPosition + 2];
+			final float bPositionX = this.scenePoint3Fs_$constant$[offsetBPosition + 0];
+			final float bPositionY = this.scenePoint3Fs_$constant$[offsetBPosition + 1];
+			final float bPositionZ = this.scenePoint3Fs_$constant$[offsetBPosition + 2];
+			final float cPositionX = this.scenePoint3Fs_$constant$[offsetCPosition + 0];
+			final float cPositionY = this.scenePoint3Fs_$constant$[offsetCPosition + 1];
+			final float cPositionZ = this.scenePoint3Fs_$constant$[offsetCPosition + 2];
+			
+			final float aSurfaceNormalX = this.sceneVector3Fs_$constant$[offsetASurfaceNormal + 0];
+			final float aSurfaceNormalY = this.sceneVector3Fs_$constant$[offsetASurfaceNormal + 1];
+			final float aSurfaceNormalZ = this.sceneVector3Fs_$constant$[offsetASurfaceNormal + 2];
+			final float bSurfaceNormalX = this.sceneVector3Fs_$constant$[offsetBSurfaceNormal + 0];
+			final float bSurfaceNormalY = this.sceneVector3Fs_$constant$[offsetBSurfaceNormal + 1];
+			final float bSurfaceNormalZ = this.sceneVector3Fs_$constant$[offsetBSurfaceNormal + 2];
+			final float cSurfaceNormalX = this.sceneVector3Fs_$constant$[offsetCSurfaceNormal + 0];
+			final float cSurfaceNormalY = this.sceneVector3Fs_$constant$[offsetCSurfaceNormal + 1];
+			final float cSurfaceNormalZ = this.sceneVector3Fs_$constant$[offsetCSurfaceNormal + 2];
+			
+			final float aSurfaceTangentX = this.sceneVector3Fs_$constant$[offsetASurfaceTangent + 0];
+			final float aSurfaceTangentY = this.sceneVector3Fs_$constant$[offsetASurfaceTangent + 1];
+			final float aSurfaceTangentZ = this.sceneVector3Fs_$constant$[offsetASurfaceTangent + 2];
+			final float bSurfaceTangentX = this.sceneVector3Fs_$constant$[offsetBSurfaceTangent + 0];
+			final float bSurfaceTangentY = this.sceneVector3Fs_$constant$[offsetBSurfaceTangent + 1];
+			final float bSurfaceTangentZ = this.sceneVector3Fs_$constant$[offsetBSurfaceTangent + 2];
+			final float cSurfaceTangentX = this.sceneVector3Fs_$constant$[offsetCSurfaceTangent + 0];
+			final float cSurfaceTangentY = this.sceneVector3Fs_$constant$[offsetCSurfaceTangent + 1];
+			final float cSurfaceTangentZ = this.sceneVector3Fs_$constant$[offsetCSurfaceTangent + 2];
+			
+			final float aTextureCoordinatesU = this.scenePoint2Fs_$constant$[offsetATextureCoordinates + 0];
+			final float aTextureCoordinatesV = this.scenePoint2Fs_$constant$[offsetATextureCoordinates + 1];
+			final float bTextureCoordinatesU = this.scenePoint2Fs_$constant$[offsetBTextureCoordinates + 0];
+			final float bTextureCoordinatesV = this.scenePoint2Fs_$constant$[offsetBTextureCoordinates + 1];
+			final float cTextureCoordinatesU = this.scenePoint2Fs_$constant$[offsetCTextureCoordinates + 0];
+			final float cTextureCoordinatesV = this.scenePoint2Fs_$constant$[offsetCTextureCoordinates + 1];
+			
+			doCalculateSurfacePropertiesForTriangle(originXObjectSpace, originYObjectSpace, originZObjectSpace, directionXObjectSpace, directionYObjectSpace, directionZObjectSpace, distance, aPositionX, aPositionY, aPositionZ, bPositionX, bPositionY, bPositionZ, cPositionX, cPositionY, cPositionZ, aSurfaceNormalX, aSurfaceNormalY, aSurfaceNormalZ, bSurfaceNormalX, bSurfaceNormalY, bSurfaceNormalZ, cSurfaceNormalX, cSurfaceNormalY, cSurfaceNormalZ, aSurfaceTangentX, aSurfaceTangentY, aSurfaceTangentZ, bSurfaceTangentX, bSurfaceTangentY, bSurfaceTangentZ, cSurfaceTangentX, cSurfaceTangentY, cSurfaceTangentZ, aTextureCoordinatesU, aTextureCoordinatesV, bTextureCoordinatesU, bTextureCoordinatesV, cTextureCoordinatesU, cTextureCoordinatesV);
+		}
+		
+		doTransformIntersectionToWorldSpace(objectToWorldElement11, objectToWorldElement12, objectToWorldElement13, objectToWorldElement14, objectToWorldElement21, objectToWorldElement22, objectToWorldElement23, objectToWorldElement24, objectToWorldElement31, objectToWorldElement32, objectToWorldElement33, objectToWorldElement34, worldToObjectElement11, worldToObjectElement12, worldToObjectElement13, worldToObjectElement21, worldToObjectElement22, worldToObjectElement23, worldToObjectElement31, worldToObjectElement32, worldToObjectElement33);
+		
+//		Perform Normal Mapping via Image Texture:
+		doPerformNormalMappingViaImageTexture(primitiveOffset);
+		
+//		Perform Normal Mapping via Noise:
+		doPerformNormalMappingViaNoise(primitiveOffset);
+	}
+	
 	private void doCalculateSurfacePropertiesForPlane(final float originX, final float originY, final float originZ, final float directionX, final float directionY, final float directionZ, final float distance, final float aX, final float aY, final float aZ, final float bX, final float bY, final float bZ, final float cX, final float cY, final float cZ, final float surfaceNormalX, final float surfaceNormalY, final float surfaceNormalZ) {
 //		Calculate the surface intersection point:
 		final float surfaceIntersectionPointX = originX + directionX * distance;
@@ -2631,28 +3693,249 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		final float surfaceNormal1Y = surfaceNormal0Y * surfaceNormal0LengthReciprocal;
 		final float surfaceNormal1Z = surfaceNormal0Z * surfaceNormal0LengthReciprocal;
 		
-		final float surfaceTangent0LengthReciprocal = rsqrt(surfaceTangent0X * surfaceTangent0X + surfaceTangent0Y * surfaceTangent0Y + surfaceTangent0Z * surfaceTangent0Z);
+		final float surfaceTangent0LengthReciprocal = rsqrt(surfaceTangent0X * surfaceTangent0X + surfaceTangent0Y * surfaceTangent0Y + surfaceTangent0Z * surfaceTangent0Z);
+		
+		final float surfaceTangent1X = surfaceTangent0X * surfaceTangent0LengthReciprocal;
+		final float surfaceTangent1Y = surfaceTangent0Y * surfaceTangent0LengthReciprocal;
+		final float surfaceTangent1Z = surfaceTangent0Z * surfaceTangent0LengthReciprocal;
+		
+//		Update the intersections array based on Flat Shading:
+		this.intersections_$local$[offsetIntersectionSurfaceNormal + 0] = surfaceNormal1X;
+		this.intersections_$local$[offsetIntersectionSurfaceNormal + 1] = surfaceNormal1Y;
+		this.intersections_$local$[offsetIntersectionSurfaceNormal + 2] = surfaceNormal1Z;
+		this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 0] = surfaceNormal1X;
+		this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 1] = surfaceNormal1Y;
+		this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 2] = surfaceNormal1Z;
+		this.intersections_$local$[offsetIntersectionSurfaceTangent + 0] = surfaceTangent1X;
+		this.intersections_$local$[offsetIntersectionSurfaceTangent + 1] = surfaceTangent1Y;
+		this.intersections_$local$[offsetIntersectionSurfaceTangent + 2] = surfaceTangent1Z;
+	}
+	
+	private void doConnectPathToSky(final boolean isSkyActive) {
+//		Retrieve the origin from the current ray of the path:
+		final float originX = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0];
+		final float originY = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1];
+		final float originZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2];
+		
+//		Retrieve the direction from the current ray of the path:
+		final float directionX = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0];
+		final float directionY = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1];
+		final float directionZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2];
+		
+//		Perform an intersection test:
+		final boolean isIntersecting = doIntersectPrimitivesOcclusion(originX, originY, originZ, directionX, directionY, directionZ, INFINITY);
+		
+//		Test that an intersection was actually made, and if not, add the color for the sky:
+		if(!isIntersecting) {
+			doAddColorForSkyToPath(isSkyActive);
+		}
+	}
+	
+	private void doCreatePath() {
+//		Initialize the current ray of the path to the primary ray:
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0] = this.rays_$private$6[0];
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1] = this.rays_$private$6[1];
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2] = this.rays_$private$6[2];
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0] = this.rays_$private$6[3];
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1] = this.rays_$private$6[4];
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2] = this.rays_$private$6[5];
+		
+//		Initialize the pixel color to black:
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0] = 0.0F;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1] = 0.0F;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2] = 0.0F;
+		
+//		Initialize the radiance multiplier to white:
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 0] = 1.0F;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 1] = 1.0F;
+		this.paths_$private$12[RELATIVE_OFFSET_PATH_RADIANCE_MULTIPLIER + 2] = 1.0F;
+	}
+	
+	@NoCL
+	private void doNoOpenCL() {
+		this.boundingVolumeHierarchyStack_$private$64 = this.boundingVolumeHierarchyStackThreadLocal.get();
+		this.colorTemporarySamples_$private$3 = this.colorTemporarySamplesThreadLocal.get();
+		this.paths_$private$12 = this.pathsThreadLocal.get();
+		this.rays_$private$6 = this.raysThreadLocal.get();
+	}
+	
+	private void doLoadPath(final int pathIndex) {
+		final int pathStatesOffset = pathIndex * SIZE_PATH_STATE;
+		
+		for(int i = 0; i < SIZE_PATH; i++) {
+			this.paths_$private$12[i] = this.pathStates[pathStatesOffset + i];
+		}
+		
+//		Continue the PRNG sequence of the sample that the path belongs to:
+		prngBegin((int)(this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_PRNG + 0]), (int)(this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_PRNG + 1]));
+		prngSetDimension((int)(this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_PRNG + 2]));
+	}
+	
+	private void doPathTracerWavefrontConnect(final boolean isSkyActive) {
+		final int globalId = getGlobalId();
+		
+		if(globalId < this.pathQueueSizes[PATH_QUEUE_CONNECT]) {
+			final int pathIndex = this.pathQueues[PATH_QUEUE_CONNECT * super.resolutionX * super.resolutionY + globalId];
+			
+//			Connect the path to the sky along its current ray:
+			doLoadPath(pathIndex);
+			doConnectPathToSky(isSkyActive);
+			doSavePath(pathIndex);
+		}
+	}
+	
+	private void doPathTracerWavefrontExtend(final boolean isSkyActive, final int depth) {
+		final int globalId = getGlobalId();
+		final int pathQueueExtend = PATH_QUEUE_EXTEND + depth % 2;
+		final int pathQueueShade = PATH_QUEUE_SHADE + depth % 2;
+		
+//		Reset the shade queue of the next depth, which was consumed by the shade stage of the previous depth:
+		if(globalId == 0) {
+			this.pathQueueSizes[PATH_QUEUE_SHADE + (depth + 1) % 2] = 0;
+		}
+		
+//		The primary rays are extended for all pixels, whereas the rays of the following depths are taken from the extend queue:
+		final int pathIndex = depth == 0 ? globalId : globalId < this.pathQueueSizes[pathQueueExtend] ? this.pathQueues[pathQueueExtend * super.resolutionX * super.resolutionY + globalId] : -1;
+		
+		if(pathIndex != -1 && this.pathStates[pathIndex * SIZE_PATH_STATE + RELATIVE_OFFSET_PATH_STATE_IS_VALID] == 1.0F) {
+			final int pathStatesOffset = pathIndex * SIZE_PATH_STATE + RELATIVE_OFFSET_PATH_STATE_INTERSECTION;
+			
+//			Calculate the current offset to the intersections array:
+			final int intersectionsOffset = getLocalId() * SIZE_INTERSECTION;
+			
+			doLoadPath(pathIndex);
+			
+//			Retrieve the origin from the current ray of the path:
+			final float originX = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0];
+			final float originY = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1];
+			final float originZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2];
+			
+//			Retrieve the direction from the current ray of the path:
+			final float directionX = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0];
+			final float directionY = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1];
+			final float directionZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2];
+			
+//			Perform an intersection test, without calculating the surface properties, as they are calculated by the shade stage:
+			doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, false);
+			
+//			Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
+			final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
+			
+//			Retrieve the offset in the primitives array of the closest intersected primitive, or -1 if no primitive were intersected:
+			final int primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
+			
+			if(depth == 0) {
+				this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
+			}
+			
+			if(distance == INFINITY || primitivesOffset == -1) {
+//				Add the color for the sky in the current direction to the pixel color of the path, which terminates it:
+				doAddColorForSkyToPath(isSkyActive);
+				doSavePath(pathIndex);
+			} else {
+//				Store the intersection and add the path to the shade queue:
+				this.pathStates[pathStatesOffset + 0] = distance;
+				this.pathStates[pathStatesOffset + 1] = primitivesOffset;
+				this.pathStates[pathStatesOffset + 2] = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_TYPE];
+				this.pathStates[pathStatesOffset + 3] = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SHAPE_OFFSET];
+				
+				doPathTracerWavefrontEnqueue(pathQueueShade, pathIndex);
+			}
+		}
+	}
+	
+	private void doPathTracerWavefrontEnqueue(final int pathQueue, final int pathIndex) {
+		final int pathQueueIndex = atomicAdd(this.pathQueueSizes, pathQueue, 1);
+		
+		this.pathQueues[pathQueue * super.resolutionX * super.resolutionY + pathQueueIndex] = pathIndex;
+	}
+	
+	private void doPathTracerWavefrontGenerate() {
+		final int globalId = getGlobalId();
+		
+//		Reset the queues that are filled before they are reset by the other stages:
+		if(globalId == 0) {
+			this.pathQueueSizes[PATH_QUEUE_CONNECT] = 0;
+			this.pathQueueSizes[PATH_QUEUE_EXTEND + 1] = 0;
+			this.pathQueueSizes[PATH_QUEUE_SHADE + 0] = 0;
+		}
+		
+		final int pathStatesOffset = globalId * SIZE_PATH_STATE;
+		
+//		The pixel and sample that the path belongs to are stored, so that its PRNG sequence can be continued by the other stages:
+		final int index = filmGetIndex();
+		final int sample = filmGetSamples();
 		
-		final float surfaceTangent1X = surfaceTangent0X * surfaceTangent0LengthReciprocal;
-		final float surfaceTangent1Y = surfaceTangent0Y * surfaceTangent0LengthReciprocal;
-		final float surfaceTangent1Z = surfaceTangent0Z * surfaceTangent0LengthReciprocal;
+		this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_PRNG + 0] = index;
+		this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_PRNG + 1] = sample;
 		
-//		Update the intersections array based on Flat Shading:
-		this.intersections_$local$[offsetIntersectionSurfaceNormal + 0] = surfaceNormal1X;
-		this.intersections_$local$[offsetIntersectionSurfaceNormal + 1] = surfaceNormal1Y;
-		this.intersections_$local$[offsetIntersectionSurfaceNormal + 2] = surfaceNormal1Z;
-		this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 0] = surfaceNormal1X;
-		this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 1] = surfaceNormal1Y;
-		this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 2] = surfaceNormal1Z;
-		this.intersections_$local$[offsetIntersectionSurfaceTangent + 0] = surfaceTangent1X;
-		this.intersections_$local$[offsetIntersectionSurfaceTangent + 1] = surfaceTangent1Y;
-		this.intersections_$local$[offsetIntersectionSurfaceTangent + 2] = surfaceTangent1Z;
+		prngBegin(index, sample);
+		
+		if(doCreatePrimaryRay()) {
+			doCreatePath();
+			doSavePath(globalId);
+			
+			this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_IS_VALID] = 1.0F;
+		} else {
+			filmSetColor(0.0F, 0.0F, 0.0F);
+			
+			this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_IS_VALID] = 0.0F;
+		}
 	}
 	
-	@NoCL
-	private void doNoOpenCL() {
-		this.colorTemporarySamples_$private$3 = this.colorTemporarySamplesThreadLocal.get();
-		this.rays_$private$6 = this.raysThreadLocal.get();
+	private void doPathTracerWavefrontResolve() {
+		final int pathStatesOffset = getGlobalId() * SIZE_PATH_STATE;
+		
+//		The pixels without a primary ray have already been set to black by the generate stage:
+		if(this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_IS_VALID] == 1.0F) {
+//			Update the current pixel color:
+			filmAddColor(this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_COLOR + 0], this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_COLOR + 1], this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_COLOR + 2]);
+			
+			if(super.rendererWireframes == BOOLEAN_TRUE) {
+				prngBegin(filmGetIndex(), filmGetSamples());
+				
+				if(doCreatePrimaryRay()) {
+					doRenderWireframes();
+				}
+			}
+		}
+	}
+	
+	private void doPathTracerWavefrontShade(final boolean isSunActive, final int depth) {
+		final int globalId = getGlobalId();
+		final int depthCurrent = depth + 1;
+		final int depthMaximum = max(this.rendererPTRayDepthMaximum, 1);
+		final int pathQueueShade = PATH_QUEUE_SHADE + depth % 2;
+		
+//		Reset the extend queue of the current depth, which was consumed by the extend stage:
+		if(globalId == 0) {
+			this.pathQueueSizes[PATH_QUEUE_EXTEND + depth % 2] = 0;
+		}
+		
+		if(globalId < this.pathQueueSizes[pathQueueShade]) {
+			final int pathIndex = this.pathQueues[pathQueueShade * super.resolutionX * super.resolutionY + globalId];
+			final int pathStatesOffset = pathIndex * SIZE_PATH_STATE + RELATIVE_OFFSET_PATH_STATE_INTERSECTION;
+			
+			doLoadPath(pathIndex);
+			
+//			Retrieve the intersection that was stored by the extend stage:
+			final float distance = this.pathStates[pathStatesOffset + 0];
+			
+			final int primitiveOffset = (int)(this.pathStates[pathStatesOffset + 1]);
+			final int shapeType = (int)(this.pathStates[pathStatesOffset + 2]);
+			final int shapeOffset = (int)(this.pathStates[pathStatesOffset + 3]);
+			
+//			Calculate the surface properties of the intersection along the current ray of the path:
+			doCalculateSurfaceProperties(this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0], this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1], this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2], this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0], this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1], this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2], distance, primitiveOffset, shapeType, shapeOffset);
+			
+//			Shade the intersected surface, which either updates the path with the ray for the next depth or terminates it using Russian Roulette:
+			final boolean isContinuing = doShadeWithPathTracer(isSunActive, depthCurrent) && depthCurrent < depthMaximum;
+			
+			doSavePath(pathIndex);
+			
+//			Add the path to the extend queue of the next depth, or to the connect queue if it does not continue:
+			doPathTracerWavefrontEnqueue(isContinuing ? PATH_QUEUE_EXTEND + depthCurrent % 2 : PATH_QUEUE_CONNECT, pathIndex);
+		}
 	}
 	
 	private void doPerformNormalMappingViaNoise(final int primitivesOffset) {
@@ -2865,7 +4148,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		float pixelColorB = 0.0F;
 		
 //		Perform an intersection test:
-		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
+		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
 		
 //		Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
 		final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
@@ -2873,7 +4156,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //		Retrieve the offset in the shapes array of the closest intersected shape, or -1 if no shape were intersected:
 		final int primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
 		
-		this.primitiveOffsets[getGlobalId()] = primitivesOffset;
+		this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
 		
 //		Test that an intersection was actually made, and if not, return black color (or possibly the background color):
 		if(distance == INFINITY || primitivesOffset == -1) {
@@ -2903,6 +4186,46 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		pixelColorG = (surfaceNormalShadingY + 1.0F) * 0.5F;
 		pixelColorB = (surfaceNormalShadingZ + 1.0F) * 0.5F;
 		
+//		Update the current pixel color:
+		filmAddColor(pixelColorR, pixelColorG, pixelColorB);
+	}
+	
+	private void doRenderTraversalStatistics() {
+//		Calculate the current offset to the intersections array:
+		final int intersectionsOffset = getLocalId() * SIZE_INTERSECTION;
+		
+//		Calculate the current offset to the traversal statistics array:
+		final int traversalStatisticsOffset = filmGetIndex() * SIZE_TRAVERSAL_STATISTICS;
+		
+//		Initialize the origin from the primary ray:
+		final float originX = this.rays_$private$6[0];
+		final float originY = this.rays_$private$6[1];
+		final float originZ = this.rays_$private$6[2];
+		
+//		Initialize the direction from the primary ray:
+		final float directionX = this.rays_$private$6[3];
+		final float directionY = this.rays_$private$6[4];
+		final float directionZ = this.rays_$private$6[5];
+		
+//		Perform an intersection test, which also stores the number of BVH nodes visited and triangles tested:
+		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
+		
+//		Retrieve the offset in the shapes array of the closest intersected shape, or -1 if no shape were intersected:
+		final int primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
+		
+		this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
+		
+//		Retrieve the number of BVH nodes visited and triangles tested:
+		final int nodeCount = this.traversalStatistics[traversalStatisticsOffset + 0];
+		final int triangleCount = this.traversalStatistics[traversalStatisticsOffset + 1];
+		
+//		Map the total cost to a heatmap that goes from blue, via green, to red:
+		final float t = min((nodeCount + triangleCount) / (float)(TRAVERSAL_STATISTICS_MAXIMUM), 1.0F);
+		
+		final float pixelColorR = saturate(t * 4.0F - 2.0F, 0.0F, 1.0F);
+		final float pixelColorG = saturate(min(t * 4.0F, 4.0F - t * 4.0F), 0.0F, 1.0F);
+		final float pixelColorB = saturate(2.0F - t * 4.0F, 0.0F, 1.0F);
+		
 //		Update the current pixel color:
 		filmAddColor(pixelColorR, pixelColorG, pixelColorB);
 	}
@@ -2922,7 +4245,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		float directionZ = this.rays_$private$6[5];
 		
 //		Perform an intersection test:
-		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
+		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
 		
 //		Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
 		final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
@@ -3046,7 +4369,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		float pixelColorB = 0.0F;
 		
 //		Perform an intersection test:
-		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
+		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
 		
 //		Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
 		final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
@@ -3054,7 +4377,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //		Retrieve the offset in the primitives array of the closest intersected primitive, or -1 if no primitive were intersected:
 		final int primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
 		
-		this.primitiveOffsets[getGlobalId()] = primitivesOffset;
+		this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
 		
 //		Test that an intersection was actually made, and if not, return black color (or possibly the background color):
 		if(distance != INFINITY && primitivesOffset != -1) {
@@ -3131,9 +4454,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 			directionY = direction1Y * direction1LengthReciprocal;
 			directionZ = direction1Z * direction1LengthReciprocal;
 			
-			final float t = doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
-			
-			final boolean isHit = t < this.rendererAOMaximumDistance;
+			final boolean isHit = doIntersectPrimitivesOcclusion(originX, originY, originZ, directionX, directionY, directionZ, this.rendererAOMaximumDistance);
 			
 			final float r = isHit ? brightR : darkR;
 			final float g = isHit ? brightG : darkG;
@@ -3149,9 +4470,8 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 	}
 	
 	private void doRenderWithPathTracer(final boolean isSkyActive, final boolean isSunActive) {
-//		Retrieve the maximum depth allowed and the depth at which to use Russian Roulette to test for path termination:
+//		Retrieve the maximum depth allowed:
 		final int depthMaximum = this.rendererPTRayDepthMaximum;
-		final int depthRussianRoulette = this.rendererPTRayDepthRussianRoulette;
 		
 //		Calculate the current offset to the intersections array:
 		final int intersectionsOffset = getLocalId() * SIZE_INTERSECTION;
@@ -3159,30 +4479,26 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //		Initialize the current depth:
 		int depthCurrent = 0;
 		
-//		Initialize the origin from the primary ray:
-		float originX = this.rays_$private$6[0];
-		float originY = this.rays_$private$6[1];
-		float originZ = this.rays_$private$6[2];
-		
-//		Initialize the direction from the primary ray:
-		float directionX = this.rays_$private$6[3];
-		float directionY = this.rays_$private$6[4];
-		float directionZ = this.rays_$private$6[5];
-		
-//		Initialize the pixel color to black:
-		float pixelColorR = 0.0F;
-		float pixelColorG = 0.0F;
-		float pixelColorB = 0.0F;
+//		Initialize the path from the primary ray:
+		doCreatePath();
 		
-//		Initialize the radiance multiplier to white:
-		float radianceMultiplierR = 1.0F;
-		float radianceMultiplierG = 1.0F;
-		float radianceMultiplierB = 1.0F;
+//		Initialize whether or not the path continues after the current iteration:
+		boolean isContinuing = true;
 		
 //		Run the following do-while-loop as long as the current depth is less than the maximum depth and Russian Roulette does not terminate:
 		do {
+//			Retrieve the origin from the current ray of the path:
+			final float originX = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 0];
+			final float originY = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 1];
+			final float originZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_ORIGIN + 2];
+			
+//			Retrieve the direction from the current ray of the path:
+			final float directionX = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 0];
+			final float directionY = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 1];
+			final float directionZ = this.paths_$private$12[RELATIVE_OFFSET_PATH_DIRECTION + 2];
+			
 //			Perform an intersection test:
-			doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
+			doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
 			
 //			Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
 			final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
@@ -3191,517 +4507,46 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 			final int primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
 			
 			if(depthCurrent == 0) {
-				this.primitiveOffsets[getGlobalId()] = primitivesOffset;
+				this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
 			}
 			
 //			Test that an intersection was actually made, and if not, return black color (or possibly the background color):
 			if(distance == INFINITY || primitivesOffset == -1) {
-//				Calculate the color for the sky in the current direction:
-				doCalculateColorForSky(isSkyActive, directionX, directionY, directionZ);
-				
-//				Add the color for the sky to the current pixel color:
-				pixelColorR += radianceMultiplierR * this.colorTemporarySamples_$private$3[0] * PI_RECIPROCAL;
-				pixelColorG += radianceMultiplierG * this.colorTemporarySamples_$private$3[1] * PI_RECIPROCAL;
-				pixelColorB += radianceMultiplierB * this.colorTemporarySamples_$private$3[2] * PI_RECIPROCAL;
+//				Add the color for the sky in the current direction to the pixel color of the path:
+				doAddColorForSkyToPath(isSkyActive);
 				
 //				Update the current pixel color:
-				filmAddColor(pixelColorR, pixelColorG, pixelColorB);
+				filmAddColor(this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0], this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1], this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2]);
 				
 				return;
 			}
 			
-//			Retrieve the offset to the surfaces array for the given shape:
-			final int surfacesOffset = this.scenePrimitives_$constant$[primitivesOffset + Primitive.RELATIVE_OFFSET_SURFACE_OFFSET];
-			
-//			Retrieve the offsets of the surface intersection point and the surface normal:
-			final int offsetIntersectionSurfaceIntersectionPoint = intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SURFACE_INTERSECTION_POINT;
-			final int offsetIntersectionSurfaceNormalShading = intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_SURFACE_NORMAL_SHADING;
-			
-//			Retrieve the surface intersection point:
-			final float surfaceIntersectionPointX = this.intersections_$local$[offsetIntersectionSurfaceIntersectionPoint + 0];
-			final float surfaceIntersectionPointY = this.intersections_$local$[offsetIntersectionSurfaceIntersectionPoint + 1];
-			final float surfaceIntersectionPointZ = this.intersections_$local$[offsetIntersectionSurfaceIntersectionPoint + 2];
-			
-//			Retrieve the surface normal for shading:
-			final float surfaceNormalShadingX = this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 0];
-			final float surfaceNormalShadingY = this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 1];
-			final float surfaceNormalShadingZ = this.intersections_$local$[offsetIntersectionSurfaceNormalShading + 2];
-			
-//			Calculate the dot product between the surface normal of the intersected shape and the current ray direction:
-			final float dotProduct = surfaceNormalShadingX * directionX + surfaceNormalShadingY * directionY + surfaceNormalShadingZ * directionZ;
-			final float dotProductMultipliedByTwo = dotProduct * 2.0F;
-			
-//			Check if the surface normal is correctly oriented:
-			final boolean isCorrectlyOriented = dotProduct < 0.0F;
-			
-//			Retrieve the correctly oriented surface normal:
-			final float surfaceNormalWNormalizedX = isCorrectlyOriented ? surfaceNormalShadingX : -surfaceNormalShadingX;
-			final float surfaceNormalWNormalizedY = isCorrectlyOriented ? surfaceNormalShadingY : -surfaceNormalShadingY;
-			final float surfaceNormalWNormalizedZ = isCorrectlyOriented ? surfaceNormalShadingZ : -surfaceNormalShadingZ;
-			
-			final int textureOffsetAlbedo = (int)(this.sceneSurfaces_$constant$[surfacesOffset + Surface.RELATIVE_OFFSET_TEXTURE_ALBEDO_OFFSET]);
-			final int textureOffsetEmission = (int)(this.sceneSurfaces_$constant$[surfacesOffset + Surface.RELATIVE_OFFSET_TEXTURE_EMISSION_OFFSET]);
-			
-//			Calculate the albedo texture color for the intersected primitive:
-			final int albedoColorRGB = doGetTextureColor(textureOffsetAlbedo);
-			
-//			Get the color of the primitive from the albedo texture color that was looked up:
-			float albedoColorR = ((albedoColorRGB >> 16) & 0xFF) * COLOR_RECIPROCAL;
-			float albedoColorG = ((albedoColorRGB >>  8) & 0xFF) * COLOR_RECIPROCAL;
-			float albedoColorB = ((albedoColorRGB >>  0) & 0xFF) * COLOR_RECIPROCAL;
-			
-//			Calculate the emission texture color for the intersected primitive:
-			final int emissionColorRGB = doGetTextureColor(textureOffsetEmission);
-			
-//			Get the color of the primitive from the emission texture color that was looked up:
-			float emissionColorR = ((emissionColorRGB >> 16) & 0xFF) * COLOR_RECIPROCAL;
-			float emissionColorG = ((emissionColorRGB >>  8) & 0xFF) * COLOR_RECIPROCAL;
-			float emissionColorB = ((emissionColorRGB >>  0) & 0xFF) * COLOR_RECIPROCAL;
-			
-//			Retrieve the material type of the intersected shape:
-			final int material = (int)(this.sceneSurfaces_$constant$[surfacesOffset + Surface.RELATIVE_OFFSET_MATERIAL]);
-			
-			if(material == ClearCoatMaterial.TYPE || material == LambertianMaterial.TYPE || material == PhongMaterial.TYPE) {
-				doCalculateColorForSun(isSunActive, surfaceIntersectionPointX, surfaceIntersectionPointY, surfaceIntersectionPointZ, surfaceNormalWNormalizedX, surfaceNormalWNormalizedY, surfaceNormalWNormalizedZ, albedoColorR, albedoColorG, albedoColorB);
-			} else {
-				this.colorTemporarySamples_$private$3[0] = 0.0F;
-				this.colorTemporarySamples_$private$3[1] = 0.0F;
-				this.colorTemporarySamples_$private$3[2] = 0.0F;
-			}
-			
-			final float sunColorR = this.colorTemporarySamples_$private$3[0];
-			final float sunColorG = this.colorTemporarySamples_$private$3[1];
-			final float sunColorB = this.colorTemporarySamples_$private$3[2];
-			
-//			Add the current radiance multiplied by the emission of the intersected primitive to the current pixel color:
-			pixelColorR += radianceMultiplierR * (emissionColorR + sunColorR);
-			pixelColorG += radianceMultiplierG * (emissionColorG + sunColorG);
-			pixelColorB += radianceMultiplierB * (emissionColorB + sunColorB);
-			
 //			Increment the current depth:
 			depthCurrent++;
 			
-//			Check if the current depth is great enough to perform Russian Roulette to probabilistically terminate the path:
-			if(depthCurrent >= depthRussianRoulette) {
-//				Calculate the Russian Roulette Probability Density Function (PDF) using the maximum color component of the albedo of the intersected shape:
-				final float probabilityDensityFunction = max(albedoColorR, max(albedoColorG, albedoColorB));
-				
-//				Calculate a random number that will be used when determining whether or not the path should be terminated:
-				final float random = nextFloat();
-				
-//				If the random number is greater than or equal to the Russian Roulette PDF, then terminate the path:
-				if(random >= probabilityDensityFunction) {
-//					Perform an intersection test:
-					final boolean isIntersecting = doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, true) < INFINITY;
-					
-//					Test that an intersection was actually made, and if not, return black color (or possibly the background color):
-					if(!isIntersecting) {
-//						Calculate the color for the sky in the current direction:
-						doCalculateColorForSky(isSkyActive, directionX, directionY, directionZ);
-						
-//						Add the color for the sky to the current pixel color:
-						pixelColorR += radianceMultiplierR * this.colorTemporarySamples_$private$3[0] * PI_RECIPROCAL;
-						pixelColorG += radianceMultiplierG * this.colorTemporarySamples_$private$3[1] * PI_RECIPROCAL;
-						pixelColorB += radianceMultiplierB * this.colorTemporarySamples_$private$3[2] * PI_RECIPROCAL;
-					}
-					
-//					Update the current pixel color:
-					filmAddColor(pixelColorR, pixelColorG, pixelColorB);
-					
-					return;
-				}
-				
-//				Calculate the reciprocal of the Russian Roulette PDF, so no divisions are needed next:
-				final float probabilityDensityFunctionReciprocal = 1.0F / probabilityDensityFunction;
-				
-//				Because the path was not terminated this time, the albedo color has to be multiplied with the reciprocal of the Russian Roulette PDF:
-				albedoColorR *= probabilityDensityFunctionReciprocal;
-				albedoColorG *= probabilityDensityFunctionReciprocal;
-				albedoColorB *= probabilityDensityFunctionReciprocal;
-			}
-			
-			if(material == ClearCoatMaterial.TYPE) {
-				final float a = REFRACTIVE_INDEX_GLASS - REFRACTIVE_INDEX_AIR;
-				final float b = REFRACTIVE_INDEX_GLASS + REFRACTIVE_INDEX_AIR;
-				final float c = REFRACTIVE_INDEX_AIR / REFRACTIVE_INDEX_GLASS;
-				final float e = (a * a) / (b * b);
-				
-//				TODO: Write explanation!
-				final float nnt = c;
-				
-//				Calculate the dot product between the W direction and the current ray direction:
-				final float dotProduct0 = surfaceNormalWNormalizedX * directionX + surfaceNormalWNormalizedY * directionY + surfaceNormalWNormalizedZ * directionZ;
-				
-//				Calculate the total internal reflection:
-				final float totalInternalReflection = 1.0F - nnt * nnt * (1.0F - dotProduct0 * dotProduct0);
-				
-//				Calculate the reflection direction:
-				final float reflectionDirectionX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
-				final float reflectionDirectionY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
-				final float reflectionDirectionZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
-				
-//				Initialize the specular color component values to be used:
-				final float specularColorR = 1.0F;
-				final float specularColorG = 1.0F;
-				final float specularColorB = 1.0F;
-				
-				if(totalInternalReflection < 0.0F) {
-//					Update the ray origin for the next iteration:
-					originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.02F;
-					originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.02F;
-					originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.02F;
-					
-//					Update the ray direction for the next iteration:
-					directionX = reflectionDirectionX;
-					directionY = reflectionDirectionY;
-					directionZ = reflectionDirectionZ;
-					
-//					Multiply the current radiance multiplier with the specular color:
-					radianceMultiplierR *= specularColorR;
-					radianceMultiplierG *= specularColorG;
-					radianceMultiplierB *= specularColorB;
-				} else {
-//					Calculate some angles:
-					final float angle1 = -dotProduct0;
-					final float angle2 = 1.0F - angle1;
-					
-//					Calculate the reflectance:
-					final float reflectance = e + (1.0F - e) * angle2 * angle2 * angle2 * angle2 * angle2;
-					
-//					Calculate the transmittance:
-					final float transmittance = 1.0F - reflectance;
-					
-//					Calculate a probability for the reflection- or the transmission direction:
-					final float probability = 0.25F + 0.5F * reflectance;
-					
-//					Calculate the probability that the direction for the next iteration will be the reflection direction:
-					final float reflectanceProbability = reflectance / probability;
-					
-//					Calculate the probability that the direction for the next iteration will be the transmission direction:
-					final float transmittanceProbability = transmittance / (1.0F - probability);
-					
-//					Check if the direction for the next iteration is the reflection direction or the transmission direction:
-					final boolean isReflectionDirection = nextFloat() < probability;
-					
-//					Retrieve the value to multiply the current radiance multiplier with:
-					final float multiplier = isReflectionDirection ? reflectanceProbability : transmittanceProbability;
-					
-//					Multiply the current radiance multiplier with either the reflectance probability or the transmittance probability:
-					radianceMultiplierR *= multiplier;
-					radianceMultiplierG *= multiplier;
-					radianceMultiplierB *= multiplier;
-					
-					if(isReflectionDirection) {
-//						Update the ray origin for the next iteration:
-						originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.02F;
-						originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.02F;
-						originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.02F;
-						
-//						Update the ray direction for the next iteration:
-						directionX = reflectionDirectionX;
-						directionY = reflectionDirectionY;
-						directionZ = reflectionDirectionZ;
-						
-//						Multiply the current radiance multiplier with the specular color:
-						radianceMultiplierR *= specularColorR;
-						radianceMultiplierG *= specularColorG;
-						radianceMultiplierB *= specularColorB;
-					} else {
-//						Compute cosine weighted hemisphere sample:
-						final float u = nextFloat();
-						final float v = nextFloat();
-						final float phi = PI_MULTIPLIED_BY_TWO * u;
-						final float cosTheta = sqrt(v);
-						final float sinTheta = sqrt(1.0F - v);
-						final float x = cos(phi) * sinTheta;
-						final float y = sin(phi) * sinTheta;
-						final float z = cosTheta;
-						
-//						Check if the direction is the Y-direction:
-						final boolean isY = abs(surfaceNormalWNormalizedX) > 0.1F;
-						
-//						Calculate the orthonormal basis U vector:
-						final float surfaceNormalUX = (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedZ;
-						final float surfaceNormalUY = -((isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedZ);
-						final float surfaceNormalUZ = (isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedY - (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedX;
-						final float surfaceNormalULengthReciprocal = rsqrt(surfaceNormalUX * surfaceNormalUX + surfaceNormalUY * surfaceNormalUY + surfaceNormalUZ * surfaceNormalUZ);
-						final float surfaceNormalUNormalizedX = surfaceNormalUX * surfaceNormalULengthReciprocal;
-						final float surfaceNormalUNormalizedY = surfaceNormalUY * surfaceNormalULengthReciprocal;
-						final float surfaceNormalUNormalizedZ = surfaceNormalUZ * surfaceNormalULengthReciprocal;
-						
-//						Calculate the orthonormal basis V vector:
-						final float surfaceNormalVNormalizedX = surfaceNormalWNormalizedY * surfaceNormalUNormalizedZ - surfaceNormalWNormalizedZ * surfaceNormalUNormalizedY;
-						final float surfaceNormalVNormalizedY = surfaceNormalWNormalizedZ * surfaceNormalUNormalizedX - surfaceNormalWNormalizedX * surfaceNormalUNormalizedZ;
-						final float surfaceNormalVNormalizedZ = surfaceNormalWNormalizedX * surfaceNormalUNormalizedY - surfaceNormalWNormalizedY * surfaceNormalUNormalizedX;
-						
-//						Calculate the direction for the next iteration:
-						final float lambertianDirectionX = surfaceNormalUNormalizedX * x + surfaceNormalVNormalizedX * y + surfaceNormalWNormalizedX * z;
-						final float lambertianDirectionY = surfaceNormalUNormalizedY * x + surfaceNormalVNormalizedY * y + surfaceNormalWNormalizedY * z;
-						final float lambertianDirectionZ = surfaceNormalUNormalizedZ * x + surfaceNormalVNormalizedZ * y + surfaceNormalWNormalizedZ * z;
-						final float lambertianDirectionLengthReciprocal = rsqrt(lambertianDirectionX * lambertianDirectionX + lambertianDirectionY * lambertianDirectionY + lambertianDirectionZ * lambertianDirectionZ);
-						final float lambertianDirectionNormalizedX = lambertianDirectionX * lambertianDirectionLengthReciprocal;
-						final float lambertianDirectionNormalizedY = lambertianDirectionY * lambertianDirectionLengthReciprocal;
-						final float lambertianDirectionNormalizedZ = lambertianDirectionZ * lambertianDirectionLengthReciprocal;
-						
-//						Update the ray origin for the next iteration:
-						originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.01F;
-						originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.01F;
-						originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.01F;
-						
-//						Update the ray direction for the next iteration:
-						directionX = lambertianDirectionNormalizedX;
-						directionY = lambertianDirectionNormalizedY;
-						directionZ = lambertianDirectionNormalizedZ;
-						
-//						Multiply the current radiance multiplier with the albedo:
-						radianceMultiplierR *= albedoColorR;
-						radianceMultiplierG *= albedoColorG;
-						radianceMultiplierB *= albedoColorB;
-					}
-				}
-				
-//				FIXME: Find out why the "child list broken" Exception occurs if the following line is not present!
-				depthCurrent = depthCurrent + 0;
-			} else if(material == LambertianMaterial.TYPE) {
-//				Compute cosine weighted hemisphere sample:
-				final float u = nextFloat();
-				final float v = nextFloat();
-				final float phi = PI_MULTIPLIED_BY_TWO * u;
-				final float cosTheta = sqrt(v);
-				final float sinTheta = sqrt(1.0F - v);
-				final float x = cos(phi) * sinTheta;
-				final float y = sin(phi) * sinTheta;
-				final float z = cosTheta;
-				
-//				Check if the direction is the Y-direction:
-				final boolean isY = abs(surfaceNormalWNormalizedX) > 0.1F;
-				
-//				Calculate the orthonormal basis U vector:
-				final float surfaceNormalUX = (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedZ;
-				final float surfaceNormalUY = -((isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedZ);
-				final float surfaceNormalUZ = (isY ? 0.0F : 1.0F) * surfaceNormalWNormalizedY - (isY ? 1.0F : 0.0F) * surfaceNormalWNormalizedX;
-				final float surfaceNormalULengthReciprocal = rsqrt(surfaceNormalUX * surfaceNormalUX + surfaceNormalUY * surfaceNormalUY + surfaceNormalUZ * surfaceNormalUZ);
-				final float surfaceNormalUNormalizedX = surfaceNormalUX * surfaceNormalULengthReciprocal;
-				final float surfaceNormalUNormalizedY = surfaceNormalUY * surfaceNormalULengthReciprocal;
-				final float surfaceNormalUNormalizedZ = surfaceNormalUZ * surfaceNormalULengthReciprocal;
-				
-//				Calculate the orthonormal basis V vector:
-				final float surfaceNormalVNormalizedX = surfaceNormalWNormalizedY * surfaceNormalUNormalizedZ - surfaceNormalWNormalizedZ * surfaceNormalUNormalizedY;
-				final float surfaceNormalVNormalizedY = surfaceNormalWNormalizedZ * surfaceNormalUNormalizedX - surfaceNormalWNormalizedX * surfaceNormalUNormalizedZ;
-				final float surfaceNormalVNormalizedZ = surfaceNormalWNormalizedX * surfaceNormalUNormalizedY - surfaceNormalWNormalizedY * surfaceNormalUNormalizedX;
-				
-//				Calculate the direction for the next iteration:
-				final float lambertianDirectionX = surfaceNormalUNormalizedX * x + surfaceNormalVNormalizedX * y + surfaceNormalWNormalizedX * z;
-				final float lambertianDirectionY = surfaceNormalUNormalizedY * x + surfaceNormalVNormalizedY * y + surfaceNormalWNormalizedY * z;
-				final float lambertianDirectionZ = surfaceNormalUNormalizedZ * x + surfaceNormalVNormalizedZ * y + surfaceNormalWNormalizedZ * z;
-				final float lambertianDirectionLengthReciprocal = rsqrt(lambertianDirectionX * lambertianDirectionX + lambertianDirectionY * lambertianDirectionY + lambertianDirectionZ * lambertianDirectionZ);
-				final float lambertianDirectionNormalizedX = lambertianDirectionX * lambertianDirectionLengthReciprocal;
-				final float lambertianDirectionNormalizedY = lambertianDirectionY * lambertianDirectionLengthReciprocal;
-				final float lambertianDirectionNormalizedZ = lambertianDirectionZ * lambertianDirectionLengthReciprocal;
-				
-//				Update the ray origin for the next iteration:
-				originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.01F;
-				originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.01F;
-				originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.01F;
-				
-//				Update the ray direction for the next iteration:
-				directionX = lambertianDirectionNormalizedX;
-				directionY = lambertianDirectionNormalizedY;
-				directionZ = lambertianDirectionNormalizedZ;
-				
-//				Multiply the current radiance multiplier with the albedo:
-				radianceMultiplierR *= albedoColorR;
-				radianceMultiplierG *= albedoColorG;
-				radianceMultiplierB *= albedoColorB;
-			} else if(material == PhongMaterial.TYPE) {
-//				Compute power cosine weighted hemisphere sample:
-				final float exponent = 50.0F;
-				final float u = nextFloat();
-				final float v = nextFloat();
-				final float phi = PI_MULTIPLIED_BY_TWO * u;
-				final float cosTheta = pow(1.0F - v, 1.0F / (exponent + 1.0F));
-				final float sinTheta = sqrt(max(0.0F, 1.0F - cosTheta * cosTheta));
-				final float x = cos(phi) * sinTheta;
-				final float y = sin(phi) * sinTheta;
-				final float z = cosTheta;
-				
-//				Calculate the orthonormal basis W vector:
-				final float reflectionDirectionWX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
-				final float reflectionDirectionWY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
-				final float reflectionDirectionWZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
-				final float reflectionDirectionWLengthReciprocal = rsqrt(reflectionDirectionWX * reflectionDirectionWX + reflectionDirectionWY * reflectionDirectionWY + reflectionDirectionWZ * reflectionDirectionWZ);
-				final float reflectionDirectionWNormalizedX = reflectionDirectionWX * reflectionDirectionWLengthReciprocal;
-				final float reflectionDirectionWNormalizedY = reflectionDirectionWY * reflectionDirectionWLengthReciprocal;
-				final float reflectionDirectionWNormalizedZ = reflectionDirectionWZ * reflectionDirectionWLengthReciprocal;
-				
-//				Check if the direction is the Y-direction:
-				final boolean isY = abs(reflectionDirectionWNormalizedX) > 0.1F;
-				
-//				Calculate the orthonormal basis U vector:
-				final float reflectionDirectionUX = (isY ? 1.0F : 0.0F) * reflectionDirectionWNormalizedZ;
-				final float reflectionDirectionUY = -((isY ? 0.0F : 1.0F) * reflectionDirectionWNormalizedZ);
-				final float reflectionDirectionUZ = (isY ? 0.0F : 1.0F) * reflectionDirectionWNormalizedY - (isY ? 1.0F : 0.0F) * reflectionDirectionWNormalizedX;
-				final float reflectionDirectionULengthReciprocal = rsqrt(reflectionDirectionUX * reflectionDirectionUX + reflectionDirectionUY * reflectionDirectionUY + reflectionDirectionUZ * reflectionDirectionUZ);
-				final float reflectionDirectionUNormalizedX = reflectionDirectionUX * reflectionDirectionULengthReciprocal;
-				final float reflectionDirectionUNormalizedY = reflectionDirectionUY * reflectionDirectionULengthReciprocal;
-				final float reflectionDirectionUNormalizedZ = reflectionDirectionUZ * reflectionDirectionULengthReciprocal;
-				
-//				Calculate the orthonormal basis V vector:
-				final float reflectionDirectionVNormalizedX = reflectionDirectionWNormalizedY * reflectionDirectionUNormalizedZ - reflectionDirectionWNormalizedZ * reflectionDirectionUNormalizedY;
-				final float reflectionDirectionVNormalizedY = reflectionDirectionWNormalizedZ * reflectionDirectionUNormalizedX - reflectionDirectionWNormalizedX * reflectionDirectionUNormalizedZ;
-				final float reflectionDirectionVNormalizedZ = reflectionDirectionWNormalizedX * reflectionDirectionUNormalizedY - reflectionDirectionWNormalizedY * reflectionDirectionUNormalizedX;
-				
-//				Calculate the direction for the next iteration:
-				final float phongDirectionX = reflectionDirectionUNormalizedX * x + reflectionDirectionVNormalizedX * y + reflectionDirectionWX * z;
-				final float phongDirectionY = reflectionDirectionUNormalizedY * x + reflectionDirectionVNormalizedY * y + reflectionDirectionWY * z;
-				final float phongDirectionZ = reflectionDirectionUNormalizedZ * x + reflectionDirectionVNormalizedZ * y + reflectionDirectionWZ * z;
-				final float phongDirectionLengthReciprocal = rsqrt(phongDirectionX * phongDirectionX + phongDirectionY * phongDirectionY + phongDirectionZ * phongDirectionZ);
-				final float phongDirectionNormalizedX = phongDirectionX * phongDirectionLengthReciprocal;
-				final float phongDirectionNormalizedY = phongDirectionY * phongDirectionLengthReciprocal;
-				final float phongDirectionNormalizedZ = phongDirectionZ * phongDirectionLengthReciprocal;
-				
-//				Update the ray origin for the next iteration:
-				originX = surfaceIntersectionPointX + reflectionDirectionWNormalizedX * 0.01F;
-				originY = surfaceIntersectionPointY + reflectionDirectionWNormalizedY * 0.01F;
-				originZ = surfaceIntersectionPointZ + reflectionDirectionWNormalizedZ * 0.01F;
-				
-//				Update the ray direction for the next iteration:
-				directionX = phongDirectionNormalizedX;
-				directionY = phongDirectionNormalizedY;
-				directionZ = phongDirectionNormalizedZ;
-				
-//				Multiply the current radiance multiplier with the albedo:
-				radianceMultiplierR *= albedoColorR;
-				radianceMultiplierG *= albedoColorG;
-				radianceMultiplierB *= albedoColorB;
-			} else if(material == GlassMaterial.TYPE) {
-				final float a = REFRACTIVE_INDEX_GLASS - REFRACTIVE_INDEX_AIR;
-				final float b = REFRACTIVE_INDEX_GLASS + REFRACTIVE_INDEX_AIR;
-				final float c = REFRACTIVE_INDEX_AIR / REFRACTIVE_INDEX_GLASS;
-				final float d = REFRACTIVE_INDEX_GLASS / REFRACTIVE_INDEX_AIR;
-				final float e = (a * a) / (b * b);
-				
-//				Check if the current ray is going in towards the same shape or out of it:
-				final boolean isGoingIn = surfaceNormalShadingX * surfaceNormalWNormalizedX + surfaceNormalShadingY * surfaceNormalWNormalizedY + surfaceNormalShadingZ * surfaceNormalWNormalizedZ > 0.0F;
-				
-//				TODO: Write explanation!
-				final float nnt = isGoingIn ? c : d;
-				
-//				Calculate the dot product between the orthonormal basis W vector and the current direction vector:
-				final float dotProductOfW0AndDirection = surfaceNormalWNormalizedX * directionX + surfaceNormalWNormalizedY * directionY + surfaceNormalWNormalizedZ * directionZ;
-				
-//				Calculate the total internal reflection:
-				final float totalInternalReflection = 1.0F - nnt * nnt * (1.0F - dotProductOfW0AndDirection * dotProductOfW0AndDirection);
-				
-//				Calculate the reflection direction:
-				final float reflectionDirectionX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
-				final float reflectionDirectionY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
-				final float reflectionDirectionZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
-				
-				if(totalInternalReflection < 0.0F) {
-//					Update the ray origin for the next iteration:
-					originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * 0.01F;
-					originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * 0.01F;
-					originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * 0.01F;
-					
-//					Update the ray direction for the next iteration:
-					directionX = reflectionDirectionX;
-					directionY = reflectionDirectionY;
-					directionZ = reflectionDirectionZ;
-				} else {
-//					Calculate the square root of the total internal reflection:
-					final float sqrtTotalInternalReflection = sqrt(totalInternalReflection);
-					
-//					Calculate the transmission direction:
-					final float scalar = isGoingIn ? dotProductOfW0AndDirection * nnt + sqrtTotalInternalReflection : -(dotProductOfW0AndDirection * nnt + sqrtTotalInternalReflection);
-					final float direction0X = directionX * nnt - surfaceNormalShadingX * scalar;
-					final float direction0Y = directionY * nnt - surfaceNormalShadingY * scalar;
-					final float direction0Z = directionZ * nnt - surfaceNormalShadingZ * scalar;
-					final float direction0LengthReciprocal = rsqrt(direction0X * direction0X + direction0Y * direction0Y + direction0Z * direction0Z);
-					final float transmissionDirectionX = direction0X * direction0LengthReciprocal;
-					final float transmissionDirectionY = direction0Y * direction0LengthReciprocal;
-					final float transmissionDirectionZ = direction0Z * direction0LengthReciprocal;
-					
-//					Calculate some angles:
-					final float angle1 = (isGoingIn ? -dotProductOfW0AndDirection : transmissionDirectionX * surfaceNormalShadingX + transmissionDirectionY * surfaceNormalShadingY + transmissionDirectionZ * surfaceNormalShadingZ);
-					final float angle2 = 1.0F - angle1;
-					
-//					Calculate the reflectance:
-					final float reflectance = e + (1.0F - e) * angle2 * angle2 * angle2 * angle2 * angle2;
-					
-//					Calculate the transmittance:
-					final float transmittance = 1.0F - reflectance;
-					
-//					Calculate a probability for the reflection- or the transmission direction:
-					final float probability = 0.25F + 0.5F * reflectance;
-					
-//					Calculate the probability that the direction for the next iteration will be the reflection direction:
-					final float reflectanceProbability = reflectance / probability;
-					
-//					Calculate the probability that the direction for the next iteration will be the transmission direction:
-					final float transmittanceProbability = transmittance / (1.0F - probability);
-					
-//					Check if the direction for the next iteration is the reflection direction or the transmission direction:
-					final boolean isReflectionDirection = nextFloat() < probability;
-					
-//					Retrieve the value to multiply the current radiance multiplier with:
-					final float multiplier = isReflectionDirection ? reflectanceProbability : transmittanceProbability;
-					
-//					Multiply the current radiance multiplier with either the reflectance probability or the transmittance probability:
-					radianceMultiplierR *= multiplier;
-					radianceMultiplierG *= multiplier;
-					radianceMultiplierB *= multiplier;
-					
-//					Retrieve the epsilon value that offsets the ray origin to mitigate self intersections:
-					final float epsilon = isReflectionDirection ? 0.01F : 0.000001F;
-					
-//					Update the ray origin for the next iteration:
-					originX = surfaceIntersectionPointX + surfaceNormalWNormalizedX * epsilon;
-					originY = surfaceIntersectionPointY + surfaceNormalWNormalizedY * epsilon;
-					originZ = surfaceIntersectionPointZ + surfaceNormalWNormalizedZ * epsilon;
-					
-//					Update the ray direction for the next iteration:
-					directionX = isReflectionDirection ? reflectionDirectionX : transmissionDirectionX;
-					directionY = isReflectionDirection ? reflectionDirectionY : transmissionDirectionY;
-					directionZ = isReflectionDirection ? reflectionDirectionZ : transmissionDirectionZ;
-				}
-				
-//				FIXME: Find out why the "child list broken" Exception occurs if the following line is not present!
-				depthCurrent = depthCurrent + 0;
-			} else if(material == ReflectionMaterial.TYPE) {
-//				Update the ray origin for the next iteration:
-				originX = surfaceIntersectionPointX + surfaceNormalShadingX * 0.000001F;
-				originY = surfaceIntersectionPointY + surfaceNormalShadingY * 0.000001F;
-				originZ = surfaceIntersectionPointZ + surfaceNormalShadingZ * 0.000001F;
-				
-//				Update the ray direction for the next iteration:
-				directionX = directionX - surfaceNormalShadingX * dotProductMultipliedByTwo;
-				directionY = directionY - surfaceNormalShadingY * dotProductMultipliedByTwo;
-				directionZ = directionZ - surfaceNormalShadingZ * dotProductMultipliedByTwo;
-				
-//				Multiply the current radiance multiplier with the albedo:
-				radianceMultiplierR *= albedoColorR;
-				radianceMultiplierG *= albedoColorG;
-				radianceMultiplierB *= albedoColorB;
-			}
-		} while(depthCurrent < depthMaximum);
-		
-//		Perform an intersection test:
-		final boolean isIntersecting = doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, true) < INFINITY;
+//			Shade the intersected surface, which either updates the path with the ray for the next iteration or terminates it using Russian Roulette:
+			isContinuing = doShadeWithPathTracer(isSunActive, depthCurrent) && depthCurrent < depthMaximum;
+		} while(isContinuing);
 		
-//		Test that an intersection was actually made, and if not, return black color (or possibly the background color):
-		if(!isIntersecting) {
-//			Calculate the color for the sky in the current direction:
-			doCalculateColorForSky(isSkyActive, directionX, directionY, directionZ);
-			
-//			Add the color for the sky to the current pixel color:
-			pixelColorR += radianceMultiplierR * this.colorTemporarySamples_$private$3[0] * PI_RECIPROCAL;
-			pixelColorG += radianceMultiplierG * this.colorTemporarySamples_$private$3[1] * PI_RECIPROCAL;
-			pixelColorB += radianceMultiplierB * this.colorTemporarySamples_$private$3[2] * PI_RECIPROCAL;
-		}
+//		Connect the path to the sky along its current ray:
+		doConnectPathToSky(isSkyActive);
 		
 //		Update the current pixel color:
-		filmAddColor(pixelColorR, pixelColorG, pixelColorB);
+		filmAddColor(this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 0], this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 1], this.paths_$private$12[RELATIVE_OFFSET_PATH_COLOR + 2]);
+	}
+	
+	private void doRenderWithPathTracerWavefront(final boolean isSkyActive, final boolean isSunActive, final int pass) {
+		final int depthMaximum = max(this.rendererPTRayDepthMaximum, 1);
+		
+		if(pass == 0) {
+			doPathTracerWavefrontGenerate();
+		} else if(pass <= depthMaximum * 2 && pass % 2 == 1) {
+			doPathTracerWavefrontExtend(isSkyActive, (pass - 1) / 2);
+		} else if(pass <= depthMaximum * 2) {
+			doPathTracerWavefrontShade(isSunActive, (pass - 1) / 2);
+		} else {
+			doPathTracerWavefrontConnect(isSkyActive);
+		}
 	}
 	
 	private void doRenderWithRayCaster(final boolean isSkyActive) {
@@ -3724,7 +4569,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		float pixelColorB = 0.0F;
 		
 //		Perform an intersection test:
-		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
+		doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
 		
 //		Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
 		final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
@@ -3735,7 +4580,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 //		Retrieve the offset to the surfaces array for the given shape:
 		final int surfacesOffset = this.scenePrimitives_$constant$[primitivesOffset + Primitive.RELATIVE_OFFSET_SURFACE_OFFSET];
 		
-		this.primitiveOffsets[getGlobalId()] = primitivesOffset;
+		this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
 		
 //		Test that an intersection was actually made, and if not, return black color (or possibly the background color):
 		if(distance == INFINITY || primitivesOffset == -1) {
@@ -3893,7 +4738,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		
 		do {
 //			Perform an intersection test:
-			doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, false);
+			doIntersectPrimitives(originX, originY, originZ, directionX, directionY, directionZ, INFINITY, false, true);
 			
 //			Retrieve the distance to the closest intersected shape, or INFINITY if no shape were intersected:
 			final float distance = this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_DISTANCE];
@@ -3902,7 +4747,7 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 			primitivesOffset = (int)(this.intersections_$local$[intersectionsOffset + RELATIVE_OFFSET_INTERSECTION_PRIMITIVE_OFFSET]);
 			
 			if(depthCurrent == 0) {
-				this.primitiveOffsets[getGlobalId()] = primitivesOffset;
+				this.primitiveOffsets[filmGetIndex()] = primitivesOffset;
 			}
 			
 //			Test that an intersection was actually made, and if not, return black color (or possibly the background color):
@@ -3995,6 +4840,16 @@ public final class GPURendererKernel extends AbstractRendererKernel {
 		filmAddColor(pixelColorR, pixelColorG, pixelColorB);
 	}
 	
+	private void doSavePath(final int pathIndex) {
+		final int pathStatesOffset = pathIndex * SIZE_PATH_STATE;
+		
+		for(int i = 0; i < SIZE_PATH; i++) {
+			this.pathStates[pathStatesOffset + i] = this.paths_$private$12[i];
+		}
+		
+		this.pathStates[pathStatesOffset + RELATIVE_OFFSET_PATH_STATE_PRNG + 2] = prngGetDimension();
+	}
+	
 	private void doTransformIntersectionToWorldSpace(final float objectToWorldElement11, final float objectToWorldElement12, final float objectToWorldElement13, final float objectToWorldElement14, final float objectToWorldElement21, final float objectToWorldElement22, final float objectToWorldElement23, final float objectToWorldElement24, final float objectToWorldElement31, final float objectToWorldElement32, final float objectToWorldElement33, final float objectToWorldElement34, final float worldToObjectElement11, final float worldToObjectElement12, final float worldToObjectElement13, final float worldToObjectElement21, final float worldToObjectElement22, final float worldToObjectElement23, final float worldToObjectElement31, final float worldToObjectElement32, final float worldToObjectElement33) {
 		final int offsetIntersection = getLocalId() * SIZE_INTERSECTION;
 		final int offsetIntersectionOrthoNormalBasisU = offsetIntersection + RELATIVE_OFFSET_INTERSECTION_ORTHO_NORMAL_BASIS_U;
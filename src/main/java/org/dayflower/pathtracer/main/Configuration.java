@@ -61,6 +61,22 @@ final class Configuration {
 		return doReadSettingAsBoolean("scene.compile", false);
 	}
 	
+	public int getBoundingVolumeHierarchyBuilderType() {
+		return doReadSettingAsInt("scene.bvh.builder", 1);
+	}
+	
+	public int getBoundingVolumeHierarchyQuantizationBits() {
+		return doReadSettingAsInt("scene.bvh.quantization", 0);
+	}
+	
+	public int getBoundingVolumeHierarchySpatialSplitBudget() {
+		return doReadSettingAsInt("scene.bvh.spatial_split_budget", 30);
+	}
+	
+	public int getBoundingVolumeHierarchyWidth() {
+		return doReadSettingAsInt("scene.bvh.width", 2);
+	}
+	
 	public int getCanvasHeight() {
 		return doReadSettingAsInt("canvas.height", 800);
 	}
@@ -62,6 +62,7 @@ import org.dayflower.pathtracer.scene.Primitive;
 import org.dayflower.pathtracer.scene.Scene;
 import org.dayflower.pathtracer.scene.Sky;
 import org.dayflower.pathtracer.scene.loader.SceneLoader;
+import org.dayflower.pathtracer.util.TileScheduler;
 import org.dayflower.pathtracer.util.Timer;
 import org.dayflower.pathtracer.util.Files;
 import org.dayflower.pathtracer.util.Strings;
@@ -78,6 +79,7 @@ import org.macroing.math4j.Vector3F;
  */
 public final class DayflowerApplication extends AbstractApplication implements CameraObserver {
 	private static final String ENGINE_NAME = "Dayflower - Path Tracer";
+	private static final int TILE_SIZE = 16;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
@@ -117,6 +119,10 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		this.labelRenderTime = new Label("Time: 00:00:00");
 		this.labelSPS = new Label("SPS: 00000000");
 		this.sceneLoader = new SceneLoader(new File(this.configuration.getRootDirectory()), this.configuration.getSceneCompile(), this.configuration.getSceneName());
+		this.sceneLoader.setBoundingVolumeHierarchyBuilderType(this.configuration.getBoundingVolumeHierarchyBuilderType());
+		this.sceneLoader.setBoundingVolumeHierarchyQuantizationBits(this.configuration.getBoundingVolumeHierarchyQuantizationBits());
+		this.sceneLoader.setBoundingVolumeHierarchySpatialSplitBudget(this.configuration.getBoundingVolumeHierarchySpatialSplitBudget());
+		this.sceneLoader.setBoundingVolumeHierarchyWidth(this.configuration.getBoundingVolumeHierarchyWidth());
 		this.timer = new Timer();
 	}
 	
@@ -203,7 +209,7 @@ public final class DayflowerApplication extends AbstractApplication implements C
 			
 			final long renderTimeMillis = this.rendererRunnable.getRenderTimeMillis();
 			final long fPS = renderTimeMillis > 0L ? 1000L / renderTimeMillis : 0L;
-			final long sPS = renderTimeMillis > 0L ? 1000L / renderTimeMillis * getKernelWidth() * getKernelHeight() : 0L;
+			final long sPS = renderTimeMillis > 0L ? 1000L / renderTimeMillis * getKernelWidth() * getKernelHeight() * this.abstractRendererKernel.getRendererSamplesPerLaunch() : 0L;
 			
 			final Camera camera = this.scene.getCamera();
 			
@@ -278,8 +284,9 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		final RadioMenuItem radioMenuItemRayMarcher = JavaFX.newRadioMenuItem("Ray Marcher", e -> doGetAbstractRendererKernel().setRendererType(AbstractRendererKernel.RENDERER_TYPE_RAY_MARCHER), toggleGroupRenderer, doGetAbstractRendererKernel().isRendererTypeRayMarcher());
 		final RadioMenuItem radioMenuItemRayTracer = JavaFX.newRadioMenuItem("Ray Tracer", e -> doGetAbstractRendererKernel().setRendererType(AbstractRendererKernel.RENDERER_TYPE_RAY_TRACER), toggleGroupRenderer, doGetAbstractRendererKernel().isRendererTypeRayTracer());
 		final RadioMenuItem radioMenuItemSurfaceNormals = JavaFX.newRadioMenuItem("Surface Normals", e -> doGetAbstractRendererKernel().setRendererType(AbstractRendererKernel.RENDERER_TYPE_SURFACE_NORMALS), toggleGroupRenderer, doGetAbstractRendererKernel().isRendererTypeSurfaceNormals());
+		final RadioMenuItem radioMenuItemTraversalStatistics = JavaFX.newRadioMenuItem("Traversal Statistics", e -> doGetAbstractRendererKernel().setRendererType(AbstractRendererKernel.RENDERER_TYPE_TRAVERSAL_STATISTICS), toggleGroupRenderer, doGetAbstractRendererKernel().isRendererTypeTraversalStatistics());
 		
-		final Menu menuRenderer = JavaFX.newMenu("Renderer", radioMenuItemAmbientOcclusion, radioMenuItemPathTracer, radioMenuItemRayCaster, radioMenuItemRayMarcher, radioMenuItemRayTracer, radioMenuItemSurfaceNormals);
+		final Menu menuRenderer = JavaFX.newMenu("Renderer", radioMenuItemAmbientOcclusion, radioMenuItemPathTracer, radioMenuItemRayCaster, radioMenuItemRayMarcher, radioMenuItemRayTracer, radioMenuItemSurfaceNormals, radioMenuItemTraversalStatistics);
 		
 		menuBar.getMenus().add(menuRenderer);
 		
@@ -335,7 +342,7 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		camera.update();
 		camera.addCameraObserver(this);
 		
-		this.rendererRunnable = new RendererRunnable(this.abstractRendererKernel, this.isRendering, this.renderPass, this.range, this.pixels0, this.pixels1);
+		this.rendererRunnable = new RendererRunnable(this.abstractRendererKernel, this.isRendering, this.renderPass, this.range, new TileScheduler(getKernelWidth(), getKernelHeight(), TILE_SIZE, TILE_SIZE), this.pixels0, this.pixels1);
 		
 		final
 		Thread thread = new Thread(this.rendererRunnable);
@@ -426,6 +433,7 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		tabPane.getTabs().add(tabSunAndSky);
 		
 //		Create the Tab with the settings for the renderers:
+		final Label labelSamplesPerLaunch = new Label("Samples per Launch:");
 		final Label labelAmbientOcclusion = new Label("Ambient Occlusion");
 		final Label labelMaximumDistance = new Label("Maximum Distance:");
 		final Label labelPathTracer = new Label("Path Tracer");
@@ -437,12 +445,13 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		final Label labelLacunarity = new Label("Lacunarity:");
 		
 		labelAmbientOcclusion.setFont(Font.font(16.0D));
-		labelAmbientOcclusion.setPadding(new Insets(0.0D, 0.0D, 10.0D, 0.0D));
+		labelAmbientOcclusion.setPadding(new Insets(10.0D, 0.0D, 10.0D, 0.0D));
 		labelPathTracer.setFont(Font.font(16.0D));
 		labelPathTracer.setPadding(new Insets(0.0D, 0.0D, 10.0D, 0.0D));
 		labelRayMarcher.setFont(Font.font(16.0D));
 		labelRayMarcher.setPadding(new Insets(10.0D, 0.0D, 10.0D, 0.0D));
 		
+		final Slider sliderSamplesPerLaunch = JavaFX.newSlider(1.0D, 16.0D, doGetAbstractRendererKernel().getRendererSamplesPerLaunch(), 1.0D, 5.0D, true, true, true, this::doOnSliderSamplesPerLaunch);
 		final Slider sliderMaximumDistance = JavaFX.newSlider(0.0D, 1000.0D, doGetAbstractRendererKernel().getRendererAOMaximumDistance(), 50.0D, 200.0D, true, true, true, this::doOnSliderMaximumDistance);
 		final Slider sliderMaximumRayDepth = JavaFX.newSlider(0.0D, 20.0D, doGetAbstractRendererKernel().getRendererPTRayDepthMaximum(), 1.0D, 5.0D, true, true, true, this::doOnSliderMaximumRayDepth);
 		final Slider sliderAmplitude = JavaFX.newSlider(0.0D, 10.0D, doGetAbstractRendererKernel().getGlobalAmplitude(), 1.0D, 5.0D, true, true, false, this::doOnSliderAmplitude);
@@ -450,10 +459,14 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		final Slider sliderGain = JavaFX.newSlider(0.0D, 10.0D, doGetAbstractRendererKernel().getGlobalGain(), 1.0D, 5.0D, true, true, false, this::doOnSliderGain);
 		final Slider sliderLacunarity = JavaFX.newSlider(0.0D, 10.0D, doGetAbstractRendererKernel().getGlobalLacunarity(), 1.0D, 5.0D, true, true, false, this::doOnSliderLacunarity);
 		
+		final CheckBox checkBoxAdaptiveSampling = JavaFX.newCheckBox("Adaptive Sampling", this::doOnCheckBoxAdaptiveSampling, doGetAbstractRendererKernel().getRendererAdaptiveSampling() == AbstractRendererKernel.BOOLEAN_TRUE);
+		final CheckBox checkBoxTileRendering = JavaFX.newCheckBox("Tile Rendering", this::doOnCheckBoxTileRendering, this.rendererRunnable.isRenderingTiles());
+		final CheckBox checkBoxWavefront = JavaFX.newCheckBox("Wavefront", this::doOnCheckBoxWavefront, doGetAbstractRendererKernel().getRendererPTWavefront() == AbstractRendererKernel.BOOLEAN_TRUE);
+		
 		final
 		VBox vBoxRenderer = new VBox();
 		vBoxRenderer.setPadding(new Insets(10.0D, 10.0D, 10.0D, 10.0D));
-		vBoxRenderer.getChildren().addAll(labelAmbientOcclusion, labelMaximumDistance, sliderMaximumDistance, labelPathTracer, labelMaximumRayDepth, sliderMaximumRayDepth, labelRayMarcher, labelAmplitude, sliderAmplitude, labelFrequency, sliderFrequency, labelGain, sliderGain, labelLacunarity, sliderLacunarity);
+		vBoxRenderer.getChildren().addAll(labelSamplesPerLaunch, sliderSamplesPerLaunch, checkBoxAdaptiveSampling, checkBoxTileRendering, labelAmbientOcclusion, labelMaximumDistance, sliderMaximumDistance, labelPathTracer, labelMaximumRayDepth, sliderMaximumRayDepth, checkBoxWavefront, labelRayMarcher, labelAmplitude, sliderAmplitude, labelFrequency, sliderFrequency, labelGain, sliderGain, labelLacunarity, sliderLacunarity);
 		
 		final
 		Tab tabRenderer = new Tab();
@@ -640,11 +653,16 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		if(scene.isPrimitiveUpdateRequired()) {
 			abstractRendererKernel.clear();
 			abstractRendererKernel.updatePrimitives();
+			
+			this.rendererRunnable.restart();
 		}
 		
 		if(isMouseDragging() || isMouseMoving() && isMouseRecentering() || camera.hasUpdated() || abstractRendererKernel.hasChanged()) {
 			synchronized(pixels1) {
 				abstractRendererKernel.clear();
+				
+				this.rendererRunnable.restart();
+				
 				abstractRendererKernel.setChanged(false);
 				abstractRendererKernel.updateCamera();
 				
@@ -675,6 +693,15 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		return this.scene.getSky();
 	}
 	
+	@SuppressWarnings("unused")
+	private void doOnCheckBoxAdaptiveSampling(final ActionEvent e) {
+		synchronized(this.pixels1) {
+			final
+			AbstractRendererKernel abstractRendererKernel = this.abstractRendererKernel;
+			abstractRendererKernel.toggleRendererAdaptiveSampling();
+		}
+	}
+	
 	@SuppressWarnings("unused")
 	private void doOnCheckBoxToggleSky(final ActionEvent e) {
 		synchronized(this.pixels1) {
@@ -693,6 +720,24 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		}
 	}
 	
+	@SuppressWarnings("unused")
+	private void doOnCheckBoxTileRendering(final ActionEvent e) {
+		synchronized(this.pixels1) {
+			final
+			RendererRunnable rendererRunnable = this.rendererRunnable;
+			rendererRunnable.toggleTileRendering();
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	private void doOnCheckBoxWavefront(final ActionEvent e) {
+		synchronized(this.pixels1) {
+			final
+			AbstractRendererKernel abstractRendererKernel = this.abstractRendererKernel;
+			abstractRendererKernel.toggleRendererPTWavefront();
+		}
+	}
+	
 	@SuppressWarnings("unused")
 	private void doOnMenuItemSave(final ActionEvent e) {
 		final File directory = new File(this.configuration.getImageDirectory());
@@ -764,6 +809,11 @@ public final class DayflowerApplication extends AbstractApplication implements C
 		this.scene.getCamera().setPitch(AngleF.degrees(newValue.floatValue(), -90.0F, 90.0F));
 	}
 	
+	@SuppressWarnings("unused")
+	private void doOnSliderSamplesPerLaunch(final ObservableValue<? extends Number> observableValue, final Number oldValue, final Number newValue) {
+		this.abstractRendererKernel.setRendererSamplesPerLaunch(newValue.intValue());
+	}
+	
 	@SuppressWarnings("unused")
 	private void doOnSliderSunDirectionWorldX(final ObservableValue<? extends Number> observableValue, final Number oldValue, final Number newValue) {
 		this.scene.getSky().setSunDirectionWorldX(newValue.floatValue());
@@ -800,30 +850,42 @@ public final class DayflowerApplication extends AbstractApplication implements C
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private static final class RendererRunnable implements Runnable {
+		private static final int TILE_LAUNCHES_PER_FRAME = 4;
+		
+		////////////////////////////////////////////////////////////////////////////////////////////////////
+		
 		private final AbstractRendererKernel abstractRendererKernel;
 		private final AtomicBoolean isRendering;
+		private final AtomicBoolean isRenderingTiles;
 		private final AtomicBoolean isRunning;
 		private final AtomicInteger renderPass;
 		private final AtomicLong renderTimeMillis;
 		private final Range range;
+		private final TileScheduler tileScheduler;
 		private final byte[] pixels0;
 		private final byte[] pixels1;
 		
 		////////////////////////////////////////////////////////////////////////////////////////////////////
 		
-		public RendererRunnable(final AbstractRendererKernel abstractRendererKernel, final AtomicBoolean isRendering, final AtomicInteger renderPass, final Range range, final byte[] pixels0, final byte[] pixels1) {
+		public RendererRunnable(final AbstractRendererKernel abstractRendererKernel, final AtomicBoolean isRendering, final AtomicInteger renderPass, final Range range, final TileScheduler tileScheduler, final byte[] pixels0, final byte[] pixels1) {
 			this.abstractRendererKernel = Objects.requireNonNull(abstractRendererKernel, "abstractRendererKernel == null");
 			this.isRendering = Objects.requireNonNull(isRendering, "isRendering == null");
 			this.renderPass = Objects.requireNonNull(renderPass, "renderPass == null");
 			this.range = Objects.requireNonNull(range, "range == null");
+			this.tileScheduler = Objects.requireNonNull(tileScheduler, "tileScheduler == null");
 			this.pixels0 = Objects.requireNonNull(pixels0, "pixels0 == null");
 			this.pixels1 = Objects.requireNonNull(pixels1, "pixels1 == null");
+			this.isRenderingTiles = new AtomicBoolean(false);
 			this.isRunning = new AtomicBoolean(true);
 			this.renderTimeMillis = new AtomicLong();
 		}
 		
 		////////////////////////////////////////////////////////////////////////////////////////////////////
 		
+		public boolean isRenderingTiles() {
+			return this.isRenderingTiles.get();
+		}
+		
 		public long getRenderTimeMillis() {
 			return this.renderTimeMillis.get();
 		}
@@ -833,6 +895,7 @@ public final class DayflowerApplication extends AbstractApplication implements C
 			final AbstractRendererKernel abstractRendererKernel = this.abstractRendererKernel;
 			
 			final AtomicBoolean isRendering = this.isRendering;
+			final AtomicBoolean isRenderingTiles = this.isRenderingTiles;
 			final AtomicBoolean isRunning = this.isRunning;
 			
 			final AtomicInteger renderPass = this.renderPass;
@@ -841,17 +904,66 @@ public final class DayflowerApplication extends AbstractApplication implements C
 			
 			final Range range = this.range;
 			
+			final TileScheduler tileScheduler = this.tileScheduler;
+			
+			final int localSize = range.getLocalSize(0);
+			final int tilesPerLaunch = (tileScheduler.getTileCount() + TILE_LAUNCHES_PER_FRAME - 1) / TILE_LAUNCHES_PER_FRAME;
+			
 			final byte[] pixels0 = this.pixels0;
 			final byte[] pixels1 = this.pixels1;
 			
+			boolean hasTilePixels = false;
+			
 			isRendering.set(false);
 			
 			while(isRunning.get()) {
 				final long renderTimeMillis0 = System.currentTimeMillis();
 				
+				boolean isFrameRendered = true;
+				
 				synchronized(pixels1) {
-					abstractRendererKernel.execute(range);
-					abstractRendererKernel.clearFilmFlags();
+					final boolean isAdaptive = abstractRendererKernel.getRendererAdaptiveSampling() == AbstractRendererKernel.BOOLEAN_TRUE;
+					
+					if(isRenderingTiles.get() && !isAdaptive) {
+//						Tile rendering splits a frame into several launches, each of which renders the next tiles, starting with the ones closest to the center. The pixels of consecutive tiles are contiguous, so a launch maps its global IDs to a range of them:
+						if(!hasTilePixels) {
+							abstractRendererKernel.setFilmPixels(tileScheduler.getPixels());
+							
+							hasTilePixels = true;
+						}
+						
+						final int tile = tileScheduler.nextTiles(tilesPerLaunch);
+						final int tileCount = tileScheduler.getTileCount();
+						
+						final int filmPixelsOffset = tileScheduler.getPixelOffset(tile);
+						final int filmPixelsCount = tileScheduler.getPixelOffset(Math.min(tile + tilesPerLaunch, tileCount)) - filmPixelsOffset;
+						
+						abstractRendererKernel.setFilmPixelsRange(filmPixelsOffset, filmPixelsCount);
+						abstractRendererKernel.execute(Range.create((filmPixelsCount + localSize - 1) / localSize * localSize, localSize), abstractRendererKernel.getPasses());
+						
+						isFrameRendered = !tileScheduler.hasNextTiles();
+					} else {
+						final int filmPixelsCount = abstractRendererKernel.getFilmPixelsCount();
+						
+//						Adaptive sampling only samples the pixels that have not yet converged, so the range is shrunk to their number, rounded up to a multiple of the local size:
+						if(filmPixelsCount == -1) {
+							abstractRendererKernel.execute(range, abstractRendererKernel.getPasses());
+						} else if(filmPixelsCount > 0) {
+							abstractRendererKernel.execute(Range.create((filmPixelsCount + localSize - 1) / localSize * localSize, localSize), abstractRendererKernel.getPasses());
+						}
+						
+//						Adaptive sampling overwrites the pixels of the tiles:
+						hasTilePixels = hasTilePixels && !isAdaptive;
+					}
+					
+//					The film flags, such as the one that clears the film, have to apply to every tile of a frame, so they are kept until the last tiles have been rendered:
+					if(isFrameRendered) {
+						abstractRendererKernel.clearFilmFlags();
+						
+						tileScheduler.reset();
+					}
+					
+					abstractRendererKernel.updateFilmPixels(isAdaptive);
 					abstractRendererKernel.get(pixels1);
 					
 					isRendering.set(true);
@@ -861,7 +973,9 @@ public final class DayflowerApplication extends AbstractApplication implements C
 					}
 				}
 				
-				renderPass.incrementAndGet();
+				if(isFrameRendered) {
+					renderPass.incrementAndGet();
+				}
 				
 				final long renderTimeMillis1 = System.currentTimeMillis();
 				final long renderTimeMillis2 = renderTimeMillis1 - renderTimeMillis0;
@@ -876,8 +990,17 @@ public final class DayflowerApplication extends AbstractApplication implements C
 			}
 		}
 		
+		public void restart() {
+			this.tileScheduler.reset();
+		}
+		
 		public void stop() {
 			this.isRunning.set(false);
 		}
+		
+		public void toggleTileRendering() {
+			this.isRenderingTiles.set(!this.isRenderingTiles.get());
+			this.tileScheduler.reset();
+		}
 	}
 }
\ No newline at end of file
@@ -110,6 +110,22 @@ public final class Primitive {
 		return Optional.empty();
 	}
 	
+	/**
+	 * Returns a new {@code Primitive} instance that shares the {@link Shape} and {@link Surface} of this {@code Primitive} instance, but uses {@code transform}.
+	 * <p>
+	 * If {@code transform} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * This is the preferred way to place the same {@code Shape} many times in a {@link Scene}. A {@link org.dayflower.pathtracer.scene.shape.TriangleMesh TriangleMesh} and its Bounding Volume Hierarchy are only compiled once, regardless of
+	 * the number of instances.
+	 * 
+	 * @param transform the {@link Transform} to transform from object-space to world-space
+	 * @return a new {@code Primitive} instance that shares the {@code Shape} and {@code Surface} of this {@code Primitive} instance, but uses {@code transform}
+	 * @throws NullPointerException thrown if, and only if, {@code transform} is {@code null}
+	 */
+	public Primitive createInstance(final Transform transform) {
+		return new Primitive(this.shape, this.surface, transform);
+	}
+	
 	/**
 	 * Returns the {@link Shape} assigned to this {@code Primitive} instance.
 	 * 
@@ -27,6 +27,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dayflower.pathtracer.scene.shape.Triangle;
@@ -40,6 +43,45 @@ import org.macroing.math4j.Point3F;
  * @author J&#246;rgen Lundgren
  */
 public final class BoundingVolumeHierarchy {
+	/**
+	 * The builder type for the binned Surface Area Heuristic (SAH) builder, which is {@code 1}.
+	 * <p>
+	 * This builder evaluates a fixed number of bins per axis and only needs a single pass over the {@link Triangle}s of a node to find its split. The {@code Triangle}s in the two bins next to the best split of each axis are then swept in the
+	 * order of their centers, so the split is not limited to the bin boundaries.
+	 */
+	public static final int BUILDER_TYPE_BINNED_SAH = 1;
+	
+	/**
+	 * The builder type for the Linear Bounding Volume Hierarchy (LBVH) builder, which is {@code 4}.
+	 * <p>
+	 * This builder sorts the {@link Triangle}s by the Morton codes of their centers and emits the hierarchy in linear time. It is a lot faster than the Surface Area Heuristic (SAH) builders, which makes it suitable for frequent rebuilds, but the
+	 * hierarchy is of a lower quality.
+	 */
+	public static final int BUILDER_TYPE_LINEAR = 4;
+	
+	/**
+	 * The builder type for the Linear Bounding Volume Hierarchy (LBVH) builder followed by treelet optimization, which is {@code 5}.
+	 * <p>
+	 * This builder is the same as {@link #BUILDER_TYPE_LINEAR}, but restructures each treelet of up to seven leaves into its optimal topology with respect to the Surface Area Heuristic (SAH), from the bottom up. This recovers most of the quality of
+	 * the SAH builders at a fraction of their cost.
+	 */
+	public static final int BUILDER_TYPE_LINEAR_OPTIMIZED = 5;
+	
+	/**
+	 * The builder type for the spatial split Surface Area Heuristic (SAH) builder, which is {@code 3}.
+	 * <p>
+	 * This builder evaluates the same splits as {@link #BUILDER_TYPE_BINNED_SAH}, but may also split a node by a plane that cuts through the {@link Triangle}s of the node. A {@code Triangle} that is cut by such a plane is referenced by both
+	 * children, with each reference bounded by the part of the {@code Triangle} on its side of the plane. This lowers the overlap between the children of nodes with long and thin {@code Triangle}s, at the cost of a larger hierarchy.
+	 */
+	public static final int BUILDER_TYPE_SPATIAL_SPLIT_SAH = 3;
+	
+	/**
+	 * The builder type for the sweeping Surface Area Heuristic (SAH) builder, which is {@code 2}.
+	 * <p>
+	 * This builder evaluates up to {@code 1024 / (depth + 1)} split planes per axis and rescans all {@link Triangle}s of a node for each one.
+	 */
+	public static final int BUILDER_TYPE_SWEEP_SAH = 2;
+	
 	/**
 	 * The type number associated with a {@link LeafNode}. The number is {@code 2}.
 	 */
@@ -50,13 +92,38 @@ public final class BoundingVolumeHierarchy {
 	 */
 	public static final int NODE_TYPE_TREE = 1;
 	
+	/**
+	 * The default budget for duplicated {@link Triangle} references of the {@link #BUILDER_TYPE_SPATIAL_SPLIT_SAH} builder, which is {@code 30}.
+	 * <p>
+	 * The budget is given in percent of the number of {@code Triangle}s.
+	 */
+	public static final int SPATIAL_SPLIT_BUDGET_DEFAULT = 30;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static final int BIN_COUNT = 64;
+	
+//	The version of each builder is a part of the key of the BoundingVolumeHierarchyCache. It has to be incremented whenever the output of the builder changes, so the files written by the previous version are not reused:
+	private static final int BUILDER_VERSION_BINNED_SAH = 2;
+	private static final int BUILDER_VERSION_LINEAR = 1;
+	private static final int BUILDER_VERSION_LINEAR_OPTIMIZED = 1;
+	private static final int BUILDER_VERSION_SPATIAL_SPLIT_SAH = 2;
+	private static final int BUILDER_VERSION_SWEEP_SAH = 2;
+	
+	private static final int PARALLEL_THRESHOLD_AXIS = 8192;
+	private static final int PARALLEL_THRESHOLD_SUBTREE = 1024;
+	private static final int SPATIAL_SPLIT_BUDGET_MAXIMUM = 1000;
+	
+//	A spatial split is only evaluated for a node if the overlap of the children of its best object split is larger than this fraction of the surface area of the root:
+	private static final float SPATIAL_SPLIT_OVERLAP_THRESHOLD = 1.0e-5F;
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private final Node root;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
-	private BoundingVolumeHierarchy(final Node root) {
+	BoundingVolumeHierarchy(final Node root) {
 		this.root = Objects.requireNonNull(root, "root == null");
 	}
 	
@@ -110,13 +177,68 @@ public final class BoundingVolumeHierarchy {
 	 * Returns a {@code BoundingVolumeHierarchy} instance.
 	 * <p>
 	 * If either {@code triangles} or at least one {@code Triangle} in {@code triangles} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * Calling this method is equivalent to {@code createBoundingVolumeHierarchy(triangles, BoundingVolumeHierarchy.BUILDER_TYPE_BINNED_SAH)}.
 	 * 
 	 * @param triangles the {@code Triangle}s to create the {@code BoundingVolumeHierarchy} from
 	 * @return a {@code BoundingVolumeHierarchy} instance
 	 * @throws NullPointerException thrown if, and only if, either {@code triangles} or at least one {@code Triangle} in {@code triangles} are {@code null}
 	 */
 	public static BoundingVolumeHierarchy createBoundingVolumeHierarchy(final List<Triangle> triangles) {
-		final AtomicInteger idGenerator = new AtomicInteger();
+		return createBoundingVolumeHierarchy(triangles, BUILDER_TYPE_BINNED_SAH);
+	}
+	
+	/**
+	 * Creates a {@code BoundingVolumeHierarchy} based on a {@code List} of {@link Triangle}s.
+	 * <p>
+	 * Returns a {@code BoundingVolumeHierarchy} instance.
+	 * <p>
+	 * The builder type can be one of {@link #BUILDER_TYPE_BINNED_SAH}, {@link #BUILDER_TYPE_LINEAR}, {@link #BUILDER_TYPE_LINEAR_OPTIMIZED}, {@link #BUILDER_TYPE_SPATIAL_SPLIT_SAH} or {@link #BUILDER_TYPE_SWEEP_SAH}.
+	 * <p>
+	 * If either {@code triangles} or at least one {@code Triangle} in {@code triangles} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If {@code builderType} is not a valid builder type, an {@code IllegalArgumentException} will be thrown.
+	 * <p>
+	 * Calling this method is equivalent to {@code createBoundingVolumeHierarchy(triangles, builderType, BoundingVolumeHierarchy.SPATIAL_SPLIT_BUDGET_DEFAULT)}.
+	 * 
+	 * @param triangles the {@code Triangle}s to create the {@code BoundingVolumeHierarchy} from
+	 * @param builderType the builder type to use
+	 * @return a {@code BoundingVolumeHierarchy} instance
+	 * @throws IllegalArgumentException thrown if, and only if, {@code builderType} is not a valid builder type
+	 * @throws NullPointerException thrown if, and only if, either {@code triangles} or at least one {@code Triangle} in {@code triangles} are {@code null}
+	 */
+	public static BoundingVolumeHierarchy createBoundingVolumeHierarchy(final List<Triangle> triangles, final int builderType) {
+		return createBoundingVolumeHierarchy(triangles, builderType, SPATIAL_SPLIT_BUDGET_DEFAULT);
+	}
+	
+	/**
+	 * Creates a {@code BoundingVolumeHierarchy} based on a {@code List} of {@link Triangle}s.
+	 * <p>
+	 * Returns a {@code BoundingVolumeHierarchy} instance.
+	 * <p>
+	 * The builder type can be one of {@link #BUILDER_TYPE_BINNED_SAH}, {@link #BUILDER_TYPE_LINEAR}, {@link #BUILDER_TYPE_LINEAR_OPTIMIZED}, {@link #BUILDER_TYPE_SPATIAL_SPLIT_SAH} or {@link #BUILDER_TYPE_SWEEP_SAH}.
+	 * <p>
+	 * The spatial split budget is the maximum number of duplicated {@code Triangle} references the {@link #BUILDER_TYPE_SPATIAL_SPLIT_SAH} builder may add, in percent of the number of {@code Triangle}s. It is ignored by the other builders.
+	 * <p>
+	 * If either {@code triangles} or at least one {@code Triangle} in {@code triangles} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If either {@code builderType} is not a valid builder type or {@code spatialSplitBudget} is less than {@code 0} or greater than {@code 1000}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param triangles the {@code Triangle}s to create the {@code BoundingVolumeHierarchy} from
+	 * @param builderType the builder type to use
+	 * @param spatialSplitBudget the maximum number of duplicated {@code Triangle} references, in percent of the number of {@code Triangle}s
+	 * @return a {@code BoundingVolumeHierarchy} instance
+	 * @throws IllegalArgumentException thrown if, and only if, either {@code builderType} is not a valid builder type or {@code spatialSplitBudget} is less than {@code 0} or greater than {@code 1000}
+	 * @throws NullPointerException thrown if, and only if, either {@code triangles} or at least one {@code Triangle} in {@code triangles} are {@code null}
+	 */
+	public static BoundingVolumeHierarchy createBoundingVolumeHierarchy(final List<Triangle> triangles, final int builderType, final int spatialSplitBudget) {
+		if(builderType != BUILDER_TYPE_BINNED_SAH && builderType != BUILDER_TYPE_LINEAR && builderType != BUILDER_TYPE_LINEAR_OPTIMIZED && builderType != BUILDER_TYPE_SPATIAL_SPLIT_SAH && builderType != BUILDER_TYPE_SWEEP_SAH) {
+			throw new IllegalArgumentException(String.format("Illegal builder type: %s", Integer.toString(builderType)));
+		}
+		
+		if(spatialSplitBudget < 0 || spatialSplitBudget > SPATIAL_SPLIT_BUDGET_MAXIMUM) {
+			throw new IllegalArgumentException(String.format("Illegal spatial split budget: %s", Integer.toString(spatialSplitBudget)));
+		}
 		
 		final List<LeafNode> leafNodes = new ArrayList<>(triangles.size());
 		
@@ -148,8 +270,38 @@ public final class BoundingVolumeHierarchy {
 			minimumZ = min(minimumZ, leafNode.getMinimumZ());
 		}
 		
-		final
-		Node nodeRoot = doCreateBoundingVolumeHierarchy(idGenerator, leafNodes, 0, maximumX, maximumY, maximumZ, minimumX, minimumY, minimumZ);
+		final float maximumX0 = maximumX;
+		final float maximumY0 = maximumY;
+		final float maximumZ0 = maximumZ;
+		final float minimumX0 = minimumX;
+		final float minimumY0 = minimumY;
+		final float minimumZ0 = minimumZ;
+		
+//		The subtrees are built in parallel, so the IDs generated by 'idGeneratorBuild' depend on the scheduling. To keep the IDs deterministic, they are reassigned in post-order by 'doAssignIds':
+		final AtomicInteger idGeneratorBuild = new AtomicInteger();
+		
+//		The duplicated Triangle references of the spatial split builder are limited by a budget, which is divided among the children of each node instead of being shared, so the result does not depend on the scheduling either:
+		final int duplicateReferenceBudget = (int)((long)(triangles.size()) * spatialSplitBudget / 100L);
+		
+		final float surfaceAreaRoot = (maximumX - minimumX) * (maximumY - minimumY) + (maximumY - minimumY) * (maximumZ - minimumZ) + (maximumZ - minimumZ) * (maximumX - minimumX);
+		
+		final Node nodeRoot = ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> {
+			switch(builderType) {
+				case BUILDER_TYPE_BINNED_SAH:
+					return doCreateBoundingVolumeHierarchyBinnedSAH(idGeneratorBuild, leafNodes, 0, maximumX0, maximumY0, maximumZ0, minimumX0, minimumY0, minimumZ0);
+				case BUILDER_TYPE_LINEAR:
+					return LinearBoundingVolumeHierarchyBuilder.createRootNode(idGeneratorBuild, leafNodes, false);
+				case BUILDER_TYPE_LINEAR_OPTIMIZED:
+					return LinearBoundingVolumeHierarchyBuilder.createRootNode(idGeneratorBuild, leafNodes, true);
+				case BUILDER_TYPE_SPATIAL_SPLIT_SAH:
+					return doCreateBoundingVolumeHierarchySpatialSplitSAH(idGeneratorBuild, leafNodes, 0, duplicateReferenceBudget, surfaceAreaRoot, maximumX0, maximumY0, maximumZ0, minimumX0, minimumY0, minimumZ0);
+				default:
+					return doCreateBoundingVolumeHierarchy(idGeneratorBuild, leafNodes, 0, maximumX0, maximumY0, maximumZ0, minimumX0, minimumY0, minimumZ0);
+			}
+		}));
+		
+		doAssignIds(new AtomicInteger(), nodeRoot);
+		
 		nodeRoot.setMaximum(maximumX, maximumY, maximumZ);
 		nodeRoot.setMinimum(minimumX, minimumY, minimumZ);
 		
@@ -158,6 +310,25 @@ public final class BoundingVolumeHierarchy {
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	static int getBuilderVersion(final int builderType) {
+		switch(builderType) {
+			case BUILDER_TYPE_BINNED_SAH:
+				return BUILDER_VERSION_BINNED_SAH;
+			case BUILDER_TYPE_LINEAR:
+				return BUILDER_VERSION_LINEAR;
+			case BUILDER_TYPE_LINEAR_OPTIMIZED:
+				return BUILDER_VERSION_LINEAR_OPTIMIZED;
+			case BUILDER_TYPE_SPATIAL_SPLIT_SAH:
+				return BUILDER_VERSION_SPATIAL_SPLIT_SAH;
+			case BUILDER_TYPE_SWEEP_SAH:
+				return BUILDER_VERSION_SWEEP_SAH;
+			default:
+				throw new IllegalArgumentException(String.format("Illegal builder type: %s", Integer.toString(builderType)));
+		}
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
 	/**
 	 * A {@code LeafNode} is a {@link Node} implementation that represents a leaf node in a Bounding Volume Hierarchy (BVH).
 	 * 
@@ -166,7 +337,6 @@ public final class BoundingVolumeHierarchy {
 	 */
 	public static final class LeafNode extends Node {
 		private final List<Triangle> triangles = new ArrayList<>(10);
-		private int size;
 		
 		////////////////////////////////////////////////////////////////////////////////////////////////////
 		
@@ -178,8 +348,6 @@ public final class BoundingVolumeHierarchy {
 		 */
 		public LeafNode(final int depth, final int id) {
 			super(depth, id);
-			
-			this.size = 5;
 		}
 		
 		////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -279,12 +447,14 @@ public final class BoundingVolumeHierarchy {
 		
 		/**
 		 * Returns the size of this {@code LeafNode} instance.
+		 * <p>
+		 * The size does not depend on the number of {@link Triangle}s, because a compiled {@code LeafNode} refers to a contiguous range of {@code Triangle}s by the offset of the first one and their count.
 		 * 
 		 * @return the size of this {@code LeafNode} instance
 		 */
 		@Override
 		public int getSize() {
-			return this.size;
+			return 7;
 		}
 		
 		/**
@@ -320,9 +490,7 @@ public final class BoundingVolumeHierarchy {
 		 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
 		 */
 		public void addTriangle(final Triangle triangle) {
-			if(this.triangles.add(Objects.requireNonNull(triangle, "triangle == null"))) {
-				this.size += 1;
-			}
+			this.triangles.add(Objects.requireNonNull(triangle, "triangle == null"));
 		}
 		
 		/**
@@ -334,9 +502,7 @@ public final class BoundingVolumeHierarchy {
 		 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
 		 */
 		public void removeTriangle(final Triangle triangle) {
-			if(this.triangles.remove(Objects.requireNonNull(triangle, "triangle == null"))) {
-				this.size -= 1;
-			}
+			this.triangles.remove(Objects.requireNonNull(triangle, "triangle == null"));
 		}
 	}
 	
@@ -356,7 +522,7 @@ public final class BoundingVolumeHierarchy {
 		private float minimumY = -Float.MAX_VALUE;
 		private float minimumZ = -Float.MAX_VALUE;
 		private final int depth;
-		private final int id;
+		private int id;
 		
 		////////////////////////////////////////////////////////////////////////////////////////////////////
 		
@@ -604,7 +770,7 @@ public final class BoundingVolumeHierarchy {
 		public TreeNode(final int depth, final int id) {
 			super(depth, id);
 			
-			this.size = 5;
+			this.size = 7;
 		}
 		
 		////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -823,90 +989,30 @@ public final class BoundingVolumeHierarchy {
 		final float sideZ = maximumZ - minimumZ;
 		
 		float minimumCost = size0 * (sideX * sideY + sideY * sideZ + sideZ * sideX);
+		
+		final float[] costs = new float[] {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		final float[] maximums = new float[] {maximumX, maximumY, maximumZ};
+		final float[] minimums = new float[] {minimumX, minimumY, minimumZ};
+		final float[] splits = new float[3];
+		
+//		Evaluate the best split of each axis. Each axis only writes to its own element in 'costs' and 'splits', so the axes can be evaluated in parallel for large nodes:
+		if(size0 >= PARALLEL_THRESHOLD_AXIS && ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> doEvaluateAxisSweepSAH(leafNodes, 0, depth, maximums[0], minimums[0], costs, splits)), ForkJoinTask.adapt(() -> doEvaluateAxisSweepSAH(leafNodes, 1, depth, maximums[1], minimums[1], costs, splits)), ForkJoinTask.adapt(() -> doEvaluateAxisSweepSAH(leafNodes, 2, depth, maximums[2], minimums[2], costs, splits)));
+		} else {
+			for(int axis = 0; axis < 3; axis++) {
+				doEvaluateAxisSweepSAH(leafNodes, axis, depth, maximums[axis], minimums[axis], costs, splits);
+			}
+		}
+		
 		float bestSplit = Float.MAX_VALUE;
 		
 		int bestAxis = -1;
 		
-		for(int i = 0; i < 3; i++) {
-			final int axis = i;
-			
-			final float start = axis == 0 ? minimumX : axis == 1 ? minimumY : minimumZ;
-			final float stop = axis == 0 ? maximumX : axis == 1 ? maximumY : maximumZ;
-			
-			if(abs(stop - start) < 1.0e-4F) {
-				continue;
-			}
-			
-			final float step = (stop - start) / (1024.0F / (depth + 1.0F));
-			
-			for(float split = start + step; split < stop - step; split += step) {
-				float maximumLeftX = -Float.MAX_VALUE;
-				float maximumLeftY = -Float.MAX_VALUE;
-				float maximumLeftZ = -Float.MAX_VALUE;
-				float minimumLeftX = +Float.MAX_VALUE;
-				float minimumLeftY = +Float.MAX_VALUE;
-				float minimumLeftZ = +Float.MAX_VALUE;
-				
-				float maximumRightX = -Float.MAX_VALUE;
-				float maximumRightY = -Float.MAX_VALUE;
-				float maximumRightZ = -Float.MAX_VALUE;
-				float minimumRightX = +Float.MAX_VALUE;
-				float minimumRightY = +Float.MAX_VALUE;
-				float minimumRightZ = +Float.MAX_VALUE;
-				
-				int countLeft = 0;
-				int countRight = 0;
-				
-				for(final LeafNode leafNode : leafNodes) {
-					final float centerX = leafNode.getCenterX();
-					final float centerY = leafNode.getCenterY();
-					final float centerZ = leafNode.getCenterZ();
-					
-					final float value = axis == 0 ? centerX : axis == 1 ? centerY : centerZ;
-					
-					if(value < split) {
-						maximumLeftX = max(maximumLeftX, leafNode.getMaximumX());
-						maximumLeftY = max(maximumLeftY, leafNode.getMaximumY());
-						maximumLeftZ = max(maximumLeftZ, leafNode.getMaximumZ());
-						minimumLeftX = min(minimumLeftX, leafNode.getMinimumX());
-						minimumLeftY = min(minimumLeftY, leafNode.getMinimumY());
-						minimumLeftZ = min(minimumLeftZ, leafNode.getMinimumZ());
-						
-						countLeft++;
-					} else {
-						maximumRightX = max(maximumRightX, leafNode.getMaximumX());
-						maximumRightY = max(maximumRightY, leafNode.getMaximumY());
-						maximumRightZ = max(maximumRightZ, leafNode.getMaximumZ());
-						minimumRightX = min(minimumRightX, leafNode.getMinimumX());
-						minimumRightY = min(minimumRightY, leafNode.getMinimumY());
-						minimumRightZ = min(minimumRightZ, leafNode.getMinimumZ());
-						
-						countRight++;
-					}
-				}
-				
-				if(countLeft <= 1 || countRight <= 1) {
-					continue;
-				}
-				
-				final float sideLeftX = maximumLeftX - minimumLeftX;
-				final float sideLeftY = maximumLeftY - minimumLeftY;
-				final float sideLeftZ = maximumLeftZ - minimumLeftZ;
-				
-				final float sideRightX = maximumRightX - minimumRightX;
-				final float sideRightY = maximumRightY - minimumRightY;
-				final float sideRightZ = maximumRightZ - minimumRightZ;
-				
-				final float surfaceLeft = sideLeftX * sideLeftY + sideLeftY * sideLeftZ + sideLeftZ * sideLeftX;
-				final float surfaceRight = sideRightX * sideRightY + sideRightY * sideRightZ + sideRightZ * sideRightX;
-				
-				final float cost = surfaceLeft * countLeft + surfaceRight * countRight;
-				
-				if(cost < minimumCost) {
-					minimumCost = cost;
-					bestSplit = split;
-					bestAxis = axis;
-				}
+		for(int axis = 0; axis < 3; axis++) {
+			if(costs[axis] < minimumCost) {
+				minimumCost = costs[axis];
+				bestSplit = splits[axis];
+				bestAxis = axis;
 			}
 		}
 		
@@ -925,19 +1031,11 @@ public final class BoundingVolumeHierarchy {
 		final List<LeafNode> leafNodesLeft = new ArrayList<>(size1);
 		final List<LeafNode> leafNodesRight = new ArrayList<>(size1);
 		
-		float maximumLeftX = -Float.MAX_VALUE;
-		float maximumLeftY = -Float.MAX_VALUE;
-		float maximumLeftZ = -Float.MAX_VALUE;
-		float minimumLeftX = +Float.MAX_VALUE;
-		float minimumLeftY = +Float.MAX_VALUE;
-		float minimumLeftZ = +Float.MAX_VALUE;
+		final float[] boundsLeft = new float[6];
+		final float[] boundsRight = new float[6];
 		
-		float maximumRightX = -Float.MAX_VALUE;
-		float maximumRightY = -Float.MAX_VALUE;
-		float maximumRightZ = -Float.MAX_VALUE;
-		float minimumRightX = +Float.MAX_VALUE;
-		float minimumRightY = +Float.MAX_VALUE;
-		float minimumRightZ = +Float.MAX_VALUE;
+		doSetEmptyBounds(boundsLeft, 0);
+		doSetEmptyBounds(boundsRight, 0);
 		
 		for(final LeafNode leafNode : leafNodes) {
 			final float centerX = leafNode.getCenterX();
@@ -949,33 +1047,25 @@ public final class BoundingVolumeHierarchy {
 			if(value < bestSplit) {
 				leafNodesLeft.add(leafNode);
 				
-				maximumLeftX = max(maximumLeftX, leafNode.getMaximumX());
-				maximumLeftY = max(maximumLeftY, leafNode.getMaximumY());
-				maximumLeftZ = max(maximumLeftZ, leafNode.getMaximumZ());
-				minimumLeftX = min(minimumLeftX, leafNode.getMinimumX());
-				minimumLeftY = min(minimumLeftY, leafNode.getMinimumY());
-				minimumLeftZ = min(minimumLeftZ, leafNode.getMinimumZ());
+				doAddBounds(boundsLeft, 0, leafNode);
 			} else {
 				leafNodesRight.add(leafNode);
 				
-				maximumRightX = max(maximumRightX, leafNode.getMaximumX());
-				maximumRightY = max(maximumRightY, leafNode.getMaximumY());
-				maximumRightZ = max(maximumRightZ, leafNode.getMaximumZ());
-				minimumRightX = min(minimumRightX, leafNode.getMinimumX());
-				minimumRightY = min(minimumRightY, leafNode.getMinimumY());
-				minimumRightZ = min(minimumRightZ, leafNode.getMinimumZ());
+				doAddBounds(boundsRight, 0, leafNode);
 			}
 		}
 		
+		final Node[] nodes = doCreateChildren(size0, () -> doCreateBoundingVolumeHierarchy(idGenerator, leafNodesLeft, depth + 1, boundsLeft[0], boundsLeft[1], boundsLeft[2], boundsLeft[3], boundsLeft[4], boundsLeft[5]), () -> doCreateBoundingVolumeHierarchy(idGenerator, leafNodesRight, depth + 1, boundsRight[0], boundsRight[1], boundsRight[2], boundsRight[3], boundsRight[4], boundsRight[5]));
+		
 		final
-		Node nodeLeft = doCreateBoundingVolumeHierarchy(idGenerator, leafNodesLeft, depth + 1, maximumLeftX, maximumLeftY, maximumLeftZ, minimumLeftX, minimumLeftY, minimumLeftZ);
-		nodeLeft.setMaximum(maximumLeftX, maximumLeftY, maximumLeftZ);
-		nodeLeft.setMinimum(minimumLeftX, minimumLeftY, minimumLeftZ);
+		Node nodeLeft = nodes[0];
+		nodeLeft.setMaximum(boundsLeft[0], boundsLeft[1], boundsLeft[2]);
+		nodeLeft.setMinimum(boundsLeft[3], boundsLeft[4], boundsLeft[5]);
 		
 		final
-		Node nodeRight = doCreateBoundingVolumeHierarchy(idGenerator, leafNodesRight, depth + 1, maximumRightX, maximumRightY, maximumRightZ, minimumRightX, minimumRightY, minimumRightZ);
-		nodeRight.setMaximum(maximumRightX, maximumRightY, maximumRightZ);
-		nodeRight.setMinimum(minimumRightX, minimumRightY, minimumRightZ);
+		Node nodeRight = nodes[1];
+		nodeRight.setMaximum(boundsRight[0], boundsRight[1], boundsRight[2]);
+		nodeRight.setMinimum(boundsRight[3], boundsRight[4], boundsRight[5]);
 		
 		final
 		TreeNode treeNode = new TreeNode(depth, idGenerator.getAndIncrement());
@@ -984,4 +1074,857 @@ public final class BoundingVolumeHierarchy {
 		
 		return treeNode;
 	}
+	
+	private static LeafNode doCreateLeafNode(final AtomicInteger idGenerator, final List<LeafNode> leafNodes, final int depth) {
+		final LeafNode leafNode = new LeafNode(depth, idGenerator.getAndIncrement());
+		
+		for(final LeafNode leafNode0 : leafNodes) {
+			for(final Triangle triangle : leafNode0.getTriangles()) {
+				leafNode.addTriangle(triangle);
+			}
+		}
+		
+		return leafNode;
+	}
+	
+	private static Node doCreateBoundingVolumeHierarchyBinnedSAH(final AtomicInteger idGenerator, final List<LeafNode> leafNodes, final int depth, final float maximumX, final float maximumY, final float maximumZ, final float minimumX, final float minimumY, final float minimumZ) {
+		final int size0 = leafNodes.size();
+		final int size1 = size0 / 2;
+		
+		if(size0 < 4) {
+			return doCreateLeafNode(idGenerator, leafNodes, depth);
+		}
+		
+		final float[] costs = new float[] {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		final float[] splits = new float[3];
+		
+		final int[] bins = new int[] {-1, -1, -1};
+		
+		doEvaluateObjectSplitsBinnedSAH(leafNodes, costs, splits, bins);
+		
+		final float sideX = maximumX - minimumX;
+		final float sideY = maximumY - minimumY;
+		final float sideZ = maximumZ - minimumZ;
+		
+		float minimumCost = size0 * (sideX * sideY + sideY * sideZ + sideZ * sideX);
+		
+		int bestAxis = -1;
+		
+		for(int axis = 0; axis < 3; axis++) {
+			if(bins[axis] != -1 && costs[axis] < minimumCost) {
+				minimumCost = costs[axis];
+				bestAxis = axis;
+			}
+		}
+		
+		if(bestAxis == -1) {
+			return doCreateLeafNode(idGenerator, leafNodes, depth);
+		}
+		
+		final List<LeafNode> leafNodesLeft = new ArrayList<>(size1);
+		final List<LeafNode> leafNodesRight = new ArrayList<>(size1);
+		
+		final float[] boundsLeft = new float[6];
+		final float[] boundsRight = new float[6];
+		
+		doSetEmptyBounds(boundsLeft, 0);
+		doSetEmptyBounds(boundsRight, 0);
+		
+		for(final LeafNode leafNode : leafNodes) {
+			if(doGetCenter(leafNode, bestAxis) < splits[bestAxis]) {
+				leafNodesLeft.add(leafNode);
+				
+				doAddBounds(boundsLeft, 0, leafNode);
+			} else {
+				leafNodesRight.add(leafNode);
+				
+				doAddBounds(boundsRight, 0, leafNode);
+			}
+		}
+		
+		final Node[] nodes = doCreateChildren(size0, () -> doCreateBoundingVolumeHierarchyBinnedSAH(idGenerator, leafNodesLeft, depth + 1, boundsLeft[0], boundsLeft[1], boundsLeft[2], boundsLeft[3], boundsLeft[4], boundsLeft[5]), () -> doCreateBoundingVolumeHierarchyBinnedSAH(idGenerator, leafNodesRight, depth + 1, boundsRight[0], boundsRight[1], boundsRight[2], boundsRight[3], boundsRight[4], boundsRight[5]));
+		
+		final
+		Node nodeLeft = nodes[0];
+		nodeLeft.setMaximum(boundsLeft[0], boundsLeft[1], boundsLeft[2]);
+		nodeLeft.setMinimum(boundsLeft[3], boundsLeft[4], boundsLeft[5]);
+		
+		final
+		Node nodeRight = nodes[1];
+		nodeRight.setMaximum(boundsRight[0], boundsRight[1], boundsRight[2]);
+		nodeRight.setMinimum(boundsRight[3], boundsRight[4], boundsRight[5]);
+		
+		final
+		TreeNode treeNode = new TreeNode(depth, idGenerator.getAndIncrement());
+		treeNode.setLeft(nodeLeft);
+		treeNode.setRight(nodeRight);
+		
+		return treeNode;
+	}
+	
+	private static Node doCreateBoundingVolumeHierarchySpatialSplitSAH(final AtomicInteger idGenerator, final List<LeafNode> leafNodes, final int depth, final int duplicateReferenceBudget, final float surfaceAreaRoot, final float maximumX, final float maximumY, final float maximumZ, final float minimumX, final float minimumY, final float minimumZ) {
+		final int size0 = leafNodes.size();
+		final int size1 = size0 / 2;
+		
+		if(size0 < 4) {
+			return doCreateLeafNode(idGenerator, leafNodes, depth);
+		}
+		
+//		Find the best object split, which is the same split as the one found by the binned SAH builder. The LeafNodes in 'leafNodes' are the Triangle references, whose bounds may be smaller than the bounds of their Triangles:
+		final float[] costs = new float[] {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		final float[] splits = new float[3];
+		
+		final int[] bins = new int[] {-1, -1, -1};
+		
+		doEvaluateObjectSplitsBinnedSAH(leafNodes, costs, splits, bins);
+		
+		final float sideX = maximumX - minimumX;
+		final float sideY = maximumY - minimumY;
+		final float sideZ = maximumZ - minimumZ;
+		
+		float minimumCost = size0 * (sideX * sideY + sideY * sideZ + sideZ * sideX);
+		
+		int bestAxis = -1;
+		
+		for(int axis = 0; axis < 3; axis++) {
+			if(bins[axis] != -1 && costs[axis] < minimumCost) {
+				minimumCost = costs[axis];
+				bestAxis = axis;
+			}
+		}
+		
+		final List<LeafNode> leafNodesLeft = new ArrayList<>(size1);
+		final List<LeafNode> leafNodesRight = new ArrayList<>(size1);
+		
+		final float[] boundsLeft = new float[6];
+		final float[] boundsRight = new float[6];
+		
+		doSetEmptyBounds(boundsLeft, 0);
+		doSetEmptyBounds(boundsRight, 0);
+		
+		if(bestAxis != -1) {
+			for(final LeafNode leafNode : leafNodes) {
+				if(doGetCenter(leafNode, bestAxis) < splits[bestAxis]) {
+					leafNodesLeft.add(leafNode);
+					
+					doAddBounds(boundsLeft, 0, leafNode);
+				} else {
+					leafNodesRight.add(leafNode);
+					
+					doAddBounds(boundsRight, 0, leafNode);
+				}
+			}
+		}
+		
+//		Only evaluate the spatial splits if there is a budget left and the children of the object split overlap, because a spatial split cannot do better than an object split without overlap:
+		if(duplicateReferenceBudget > 0 && (bestAxis == -1 || doComputeSurfaceAreaOfOverlap(boundsLeft, boundsRight) > SPATIAL_SPLIT_OVERLAP_THRESHOLD * surfaceAreaRoot)) {
+			final float[] minimums = new float[] {minimumX, minimumY, minimumZ};
+			final float[] spatialScales = new float[3];
+			final float[] spatialCosts = new float[] {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+			
+			final int[] spatialBins = new int[] {-1, -1, -1};
+			
+			for(int axis = 0; axis < 3; axis++) {
+				final float extent = axis == 0 ? sideX : axis == 1 ? sideY : sideZ;
+				
+				spatialScales[axis] = extent < 1.0e-4F ? 0.0F : BIN_COUNT / extent;
+			}
+			
+			if(size0 >= PARALLEL_THRESHOLD_AXIS && ForkJoinTask.inForkJoinPool()) {
+				ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> doEvaluateAxisSpatialSplitSAH(leafNodes, 0, minimums[0], spatialScales[0], spatialCosts, spatialBins)), ForkJoinTask.adapt(() -> doEvaluateAxisSpatialSplitSAH(leafNodes, 1, minimums[1], spatialScales[1], spatialCosts, spatialBins)), ForkJoinTask.adapt(() -> doEvaluateAxisSpatialSplitSAH(leafNodes, 2, minimums[2], spatialScales[2], spatialCosts, spatialBins)));
+			} else {
+				for(int axis = 0; axis < 3; axis++) {
+					doEvaluateAxisSpatialSplitSAH(leafNodes, axis, minimums[axis], spatialScales[axis], spatialCosts, spatialBins);
+				}
+			}
+			
+			int bestSpatialAxis = -1;
+			
+			float minimumSpatialCost = minimumCost;
+			
+			for(int axis = 0; axis < 3; axis++) {
+				if(spatialBins[axis] != -1 && spatialCosts[axis] < minimumSpatialCost) {
+					minimumSpatialCost = spatialCosts[axis];
+					bestSpatialAxis = axis;
+				}
+			}
+			
+			if(bestSpatialAxis != -1) {
+				final List<LeafNode> leafNodesSpatialLeft = new ArrayList<>(size1);
+				final List<LeafNode> leafNodesSpatialRight = new ArrayList<>(size1);
+				
+				final int duplicateReferenceCount = doPartitionSpatialSplit(leafNodes, leafNodesSpatialLeft, leafNodesSpatialRight, bestSpatialAxis, spatialBins[bestSpatialAxis], minimums[bestSpatialAxis], spatialScales[bestSpatialAxis]);
+				
+				if(duplicateReferenceCount <= duplicateReferenceBudget && leafNodesSpatialLeft.size() > 0 && leafNodesSpatialRight.size() > 0) {
+					leafNodesLeft.clear();
+					leafNodesLeft.addAll(leafNodesSpatialLeft);
+					leafNodesRight.clear();
+					leafNodesRight.addAll(leafNodesSpatialRight);
+					
+					doSetEmptyBounds(boundsLeft, 0);
+					doSetEmptyBounds(boundsRight, 0);
+					
+					leafNodesLeft.forEach(leafNode -> doAddBounds(boundsLeft, 0, leafNode));
+					leafNodesRight.forEach(leafNode -> doAddBounds(boundsRight, 0, leafNode));
+					
+					final int duplicateReferenceBudgetLeft = (int)((long)(duplicateReferenceBudget - duplicateReferenceCount) * leafNodesLeft.size() / (leafNodesLeft.size() + leafNodesRight.size()));
+					final int duplicateReferenceBudgetRight = duplicateReferenceBudget - duplicateReferenceCount - duplicateReferenceBudgetLeft;
+					
+					return doCreateTreeNodeSpatialSplitSAH(idGenerator, leafNodesLeft, leafNodesRight, depth, duplicateReferenceBudgetLeft, duplicateReferenceBudgetRight, surfaceAreaRoot, boundsLeft, boundsRight);
+				}
+			}
+		}
+		
+		if(bestAxis == -1) {
+			return doCreateLeafNode(idGenerator, leafNodes, depth);
+		}
+		
+		final int duplicateReferenceBudgetLeft = (int)((long)(duplicateReferenceBudget) * leafNodesLeft.size() / size0);
+		final int duplicateReferenceBudgetRight = duplicateReferenceBudget - duplicateReferenceBudgetLeft;
+		
+		return doCreateTreeNodeSpatialSplitSAH(idGenerator, leafNodesLeft, leafNodesRight, depth, duplicateReferenceBudgetLeft, duplicateReferenceBudgetRight, surfaceAreaRoot, boundsLeft, boundsRight);
+	}
+	
+	private static Node doCreateTreeNodeSpatialSplitSAH(final AtomicInteger idGenerator, final List<LeafNode> leafNodesLeft, final List<LeafNode> leafNodesRight, final int depth, final int duplicateReferenceBudgetLeft, final int duplicateReferenceBudgetRight, final float surfaceAreaRoot, final float[] boundsLeft, final float[] boundsRight) {
+		final Node[] nodes = doCreateChildren(leafNodesLeft.size() + leafNodesRight.size(), () -> doCreateBoundingVolumeHierarchySpatialSplitSAH(idGenerator, leafNodesLeft, depth + 1, duplicateReferenceBudgetLeft, surfaceAreaRoot, boundsLeft[0], boundsLeft[1], boundsLeft[2], boundsLeft[3], boundsLeft[4], boundsLeft[5]), () -> doCreateBoundingVolumeHierarchySpatialSplitSAH(idGenerator, leafNodesRight, depth + 1, duplicateReferenceBudgetRight, surfaceAreaRoot, boundsRight[0], boundsRight[1], boundsRight[2], boundsRight[3], boundsRight[4], boundsRight[5]));
+		
+		final
+		Node nodeLeft = nodes[0];
+		nodeLeft.setMaximum(boundsLeft[0], boundsLeft[1], boundsLeft[2]);
+		nodeLeft.setMinimum(boundsLeft[3], boundsLeft[4], boundsLeft[5]);
+		
+		final
+		Node nodeRight = nodes[1];
+		nodeRight.setMaximum(boundsRight[0], boundsRight[1], boundsRight[2]);
+		nodeRight.setMinimum(boundsRight[3], boundsRight[4], boundsRight[5]);
+		
+		final
+		TreeNode treeNode = new TreeNode(depth, idGenerator.getAndIncrement());
+		treeNode.setLeft(nodeLeft);
+		treeNode.setRight(nodeRight);
+		
+		return treeNode;
+	}
+	
+	private static LeafNode doCreateReference(final Triangle triangle, final float[] bounds) {
+		final
+		LeafNode leafNode = new LeafNode(0, 0);
+		leafNode.addTriangle(triangle);
+		leafNode.setMaximum(bounds[0], bounds[1], bounds[2]);
+		leafNode.setMinimum(bounds[3], bounds[4], bounds[5]);
+		
+		return leafNode;
+	}
+	
+	private static Node[] doCreateChildren(final int size, final Callable<Node> callableLeft, final Callable<Node> callableRight) {
+		try {
+			if(size >= PARALLEL_THRESHOLD_SUBTREE && ForkJoinTask.inForkJoinPool()) {
+//				The left subtree is forked and the right subtree is built by the current thread, before joining the left subtree:
+				final ForkJoinTask<Node> forkJoinTaskLeft = ForkJoinTask.adapt(callableLeft).fork();
+				
+				final Node nodeRight = callableRight.call();
+				final Node nodeLeft = forkJoinTaskLeft.join();
+				
+				return new Node[] {nodeLeft, nodeRight};
+			}
+			
+			final Node nodeLeft = callableLeft.call();
+			final Node nodeRight = callableRight.call();
+			
+			return new Node[] {nodeLeft, nodeRight};
+		} catch(final RuntimeException e) {
+			throw e;
+		} catch(final Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static void doAssignIds(final AtomicInteger idGenerator, final Node node) {
+		if(node instanceof TreeNode) {
+			final TreeNode treeNode = TreeNode.class.cast(node);
+			
+			if(treeNode.left != null) {
+				doAssignIds(idGenerator, treeNode.left);
+			}
+			
+			if(treeNode.right != null) {
+				doAssignIds(idGenerator, treeNode.right);
+			}
+		}
+		
+		node.id = idGenerator.getAndIncrement();
+	}
+	
+	private static void doEvaluateAxisBinnedSAH(final List<LeafNode> leafNodes, final int axis, final float minimumCenter, final float scale, final float[] costs, final float[] splits, final int[] bins) {
+		if(scale <= 0.0F) {
+			return;
+		}
+		
+//		Fill the bins of 'axis' in a single pass. Each bin stores its count and its bounds as [maximumX, maximumY, maximumZ, minimumX, minimumY, minimumZ]:
+		final int[] binCounts = new int[BIN_COUNT];
+		
+		final float[] binBounds = new float[BIN_COUNT * 6];
+		
+		for(int i = 0; i < BIN_COUNT; i++) {
+			doSetEmptyBounds(binBounds, i * 6);
+		}
+		
+		final int[] binIndices = new int[leafNodes.size()];
+		
+		for(int i = 0; i < leafNodes.size(); i++) {
+			final LeafNode leafNode = leafNodes.get(i);
+			
+			final int bin = doComputeBinIndex(leafNode, axis, minimumCenter, scale);
+			
+			binCounts[bin]++;
+			binIndices[i] = bin;
+			
+			doAddBounds(binBounds, bin * 6, leafNode);
+		}
+		
+		final float[] bounds = new float[6];
+		final float[] surfacesRight = new float[BIN_COUNT];
+		
+		final int[] countsRight = new int[BIN_COUNT];
+		
+//		Sweep from the right to compute the count and surface area of everything to the right of each split. The split with index 'i' is located between bin 'i - 1' and bin 'i':
+		doSetEmptyBounds(bounds, 0);
+		
+		for(int i = BIN_COUNT - 1, countRight = 0; i > 0; i--) {
+			countRight += binCounts[i];
+			
+			doAddBounds(bounds, 0, binBounds, i * 6);
+			
+			countsRight[i] = countRight;
+			surfacesRight[i] = doComputeSurfaceArea(bounds, 0);
+		}
+		
+//		Sweep from the left and evaluate the cost of each split:
+		doSetEmptyBounds(bounds, 0);
+		
+		for(int i = 1, countLeft = 0; i < BIN_COUNT; i++) {
+			countLeft += binCounts[i - 1];
+			
+			doAddBounds(bounds, 0, binBounds, (i - 1) * 6);
+			
+			final int countRight = countsRight[i];
+			
+			if(countLeft <= 1 || countRight <= 1) {
+				continue;
+			}
+			
+			final float cost = doComputeSurfaceArea(bounds, 0) * countLeft + surfacesRight[i] * countRight;
+			
+			if(cost < costs[axis]) {
+				costs[axis] = cost;
+				bins[axis] = i;
+			}
+		}
+		
+		if(bins[axis] != -1) {
+			doRefineAxisBinnedSAH(leafNodes, axis, bins[axis], binCounts, binIndices, binBounds, costs, splits);
+		}
+	}
+	
+	private static void doEvaluateAxisSpatialSplitSAH(final List<LeafNode> leafNodes, final int axis, final float minimum, final float scale, final float[] costs, final int[] bins) {
+		if(scale <= 0.0F) {
+			return;
+		}
+		
+//		Fill the bins of 'axis' by clipping each reference to the bins it overlaps. A reference is counted as entering its first bin and as exiting its last bin:
+		final int[] binEntries = new int[BIN_COUNT];
+		final int[] binExits = new int[BIN_COUNT];
+		
+		final float[] binBounds = new float[BIN_COUNT * 6];
+		final float[] reference = new float[6];
+		final float[] referenceLeft = new float[6];
+		final float[] referenceRight = new float[6];
+		
+		for(int i = 0; i < BIN_COUNT; i++) {
+			doSetEmptyBounds(binBounds, i * 6);
+		}
+		
+		for(final LeafNode leafNode : leafNodes) {
+			final Triangle triangle = leafNode.getTriangles().get(0);
+			
+			final int binFirst = doComputeBinIndex(doGetMinimum(leafNode, axis), minimum, scale);
+			final int binLast = doComputeBinIndex(doGetMaximum(leafNode, axis), minimum, scale);
+			
+			binEntries[binFirst]++;
+			binExits[binLast]++;
+			
+			doSetBounds(reference, leafNode);
+			
+			for(int bin = binFirst; bin < binLast; bin++) {
+				doSplitReference(triangle, reference, axis, minimum + (bin + 1) / scale, referenceLeft, referenceRight);
+				doAddBounds(binBounds, bin * 6, referenceLeft, 0);
+				
+				System.arraycopy(referenceRight, 0, reference, 0, 6);
+			}
+			
+			doAddBounds(binBounds, binLast * 6, reference, 0);
+		}
+		
+		final float[] bounds = new float[6];
+		final float[] surfacesRight = new float[BIN_COUNT];
+		
+		final int[] countsRight = new int[BIN_COUNT];
+		
+//		Sweep from the right to compute the count and surface area of everything to the right of each split. A reference is to the right of the split with index 'i' if it exits in bin 'i' or later:
+		doSetEmptyBounds(bounds, 0);
+		
+		for(int i = BIN_COUNT - 1, countRight = 0; i > 0; i--) {
+			countRight += binExits[i];
+			
+			doAddBounds(bounds, 0, binBounds, i * 6);
+			
+			countsRight[i] = countRight;
+			surfacesRight[i] = doComputeSurfaceArea(bounds, 0);
+		}
+		
+//		Sweep from the left and evaluate the cost of each split. A reference is to the left of the split with index 'i' if it enters before bin 'i':
+		doSetEmptyBounds(bounds, 0);
+		
+		for(int i = 1, countLeft = 0; i < BIN_COUNT; i++) {
+			countLeft += binEntries[i - 1];
+			
+			doAddBounds(bounds, 0, binBounds, (i - 1) * 6);
+			
+			final int countRight = countsRight[i];
+			
+			if(countLeft == 0 || countRight == 0) {
+				continue;
+			}
+			
+			final float cost = doComputeSurfaceArea(bounds, 0) * countLeft + surfacesRight[i] * countRight;
+			
+			if(cost < costs[axis]) {
+				costs[axis] = cost;
+				bins[axis] = i;
+			}
+		}
+	}
+	
+	private static void doEvaluateAxisSweepSAH(final List<LeafNode> leafNodes, final int axis, final int depth, final float maximum, final float minimum, final float[] costs, final float[] splits) {
+		if(abs(maximum - minimum) < 1.0e-4F) {
+			return;
+		}
+		
+		final float step = (maximum - minimum) / (1024.0F / (depth + 1.0F));
+		
+		for(float split = minimum + step; split < maximum - step; split += step) {
+			float maximumLeftX = -Float.MAX_VALUE;
+			float maximumLeftY = -Float.MAX_VALUE;
+			float maximumLeftZ = -Float.MAX_VALUE;
+			float minimumLeftX = +Float.MAX_VALUE;
+			float minimumLeftY = +Float.MAX_VALUE;
+			float minimumLeftZ = +Float.MAX_VALUE;
+			
+			float maximumRightX = -Float.MAX_VALUE;
+			float maximumRightY = -Float.MAX_VALUE;
+			float maximumRightZ = -Float.MAX_VALUE;
+			float minimumRightX = +Float.MAX_VALUE;
+			float minimumRightY = +Float.MAX_VALUE;
+			float minimumRightZ = +Float.MAX_VALUE;
+			
+			int countLeft = 0;
+			int countRight = 0;
+			
+			for(final LeafNode leafNode : leafNodes) {
+				final float centerX = leafNode.getCenterX();
+				final float centerY = leafNode.getCenterY();
+				final float centerZ = leafNode.getCenterZ();
+				
+				final float value = axis == 0 ? centerX : axis == 1 ? centerY : centerZ;
+				
+				if(value < split) {
+					maximumLeftX = max(maximumLeftX, leafNode.getMaximumX());
+					maximumLeftY = max(maximumLeftY, leafNode.getMaximumY());
+					maximumLeftZ = max(maximumLeftZ, leafNode.getMaximumZ());
+					minimumLeftX = min(minimumLeftX, leafNode.getMinimumX());
+					minimumLeftY = min(minimumLeftY, leafNode.getMinimumY());
+					minimumLeftZ = min(minimumLeftZ, leafNode.getMinimumZ());
+					
+					countLeft++;
+				} else {
+					maximumRightX = max(maximumRightX, leafNode.getMaximumX());
+					maximumRightY = max(maximumRightY, leafNode.getMaximumY());
+					maximumRightZ = max(maximumRightZ, leafNode.getMaximumZ());
+					minimumRightX = min(minimumRightX, leafNode.getMinimumX());
+					minimumRightY = min(minimumRightY, leafNode.getMinimumY());
+					minimumRightZ = min(minimumRightZ, leafNode.getMinimumZ());
+					
+					countRight++;
+				}
+			}
+			
+			if(countLeft <= 1 || countRight <= 1) {
+				continue;
+			}
+			
+			final float sideLeftX = maximumLeftX - minimumLeftX;
+			final float sideLeftY = maximumLeftY - minimumLeftY;
+			final float sideLeftZ = maximumLeftZ - minimumLeftZ;
+			
+			final float sideRightX = maximumRightX - minimumRightX;
+			final float sideRightY = maximumRightY - minimumRightY;
+			final float sideRightZ = maximumRightZ - minimumRightZ;
+			
+			final float surfaceLeft = sideLeftX * sideLeftY + sideLeftY * sideLeftZ + sideLeftZ * sideLeftX;
+			final float surfaceRight = sideRightX * sideRightY + sideRightY * sideRightZ + sideRightZ * sideRightX;
+			
+			final float cost = surfaceLeft * countLeft + surfaceRight * countRight;
+			
+			if(cost < costs[axis]) {
+				costs[axis] = cost;
+				splits[axis] = split;
+			}
+		}
+	}
+	
+	private static void doEvaluateObjectSplitsBinnedSAH(final List<LeafNode> leafNodes, final float[] costs, final float[] splits, final int[] bins) {
+//		Compute the bounds of the centers, which are the bounds that are divided into bins:
+		float maximumCenterX = -Float.MAX_VALUE;
+		float maximumCenterY = -Float.MAX_VALUE;
+		float maximumCenterZ = -Float.MAX_VALUE;
+		float minimumCenterX = +Float.MAX_VALUE;
+		float minimumCenterY = +Float.MAX_VALUE;
+		float minimumCenterZ = +Float.MAX_VALUE;
+		
+		for(final LeafNode leafNode : leafNodes) {
+			maximumCenterX = max(maximumCenterX, leafNode.getCenterX());
+			maximumCenterY = max(maximumCenterY, leafNode.getCenterY());
+			maximumCenterZ = max(maximumCenterZ, leafNode.getCenterZ());
+			minimumCenterX = min(minimumCenterX, leafNode.getCenterX());
+			minimumCenterY = min(minimumCenterY, leafNode.getCenterY());
+			minimumCenterZ = min(minimumCenterZ, leafNode.getCenterZ());
+		}
+		
+		final float[] minimumCenters = new float[] {minimumCenterX, minimumCenterY, minimumCenterZ};
+		final float[] scales = new float[3];
+		
+		for(int axis = 0; axis < 3; axis++) {
+			final float extent = axis == 0 ? maximumCenterX - minimumCenterX : axis == 1 ? maximumCenterY - minimumCenterY : maximumCenterZ - minimumCenterZ;
+			
+			scales[axis] = extent < 1.0e-4F ? 0.0F : BIN_COUNT / extent;
+		}
+		
+//		Evaluate the best split of each axis. Each axis only writes to its own element in 'costs' and 'bins', so the axes can be evaluated in parallel for large nodes:
+		if(leafNodes.size() >= PARALLEL_THRESHOLD_AXIS && ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> doEvaluateAxisBinnedSAH(leafNodes, 0, minimumCenters[0], scales[0], costs, splits, bins)), ForkJoinTask.adapt(() -> doEvaluateAxisBinnedSAH(leafNodes, 1, minimumCenters[1], scales[1], costs, splits, bins)), ForkJoinTask.adapt(() -> doEvaluateAxisBinnedSAH(leafNodes, 2, minimumCenters[2], scales[2], costs, splits, bins)));
+		} else {
+			for(int axis = 0; axis < 3; axis++) {
+				doEvaluateAxisBinnedSAH(leafNodes, axis, minimumCenters[axis], scales[axis], costs, splits, bins);
+			}
+		}
+	}
+	
+	private static void doRefineAxisBinnedSAH(final List<LeafNode> leafNodes, final int axis, final int bin, final int[] binCounts, final int[] binIndices, final float[] binBounds, final float[] costs, final float[] splits) {
+//		Collect the LeafNodes of the two bins next to the best split and sort them by their centers. Everything below them is to the left of all splits swept here and everything above them is to the right:
+		final List<LeafNode> leafNodesSorted = new ArrayList<>(binCounts[bin - 1] + binCounts[bin]);
+		
+		final float[] boundsLeft = new float[6];
+		final float[] boundsRight = new float[6];
+		
+		doSetEmptyBounds(boundsLeft, 0);
+		doSetEmptyBounds(boundsRight, 0);
+		
+		int countLeft = 0;
+		int countRight = 0;
+		
+		for(int i = 0; i < BIN_COUNT; i++) {
+			if(i < bin - 1) {
+				countLeft += binCounts[i];
+				
+				doAddBounds(boundsLeft, 0, binBounds, i * 6);
+			} else if(i > bin) {
+				countRight += binCounts[i];
+				
+				doAddBounds(boundsRight, 0, binBounds, i * 6);
+			}
+		}
+		
+		float splitRight = Float.MAX_VALUE;
+		
+		for(int i = 0; i < leafNodes.size(); i++) {
+			if(binIndices[i] == bin - 1 || binIndices[i] == bin) {
+				leafNodesSorted.add(leafNodes.get(i));
+			} else if(binIndices[i] > bin) {
+				splitRight = min(splitRight, doGetCenter(leafNodes.get(i), axis));
+			}
+		}
+		
+		leafNodesSorted.sort((leafNode0, leafNode1) -> Float.compare(doGetCenter(leafNode0, axis), doGetCenter(leafNode1, axis)));
+		
+		final int size = leafNodesSorted.size();
+		
+		final float[] bounds = new float[6];
+		final float[] surfacesRight = new float[size + 1];
+		
+//		Sweep from the right to compute the surface area of everything to the right of each split. The split with index 'i' is located between the sorted LeafNodes 'i - 1' and 'i':
+		System.arraycopy(boundsRight, 0, bounds, 0, 6);
+		
+		surfacesRight[size] = doComputeSurfaceArea(bounds, 0);
+		
+		for(int i = size - 1; i >= 0; i--) {
+			doAddBounds(bounds, 0, leafNodesSorted.get(i));
+			
+			surfacesRight[i] = doComputeSurfaceArea(bounds, 0);
+		}
+		
+//		Sweep from the left and evaluate the cost of each split. The split of the bins is one of them, so the cost can only get lower. A split is placed at the center of the first LeafNode to its right, which is skipped if it is shared by the LeafNode to its left:
+		System.arraycopy(boundsLeft, 0, bounds, 0, 6);
+		
+		costs[axis] = Float.MAX_VALUE;
+		
+		for(int i = 0; i <= size; i++) {
+			if(i > 0) {
+				doAddBounds(bounds, 0, leafNodesSorted.get(i - 1));
+			}
+			
+			final float split = i < size ? doGetCenter(leafNodesSorted.get(i), axis) : splitRight;
+			
+			if(i > 0 && doGetCenter(leafNodesSorted.get(i - 1), axis) >= split) {
+				continue;
+			}
+			
+			final int countLeftSplit = countLeft + i;
+			final int countRightSplit = countRight + size - i;
+			
+			if(countLeftSplit <= 1 || countRightSplit <= 1) {
+				continue;
+			}
+			
+			final float cost = doComputeSurfaceArea(bounds, 0) * countLeftSplit + surfacesRight[i] * countRightSplit;
+			
+			if(cost < costs[axis]) {
+				costs[axis] = cost;
+				splits[axis] = split;
+			}
+		}
+	}
+	
+	private static void doSplitReference(final Triangle triangle, final float[] reference, final int axis, final float split, final float[] referenceLeft, final float[] referenceRight) {
+		doSetEmptyBounds(referenceLeft, 0);
+		doSetEmptyBounds(referenceRight, 0);
+		
+		final Point3F[] positions = new Point3F[] {triangle.a.position, triangle.b.position, triangle.c.position};
+		
+//		Clip the Triangle by the split plane, by adding each vertex to the side it is on and each intersection between an edge and the split plane to both sides:
+		for(int i = 0; i < 3; i++) {
+			final Point3F position0 = positions[i];
+			final Point3F position1 = positions[(i + 1) % 3];
+			
+			final float value0 = axis == 0 ? position0.x : axis == 1 ? position0.y : position0.z;
+			final float value1 = axis == 0 ? position1.x : axis == 1 ? position1.y : position1.z;
+			
+			if(value0 <= split) {
+				doAddPoint(referenceLeft, position0.x, position0.y, position0.z);
+			}
+			
+			if(value0 >= split) {
+				doAddPoint(referenceRight, position0.x, position0.y, position0.z);
+			}
+			
+			if(value0 < split && value1 > split || value0 > split && value1 < split) {
+				final float t = (split - value0) / (value1 - value0);
+				
+				final float x = axis == 0 ? split : position0.x + (position1.x - position0.x) * t;
+				final float y = axis == 1 ? split : position0.y + (position1.y - position0.y) * t;
+				final float z = axis == 2 ? split : position0.z + (position1.z - position0.z) * t;
+				
+				doAddPoint(referenceLeft, x, y, z);
+				doAddPoint(referenceRight, x, y, z);
+			}
+		}
+		
+//		The reference may already be a clipped part of the Triangle, so the result is limited to the bounds of the reference as well:
+		for(int i = 0; i < 3; i++) {
+			referenceLeft[i + 0] = min(referenceLeft[i + 0], reference[i + 0]);
+			referenceLeft[i + 3] = max(referenceLeft[i + 3], reference[i + 3]);
+			referenceRight[i + 0] = min(referenceRight[i + 0], reference[i + 0]);
+			referenceRight[i + 3] = max(referenceRight[i + 3], reference[i + 3]);
+		}
+		
+		referenceLeft[axis + 0] = min(referenceLeft[axis + 0], split);
+		referenceRight[axis + 3] = max(referenceRight[axis + 3], split);
+	}
+	
+	private static boolean doIsEmpty(final float[] bounds) {
+		return bounds[0] < bounds[3] || bounds[1] < bounds[4] || bounds[2] < bounds[5];
+	}
+	
+	private static float doComputeSurfaceAreaOfOverlap(final float[] bounds0, final float[] bounds1) {
+		final float sideX = min(bounds0[0], bounds1[0]) - max(bounds0[3], bounds1[3]);
+		final float sideY = min(bounds0[1], bounds1[1]) - max(bounds0[4], bounds1[4]);
+		final float sideZ = min(bounds0[2], bounds1[2]) - max(bounds0[5], bounds1[5]);
+		
+		return sideX <= 0.0F || sideY <= 0.0F || sideZ <= 0.0F ? 0.0F : sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private static float doGetCenter(final Node node, final int axis) {
+		return axis == 0 ? node.getCenterX() : axis == 1 ? node.getCenterY() : node.getCenterZ();
+	}
+	
+	private static float doGetMaximum(final Node node, final int axis) {
+		return axis == 0 ? node.getMaximumX() : axis == 1 ? node.getMaximumY() : node.getMaximumZ();
+	}
+	
+	private static float doGetMinimum(final Node node, final int axis) {
+		return axis == 0 ? node.getMinimumX() : axis == 1 ? node.getMinimumY() : node.getMinimumZ();
+	}
+	
+	private static float doComputeSurfaceArea(final float[] bounds, final int offset) {
+		final float sideX = bounds[offset + 0] - bounds[offset + 3];
+		final float sideY = bounds[offset + 1] - bounds[offset + 4];
+		final float sideZ = bounds[offset + 2] - bounds[offset + 5];
+		
+		return sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private static int doComputeBinIndex(final LeafNode leafNode, final int axis, final float minimumCenter, final float scale) {
+		final float center = axis == 0 ? leafNode.getCenterX() : axis == 1 ? leafNode.getCenterY() : leafNode.getCenterZ();
+		
+		return Math.min((int)((center - minimumCenter) * scale), BIN_COUNT - 1);
+	}
+	
+	private static int doComputeBinIndex(final float value, final float minimum, final float scale) {
+		return Math.max(Math.min((int)((value - minimum) * scale), BIN_COUNT - 1), 0);
+	}
+	
+	private static int doPartitionSpatialSplit(final List<LeafNode> leafNodes, final List<LeafNode> leafNodesLeft, final List<LeafNode> leafNodesRight, final int axis, final int bin, final float minimum, final float scale) {
+		final List<LeafNode> leafNodesStraddling = new ArrayList<>();
+		
+		final float[] boundsLeft = new float[6];
+		final float[] boundsRight = new float[6];
+		
+		doSetEmptyBounds(boundsLeft, 0);
+		doSetEmptyBounds(boundsRight, 0);
+		
+//		Partition the references that are entirely on one side of the split plane, using the same bins as the evaluation of the split:
+		for(final LeafNode leafNode : leafNodes) {
+			if(doComputeBinIndex(doGetMaximum(leafNode, axis), minimum, scale) < bin) {
+				leafNodesLeft.add(leafNode);
+				
+				doAddBounds(boundsLeft, 0, leafNode);
+			} else if(doComputeBinIndex(doGetMinimum(leafNode, axis), minimum, scale) >= bin) {
+				leafNodesRight.add(leafNode);
+				
+				doAddBounds(boundsRight, 0, leafNode);
+			} else {
+				leafNodesStraddling.add(leafNode);
+			}
+		}
+		
+		final float split = minimum + bin / scale;
+		
+		final float[] references = new float[leafNodesStraddling.size() * 12];
+		final float[] reference = new float[6];
+		final float[] referenceLeft = new float[6];
+		final float[] referenceRight = new float[6];
+		
+		for(int i = 0; i < leafNodesStraddling.size(); i++) {
+			final LeafNode leafNode = leafNodesStraddling.get(i);
+			
+			doSetBounds(reference, leafNode);
+			doSplitReference(leafNode.getTriangles().get(0), reference, axis, split, referenceLeft, referenceRight);
+			
+			System.arraycopy(referenceLeft, 0, references, i * 12 + 0, 6);
+			System.arraycopy(referenceRight, 0, references, i * 12 + 6, 6);
+			
+			doAddBounds(boundsLeft, 0, referenceLeft, 0);
+			doAddBounds(boundsRight, 0, referenceRight, 0);
+		}
+		
+		int countLeft = leafNodesLeft.size() + leafNodesStraddling.size();
+		int countRight = leafNodesRight.size() + leafNodesStraddling.size();
+		int duplicateReferenceCount = 0;
+		
+//		Each straddling reference is either split or, if that is cheaper, moved as a whole to one of the sides. This is sometimes called reference unsplitting:
+		for(int i = 0; i < leafNodesStraddling.size(); i++) {
+			final LeafNode leafNode = leafNodesStraddling.get(i);
+			
+			System.arraycopy(references, i * 12 + 0, referenceLeft, 0, 6);
+			System.arraycopy(references, i * 12 + 6, referenceRight, 0, 6);
+			
+			final float[] boundsLeftUnsplit = boundsLeft.clone();
+			final float[] boundsRightUnsplit = boundsRight.clone();
+			
+			doAddBounds(boundsLeftUnsplit, 0, leafNode);
+			doAddBounds(boundsRightUnsplit, 0, leafNode);
+			
+			final float surfaceAreaLeft = doComputeSurfaceArea(boundsLeft, 0);
+			final float surfaceAreaRight = doComputeSurfaceArea(boundsRight, 0);
+			
+			final float costSplit = doIsEmpty(referenceLeft) || doIsEmpty(referenceRight) ? Float.MAX_VALUE : surfaceAreaLeft * countLeft + surfaceAreaRight * countRight;
+			final float costLeft = doComputeSurfaceArea(boundsLeftUnsplit, 0) * countLeft + surfaceAreaRight * (countRight - 1);
+			final float costRight = surfaceAreaLeft * (countLeft - 1) + doComputeSurfaceArea(boundsRightUnsplit, 0) * countRight;
+			
+			if(costSplit <= costLeft && costSplit <= costRight) {
+				leafNodesLeft.add(doCreateReference(leafNode.getTriangles().get(0), referenceLeft));
+				leafNodesRight.add(doCreateReference(leafNode.getTriangles().get(0), referenceRight));
+				
+				duplicateReferenceCount++;
+			} else if(costLeft <= costRight) {
+				leafNodesLeft.add(leafNode);
+				
+				System.arraycopy(boundsLeftUnsplit, 0, boundsLeft, 0, 6);
+				
+				countRight--;
+			} else {
+				leafNodesRight.add(leafNode);
+				
+				System.arraycopy(boundsRightUnsplit, 0, boundsRight, 0, 6);
+				
+				countLeft--;
+			}
+		}
+		
+		return duplicateReferenceCount;
+	}
+	
+	private static void doAddBounds(final float[] bounds, final int offset, final float[] boundsToAdd, final int offsetToAdd) {
+		bounds[offset + 0] = max(bounds[offset + 0], boundsToAdd[offsetToAdd + 0]);
+		bounds[offset + 1] = max(bounds[offset + 1], boundsToAdd[offsetToAdd + 1]);
+		bounds[offset + 2] = max(bounds[offset + 2], boundsToAdd[offsetToAdd + 2]);
+		bounds[offset + 3] = min(bounds[offset + 3], boundsToAdd[offsetToAdd + 3]);
+		bounds[offset + 4] = min(bounds[offset + 4], boundsToAdd[offsetToAdd + 4]);
+		bounds[offset + 5] = min(bounds[offset + 5], boundsToAdd[offsetToAdd + 5]);
+	}
+	
+	private static void doAddBounds(final float[] bounds, final int offset, final Node node) {
+		bounds[offset + 0] = max(bounds[offset + 0], node.getMaximumX());
+		bounds[offset + 1] = max(bounds[offset + 1], node.getMaximumY());
+		bounds[offset + 2] = max(bounds[offset + 2], node.getMaximumZ());
+		bounds[offset + 3] = min(bounds[offset + 3], node.getMinimumX());
+		bounds[offset + 4] = min(bounds[offset + 4], node.getMinimumY());
+		bounds[offset + 5] = min(bounds[offset + 5], node.getMinimumZ());
+	}
+	
+	private static void doAddPoint(final float[] bounds, final float x, final float y, final float z) {
+		bounds[0] = max(bounds[0], x);
+		bounds[1] = max(bounds[1], y);
+		bounds[2] = max(bounds[2], z);
+		bounds[3] = min(bounds[3], x);
+		bounds[4] = min(bounds[4], y);
+		bounds[5] = min(bounds[5], z);
+	}
+	
+	private static void doSetBounds(final float[] bounds, final Node node) {
+		bounds[0] = node.getMaximumX();
+		bounds[1] = node.getMaximumY();
+		bounds[2] = node.getMaximumZ();
+		bounds[3] = node.getMinimumX();
+		bounds[4] = node.getMinimumY();
+		bounds[5] = node.getMinimumZ();
+	}
+	
+	private static void doSetEmptyBounds(final float[] bounds, final int offset) {
+		bounds[offset + 0] = -Float.MAX_VALUE;
+		bounds[offset + 1] = -Float.MAX_VALUE;
+		bounds[offset + 2] = -Float.MAX_VALUE;
+		bounds[offset + 3] = +Float.MAX_VALUE;
+		bounds[offset + 4] = +Float.MAX_VALUE;
+		bounds[offset + 5] = +Float.MAX_VALUE;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,362 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.scene.bvh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.TreeNode;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+import org.macroing.math4j.Point3F;
+
+/**
+ * A {@code BoundingVolumeHierarchyCache} is a disk cache for {@link BoundingVolumeHierarchy} instances.
+ * <p>
+ * Each {@code BoundingVolumeHierarchy} is stored in its own file in a directory. The name of the file is a hash of the positions of the {@link Triangle}s it was built from, the builder type, the version of that builder and the spatial split
+ * budget. This means that a {@code BoundingVolumeHierarchy} is rebuilt if, and only if, something that affects it has changed.
+ * <p>
+ * A file consists of a header followed by all nodes in post-order. Each node is stored as its type, depth, ID and bounds. A tree node is followed by flags that tell whether it has a left and a right child. A leaf node is followed by the number of
+ * its {@code Triangle}s and the index of each {@code Triangle} in the {@code List} the {@code BoundingVolumeHierarchy} was built from.
+ * <p>
+ * The cache is only an optimization. Files that cannot be read are ignored and overwritten, and files that cannot be written are skipped.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+public final class BoundingVolumeHierarchyCache {
+	private static final String FILE_EXTENSION = ".bvh";
+	private static final int FLAG_LEFT = 1;
+	private static final int FLAG_RIGHT = 2;
+	private static final int MAGIC = 0x44425648;
+	private static final int VERSION = 2;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private final File directory;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Constructs a new {@code BoundingVolumeHierarchyCache} instance.
+	 * <p>
+	 * If {@code directory} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * The directory does not have to exist. It is created the first time a {@link BoundingVolumeHierarchy} is written to it.
+	 * 
+	 * @param directory the directory to store the files in
+	 * @throws NullPointerException thrown if, and only if, {@code directory} is {@code null}
+	 */
+	public BoundingVolumeHierarchyCache(final File directory) {
+		this.directory = Objects.requireNonNull(directory, "directory == null");
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Returns a {@link BoundingVolumeHierarchy} for {@code triangles}.
+	 * <p>
+	 * If a {@code BoundingVolumeHierarchy} for the same {@link Triangle} positions, builder type and spatial split budget has been written to the directory of this {@code BoundingVolumeHierarchyCache} instance, it will be read from there. Otherwise
+	 * it will be built by {@link BoundingVolumeHierarchy#createBoundingVolumeHierarchy(List, int, int)} and written to the directory.
+	 * <p>
+	 * If either {@code triangles} or at least one of its elements are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If either {@code builderType} or {@code spatialSplitBudget} are invalid, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param triangles a {@code List} of {@code Triangle}s
+	 * @param builderType the builder type to use
+	 * @param spatialSplitBudget the maximum number of duplicated {@code Triangle} references, in percent of the number of {@code Triangle}s
+	 * @return a {@code BoundingVolumeHierarchy} for {@code triangles}
+	 * @throws IllegalArgumentException thrown if, and only if, either {@code builderType} or {@code spatialSplitBudget} are invalid
+	 * @throws NullPointerException thrown if, and only if, either {@code triangles} or at least one of its elements are {@code null}
+	 */
+	public BoundingVolumeHierarchy createBoundingVolumeHierarchy(final List<Triangle> triangles, final int builderType, final int spatialSplitBudget) {
+		final File file = new File(this.directory, doComputeHash(triangles, builderType, spatialSplitBudget) + FILE_EXTENSION);
+		
+		final Optional<BoundingVolumeHierarchy> optionalBoundingVolumeHierarchy = doRead(file, triangles);
+		
+		if(optionalBoundingVolumeHierarchy.isPresent()) {
+			return optionalBoundingVolumeHierarchy.get();
+		}
+		
+		final BoundingVolumeHierarchy boundingVolumeHierarchy = BoundingVolumeHierarchy.createBoundingVolumeHierarchy(triangles, builderType, spatialSplitBudget);
+		
+		doWrite(file, triangles, boundingVolumeHierarchy);
+		
+		return boundingVolumeHierarchy;
+	}
+	
+	/**
+	 * Returns the directory of this {@code BoundingVolumeHierarchyCache} instance.
+	 * 
+	 * @return the directory of this {@code BoundingVolumeHierarchyCache} instance
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static List<Node> doToListPostOrder(final Node root) {
+//		A pre-order traversal that visits the right child before the left child is the reverse of a post-order traversal that visits the left child before the right child:
+		final List<Node> nodes = new ArrayList<>();
+		final List<Node> stack = new ArrayList<>();
+		
+		stack.add(root);
+		
+		while(!stack.isEmpty()) {
+			final Node node = stack.remove(stack.size() - 1);
+			
+			nodes.add(node);
+			
+			if(node instanceof TreeNode) {
+				final TreeNode treeNode = TreeNode.class.cast(node);
+				
+				treeNode.getLeft().ifPresent(stack::add);
+				treeNode.getRight().ifPresent(stack::add);
+			}
+		}
+		
+		final List<Node> nodesPostOrder = new ArrayList<>(nodes.size());
+		
+		for(int i = nodes.size() - 1; i >= 0; i--) {
+			nodesPostOrder.add(nodes.get(i));
+		}
+		
+		return nodesPostOrder;
+	}
+	
+	private static Optional<BoundingVolumeHierarchy> doRead(final File file, final List<Triangle> triangles) {
+		if(!file.isFile()) {
+			return Optional.empty();
+		}
+		
+		try(final DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if(dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != VERSION || dataInputStream.readInt() != triangles.size()) {
+				return Optional.empty();
+			}
+			
+			final int nodeCount = dataInputStream.readInt();
+			
+			final List<Node> stack = new ArrayList<>();
+			
+			for(int i = 0; i < nodeCount; i++) {
+				final int type = dataInputStream.readByte();
+				final int depth = dataInputStream.readInt();
+				final int id = dataInputStream.readInt();
+				
+				final float maximumX = dataInputStream.readFloat();
+				final float maximumY = dataInputStream.readFloat();
+				final float maximumZ = dataInputStream.readFloat();
+				final float minimumX = dataInputStream.readFloat();
+				final float minimumY = dataInputStream.readFloat();
+				final float minimumZ = dataInputStream.readFloat();
+				
+				final Node node;
+				
+				if(type == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+					final int flags = dataInputStream.readByte();
+					
+//					The children of a tree node precede it in post-order, so they are on top of the stack, with the right child on top of the left child:
+					final Node right = (flags & FLAG_RIGHT) != 0 ? doPop(stack) : null;
+					final Node left = (flags & FLAG_LEFT) != 0 ? doPop(stack) : null;
+					
+					final TreeNode treeNode = new TreeNode(depth, id);
+					
+					treeNode.setLeft(left);
+					treeNode.setRight(right);
+					
+					node = treeNode;
+				} else if(type == BoundingVolumeHierarchy.NODE_TYPE_LEAF) {
+					final LeafNode leafNode = new LeafNode(depth, id);
+					
+					final int triangleCount = dataInputStream.readInt();
+					
+					for(int j = 0; j < triangleCount; j++) {
+						final int triangleIndex = dataInputStream.readInt();
+						
+						if(triangleIndex < 0 || triangleIndex >= triangles.size()) {
+							return Optional.empty();
+						}
+						
+						leafNode.addTriangle(triangles.get(triangleIndex));
+					}
+					
+					node = leafNode;
+				} else {
+					return Optional.empty();
+				}
+				
+				node.setMaximum(maximumX, maximumY, maximumZ);
+				node.setMinimum(minimumX, minimumY, minimumZ);
+				
+				stack.add(node);
+			}
+			
+			return stack.size() == 1 ? Optional.of(new BoundingVolumeHierarchy(stack.get(0))) : Optional.empty();
+		} catch(final IOException | IllegalStateException e) {
+			return Optional.empty();
+		}
+	}
+	
+	private static Node doPop(final List<Node> stack) {
+		if(stack.isEmpty()) {
+			throw new IllegalStateException("The stack is empty.");
+		}
+		
+		return stack.remove(stack.size() - 1);
+	}
+	
+	private static String doComputeHash(final List<Triangle> triangles, final int builderType, final int spatialSplitBudget) {
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			
+			final byte[] bytes = new byte[4 * 9];
+			
+			doUpdate(messageDigest, bytes, 0, VERSION);
+			doUpdate(messageDigest, bytes, 0, builderType);
+			doUpdate(messageDigest, bytes, 0, BoundingVolumeHierarchy.getBuilderVersion(builderType));
+			doUpdate(messageDigest, bytes, 0, spatialSplitBudget);
+			doUpdate(messageDigest, bytes, 0, triangles.size());
+			
+			for(final Triangle triangle : triangles) {
+				final Point3F a = triangle.a.position;
+				final Point3F b = triangle.b.position;
+				final Point3F c = triangle.c.position;
+				
+				doPut(bytes, 0, Float.floatToIntBits(a.x));
+				doPut(bytes, 1, Float.floatToIntBits(a.y));
+				doPut(bytes, 2, Float.floatToIntBits(a.z));
+				doPut(bytes, 3, Float.floatToIntBits(b.x));
+				doPut(bytes, 4, Float.floatToIntBits(b.y));
+				doPut(bytes, 5, Float.floatToIntBits(b.z));
+				doPut(bytes, 6, Float.floatToIntBits(c.x));
+				doPut(bytes, 7, Float.floatToIntBits(c.y));
+				doPut(bytes, 8, Float.floatToIntBits(c.z));
+				
+				messageDigest.update(bytes, 0, bytes.length);
+			}
+			
+			final StringBuilder stringBuilder = new StringBuilder();
+			
+			for(final byte digestByte : messageDigest.digest()) {
+				stringBuilder.append(String.format("%02x", Integer.valueOf(digestByte & 0xFF)));
+			}
+			
+			return stringBuilder.toString();
+		} catch(final NoSuchAlgorithmException e) {
+//			Every implementation of the Java platform is required to support SHA-256:
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static void doPut(final byte[] bytes, final int index, final int value) {
+		bytes[index * 4 + 0] = (byte)(value >>> 24);
+		bytes[index * 4 + 1] = (byte)(value >>> 16);
+		bytes[index * 4 + 2] = (byte)(value >>>  8);
+		bytes[index * 4 + 3] = (byte)(value >>>  0);
+	}
+	
+	private static void doUpdate(final MessageDigest messageDigest, final byte[] bytes, final int index, final int value) {
+		doPut(bytes, index, value);
+		
+		messageDigest.update(bytes, index * 4, 4);
+	}
+	
+	private static void doWrite(final File file, final List<Triangle> triangles, final BoundingVolumeHierarchy boundingVolumeHierarchy) {
+		final Map<Triangle, Integer> triangleIndices = new IdentityHashMap<>();
+		
+		for(int i = 0; i < triangles.size(); i++) {
+			triangleIndices.putIfAbsent(triangles.get(i), Integer.valueOf(i));
+		}
+		
+		final List<Node> nodes = doToListPostOrder(boundingVolumeHierarchy.getRoot());
+		
+		final File directory = file.getAbsoluteFile().getParentFile();
+		
+		if(!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+		
+//		The file is written to a temporary file first, so a partially written file is never read:
+		final File fileTemporary = new File(directory, file.getName() + ".tmp");
+		
+		try {
+			try(final DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileTemporary)))) {
+				dataOutputStream.writeInt(MAGIC);
+				dataOutputStream.writeInt(VERSION);
+				dataOutputStream.writeInt(triangles.size());
+				dataOutputStream.writeInt(nodes.size());
+				
+				for(final Node node : nodes) {
+					dataOutputStream.writeByte(node instanceof TreeNode ? BoundingVolumeHierarchy.NODE_TYPE_TREE : BoundingVolumeHierarchy.NODE_TYPE_LEAF);
+					dataOutputStream.writeInt(node.getDepth());
+					dataOutputStream.writeInt(node.getId());
+					dataOutputStream.writeFloat(node.getMaximumX());
+					dataOutputStream.writeFloat(node.getMaximumY());
+					dataOutputStream.writeFloat(node.getMaximumZ());
+					dataOutputStream.writeFloat(node.getMinimumX());
+					dataOutputStream.writeFloat(node.getMinimumY());
+					dataOutputStream.writeFloat(node.getMinimumZ());
+					
+					if(node instanceof TreeNode) {
+						final TreeNode treeNode = TreeNode.class.cast(node);
+						
+						dataOutputStream.writeByte((treeNode.getLeft().isPresent() ? FLAG_LEFT : 0) | (treeNode.getRight().isPresent() ? FLAG_RIGHT : 0));
+					} else {
+						final List<Triangle> leafTriangles = LeafNode.class.cast(node).getTriangles();
+						
+						dataOutputStream.writeInt(leafTriangles.size());
+						
+						for(final Triangle triangle : leafTriangles) {
+							final Integer triangleIndex = triangleIndices.get(triangle);
+							
+							if(triangleIndex == null) {
+								throw new IOException("A Triangle in a LeafNode is not in the List of Triangles.");
+							}
+							
+							dataOutputStream.writeInt(triangleIndex.intValue());
+						}
+					}
+				}
+			}
+			
+			Files.move(fileTemporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch(final IOException e) {
+			fileTemporary.delete();
+		}
+	}
+}
\ No newline at end of file
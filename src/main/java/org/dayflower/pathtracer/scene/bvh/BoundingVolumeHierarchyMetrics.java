@@ -0,0 +1,275 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.scene.bvh;
+
+import static org.macroing.math4j.MathF.max;
+import static org.macroing.math4j.MathF.min;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.TreeNode;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+
+/**
+ * A {@code BoundingVolumeHierarchyMetrics} contains metrics about the quality of a {@link BoundingVolumeHierarchy}.
+ * <p>
+ * The expected values are based on the probability that a random ray that hits the root {@link Node} also hits another {@code Node}, which is the ratio between the surface area of that {@code Node} and the surface area of the root {@code Node}. The
+ * Surface Area Heuristic (SAH) cost uses the same cost of {@code 1} for a bounding box test and a {@link Triangle} test as the builders.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+public final class BoundingVolumeHierarchyMetrics {
+	private final float expectedNodeVisits;
+	private final float expectedTriangleTests;
+	private final float overlap;
+	private final float surfaceAreaHeuristicCost;
+	private final int[] depthHistogram;
+	private final int[] leafSizeHistogram;
+	private final int leafNodeCount;
+	private final int treeNodeCount;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private BoundingVolumeHierarchyMetrics(final float expectedNodeVisits, final float expectedTriangleTests, final float overlap, final float surfaceAreaHeuristicCost, final int[] depthHistogram, final int[] leafSizeHistogram, final int leafNodeCount, final int treeNodeCount) {
+		this.expectedNodeVisits = expectedNodeVisits;
+		this.expectedTriangleTests = expectedTriangleTests;
+		this.overlap = overlap;
+		this.surfaceAreaHeuristicCost = surfaceAreaHeuristicCost;
+		this.depthHistogram = depthHistogram;
+		this.leafSizeHistogram = leafSizeHistogram;
+		this.leafNodeCount = leafNodeCount;
+		this.treeNodeCount = treeNodeCount;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Returns a {@code String} representation of this {@code BoundingVolumeHierarchyMetrics} instance.
+	 * 
+	 * @return a {@code String} representation of this {@code BoundingVolumeHierarchyMetrics} instance
+	 */
+	@Override
+	public String toString() {
+		return String.format("SAH Cost: %.3f, Overlap: %.3f, Expected Node Visits: %.3f, Expected Triangle Tests: %.3f, Tree Nodes: %d, Leaf Nodes: %d, Depth Histogram: %s, Leaf Size Histogram: %s", Float.valueOf(this.surfaceAreaHeuristicCost), Float.valueOf(this.overlap), Float.valueOf(this.expectedNodeVisits), Float.valueOf(this.expectedTriangleTests), Integer.valueOf(this.treeNodeCount), Integer.valueOf(this.leafNodeCount), Arrays.toString(this.depthHistogram), Arrays.toString(this.leafSizeHistogram));
+	}
+	
+	/**
+	 * Returns the expected number of {@link Node}s visited by a ray that hits the root {@code Node}.
+	 * <p>
+	 * A {@code Node} is visited, which means its bounding box is tested, if the bounding box of its parent is hit. The root {@code Node} is always visited. This assumes that the traversal is not terminated early by a closer intersection.
+	 * 
+	 * @return the expected number of {@code Node}s visited by a ray that hits the root {@code Node}
+	 */
+	public float getExpectedNodeVisits() {
+		return this.expectedNodeVisits;
+	}
+	
+	/**
+	 * Returns the expected number of {@link Triangle}s tested by a ray that hits the root {@link Node}.
+	 * <p>
+	 * This assumes that the traversal is not terminated early by a closer intersection.
+	 * 
+	 * @return the expected number of {@code Triangle}s tested by a ray that hits the root {@code Node}
+	 */
+	public float getExpectedTriangleTests() {
+		return this.expectedTriangleTests;
+	}
+	
+	/**
+	 * Returns the total overlap between the children of all {@link TreeNode}s.
+	 * <p>
+	 * The overlap is the sum of the surface areas of the intersections between the bounding boxes of the left and right children of each {@code TreeNode}, divided by the surface area of the root {@link Node}.
+	 * 
+	 * @return the total overlap between the children of all {@code TreeNode}s
+	 */
+	public float getOverlap() {
+		return this.overlap;
+	}
+	
+	/**
+	 * Returns the Surface Area Heuristic (SAH) cost of the {@link BoundingVolumeHierarchy}.
+	 * <p>
+	 * The cost is the sum of the surface areas of all {@link TreeNode}s and the surface areas of all {@link LeafNode}s multiplied by their sizes, divided by the surface area of the root {@link Node}.
+	 * 
+	 * @return the Surface Area Heuristic (SAH) cost of the {@code BoundingVolumeHierarchy}
+	 */
+	public float getSurfaceAreaHeuristicCost() {
+		return this.surfaceAreaHeuristicCost;
+	}
+	
+	/**
+	 * Returns a histogram over the depths of all {@link LeafNode}s.
+	 * <p>
+	 * The element at index {@code i} is the number of {@code LeafNode}s at depth {@code i}, where the root {@link Node} is at depth {@code 0}.
+	 * <p>
+	 * Modifying the returned {@code int} array will not affect this {@code BoundingVolumeHierarchyMetrics} instance.
+	 * 
+	 * @return a histogram over the depths of all {@code LeafNode}s
+	 */
+	public int[] getDepthHistogram() {
+		return this.depthHistogram.clone();
+	}
+	
+	/**
+	 * Returns a histogram over the sizes of all {@link LeafNode}s.
+	 * <p>
+	 * The element at index {@code i} is the number of {@code LeafNode}s that contain {@code i} {@link Triangle}s.
+	 * <p>
+	 * Modifying the returned {@code int} array will not affect this {@code BoundingVolumeHierarchyMetrics} instance.
+	 * 
+	 * @return a histogram over the sizes of all {@code LeafNode}s
+	 */
+	public int[] getLeafSizeHistogram() {
+		return this.leafSizeHistogram.clone();
+	}
+	
+	/**
+	 * Returns the number of {@link LeafNode}s.
+	 * 
+	 * @return the number of {@code LeafNode}s
+	 */
+	public int getLeafNodeCount() {
+		return this.leafNodeCount;
+	}
+	
+	/**
+	 * Returns the number of {@link TreeNode}s.
+	 * 
+	 * @return the number of {@code TreeNode}s
+	 */
+	public int getTreeNodeCount() {
+		return this.treeNodeCount;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Computes and returns the metrics of the {@link BoundingVolumeHierarchy} with {@code root} as its root {@link Node}.
+	 * <p>
+	 * If {@code root} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param root the root {@code Node} of the {@code BoundingVolumeHierarchy}
+	 * @return the metrics of the {@code BoundingVolumeHierarchy} with {@code root} as its root {@code Node}
+	 * @throws NullPointerException thrown if, and only if, {@code root} is {@code null}
+	 */
+	public static BoundingVolumeHierarchyMetrics createBoundingVolumeHierarchyMetrics(final Node root) {
+		final float surfaceAreaRoot = doComputeSurfaceArea(Objects.requireNonNull(root, "root == null"));
+		final float surfaceAreaRootReciprocal = surfaceAreaRoot > 0.0F ? 1.0F / surfaceAreaRoot : 0.0F;
+		
+		double expectedNodeVisits = 1.0D;
+		double expectedTriangleTests = 0.0D;
+		double overlap = 0.0D;
+		double surfaceAreaHeuristicCost = 0.0D;
+		
+		int[] depthHistogram = new int[0];
+		int[] leafSizeHistogram = new int[0];
+		
+		int leafNodeCount = 0;
+		int treeNodeCount = 0;
+		
+//		The hierarchy is walked iteratively, because degenerate hierarchies may be too deep for recursion:
+		final List<Node> nodes = new ArrayList<>();
+		final List<Integer> depths = new ArrayList<>();
+		
+		nodes.add(root);
+		depths.add(Integer.valueOf(0));
+		
+		while(!nodes.isEmpty()) {
+			final Node node = nodes.remove(nodes.size() - 1);
+			
+			final int depth = depths.remove(depths.size() - 1).intValue();
+			
+			final float surfaceArea = doComputeSurfaceArea(node) * surfaceAreaRootReciprocal;
+			
+			if(node instanceof TreeNode) {
+				final TreeNode treeNode = TreeNode.class.cast(node);
+				
+				final Optional<Node> optionalLeft = treeNode.getLeft();
+				final Optional<Node> optionalRight = treeNode.getRight();
+				
+				if(optionalLeft.isPresent() && optionalRight.isPresent()) {
+					overlap += doComputeSurfaceAreaOfOverlap(optionalLeft.get(), optionalRight.get()) * surfaceAreaRootReciprocal;
+				}
+				
+				if(optionalLeft.isPresent()) {
+					nodes.add(optionalLeft.get());
+					depths.add(Integer.valueOf(depth + 1));
+					
+					expectedNodeVisits += surfaceArea;
+				}
+				
+				if(optionalRight.isPresent()) {
+					nodes.add(optionalRight.get());
+					depths.add(Integer.valueOf(depth + 1));
+					
+					expectedNodeVisits += surfaceArea;
+				}
+				
+				surfaceAreaHeuristicCost += surfaceArea;
+				
+				treeNodeCount++;
+			} else {
+				final int size = LeafNode.class.cast(node).getTriangles().size();
+				
+				depthHistogram = doIncrement(depthHistogram, depth);
+				leafSizeHistogram = doIncrement(leafSizeHistogram, size);
+				
+				expectedTriangleTests += surfaceArea * size;
+				surfaceAreaHeuristicCost += surfaceArea * size;
+				
+				leafNodeCount++;
+			}
+		}
+		
+		return new BoundingVolumeHierarchyMetrics((float)(expectedNodeVisits), (float)(expectedTriangleTests), (float)(overlap), (float)(surfaceAreaHeuristicCost), depthHistogram, leafSizeHistogram, leafNodeCount, treeNodeCount);
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static float doComputeSurfaceArea(final Node node) {
+		final float sideX = node.getMaximumX() - node.getMinimumX();
+		final float sideY = node.getMaximumY() - node.getMinimumY();
+		final float sideZ = node.getMaximumZ() - node.getMinimumZ();
+		
+		return sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private static float doComputeSurfaceAreaOfOverlap(final Node node0, final Node node1) {
+		final float sideX = min(node0.getMaximumX(), node1.getMaximumX()) - max(node0.getMinimumX(), node1.getMinimumX());
+		final float sideY = min(node0.getMaximumY(), node1.getMaximumY()) - max(node0.getMinimumY(), node1.getMinimumY());
+		final float sideZ = min(node0.getMaximumZ(), node1.getMaximumZ()) - max(node0.getMinimumZ(), node1.getMinimumZ());
+		
+		return sideX <= 0.0F || sideY <= 0.0F || sideZ <= 0.0F ? 0.0F : sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private static int[] doIncrement(final int[] histogram, final int index) {
+		final int[] newHistogram = index < histogram.length ? histogram : Arrays.copyOf(histogram, index + 1);
+		
+		newHistogram[index]++;
+		
+		return newHistogram;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,488 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.scene.bvh;
+
+import static org.macroing.math4j.MathF.max;
+import static org.macroing.math4j.MathF.min;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.TreeNode;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+import org.macroing.math4j.Point3F;
+
+/**
+ * A {@code DynamicBoundingVolumeHierarchy} is a Bounding Volume Hierarchy (BVH) that can be updated incrementally when {@link Triangle}s are added or removed.
+ * <p>
+ * A {@code Triangle} is inserted next to the node that minimizes the increase of the Surface Area Heuristic (SAH) cost of the hierarchy. That node is found by a branch and bound search, where a subtree is skipped if the cost of inserting the
+ * {@code Triangle} anywhere in it cannot be lower than the best cost found so far. After an insertion or a removal, the bounds of the ancestors are refitted, and each of them is rotated by swapping one of its children with a grandchild, if that
+ * reduces the surface area of the subtree that was modified.
+ * <p>
+ * This class is not thread-safe.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+public final class DynamicBoundingVolumeHierarchy {
+	private static final int LEAF_SIZE_MAXIMUM = 3;
+	private static final int NODE_CAPACITY_INITIAL = 16;
+	private static final int NODE_COUNT = 3;
+	private static final int NODE_DATA_SIZE = 6;
+	private static final int NODE_LEFT = 1;
+	private static final int NODE_NULL = -1;
+	private static final int NODE_PARENT = 0;
+	private static final int NODE_RIGHT = 2;
+	private static final int NODE_SIZE = 4;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private final Map<Triangle, Integer> leaves;
+	private Triangle[] nodeTriangles;
+	private float[] nodeData;
+	private float[] stackCosts;
+	private int nodeFree;
+	private int root;
+	private int[] nodes;
+	private int[] stackNodes;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Constructs a new empty {@code DynamicBoundingVolumeHierarchy} instance.
+	 */
+	public DynamicBoundingVolumeHierarchy() {
+		this.leaves = new HashMap<>();
+		this.nodeFree = NODE_NULL;
+		this.root = NODE_NULL;
+		
+		doResize(NODE_CAPACITY_INITIAL);
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Returns an {@code Optional} with a {@link BoundingVolumeHierarchy} that contains the {@link Triangle}s of this {@code DynamicBoundingVolumeHierarchy} instance, or an empty {@code Optional} if it contains no {@code Triangle}s.
+	 * <p>
+	 * Subtrees with fewer than four {@code Triangle}s are collapsed into a single {@link LeafNode}, like the builders of {@code BoundingVolumeHierarchy} do.
+	 * 
+	 * @return an {@code Optional} with a {@code BoundingVolumeHierarchy} that contains the {@code Triangle}s of this {@code DynamicBoundingVolumeHierarchy} instance, or an empty {@code Optional} if it contains no {@code Triangle}s
+	 */
+	public Optional<BoundingVolumeHierarchy> toBoundingVolumeHierarchy() {
+		return this.root != NODE_NULL ? Optional.of(new BoundingVolumeHierarchy(doCreateNode(new AtomicInteger(), this.root, 0))) : Optional.empty();
+	}
+	
+	/**
+	 * Adds {@code triangle} to this {@code DynamicBoundingVolumeHierarchy} instance, if it has not already been added.
+	 * <p>
+	 * Returns {@code true} if, and only if, {@code triangle} was added, {@code false} otherwise.
+	 * <p>
+	 * If {@code triangle} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param triangle the {@link Triangle} to add
+	 * @return {@code true} if, and only if, {@code triangle} was added, {@code false} otherwise
+	 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
+	 */
+	public boolean add(final Triangle triangle) {
+		Objects.requireNonNull(triangle, "triangle == null");
+		
+		if(this.leaves.containsKey(triangle)) {
+			return false;
+		}
+		
+		final Point3F a = triangle.getA().getPosition();
+		final Point3F b = triangle.getB().getPosition();
+		final Point3F c = triangle.getC().getPosition();
+		
+		final int leaf = doAllocate();
+		final int leafOffset = leaf * NODE_SIZE;
+		final int leafDataOffset = leaf * NODE_DATA_SIZE;
+		
+		this.nodes[leafOffset + NODE_LEFT] = NODE_NULL;
+		this.nodes[leafOffset + NODE_RIGHT] = NODE_NULL;
+		this.nodes[leafOffset + NODE_COUNT] = 1;
+		
+		this.nodeData[leafDataOffset + 0] = max(a.x, b.x, c.x);
+		this.nodeData[leafDataOffset + 1] = max(a.y, b.y, c.y);
+		this.nodeData[leafDataOffset + 2] = max(a.z, b.z, c.z);
+		this.nodeData[leafDataOffset + 3] = min(a.x, b.x, c.x);
+		this.nodeData[leafDataOffset + 4] = min(a.y, b.y, c.y);
+		this.nodeData[leafDataOffset + 5] = min(a.z, b.z, c.z);
+		
+		this.nodeTriangles[leaf] = triangle;
+		
+		this.leaves.put(triangle, Integer.valueOf(leaf));
+		
+		doInsert(leaf);
+		
+		return true;
+	}
+	
+	/**
+	 * Returns {@code true} if, and only if, {@code triangle} has been added to this {@code DynamicBoundingVolumeHierarchy} instance, {@code false} otherwise.
+	 * 
+	 * @param triangle a {@link Triangle}
+	 * @return {@code true} if, and only if, {@code triangle} has been added to this {@code DynamicBoundingVolumeHierarchy} instance, {@code false} otherwise
+	 */
+	public boolean contains(final Triangle triangle) {
+		return this.leaves.containsKey(triangle);
+	}
+	
+	/**
+	 * Removes {@code triangle} from this {@code DynamicBoundingVolumeHierarchy} instance, if it has been added.
+	 * <p>
+	 * Returns {@code true} if, and only if, {@code triangle} was removed, {@code false} otherwise.
+	 * <p>
+	 * If {@code triangle} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param triangle the {@link Triangle} to remove
+	 * @return {@code true} if, and only if, {@code triangle} was removed, {@code false} otherwise
+	 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
+	 */
+	public boolean remove(final Triangle triangle) {
+		final Integer leafInteger = this.leaves.remove(Objects.requireNonNull(triangle, "triangle == null"));
+		
+		if(leafInteger == null) {
+			return false;
+		}
+		
+		final int leaf = leafInteger.intValue();
+		final int parent = this.nodes[leaf * NODE_SIZE + NODE_PARENT];
+		
+		doFree(leaf);
+		
+		if(parent == NODE_NULL) {
+			this.root = NODE_NULL;
+			
+			return true;
+		}
+		
+		final int grandParent = this.nodes[parent * NODE_SIZE + NODE_PARENT];
+		final int sibling = this.nodes[parent * NODE_SIZE + NODE_LEFT] == leaf ? this.nodes[parent * NODE_SIZE + NODE_RIGHT] : this.nodes[parent * NODE_SIZE + NODE_LEFT];
+		
+		doFree(parent);
+		
+		this.nodes[sibling * NODE_SIZE + NODE_PARENT] = grandParent;
+		
+		if(grandParent == NODE_NULL) {
+			this.root = sibling;
+			
+			return true;
+		}
+		
+		doReplaceChild(grandParent, parent, sibling);
+		doRefitAndRotate(grandParent);
+		
+		return true;
+	}
+	
+	/**
+	 * Returns the number of {@link Triangle}s in this {@code DynamicBoundingVolumeHierarchy} instance.
+	 * 
+	 * @return the number of {@code Triangle}s in this {@code DynamicBoundingVolumeHierarchy} instance
+	 */
+	public int getTriangleCount() {
+		return this.leaves.size();
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private Node doCreateNode(final AtomicInteger idGenerator, final int node, final int depth) {
+		final int nodeOffset = node * NODE_SIZE;
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		if(this.nodes[nodeOffset + NODE_COUNT] <= LEAF_SIZE_MAXIMUM) {
+			final LeafNode leafNode = new LeafNode(depth, idGenerator.getAndIncrement());
+			
+			doAddTriangles(leafNode, node);
+			
+			leafNode.setMaximum(this.nodeData[nodeDataOffset + 0], this.nodeData[nodeDataOffset + 1], this.nodeData[nodeDataOffset + 2]);
+			leafNode.setMinimum(this.nodeData[nodeDataOffset + 3], this.nodeData[nodeDataOffset + 4], this.nodeData[nodeDataOffset + 5]);
+			
+			return leafNode;
+		}
+		
+		final Node nodeLeft = doCreateNode(idGenerator, this.nodes[nodeOffset + NODE_LEFT], depth + 1);
+		final Node nodeRight = doCreateNode(idGenerator, this.nodes[nodeOffset + NODE_RIGHT], depth + 1);
+		
+		final
+		TreeNode treeNode = new TreeNode(depth, idGenerator.getAndIncrement());
+		treeNode.setLeft(nodeLeft);
+		treeNode.setRight(nodeRight);
+		treeNode.setMaximum(this.nodeData[nodeDataOffset + 0], this.nodeData[nodeDataOffset + 1], this.nodeData[nodeDataOffset + 2]);
+		treeNode.setMinimum(this.nodeData[nodeDataOffset + 3], this.nodeData[nodeDataOffset + 4], this.nodeData[nodeDataOffset + 5]);
+		
+		return treeNode;
+	}
+	
+	private boolean doIsLeaf(final int node) {
+		return this.nodes[node * NODE_SIZE + NODE_LEFT] == NODE_NULL;
+	}
+	
+	private float doGetHalfSurfaceArea(final int node) {
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		final float sideX = this.nodeData[nodeDataOffset + 0] - this.nodeData[nodeDataOffset + 3];
+		final float sideY = this.nodeData[nodeDataOffset + 1] - this.nodeData[nodeDataOffset + 4];
+		final float sideZ = this.nodeData[nodeDataOffset + 2] - this.nodeData[nodeDataOffset + 5];
+		
+		return sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private float doGetHalfSurfaceAreaUnion(final int nodeA, final int nodeB) {
+		final int nodeADataOffset = nodeA * NODE_DATA_SIZE;
+		final int nodeBDataOffset = nodeB * NODE_DATA_SIZE;
+		
+		final float sideX = max(this.nodeData[nodeADataOffset + 0], this.nodeData[nodeBDataOffset + 0]) - min(this.nodeData[nodeADataOffset + 3], this.nodeData[nodeBDataOffset + 3]);
+		final float sideY = max(this.nodeData[nodeADataOffset + 1], this.nodeData[nodeBDataOffset + 1]) - min(this.nodeData[nodeADataOffset + 4], this.nodeData[nodeBDataOffset + 4]);
+		final float sideZ = max(this.nodeData[nodeADataOffset + 2], this.nodeData[nodeBDataOffset + 2]) - min(this.nodeData[nodeADataOffset + 5], this.nodeData[nodeBDataOffset + 5]);
+		
+		return sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private int doAllocate() {
+		if(this.nodeFree == NODE_NULL) {
+			doResize(this.nodeTriangles.length * 2);
+		}
+		
+		final int node = this.nodeFree;
+		
+		this.nodeFree = this.nodes[node * NODE_SIZE + NODE_PARENT];
+		
+		this.nodes[node * NODE_SIZE + NODE_PARENT] = NODE_NULL;
+		
+		return node;
+	}
+	
+	private int doFindBestSibling(final int leaf) {
+//		The cost of inserting 'leaf' as the sibling of a node is the surface area of their union, plus the increase of the surface area of all ancestors of the node. The latter is inherited by the children of the node. The cost of inserting 'leaf'
+//		anywhere in the subtree of the node cannot be lower than the surface area of 'leaf' plus that inherited cost, so the subtree can be skipped if that is not lower than the best cost found so far:
+		final float halfSurfaceAreaLeaf = doGetHalfSurfaceArea(leaf);
+		
+		int bestSibling = this.root;
+		
+		float bestCost = doGetHalfSurfaceAreaUnion(this.root, leaf);
+		
+		int stackSize = 0;
+		
+		this.stackNodes[stackSize] = this.root;
+		this.stackCosts[stackSize] = 0.0F;
+		
+		stackSize++;
+		
+		while(stackSize > 0) {
+			stackSize--;
+			
+			final int node = this.stackNodes[stackSize];
+			
+			final float costInherited = this.stackCosts[stackSize];
+			final float costDirect = doGetHalfSurfaceAreaUnion(node, leaf);
+			final float cost = costDirect + costInherited;
+			
+			if(cost < bestCost) {
+				bestSibling = node;
+				bestCost = cost;
+			}
+			
+			if(!doIsLeaf(node)) {
+				final float costInheritedChildren = costInherited + costDirect - doGetHalfSurfaceArea(node);
+				
+				if(halfSurfaceAreaLeaf + costInheritedChildren < bestCost) {
+					this.stackNodes[stackSize] = this.nodes[node * NODE_SIZE + NODE_LEFT];
+					this.stackCosts[stackSize] = costInheritedChildren;
+					
+					stackSize++;
+					
+					this.stackNodes[stackSize] = this.nodes[node * NODE_SIZE + NODE_RIGHT];
+					this.stackCosts[stackSize] = costInheritedChildren;
+					
+					stackSize++;
+				}
+			}
+		}
+		
+		return bestSibling;
+	}
+	
+	private void doAddTriangles(final LeafNode leafNode, final int node) {
+		if(doIsLeaf(node)) {
+			leafNode.addTriangle(this.nodeTriangles[node]);
+		} else {
+			doAddTriangles(leafNode, this.nodes[node * NODE_SIZE + NODE_LEFT]);
+			doAddTriangles(leafNode, this.nodes[node * NODE_SIZE + NODE_RIGHT]);
+		}
+	}
+	
+	private void doFree(final int node) {
+		this.nodes[node * NODE_SIZE + NODE_PARENT] = this.nodeFree;
+		this.nodes[node * NODE_SIZE + NODE_LEFT] = NODE_NULL;
+		this.nodes[node * NODE_SIZE + NODE_RIGHT] = NODE_NULL;
+		this.nodes[node * NODE_SIZE + NODE_COUNT] = 0;
+		
+		this.nodeTriangles[node] = null;
+		
+		this.nodeFree = node;
+	}
+	
+	private void doInsert(final int leaf) {
+		if(this.root == NODE_NULL) {
+			this.root = leaf;
+			
+			return;
+		}
+		
+		final int sibling = doFindBestSibling(leaf);
+		final int parentOld = this.nodes[sibling * NODE_SIZE + NODE_PARENT];
+		final int parentNew = doAllocate();
+		
+		this.nodes[parentNew * NODE_SIZE + NODE_PARENT] = parentOld;
+		this.nodes[parentNew * NODE_SIZE + NODE_LEFT] = sibling;
+		this.nodes[parentNew * NODE_SIZE + NODE_RIGHT] = leaf;
+		this.nodes[sibling * NODE_SIZE + NODE_PARENT] = parentNew;
+		this.nodes[leaf * NODE_SIZE + NODE_PARENT] = parentNew;
+		
+		if(parentOld == NODE_NULL) {
+			this.root = parentNew;
+		} else {
+			doReplaceChild(parentOld, sibling, parentNew);
+		}
+		
+		doRefitAndRotate(parentNew);
+	}
+	
+	private void doRefit(final int node) {
+		final int nodeOffset = node * NODE_SIZE;
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		final int left = this.nodes[nodeOffset + NODE_LEFT];
+		final int right = this.nodes[nodeOffset + NODE_RIGHT];
+		
+		final int leftDataOffset = left * NODE_DATA_SIZE;
+		final int rightDataOffset = right * NODE_DATA_SIZE;
+		
+		for(int i = 0; i < 3; i++) {
+			this.nodeData[nodeDataOffset + i + 0] = max(this.nodeData[leftDataOffset + i + 0], this.nodeData[rightDataOffset + i + 0]);
+			this.nodeData[nodeDataOffset + i + 3] = min(this.nodeData[leftDataOffset + i + 3], this.nodeData[rightDataOffset + i + 3]);
+		}
+		
+		this.nodes[nodeOffset + NODE_COUNT] = this.nodes[left * NODE_SIZE + NODE_COUNT] + this.nodes[right * NODE_SIZE + NODE_COUNT];
+	}
+	
+	private void doRefitAndRotate(final int node) {
+		for(int current = node; current != NODE_NULL; current = this.nodes[current * NODE_SIZE + NODE_PARENT]) {
+			doRefit(current);
+			doRotate(current);
+		}
+	}
+	
+	private void doReplaceChild(final int parent, final int childOld, final int childNew) {
+		if(this.nodes[parent * NODE_SIZE + NODE_LEFT] == childOld) {
+			this.nodes[parent * NODE_SIZE + NODE_LEFT] = childNew;
+		} else {
+			this.nodes[parent * NODE_SIZE + NODE_RIGHT] = childNew;
+		}
+	}
+	
+	private void doResize(final int nodeCapacity) {
+		final int nodeCapacityOld = this.nodeTriangles != null ? this.nodeTriangles.length : 0;
+		
+		this.nodeTriangles = this.nodeTriangles != null ? Arrays.copyOf(this.nodeTriangles, nodeCapacity) : new Triangle[nodeCapacity];
+		this.nodeData = this.nodeData != null ? Arrays.copyOf(this.nodeData, nodeCapacity * NODE_DATA_SIZE) : new float[nodeCapacity * NODE_DATA_SIZE];
+		this.nodes = this.nodes != null ? Arrays.copyOf(this.nodes, nodeCapacity * NODE_SIZE) : new int[nodeCapacity * NODE_SIZE];
+		this.stackCosts = new float[nodeCapacity + 1];
+		this.stackNodes = new int[nodeCapacity + 1];
+		
+//		The new nodes are added to the list of free nodes, which is linked through their parents:
+		for(int i = nodeCapacity - 1; i >= nodeCapacityOld; i--) {
+			doFree(i);
+		}
+	}
+	
+	private void doRotate(final int node) {
+//		A rotation swaps a child of 'node' with a child of its sibling. This does not change the bounds of 'node', but it may reduce the surface area of the sibling. Of the (up to) four possible rotations, the one that reduces the surface area the
+//		most is performed:
+		final int b = this.nodes[node * NODE_SIZE + NODE_LEFT];
+		final int c = this.nodes[node * NODE_SIZE + NODE_RIGHT];
+		
+		int bestChild = NODE_NULL;
+		int bestGrandChild = NODE_NULL;
+		
+		float bestCost = 0.0F;
+		
+		if(!doIsLeaf(c)) {
+			final int f = this.nodes[c * NODE_SIZE + NODE_LEFT];
+			final int g = this.nodes[c * NODE_SIZE + NODE_RIGHT];
+			
+			final float halfSurfaceAreaC = doGetHalfSurfaceArea(c);
+			final float costBF = doGetHalfSurfaceAreaUnion(b, g) - halfSurfaceAreaC;
+			final float costBG = doGetHalfSurfaceAreaUnion(b, f) - halfSurfaceAreaC;
+			
+			if(costBF < bestCost) {
+				bestChild = b;
+				bestGrandChild = f;
+				bestCost = costBF;
+			}
+			
+			if(costBG < bestCost) {
+				bestChild = b;
+				bestGrandChild = g;
+				bestCost = costBG;
+			}
+		}
+		
+		if(!doIsLeaf(b)) {
+			final int d = this.nodes[b * NODE_SIZE + NODE_LEFT];
+			final int e = this.nodes[b * NODE_SIZE + NODE_RIGHT];
+			
+			final float halfSurfaceAreaB = doGetHalfSurfaceArea(b);
+			final float costCD = doGetHalfSurfaceAreaUnion(c, e) - halfSurfaceAreaB;
+			final float costCE = doGetHalfSurfaceAreaUnion(c, d) - halfSurfaceAreaB;
+			
+			if(costCD < bestCost) {
+				bestChild = c;
+				bestGrandChild = d;
+				bestCost = costCD;
+			}
+			
+			if(costCE < bestCost) {
+				bestChild = c;
+				bestGrandChild = e;
+				bestCost = costCE;
+			}
+		}
+		
+		if(bestChild != NODE_NULL) {
+			final int sibling = this.nodes[bestGrandChild * NODE_SIZE + NODE_PARENT];
+			
+			doReplaceChild(node, bestChild, bestGrandChild);
+			doReplaceChild(sibling, bestGrandChild, bestChild);
+			
+			this.nodes[bestGrandChild * NODE_SIZE + NODE_PARENT] = node;
+			this.nodes[bestChild * NODE_SIZE + NODE_PARENT] = sibling;
+			
+			doRefit(sibling);
+		}
+	}
+}
\ No newline at end of file
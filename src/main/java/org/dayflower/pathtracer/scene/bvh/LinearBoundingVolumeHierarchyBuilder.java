@@ -0,0 +1,541 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.scene.bvh;
+
+import static org.macroing.math4j.MathF.max;
+import static org.macroing.math4j.MathF.min;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.TreeNode;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+
+/**
+ * A class that consists exclusively of static methods that builds a Linear Bounding Volume Hierarchy (LBVH).
+ * <p>
+ * The {@link Triangle}s are sorted by the 30-bit Morton codes of their centers using a parallel radix sort. The hierarchy is then emitted top-down by splitting each range of sorted {@code Triangle}s where the highest differing bit of the Morton codes
+ * changes. This is a lot faster than the Surface Area Heuristic (SAH) builders, but the hierarchy is of a lower quality. To make up for some of that, the hierarchy can optionally be restructured by treelet optimization, which finds the optimal
+ * topology of small treelets of up to seven leaves with respect to the SAH.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+final class LinearBoundingVolumeHierarchyBuilder {
+	private static final int MORTON_CODE_BITS = 30;
+	private static final int MORTON_CODE_BITS_PER_AXIS = 10;
+	private static final int NODE_COUNT = 3;
+	private static final int NODE_DATA_COST = 6;
+	private static final int NODE_DATA_SIZE = 7;
+	private static final int NODE_FIRST = 2;
+	private static final int NODE_LEFT = 0;
+	private static final int NODE_RIGHT = 1;
+	private static final int NODE_SIZE = 4;
+	private static final int PARALLEL_THRESHOLD_SORT = 65536;
+	private static final int PARALLEL_THRESHOLD_SUBTREE = 1024;
+	private static final int RADIX_BITS = 10;
+	private static final int RADIX_SIZE = 1 << RADIX_BITS;
+	private static final int TREELET_SIZE = 7;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private LinearBoundingVolumeHierarchyBuilder() {
+	
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Builds a Linear Bounding Volume Hierarchy (LBVH) from {@code leafNodes} and returns its root {@link Node}.
+	 * <p>
+	 * Each {@link LeafNode} in {@code leafNodes} is expected to contain a single {@link Triangle} and to be bounded by it.
+	 * <p>
+	 * If either {@code idGenerator}, {@code leafNodes} or at least one {@code LeafNode} in {@code leafNodes} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param idGenerator the {@code AtomicInteger} to generate the IDs of the {@code Node}s with
+	 * @param leafNodes the {@code LeafNode}s to build the LBVH from
+	 * @param isOptimizingTreelets {@code true} if, and only if, the LBVH should be restructured by treelet optimization, {@code false} otherwise
+	 * @return the root {@code Node} of the LBVH
+	 * @throws NullPointerException thrown if, and only if, either {@code idGenerator}, {@code leafNodes} or at least one {@code LeafNode} in {@code leafNodes} are {@code null}
+	 */
+	static Node createRootNode(final AtomicInteger idGenerator, final List<LeafNode> leafNodes, final boolean isOptimizingTreelets) {
+		final int size = leafNodes.size();
+		
+		final int[] mortonCodes = new int[size];
+		final int[] indices = new int[size];
+		
+		doComputeMortonCodes(leafNodes, mortonCodes, indices);
+		doSort(mortonCodes, indices);
+		
+//		The nodes are stored in flat arrays while the LBVH is built and optimized. Each node in 'nodes' consists of [left, right, first, count], where 'left' and 'right' are -1 for leaves, and each node in 'nodeData' of its bounds as
+//		[maximumX, maximumY, maximumZ, minimumX, minimumY, minimumZ] followed by its SAH cost:
+		final int nodeCapacity = Math.max(size * 2 - 1, 1);
+		
+		final int[] nodes = new int[nodeCapacity * NODE_SIZE];
+		
+		final float[] nodeData = new float[nodeCapacity * NODE_DATA_SIZE];
+		
+		final AtomicInteger nodeCount = new AtomicInteger();
+		
+		final int root = doBuild(leafNodes, mortonCodes, indices, nodes, nodeData, nodeCount, 0, size - 1);
+		
+		if(isOptimizingTreelets) {
+			doOptimizeTreelets(nodes, nodeData, root);
+		}
+		
+		return doCreateNode(idGenerator, leafNodes, indices, nodes, nodeData, root, 0);
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static Node doCreateNode(final AtomicInteger idGenerator, final List<LeafNode> leafNodes, final int[] indices, final int[] nodes, final float[] nodeData, final int node, final int depth) {
+		final int nodeOffset = node * NODE_SIZE;
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		if(nodes[nodeOffset + NODE_LEFT] == -1) {
+			final LeafNode leafNode = new LeafNode(depth, idGenerator.getAndIncrement());
+			
+			for(int i = nodes[nodeOffset + NODE_FIRST], j = i + nodes[nodeOffset + NODE_COUNT]; i < j; i++) {
+				for(final Triangle triangle : leafNodes.get(indices[i]).getTriangles()) {
+					leafNode.addTriangle(triangle);
+				}
+			}
+			
+			leafNode.setMaximum(nodeData[nodeDataOffset + 0], nodeData[nodeDataOffset + 1], nodeData[nodeDataOffset + 2]);
+			leafNode.setMinimum(nodeData[nodeDataOffset + 3], nodeData[nodeDataOffset + 4], nodeData[nodeDataOffset + 5]);
+			
+			return leafNode;
+		}
+		
+		final Node nodeLeft = doCreateNode(idGenerator, leafNodes, indices, nodes, nodeData, nodes[nodeOffset + NODE_LEFT], depth + 1);
+		final Node nodeRight = doCreateNode(idGenerator, leafNodes, indices, nodes, nodeData, nodes[nodeOffset + NODE_RIGHT], depth + 1);
+		
+		final
+		TreeNode treeNode = new TreeNode(depth, idGenerator.getAndIncrement());
+		treeNode.setLeft(nodeLeft);
+		treeNode.setRight(nodeRight);
+		treeNode.setMaximum(nodeData[nodeDataOffset + 0], nodeData[nodeDataOffset + 1], nodeData[nodeDataOffset + 2]);
+		treeNode.setMinimum(nodeData[nodeDataOffset + 3], nodeData[nodeDataOffset + 4], nodeData[nodeDataOffset + 5]);
+		
+		return treeNode;
+	}
+	
+	private static float doComputeSurfaceArea(final float[] bounds, final int offset) {
+		final float sideX = bounds[offset + 0] - bounds[offset + 3];
+		final float sideY = bounds[offset + 1] - bounds[offset + 4];
+		final float sideZ = bounds[offset + 2] - bounds[offset + 5];
+		
+		return sideX * sideY + sideY * sideZ + sideZ * sideX;
+	}
+	
+	private static int doBuild(final List<LeafNode> leafNodes, final int[] mortonCodes, final int[] indices, final int[] nodes, final float[] nodeData, final AtomicInteger nodeCount, final int first, final int last) {
+		final int count = last - first + 1;
+		final int node = nodeCount.getAndIncrement();
+		final int nodeOffset = node * NODE_SIZE;
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		nodes[nodeOffset + NODE_FIRST] = first;
+		nodes[nodeOffset + NODE_COUNT] = count;
+		
+		if(count < 4) {
+			nodes[nodeOffset + NODE_LEFT] = -1;
+			nodes[nodeOffset + NODE_RIGHT] = -1;
+			
+			doSetEmptyBounds(nodeData, nodeDataOffset);
+			
+			for(int i = first; i <= last; i++) {
+				final LeafNode leafNode = leafNodes.get(indices[i]);
+				
+				nodeData[nodeDataOffset + 0] = max(nodeData[nodeDataOffset + 0], leafNode.getMaximumX());
+				nodeData[nodeDataOffset + 1] = max(nodeData[nodeDataOffset + 1], leafNode.getMaximumY());
+				nodeData[nodeDataOffset + 2] = max(nodeData[nodeDataOffset + 2], leafNode.getMaximumZ());
+				nodeData[nodeDataOffset + 3] = min(nodeData[nodeDataOffset + 3], leafNode.getMinimumX());
+				nodeData[nodeDataOffset + 4] = min(nodeData[nodeDataOffset + 4], leafNode.getMinimumY());
+				nodeData[nodeDataOffset + 5] = min(nodeData[nodeDataOffset + 5], leafNode.getMinimumZ());
+			}
+			
+			nodeData[nodeDataOffset + NODE_DATA_COST] = count > 0 ? doComputeSurfaceArea(nodeData, nodeDataOffset) * count : 0.0F;
+			
+			return node;
+		}
+		
+		final int split = doFindSplit(mortonCodes, first, last);
+		
+		final int left;
+		final int right;
+		
+		if(count >= PARALLEL_THRESHOLD_SUBTREE && ForkJoinTask.inForkJoinPool()) {
+			final ForkJoinTask<Integer> forkJoinTaskLeft = ForkJoinTask.adapt(() -> Integer.valueOf(doBuild(leafNodes, mortonCodes, indices, nodes, nodeData, nodeCount, first, split))).fork();
+			
+			right = doBuild(leafNodes, mortonCodes, indices, nodes, nodeData, nodeCount, split + 1, last);
+			left = forkJoinTaskLeft.join().intValue();
+		} else {
+			left = doBuild(leafNodes, mortonCodes, indices, nodes, nodeData, nodeCount, first, split);
+			right = doBuild(leafNodes, mortonCodes, indices, nodes, nodeData, nodeCount, split + 1, last);
+		}
+		
+		nodes[nodeOffset + NODE_LEFT] = left;
+		nodes[nodeOffset + NODE_RIGHT] = right;
+		
+		doUpdateNodeData(nodes, nodeData, node);
+		
+		return node;
+	}
+	
+	private static int doCreateMortonCode(final float value, final float minimum, final float scale) {
+		int bits = Math.max(Math.min((int)((value - minimum) * scale), (1 << MORTON_CODE_BITS_PER_AXIS) - 1), 0);
+		
+//		Spread the 10 bits so there are two zero bits between each of them:
+		bits = (bits * 0x00010001) & 0xFF0000FF;
+		bits = (bits * 0x00000101) & 0x0F00F00F;
+		bits = (bits * 0x00000011) & 0xC30C30C3;
+		bits = (bits * 0x00000005) & 0x49249249;
+		
+		return bits;
+	}
+	
+	private static int doFindSplit(final int[] mortonCodes, final int first, final int last) {
+		final int mortonCodeFirst = mortonCodes[first];
+		final int mortonCodeLast = mortonCodes[last];
+		
+//		If all Morton codes in the range are equal, the range is split in the middle:
+		if(mortonCodeFirst == mortonCodeLast) {
+			return (first + last) >>> 1;
+		}
+		
+//		Otherwise the split is the last index whose Morton code shares more leading bits with the first one than the last one does, which is found by a binary search:
+		final int commonPrefix = Integer.numberOfLeadingZeros(mortonCodeFirst ^ mortonCodeLast);
+		
+		int split = first;
+		int step = last - first;
+		
+		do {
+			step = (step + 1) >>> 1;
+			
+			final int newSplit = split + step;
+			
+			if(newSplit < last && Integer.numberOfLeadingZeros(mortonCodeFirst ^ mortonCodes[newSplit]) > commonPrefix) {
+				split = newSplit;
+			}
+		} while(step > 1);
+		
+		return split;
+	}
+	
+	private static int doRestructureTreelet(final int[] nodes, final float[] nodeData, final int[] treeletLeaves, final int[] treeletNodes, final int[] treeletNodeCount, final int[] subsetPartitions, final float[] subsetBounds, final float[] subsetCosts, final int subset) {
+		if((subset & (subset - 1)) == 0) {
+			return treeletLeaves[Integer.numberOfTrailingZeros(subset)];
+		}
+		
+		final int node = treeletNodes[treeletNodeCount[0]++];
+		final int nodeOffset = node * NODE_SIZE;
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		final int left = doRestructureTreelet(nodes, nodeData, treeletLeaves, treeletNodes, treeletNodeCount, subsetPartitions, subsetBounds, subsetCosts, subsetPartitions[subset]);
+		final int right = doRestructureTreelet(nodes, nodeData, treeletLeaves, treeletNodes, treeletNodeCount, subsetPartitions, subsetBounds, subsetCosts, subset ^ subsetPartitions[subset]);
+		
+		nodes[nodeOffset + NODE_LEFT] = left;
+		nodes[nodeOffset + NODE_RIGHT] = right;
+		nodes[nodeOffset + NODE_FIRST] = -1;
+		nodes[nodeOffset + NODE_COUNT] = nodes[left * NODE_SIZE + NODE_COUNT] + nodes[right * NODE_SIZE + NODE_COUNT];
+		
+		System.arraycopy(subsetBounds, subset * 6, nodeData, nodeDataOffset, 6);
+		
+		nodeData[nodeDataOffset + NODE_DATA_COST] = subsetCosts[subset];
+		
+		return node;
+	}
+	
+	private static void doComputeMortonCodes(final List<LeafNode> leafNodes, final int[] mortonCodes, final int[] indices) {
+		float maximumCenterX = -Float.MAX_VALUE;
+		float maximumCenterY = -Float.MAX_VALUE;
+		float maximumCenterZ = -Float.MAX_VALUE;
+		float minimumCenterX = +Float.MAX_VALUE;
+		float minimumCenterY = +Float.MAX_VALUE;
+		float minimumCenterZ = +Float.MAX_VALUE;
+		
+		for(final LeafNode leafNode : leafNodes) {
+			maximumCenterX = max(maximumCenterX, leafNode.getCenterX());
+			maximumCenterY = max(maximumCenterY, leafNode.getCenterY());
+			maximumCenterZ = max(maximumCenterZ, leafNode.getCenterZ());
+			minimumCenterX = min(minimumCenterX, leafNode.getCenterX());
+			minimumCenterY = min(minimumCenterY, leafNode.getCenterY());
+			minimumCenterZ = min(minimumCenterZ, leafNode.getCenterZ());
+		}
+		
+		final float extentX = maximumCenterX - minimumCenterX;
+		final float extentY = maximumCenterY - minimumCenterY;
+		final float extentZ = maximumCenterZ - minimumCenterZ;
+		
+		final float scaleX = extentX > 0.0F ? (1 << MORTON_CODE_BITS_PER_AXIS) / extentX : 0.0F;
+		final float scaleY = extentY > 0.0F ? (1 << MORTON_CODE_BITS_PER_AXIS) / extentY : 0.0F;
+		final float scaleZ = extentZ > 0.0F ? (1 << MORTON_CODE_BITS_PER_AXIS) / extentZ : 0.0F;
+		
+		for(int i = 0; i < leafNodes.size(); i++) {
+			final LeafNode leafNode = leafNodes.get(i);
+			
+			final int mortonCodeX = doCreateMortonCode(leafNode.getCenterX(), minimumCenterX, scaleX);
+			final int mortonCodeY = doCreateMortonCode(leafNode.getCenterY(), minimumCenterY, scaleY);
+			final int mortonCodeZ = doCreateMortonCode(leafNode.getCenterZ(), minimumCenterZ, scaleZ);
+			
+			mortonCodes[i] = (mortonCodeX << 2) | (mortonCodeY << 1) | mortonCodeZ;
+			
+			indices[i] = i;
+		}
+	}
+	
+	private static void doForEachChunk(final int chunkCount, final IntConsumer intConsumer) {
+		if(chunkCount == 1) {
+			intConsumer.accept(0);
+			
+			return;
+		}
+		
+		final List<ForkJoinTask<?>> forkJoinTasks = new ArrayList<>(chunkCount);
+		
+		for(int i = 0; i < chunkCount; i++) {
+			final int chunk = i;
+			
+			forkJoinTasks.add(ForkJoinTask.adapt(() -> intConsumer.accept(chunk)));
+		}
+		
+		ForkJoinTask.invokeAll(forkJoinTasks);
+	}
+	
+	private static void doOptimizeTreelet(final int[] nodes, final float[] nodeData, final int root) {
+		final int rootOffset = root * NODE_SIZE;
+		
+		final int[] treeletLeaves = new int[TREELET_SIZE];
+		final int[] treeletNodes = new int[TREELET_SIZE - 1];
+		
+		treeletLeaves[0] = nodes[rootOffset + NODE_LEFT];
+		treeletLeaves[1] = nodes[rootOffset + NODE_RIGHT];
+		treeletNodes[0] = root;
+		
+		int treeletLeafCount = 2;
+		int treeletNodeCount = 1;
+		
+//		Grow the treelet by repeatedly turning the treelet leaf with the largest surface area into a treelet node, as long as it is not a leaf in the LBVH itself:
+		while(treeletLeafCount < TREELET_SIZE) {
+			int index = -1;
+			
+			float maximumSurfaceArea = -1.0F;
+			
+			for(int i = 0; i < treeletLeafCount; i++) {
+				final int node = treeletLeaves[i];
+				
+				if(nodes[node * NODE_SIZE + NODE_LEFT] != -1) {
+					final float surfaceArea = doComputeSurfaceArea(nodeData, node * NODE_DATA_SIZE);
+					
+					if(surfaceArea > maximumSurfaceArea) {
+						maximumSurfaceArea = surfaceArea;
+						
+						index = i;
+					}
+				}
+			}
+			
+			if(index == -1) {
+				break;
+			}
+			
+			final int node = treeletLeaves[index];
+			
+			treeletNodes[treeletNodeCount++] = node;
+			treeletLeaves[index] = nodes[node * NODE_SIZE + NODE_LEFT];
+			treeletLeaves[treeletLeafCount++] = nodes[node * NODE_SIZE + NODE_RIGHT];
+		}
+		
+		if(treeletLeafCount < 3) {
+			return;
+		}
+		
+//		Find the optimal topology of the treelet by dynamic programming over all subsets of its leaves. A subset is always processed after its own subsets, because they are smaller numbers:
+		final int subsetCount = 1 << treeletLeafCount;
+		final int subsetFull = subsetCount - 1;
+		
+		final float[] subsetBounds = new float[subsetCount * 6];
+		final float[] subsetCosts = new float[subsetCount];
+		
+		final int[] subsetPartitions = new int[subsetCount];
+		
+		for(int subset = 1; subset < subsetCount; subset++) {
+			doSetEmptyBounds(subsetBounds, subset * 6);
+			
+			for(int i = 0; i < treeletLeafCount; i++) {
+				if((subset & (1 << i)) != 0) {
+					doAddBounds(subsetBounds, subset * 6, nodeData, treeletLeaves[i] * NODE_DATA_SIZE);
+				}
+			}
+			
+			if((subset & (subset - 1)) == 0) {
+				subsetCosts[subset] = nodeData[treeletLeaves[Integer.numberOfTrailingZeros(subset)] * NODE_DATA_SIZE + NODE_DATA_COST];
+				
+				continue;
+			}
+			
+//			Only the partitions that contain the lowest bit of the subset are evaluated, so each partition is evaluated once:
+			final int subsetLowestBit = subset & -subset;
+			
+			float minimumCost = Float.MAX_VALUE;
+			
+			int minimumPartition = 0;
+			
+			for(int partition = (subset - 1) & subset; partition > 0; partition = (partition - 1) & subset) {
+				if((partition & subsetLowestBit) != 0) {
+					final float cost = subsetCosts[partition] + subsetCosts[subset ^ partition];
+					
+					if(cost < minimumCost) {
+						minimumCost = cost;
+						minimumPartition = partition;
+					}
+				}
+			}
+			
+			subsetCosts[subset] = doComputeSurfaceArea(subsetBounds, subset * 6) + minimumCost;
+			subsetPartitions[subset] = minimumPartition;
+		}
+		
+		if(subsetCosts[subsetFull] < nodeData[root * NODE_DATA_SIZE + NODE_DATA_COST] * 0.9999F) {
+			doRestructureTreelet(nodes, nodeData, treeletLeaves, treeletNodes, new int[1], subsetPartitions, subsetBounds, subsetCosts, subsetFull);
+		}
+	}
+	
+	private static void doOptimizeTreelets(final int[] nodes, final float[] nodeData, final int node) {
+		final int nodeOffset = node * NODE_SIZE;
+		
+		final int left = nodes[nodeOffset + NODE_LEFT];
+		final int right = nodes[nodeOffset + NODE_RIGHT];
+		
+		if(left == -1) {
+			return;
+		}
+		
+//		The treelets are optimized bottom-up. The subtrees of a node do not share any nodes, so they can be optimized in parallel:
+		if(nodes[nodeOffset + NODE_COUNT] >= PARALLEL_THRESHOLD_SUBTREE && ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> doOptimizeTreelets(nodes, nodeData, left)), ForkJoinTask.adapt(() -> doOptimizeTreelets(nodes, nodeData, right)));
+		} else {
+			doOptimizeTreelets(nodes, nodeData, left);
+			doOptimizeTreelets(nodes, nodeData, right);
+		}
+		
+//		The cost of the children may have been lowered by their own optimization, so the cost of this node is updated before it is compared to the cost of the optimal treelet:
+		doUpdateNodeData(nodes, nodeData, node);
+		doOptimizeTreelet(nodes, nodeData, node);
+	}
+	
+	private static void doRadixSortPass(final int[] keys, final int[] values, final int[] keysSorted, final int[] valuesSorted, final int shift, final int chunkCount, final int chunkSize) {
+		final int size = keys.length;
+		
+		final int[] histograms = new int[chunkCount * RADIX_SIZE];
+		
+		doForEachChunk(chunkCount, chunk -> {
+			for(int i = chunk * chunkSize, j = Math.min(i + chunkSize, size); i < j; i++) {
+				histograms[chunk * RADIX_SIZE + ((keys[i] >>> shift) & (RADIX_SIZE - 1))]++;
+			}
+		});
+		
+//		Turn the histograms into the offsets each chunk writes each digit to. The offsets are ordered by digit first and chunk second, which keeps the sort stable:
+		for(int digit = 0, offset = 0; digit < RADIX_SIZE; digit++) {
+			for(int chunk = 0; chunk < chunkCount; chunk++) {
+				final int count = histograms[chunk * RADIX_SIZE + digit];
+				
+				histograms[chunk * RADIX_SIZE + digit] = offset;
+				
+				offset += count;
+			}
+		}
+		
+		doForEachChunk(chunkCount, chunk -> {
+			for(int i = chunk * chunkSize, j = Math.min(i + chunkSize, size); i < j; i++) {
+				final int index = histograms[chunk * RADIX_SIZE + ((keys[i] >>> shift) & (RADIX_SIZE - 1))]++;
+				
+				keysSorted[index] = keys[i];
+				valuesSorted[index] = values[i];
+			}
+		});
+	}
+	
+	private static void doSetEmptyBounds(final float[] bounds, final int offset) {
+		bounds[offset + 0] = -Float.MAX_VALUE;
+		bounds[offset + 1] = -Float.MAX_VALUE;
+		bounds[offset + 2] = -Float.MAX_VALUE;
+		bounds[offset + 3] = +Float.MAX_VALUE;
+		bounds[offset + 4] = +Float.MAX_VALUE;
+		bounds[offset + 5] = +Float.MAX_VALUE;
+	}
+	
+	private static void doAddBounds(final float[] bounds, final int offset, final float[] boundsToAdd, final int offsetToAdd) {
+		bounds[offset + 0] = max(bounds[offset + 0], boundsToAdd[offsetToAdd + 0]);
+		bounds[offset + 1] = max(bounds[offset + 1], boundsToAdd[offsetToAdd + 1]);
+		bounds[offset + 2] = max(bounds[offset + 2], boundsToAdd[offsetToAdd + 2]);
+		bounds[offset + 3] = min(bounds[offset + 3], boundsToAdd[offsetToAdd + 3]);
+		bounds[offset + 4] = min(bounds[offset + 4], boundsToAdd[offsetToAdd + 4]);
+		bounds[offset + 5] = min(bounds[offset + 5], boundsToAdd[offsetToAdd + 5]);
+	}
+	
+	private static void doSort(final int[] mortonCodes, final int[] indices) {
+		final int size = mortonCodes.length;
+		
+		final int chunkCount = size >= PARALLEL_THRESHOLD_SORT && ForkJoinTask.inForkJoinPool() ? Math.max(ForkJoinPool.getCommonPoolParallelism(), 1) * 4 : 1;
+		final int chunkSize = (size + chunkCount - 1) / chunkCount;
+		
+		int[] keys = mortonCodes;
+		int[] values = indices;
+		int[] keysSorted = new int[size];
+		int[] valuesSorted = new int[size];
+		
+//		Sort the Morton codes and their indices by a least significant digit radix sort, with one pass per 10 bits. Each pass counts and scatters the chunks in parallel:
+		for(int shift = 0; shift < MORTON_CODE_BITS; shift += RADIX_BITS) {
+			doRadixSortPass(keys, values, keysSorted, valuesSorted, shift, chunkCount, chunkSize);
+			
+			final int[] keysSwap = keys;
+			final int[] valuesSwap = values;
+			
+			keys = keysSorted;
+			values = valuesSorted;
+			keysSorted = keysSwap;
+			valuesSorted = valuesSwap;
+		}
+		
+		if(keys != mortonCodes) {
+			System.arraycopy(keys, 0, mortonCodes, 0, size);
+			System.arraycopy(values, 0, indices, 0, size);
+		}
+	}
+	
+	private static void doUpdateNodeData(final int[] nodes, final float[] nodeData, final int node) {
+		final int left = nodes[node * NODE_SIZE + NODE_LEFT];
+		final int right = nodes[node * NODE_SIZE + NODE_RIGHT];
+		
+		final int nodeDataOffset = node * NODE_DATA_SIZE;
+		
+		doSetEmptyBounds(nodeData, nodeDataOffset);
+		doAddBounds(nodeData, nodeDataOffset, nodeData, left * NODE_DATA_SIZE);
+		doAddBounds(nodeData, nodeDataOffset, nodeData, right * NODE_DATA_SIZE);
+		
+		nodeData[nodeDataOffset + NODE_DATA_COST] = doComputeSurfaceArea(nodeData, nodeDataOffset) + nodeData[left * NODE_DATA_SIZE + NODE_DATA_COST] + nodeData[right * NODE_DATA_SIZE + NODE_DATA_COST];
+	}
+}
\ No newline at end of file
@@ -0,0 +1,615 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.scene.bvh;
+
+import static org.macroing.math4j.MathF.max;
+import static org.macroing.math4j.MathF.min;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.dayflower.pathtracer.scene.Primitive;
+import org.dayflower.pathtracer.scene.Shape;
+import org.dayflower.pathtracer.scene.Transform;
+import org.dayflower.pathtracer.scene.shape.Sphere;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+import org.dayflower.pathtracer.scene.shape.TriangleMesh;
+import org.macroing.math4j.Matrix44F;
+import org.macroing.math4j.Point3F;
+
+/**
+ * A {@code PrimitiveBoundingVolumeHierarchy} is a top-level Bounding Volume Hierarchy (BVH) over the world space bounds of {@link Primitive}s.
+ * <p>
+ * The nodes are stored in depth-first order in an {@code int} array. Each node consists of its type, the offset to the next node to visit if it is missed or when it has been processed, and the offset to its bounds in a {@code float} array. A tree node is followed
+ * by the offset to its left child. A leaf node is followed by the number of {@code Primitive}s it contains and the index of each {@code Primitive}. The offset to the next node is {@code -1} if there are no more nodes to visit.
+ * <p>
+ * The bounds of each node are stored in a {@code float} array, as the minimum point followed by the maximum point.
+ * <p>
+ * {@code Primitive}s that are not bounded, such as {@link org.dayflower.pathtracer.scene.shape.Plane Plane}s and {@link org.dayflower.pathtracer.scene.shape.Terrain Terrain}s, are not part of the hierarchy. Their indices are stored in a separate
+ * {@code int} array instead, where the first element is the number of indices that follow. A {@code Terrain} has a bounded height, but extends infinitely along the X- and Z-axes just like a {@code Plane}.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+public final class PrimitiveBoundingVolumeHierarchy {
+	/**
+	 * The relative offset of the Bounds Offset parameter in the {@code int} array. The value is {@code 2}.
+	 */
+	public static final int RELATIVE_OFFSET_BOUNDS_OFFSET = 2;
+	
+	/**
+	 * The relative offset of the Left Offset parameter of a tree node in the {@code int} array. The value is {@code 3}.
+	 */
+	public static final int RELATIVE_OFFSET_LEFT_OFFSET = 3;
+	
+	/**
+	 * The relative offset of the Maximum parameter in the {@code float} array. The value is {@code 3}.
+	 */
+	public static final int RELATIVE_OFFSET_MAXIMUM = 3;
+	
+	/**
+	 * The relative offset of the Minimum parameter in the {@code float} array. The value is {@code 0}.
+	 */
+	public static final int RELATIVE_OFFSET_MINIMUM = 0;
+	
+	/**
+	 * The relative offset of the Next Offset parameter in the {@code int} array. The value is {@code 1}.
+	 */
+	public static final int RELATIVE_OFFSET_NEXT_OFFSET = 1;
+	
+	/**
+	 * The relative offset of the Primitive Count parameter of a leaf node in the {@code int} array. The value is {@code 3}.
+	 */
+	public static final int RELATIVE_OFFSET_PRIMITIVE_COUNT = 3;
+	
+	/**
+	 * The relative offset of the first Primitive Index parameter of a leaf node in the {@code int} array. The value is {@code 4}.
+	 */
+	public static final int RELATIVE_OFFSET_PRIMITIVE_INDICES = 4;
+	
+	/**
+	 * The relative offset of the Type parameter in the {@code int} array. The value is {@code 0}.
+	 */
+	public static final int RELATIVE_OFFSET_TYPE = 0;
+	
+	/**
+	 * The size of the bounds of a node in the {@code float} array. The size is {@code 6}.
+	 */
+	public static final int SIZE_BOUNDS = 6;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static final int BIN_COUNT = 16;
+	private static final int SIZE_NODE_TREE = 4;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private final Map<Shape, float[]> objectBounds;
+	private final float[] bounds;
+	private float[] primitiveBounds;
+	private final int[] nodes;
+	private final int[] unboundedPrimitives;
+	private int[] leafOffsets;
+	private int[] parentOffsets;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Constructs a new {@code PrimitiveBoundingVolumeHierarchy} instance given its compiled arrays.
+	 * <p>
+	 * If either {@code bounds}, {@code nodes} or {@code unboundedPrimitives} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * The arrays are not copied. Calling {@link #refit(List)} or {@link #refit(List, int)} will update {@code bounds}.
+	 * 
+	 * @param bounds the {@code float} array with the bounds of all nodes
+	 * @param nodes the {@code int} array with all nodes
+	 * @param unboundedPrimitives the {@code int} array with the indices of all unbounded {@link Primitive}s
+	 * @throws NullPointerException thrown if, and only if, either {@code bounds}, {@code nodes} or {@code unboundedPrimitives} are {@code null}
+	 */
+	public PrimitiveBoundingVolumeHierarchy(final float[] bounds, final int[] nodes, final int[] unboundedPrimitives) {
+		this.objectBounds = new IdentityHashMap<>();
+		this.bounds = Objects.requireNonNull(bounds, "bounds == null");
+		this.nodes = Objects.requireNonNull(nodes, "nodes == null");
+		this.unboundedPrimitives = Objects.requireNonNull(unboundedPrimitives, "unboundedPrimitives == null");
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Returns the {@code float} array with the bounds of all nodes.
+	 * 
+	 * @return the {@code float} array with the bounds of all nodes
+	 */
+	public float[] getBounds() {
+		return this.bounds;
+	}
+	
+	/**
+	 * Returns the {@code int} array with all nodes.
+	 * <p>
+	 * If there are no bounded {@link Primitive}s, the array will contain a single element with the value {@code 0}.
+	 * 
+	 * @return the {@code int} array with all nodes
+	 */
+	public int[] getNodes() {
+		return this.nodes;
+	}
+	
+	/**
+	 * Returns the {@code int} array with the indices of all unbounded {@link Primitive}s.
+	 * <p>
+	 * The first element contains the number of indices that follow.
+	 * 
+	 * @return the {@code int} array with the indices of all unbounded {@code Primitive}s
+	 */
+	public int[] getUnboundedPrimitives() {
+		return this.unboundedPrimitives;
+	}
+	
+	/**
+	 * Recomputes the bounds of all nodes in this {@code PrimitiveBoundingVolumeHierarchy} instance, given the current {@link Transform}s of {@code primitives}.
+	 * <p>
+	 * The topology is left as is, so the quality of the hierarchy may degrade if the {@link Primitive}s move far from where they were when it was created.
+	 * <p>
+	 * If either {@code primitives} or at least one of its elements are {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param primitives the {@code Primitive}s this {@code PrimitiveBoundingVolumeHierarchy} instance was created from, in the same order
+	 * @throws NullPointerException thrown if, and only if, either {@code primitives} or at least one of its elements are {@code null}
+	 */
+	public void refit(final List<Primitive> primitives) {
+		this.primitiveBounds = new float[primitives.size() * SIZE_BOUNDS];
+		
+		for(int i = 0; i < primitives.size(); i++) {
+			doComputeBounds(primitives.get(i), this.primitiveBounds, i * SIZE_BOUNDS, this.objectBounds);
+		}
+		
+		final int[] nodeOffsets = doFindNodeOffsets(this.nodes);
+		
+//		The nodes are stored in depth-first order, so the children of a node are always refitted before the node itself:
+		for(int i = nodeOffsets.length - 1; i >= 0; i--) {
+			doRefitNode(nodeOffsets[i]);
+		}
+	}
+	
+	/**
+	 * Recomputes the bounds of the {@link Primitive} at index {@code primitiveIndex} in {@code primitives}, given its current {@link Transform}, and the bounds of the nodes containing it.
+	 * <p>
+	 * Returns {@code true} if, and only if, the bounds of at least one node were changed, {@code false} otherwise.
+	 * <p>
+	 * Only the leaf node containing the {@code Primitive} and its ancestors are refitted. The walk up the hierarchy stops at the first node whose bounds did not change. If {@link #refit(List)} has not been called for {@code primitives} before, it
+	 * will be called instead.
+	 * <p>
+	 * If either {@code primitives} or at least one of its elements are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If {@code primitiveIndex} is less than {@code 0}, or greater than or equal to {@code primitives.size()}, an {@code IndexOutOfBoundsException} will be thrown.
+	 * 
+	 * @param primitives the {@code Primitive}s this {@code PrimitiveBoundingVolumeHierarchy} instance was created from, in the same order
+	 * @param primitiveIndex the index of the {@code Primitive} that has been updated
+	 * @return {@code true} if, and only if, the bounds of at least one node were changed, {@code false} otherwise
+	 * @throws IndexOutOfBoundsException thrown if, and only if, {@code primitiveIndex} is less than {@code 0}, or greater than or equal to {@code primitives.size()}
+	 * @throws NullPointerException thrown if, and only if, either {@code primitives} or at least one of its elements are {@code null}
+	 */
+	public boolean refit(final List<Primitive> primitives, final int primitiveIndex) {
+		final Primitive primitive = primitives.get(primitiveIndex);
+		
+		if(this.primitiveBounds == null || this.primitiveBounds.length != primitives.size() * SIZE_BOUNDS) {
+			refit(primitives);
+			
+			return true;
+		}
+		
+		if(this.leafOffsets == null || this.parentOffsets == null) {
+			doCreateLeafAndParentOffsets(primitives.size());
+		}
+		
+		doComputeBounds(primitive, this.primitiveBounds, primitiveIndex * SIZE_BOUNDS, this.objectBounds);
+		
+		boolean isChanged = false;
+		
+		int nodeOffset = this.leafOffsets[primitiveIndex];
+		
+		while(nodeOffset != -1 && doRefitNode(nodeOffset)) {
+			isChanged = true;
+			
+			nodeOffset = this.parentOffsets[nodeOffset];
+		}
+		
+		return isChanged;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private boolean doRefitNode(final int nodeOffset) {
+		final float[] nodeBounds = new float[SIZE_BOUNDS];
+		
+		doSetEmptyBounds(nodeBounds, 0);
+		
+		if(this.nodes[nodeOffset + RELATIVE_OFFSET_TYPE] == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+			final int leftOffset = this.nodes[nodeOffset + RELATIVE_OFFSET_LEFT_OFFSET];
+			final int rightOffset = this.nodes[leftOffset + RELATIVE_OFFSET_NEXT_OFFSET];
+			
+			doAddBounds(nodeBounds, 0, this.bounds, this.nodes[leftOffset + RELATIVE_OFFSET_BOUNDS_OFFSET]);
+			doAddBounds(nodeBounds, 0, this.bounds, this.nodes[rightOffset + RELATIVE_OFFSET_BOUNDS_OFFSET]);
+		} else {
+			final int primitiveCount = this.nodes[nodeOffset + RELATIVE_OFFSET_PRIMITIVE_COUNT];
+			
+			for(int i = 0; i < primitiveCount; i++) {
+				doAddBounds(nodeBounds, 0, this.primitiveBounds, this.nodes[nodeOffset + RELATIVE_OFFSET_PRIMITIVE_INDICES + i] * SIZE_BOUNDS);
+			}
+		}
+		
+		final int boundsOffset = this.nodes[nodeOffset + RELATIVE_OFFSET_BOUNDS_OFFSET];
+		
+		boolean isChanged = false;
+		
+		for(int i = 0; i < SIZE_BOUNDS; i++) {
+			if(this.bounds[boundsOffset + i] != nodeBounds[i]) {
+				this.bounds[boundsOffset + i] = nodeBounds[i];
+				
+				isChanged = true;
+			}
+		}
+		
+		return isChanged;
+	}
+	
+	private void doCreateLeafAndParentOffsets(final int primitiveCount) {
+		this.leafOffsets = new int[primitiveCount];
+		this.parentOffsets = new int[this.nodes.length];
+		
+		Arrays.fill(this.leafOffsets, -1);
+		Arrays.fill(this.parentOffsets, -1);
+		
+		for(final int nodeOffset : doFindNodeOffsets(this.nodes)) {
+			if(this.nodes[nodeOffset + RELATIVE_OFFSET_TYPE] == BoundingVolumeHierarchy.NODE_TYPE_TREE) {
+				final int leftOffset = this.nodes[nodeOffset + RELATIVE_OFFSET_LEFT_OFFSET];
+				final int rightOffset = this.nodes[leftOffset + RELATIVE_OFFSET_NEXT_OFFSET];
+				
+				this.parentOffsets[leftOffset] = nodeOffset;
+				this.parentOffsets[rightOffset] = nodeOffset;
+			} else {
+				final int count = this.nodes[nodeOffset + RELATIVE_OFFSET_PRIMITIVE_COUNT];
+				
+				for(int i = 0; i < count; i++) {
+					this.leafOffsets[this.nodes[nodeOffset + RELATIVE_OFFSET_PRIMITIVE_INDICES + i]] = nodeOffset;
+				}
+			}
+		}
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Creates a {@code PrimitiveBoundingVolumeHierarchy} based on a {@code List} of {@link Primitive}s.
+	 * <p>
+	 * Returns a {@code PrimitiveBoundingVolumeHierarchy} instance.
+	 * <p>
+	 * If either {@code primitives} or at least one of its elements are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * The {@code Primitive}s are referred to by their index in {@code primitives}. The hierarchy is built using a binned Surface Area Heuristic (SAH) over the centroids of their world space bounds.
+	 * 
+	 * @param primitives the {@code Primitive}s to create the {@code PrimitiveBoundingVolumeHierarchy} from
+	 * @return a {@code PrimitiveBoundingVolumeHierarchy} instance
+	 * @throws NullPointerException thrown if, and only if, either {@code primitives} or at least one of its elements are {@code null}
+	 */
+	public static PrimitiveBoundingVolumeHierarchy createPrimitiveBoundingVolumeHierarchy(final List<Primitive> primitives) {
+		final Map<Shape, float[]> objectBounds = new IdentityHashMap<>();
+		
+		final float[] primitiveBounds = new float[primitives.size() * SIZE_BOUNDS];
+		
+		final int[] boundedPrimitives = new int[primitives.size()];
+		final int[] unboundedPrimitives = new int[primitives.size() + 1];
+		
+		int boundedPrimitiveCount = 0;
+		
+		for(int i = 0; i < primitives.size(); i++) {
+			if(doComputeBounds(Objects.requireNonNull(primitives.get(i), "primitives.get(i) == null"), primitiveBounds, i * SIZE_BOUNDS, objectBounds)) {
+				boundedPrimitives[boundedPrimitiveCount++] = i;
+			} else {
+				unboundedPrimitives[++unboundedPrimitives[0]] = i;
+			}
+		}
+		
+		if(boundedPrimitiveCount == 0) {
+			return new PrimitiveBoundingVolumeHierarchy(new float[SIZE_BOUNDS], new int[1], Arrays.copyOf(unboundedPrimitives, unboundedPrimitives[0] + 1));
+		}
+		
+//		A binary tree with N leaves has at most 2 * N - 1 nodes, and each index is stored in exactly one leaf:
+		final int nodeCountMaximum = boundedPrimitiveCount * 2 - 1;
+		
+		final float[] bounds = new float[nodeCountMaximum * SIZE_BOUNDS];
+		
+		final int[] nodes = new int[nodeCountMaximum * SIZE_NODE_TREE + boundedPrimitiveCount];
+		final int[] sizes = new int[2];
+		
+		doCreateNode(primitiveBounds, boundedPrimitives, 0, boundedPrimitiveCount, bounds, nodes, sizes);
+		
+		final int[] nodesCompact = Arrays.copyOf(nodes, sizes[0]);
+		
+//		The next offset of each node was set to the offset following its subtree. For the nodes whose subtree ends the array, there is no next node:
+		for(final int nodeOffset : doFindNodeOffsets(nodesCompact)) {
+			if(nodesCompact[nodeOffset + RELATIVE_OFFSET_NEXT_OFFSET] == nodesCompact.length) {
+				nodesCompact[nodeOffset + RELATIVE_OFFSET_NEXT_OFFSET] = -1;
+			}
+		}
+		
+		return new PrimitiveBoundingVolumeHierarchy(Arrays.copyOf(bounds, sizes[1]), nodesCompact, Arrays.copyOf(unboundedPrimitives, unboundedPrimitives[0] + 1));
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static boolean doComputeBounds(final Primitive primitive, final float[] bounds, final int offset, final Map<Shape, float[]> objectBoundsCache) {
+		final Shape shape = primitive.getShape();
+		
+		final float[] objectBounds = objectBoundsCache.computeIfAbsent(shape, PrimitiveBoundingVolumeHierarchy::doComputeObjectBounds);
+		
+		if(objectBounds.length == 0) {
+			doSetEmptyBounds(bounds, offset);
+			
+			return false;
+		}
+		
+		final Matrix44F objectToWorld = primitive.getTransform().getObjectToWorld();
+		
+		doSetEmptyBounds(bounds, offset);
+		
+//		Transform the eight corners of the object space bounds into world space:
+		for(int i = 0; i < 8; i++) {
+			final float x = objectBounds[(i & 1) == 0 ? 0 : 3];
+			final float y = objectBounds[(i & 2) == 0 ? 1 : 4];
+			final float z = objectBounds[(i & 4) == 0 ? 2 : 5];
+			
+			final float worldX = objectToWorld.element11 * x + objectToWorld.element12 * y + objectToWorld.element13 * z + objectToWorld.element14;
+			final float worldY = objectToWorld.element21 * x + objectToWorld.element22 * y + objectToWorld.element23 * z + objectToWorld.element24;
+			final float worldZ = objectToWorld.element31 * x + objectToWorld.element32 * y + objectToWorld.element33 * z + objectToWorld.element34;
+			
+			doAddPoint(bounds, offset, worldX, worldY, worldZ);
+		}
+		
+		return true;
+	}
+	
+	private static float doComputeHalfSurfaceArea(final float[] bounds, final int offset) {
+		final float x = bounds[offset + 3] - bounds[offset + 0];
+		final float y = bounds[offset + 4] - bounds[offset + 1];
+		final float z = bounds[offset + 5] - bounds[offset + 2];
+		
+		return x * y + y * z + z * x;
+	}
+	
+	private static float[] doComputeObjectBounds(final Shape shape) {
+		final float[] bounds = new float[SIZE_BOUNDS];
+		
+		doSetEmptyBounds(bounds, 0);
+		
+		if(shape instanceof Sphere) {
+			final Sphere sphere = Sphere.class.cast(shape);
+			
+			final Point3F position = sphere.getPosition();
+			
+			final float radius = sphere.getRadius();
+			
+			doAddPoint(bounds, 0, position.x - radius, position.y - radius, position.z - radius);
+			doAddPoint(bounds, 0, position.x + radius, position.y + radius, position.z + radius);
+		} else if(shape instanceof Triangle) {
+			doAddTriangle(bounds, 0, Triangle.class.cast(shape));
+		} else if(shape instanceof TriangleMesh) {
+			for(final Triangle triangle : TriangleMesh.class.cast(shape).getTriangles()) {
+				doAddTriangle(bounds, 0, triangle);
+			}
+		} else {
+			return new float[0];
+		}
+		
+		return bounds;
+	}
+	
+	private static int[] doFindNodeOffsets(final int[] nodes) {
+		final int[] nodeOffsets = new int[nodes.length];
+		
+		int nodeCount = 0;
+		int nodeOffset = 0;
+		
+		while(nodes.length > 1 && nodeOffset < nodes.length) {
+			nodeOffsets[nodeCount++] = nodeOffset;
+			nodeOffset += nodes[nodeOffset + RELATIVE_OFFSET_TYPE] == BoundingVolumeHierarchy.NODE_TYPE_TREE ? SIZE_NODE_TREE : RELATIVE_OFFSET_PRIMITIVE_INDICES + nodes[nodeOffset + RELATIVE_OFFSET_PRIMITIVE_COUNT];
+		}
+		
+		return Arrays.copyOf(nodeOffsets, nodeCount);
+	}
+	
+	private static void doAddBounds(final float[] boundsA, final int offsetA, final float[] boundsB, final int offsetB) {
+		boundsA[offsetA + 0] = min(boundsA[offsetA + 0], boundsB[offsetB + 0]);
+		boundsA[offsetA + 1] = min(boundsA[offsetA + 1], boundsB[offsetB + 1]);
+		boundsA[offsetA + 2] = min(boundsA[offsetA + 2], boundsB[offsetB + 2]);
+		boundsA[offsetA + 3] = max(boundsA[offsetA + 3], boundsB[offsetB + 3]);
+		boundsA[offsetA + 4] = max(boundsA[offsetA + 4], boundsB[offsetB + 4]);
+		boundsA[offsetA + 5] = max(boundsA[offsetA + 5], boundsB[offsetB + 5]);
+	}
+	
+	private static void doAddPoint(final float[] bounds, final int offset, final float x, final float y, final float z) {
+		bounds[offset + 0] = min(bounds[offset + 0], x);
+		bounds[offset + 1] = min(bounds[offset + 1], y);
+		bounds[offset + 2] = min(bounds[offset + 2], z);
+		bounds[offset + 3] = max(bounds[offset + 3], x);
+		bounds[offset + 4] = max(bounds[offset + 4], y);
+		bounds[offset + 5] = max(bounds[offset + 5], z);
+	}
+	
+	private static void doAddTriangle(final float[] bounds, final int offset, final Triangle triangle) {
+		final Point3F a = triangle.getA().getPosition();
+		final Point3F b = triangle.getB().getPosition();
+		final Point3F c = triangle.getC().getPosition();
+		
+		doAddPoint(bounds, offset, a.x, a.y, a.z);
+		doAddPoint(bounds, offset, b.x, b.y, b.z);
+		doAddPoint(bounds, offset, c.x, c.y, c.z);
+	}
+	
+	private static void doCreateNode(final float[] primitiveBounds, final int[] primitiveIndices, final int start, final int end, final float[] bounds, final int[] nodes, final int[] sizes) {
+		final int nodeOffset = sizes[0];
+		final int boundsOffset = sizes[1];
+		
+		sizes[1] += SIZE_BOUNDS;
+		
+		final float[] centroidBounds = new float[SIZE_BOUNDS];
+		
+		doSetEmptyBounds(bounds, boundsOffset);
+		doSetEmptyBounds(centroidBounds, 0);
+		
+		for(int i = start; i < end; i++) {
+			final int primitiveBoundsOffset = primitiveIndices[i] * SIZE_BOUNDS;
+			
+			doAddBounds(bounds, boundsOffset, primitiveBounds, primitiveBoundsOffset);
+			doAddPoint(centroidBounds, 0, doGetCentroid(primitiveBounds, primitiveBoundsOffset, 0), doGetCentroid(primitiveBounds, primitiveBoundsOffset, 1), doGetCentroid(primitiveBounds, primitiveBoundsOffset, 2));
+		}
+		
+		final int count = end - start;
+		
+		int bestAxis = -1;
+		int bestBin = -1;
+		
+		float bestCost = Float.MAX_VALUE;
+		
+		if(count > 1) {
+			final float[] binBounds = new float[BIN_COUNT * SIZE_BOUNDS];
+			final float[] binBoundsLeft = new float[BIN_COUNT * SIZE_BOUNDS];
+			
+			final int[] binCounts = new int[BIN_COUNT];
+			
+			for(int axis = 0; axis < 3; axis++) {
+				final float extent = centroidBounds[axis + 3] - centroidBounds[axis];
+				
+				if(extent <= 0.0F) {
+					continue;
+				}
+				
+				final float scale = BIN_COUNT / extent;
+				
+				Arrays.fill(binCounts, 0);
+				
+				for(int i = 0; i < BIN_COUNT; i++) {
+					doSetEmptyBounds(binBounds, i * SIZE_BOUNDS);
+				}
+				
+				for(int i = start; i < end; i++) {
+					final int primitiveBoundsOffset = primitiveIndices[i] * SIZE_BOUNDS;
+					final int bin = doGetBin(primitiveBounds, primitiveBoundsOffset, axis, centroidBounds[axis], scale);
+					
+					binCounts[bin]++;
+					
+					doAddBounds(binBounds, bin * SIZE_BOUNDS, primitiveBounds, primitiveBoundsOffset);
+				}
+				
+//				Sweep from the left, storing the accumulated bounds, and then from the right, evaluating the cost of each split:
+				doSetEmptyBounds(binBoundsLeft, 0);
+				doAddBounds(binBoundsLeft, 0, binBounds, 0);
+				
+				for(int i = 1; i < BIN_COUNT; i++) {
+					System.arraycopy(binBoundsLeft, (i - 1) * SIZE_BOUNDS, binBoundsLeft, i * SIZE_BOUNDS, SIZE_BOUNDS);
+					
+					doAddBounds(binBoundsLeft, i * SIZE_BOUNDS, binBounds, i * SIZE_BOUNDS);
+				}
+				
+				final float[] binBoundsRight = new float[SIZE_BOUNDS];
+				
+				doSetEmptyBounds(binBoundsRight, 0);
+				
+				int countLeft = count;
+				int countRight = 0;
+				
+				for(int i = BIN_COUNT - 1; i > 0; i--) {
+					doAddBounds(binBoundsRight, 0, binBounds, i * SIZE_BOUNDS);
+					
+					countLeft -= binCounts[i];
+					countRight += binCounts[i];
+					
+					if(countLeft > 0 && countRight > 0) {
+						final float cost = countLeft * doComputeHalfSurfaceArea(binBoundsLeft, (i - 1) * SIZE_BOUNDS) + countRight * doComputeHalfSurfaceArea(binBoundsRight, 0);
+						
+						if(cost < bestCost) {
+							bestAxis = axis;
+							bestBin = i;
+							bestCost = cost;
+						}
+					}
+				}
+			}
+		}
+		
+		if(bestAxis == -1) {
+//			Either there is a single Primitive or all centroids coincide, so create a leaf node:
+			nodes[nodeOffset + RELATIVE_OFFSET_TYPE] = BoundingVolumeHierarchy.NODE_TYPE_LEAF;
+			nodes[nodeOffset + RELATIVE_OFFSET_BOUNDS_OFFSET] = boundsOffset;
+			nodes[nodeOffset + RELATIVE_OFFSET_PRIMITIVE_COUNT] = count;
+			
+			System.arraycopy(primitiveIndices, start, nodes, nodeOffset + RELATIVE_OFFSET_PRIMITIVE_INDICES, count);
+			
+			sizes[0] += RELATIVE_OFFSET_PRIMITIVE_INDICES + count;
+			
+			nodes[nodeOffset + RELATIVE_OFFSET_NEXT_OFFSET] = sizes[0];
+			
+			return;
+		}
+		
+		final float scale = BIN_COUNT / (centroidBounds[bestAxis + 3] - centroidBounds[bestAxis]);
+		
+		int middle = start;
+		
+		for(int i = start; i < end; i++) {
+			if(doGetBin(primitiveBounds, primitiveIndices[i] * SIZE_BOUNDS, bestAxis, centroidBounds[bestAxis], scale) < bestBin) {
+				final int primitiveIndex = primitiveIndices[i];
+				
+				primitiveIndices[i] = primitiveIndices[middle];
+				primitiveIndices[middle++] = primitiveIndex;
+			}
+		}
+		
+		nodes[nodeOffset + RELATIVE_OFFSET_TYPE] = BoundingVolumeHierarchy.NODE_TYPE_TREE;
+		nodes[nodeOffset + RELATIVE_OFFSET_BOUNDS_OFFSET] = boundsOffset;
+		nodes[nodeOffset + RELATIVE_OFFSET_LEFT_OFFSET] = nodeOffset + SIZE_NODE_TREE;
+		
+		sizes[0] += SIZE_NODE_TREE;
+		
+		doCreateNode(primitiveBounds, primitiveIndices, start, middle, bounds, nodes, sizes);
+		doCreateNode(primitiveBounds, primitiveIndices, middle, end, bounds, nodes, sizes);
+		
+		nodes[nodeOffset + RELATIVE_OFFSET_NEXT_OFFSET] = sizes[0];
+	}
+	
+	private static void doSetEmptyBounds(final float[] bounds, final int offset) {
+		bounds[offset + 0] = Float.MAX_VALUE;
+		bounds[offset + 1] = Float.MAX_VALUE;
+		bounds[offset + 2] = Float.MAX_VALUE;
+		bounds[offset + 3] = -Float.MAX_VALUE;
+		bounds[offset + 4] = -Float.MAX_VALUE;
+		bounds[offset + 5] = -Float.MAX_VALUE;
+	}
+	
+	private static float doGetCentroid(final float[] bounds, final int offset, final int axis) {
+		return (bounds[offset + axis] + bounds[offset + axis + 3]) * 0.5F;
+	}
+	
+	private static int doGetBin(final float[] bounds, final int offset, final int axis, final float minimum, final float scale) {
+		return Math.min((int)((doGetCentroid(bounds, offset, axis) - minimum) * scale), BIN_COUNT - 1);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,488 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.scene.bvh;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.TreeNode;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+
+/**
+ * A {@code WideBoundingVolumeHierarchy} is a compiled Bounding Volume Hierarchy (BVH) where each tree node has up to eight children.
+ * <p>
+ * It is created by collapsing the binary hierarchy of a {@link BoundingVolumeHierarchy}, such that a tree node adopts the children of its largest tree node children until it has {@code width} children. The bounds of all children of a tree node are
+ * stored inline in the tree node itself, so they can all be tested after a single node fetch.
+ * <p>
+ * The nodes are stored in depth-first order in a {@code float} array, where offsets, counts and types are stored as {@code float}s. A tree node consists of its type and the number of its children, followed by the minimum point, the maximum point and the
+ * offset of each child. A leaf node consists of its type and the number of its {@link Triangle}s, followed by the offset of the first {@code Triangle}. The {@code Triangle}s of a leaf node are stored next to each other, so the offset of each
+ * following {@code Triangle} is found by adding {@link Triangle#SIZE} to the offset of the one before it. The offsets of the children are relative to the root node.
+ * <p>
+ * The bounds of the children can optionally be quantized relative to the bounds of their parent. A quantized tree node consists of its type, the number of its children, the minimum point of its own bounds and the size of one quantization step along
+ * each axis, followed by the offset and the quantized bounds of each child. The quantized minimum point is rounded down and the quantized maximum point is rounded up, so the quantized bounds always contain the original bounds. The quantized values
+ * are packed into {@code float}s, {@code 24 / bits} values each, which is exact as long as no {@code float} holds more than 24 bits.
+ * <p>
+ * The offsets of the children and the {@code Triangle}s are stored as {@code float}s too, so they have to be less than {@code 1 << 24} to be exact.
+ * <p>
+ * The children of a tree node are ordered such that a depth-first traversal using a stack never needs more than {@link #STACK_SIZE} elements on it.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+public final class WideBoundingVolumeHierarchy {
+	/**
+	 * The type number associated with a quantized tree node, where the bounds of the children use 12 bits per value. The number is {@code 4}.
+	 */
+	public static final int NODE_TYPE_TREE_QUANTIZED_12 = 4;
+	
+	/**
+	 * The type number associated with a quantized tree node, where the bounds of the children use 8 bits per value. The number is {@code 3}.
+	 */
+	public static final int NODE_TYPE_TREE_QUANTIZED_8 = 3;
+	
+	/**
+	 * The number of bits per value for 12-bit quantization. The value is {@code 12}.
+	 */
+	public static final int QUANTIZATION_BITS_12 = 12;
+	
+	/**
+	 * The number of bits per value for 8-bit quantization. The value is {@code 8}.
+	 */
+	public static final int QUANTIZATION_BITS_8 = 8;
+	
+	/**
+	 * The number of bits per value for no quantization. The value is {@code 0}.
+	 */
+	public static final int QUANTIZATION_BITS_NONE = 0;
+	
+	/**
+	 * The relative offset of the first child of a tree node. The value is {@code 2}.
+	 */
+	public static final int RELATIVE_OFFSET_CHILDREN = 2;
+	
+	/**
+	 * The relative offset of the first child of a quantized tree node. The value is {@code 8}.
+	 */
+	public static final int RELATIVE_OFFSET_CHILDREN_QUANTIZED = 8;
+	
+	/**
+	 * The relative offset of the Child Count parameter of a tree node. The value is {@code 1}.
+	 */
+	public static final int RELATIVE_OFFSET_CHILD_COUNT = 1;
+	
+	/**
+	 * The relative offset of the Maximum parameter of a child in a tree node. The value is {@code 3}.
+	 */
+	public static final int RELATIVE_OFFSET_CHILD_MAXIMUM = 3;
+	
+	/**
+	 * The relative offset of the Minimum parameter of a child in a tree node. The value is {@code 0}.
+	 */
+	public static final int RELATIVE_OFFSET_CHILD_MINIMUM = 0;
+	
+	/**
+	 * The relative offset of the Offset parameter of a child in a tree node. The value is {@code 6}.
+	 */
+	public static final int RELATIVE_OFFSET_CHILD_OFFSET = 6;
+	
+	/**
+	 * The relative offset of the Origin parameter of a quantized tree node. The value is {@code 2}.
+	 */
+	public static final int RELATIVE_OFFSET_ORIGIN = 2;
+	
+	/**
+	 * The relative offset of the Bounds parameter of a child in a quantized tree node. The value is {@code 1}.
+	 */
+	public static final int RELATIVE_OFFSET_QUANTIZED_CHILD_BOUNDS = 1;
+	
+	/**
+	 * The relative offset of the Offset parameter of a child in a quantized tree node. The value is {@code 0}.
+	 */
+	public static final int RELATIVE_OFFSET_QUANTIZED_CHILD_OFFSET = 0;
+	
+	/**
+	 * The relative offset of the Scale parameter of a quantized tree node. The value is {@code 5}.
+	 */
+	public static final int RELATIVE_OFFSET_SCALE = 5;
+	
+	/**
+	 * The relative offset of the Triangle Count parameter of a leaf node. The value is {@code 1}.
+	 */
+	public static final int RELATIVE_OFFSET_TRIANGLE_COUNT = 1;
+	
+	/**
+	 * The relative offset of the Triangle Offset parameter of a leaf node, which is the offset of its first Triangle. The value is {@code 2}.
+	 */
+	public static final int RELATIVE_OFFSET_TRIANGLE_OFFSET = 2;
+	
+	/**
+	 * The relative offset of the Type parameter of a node. The value is {@code 0}.
+	 */
+	public static final int RELATIVE_OFFSET_TYPE = 0;
+	
+	/**
+	 * The size of a child in a tree node. The size is {@code 7}.
+	 */
+	public static final int SIZE_CHILD = 7;
+	
+	/**
+	 * The maximum number of node offsets a traversal has to keep on its stack. The value is {@code 64}.
+	 */
+	public static final int STACK_SIZE = 64;
+	
+	/**
+	 * The maximum width supported. The value is {@code 8}.
+	 */
+	public static final int WIDTH_MAXIMUM = 8;
+	
+	/**
+	 * The minimum width supported. The value is {@code 2}.
+	 */
+	public static final int WIDTH_MINIMUM = 2;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static final int OFFSET_LIMIT = 1 << 24;
+	private static final int SIZE_NODE = 2;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private final float[] nodes;
+	private final int stackSize;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private WideBoundingVolumeHierarchy(final float[] nodes, final int stackSize) {
+		this.nodes = Objects.requireNonNull(nodes, "nodes == null");
+		this.stackSize = stackSize;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Returns the {@code float} array with all nodes.
+	 * 
+	 * @return the {@code float} array with all nodes
+	 */
+	public float[] getNodes() {
+		return this.nodes;
+	}
+	
+	/**
+	 * Returns the maximum number of node offsets a depth-first traversal of this {@code WideBoundingVolumeHierarchy} instance keeps on its stack.
+	 * 
+	 * @return the maximum number of node offsets a depth-first traversal of this {@code WideBoundingVolumeHierarchy} instance keeps on its stack
+	 */
+	public int getStackSize() {
+		return this.stackSize;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Creates a {@code WideBoundingVolumeHierarchy} by collapsing the binary hierarchy rooted at {@code root}.
+	 * <p>
+	 * Returns a {@code WideBoundingVolumeHierarchy} instance.
+	 * <p>
+	 * Calling this method is equivalent to {@code createWideBoundingVolumeHierarchy(root, width, WideBoundingVolumeHierarchy.QUANTIZATION_BITS_NONE, leafNodeOffsetFunction)}.
+	 * <p>
+	 * If either {@code root} or {@code leafNodeOffsetFunction} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If {@code width} is less than {@link #WIDTH_MINIMUM} or greater than {@link #WIDTH_MAXIMUM}, a traversal of the collapsed hierarchy would need more than {@link #STACK_SIZE} elements on its stack, or an offset of a child or a {@link Triangle} is
+	 * greater than or equal to {@code 1 << 24}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param root the root {@link Node} of the binary hierarchy
+	 * @param width the maximum number of children of each tree node
+	 * @param leafNodeOffsetFunction a {@code ToIntFunction} that returns the offset of the first {@link Triangle} of a {@link LeafNode}
+	 * @return a {@code WideBoundingVolumeHierarchy} instance
+	 * @throws IllegalArgumentException thrown if, and only if, {@code width} is less than {@code WIDTH_MINIMUM} or greater than {@code WIDTH_MAXIMUM}, a traversal of the collapsed hierarchy would need more than {@code STACK_SIZE} elements on its
+	 *                                  stack, or an offset of a child or a {@code Triangle} is greater than or equal to {@code 1 << 24}
+	 * @throws NullPointerException thrown if, and only if, either {@code root} or {@code leafNodeOffsetFunction} are {@code null}
+	 */
+	public static WideBoundingVolumeHierarchy createWideBoundingVolumeHierarchy(final Node root, final int width, final ToIntFunction<LeafNode> leafNodeOffsetFunction) {
+		return createWideBoundingVolumeHierarchy(root, width, QUANTIZATION_BITS_NONE, leafNodeOffsetFunction);
+	}
+	
+	/**
+	 * Creates a {@code WideBoundingVolumeHierarchy} by collapsing the binary hierarchy rooted at {@code root}.
+	 * <p>
+	 * Returns a {@code WideBoundingVolumeHierarchy} instance.
+	 * <p>
+	 * The number of bits per quantized value can be one of {@link #QUANTIZATION_BITS_NONE}, {@link #QUANTIZATION_BITS_8} or {@link #QUANTIZATION_BITS_12}.
+	 * <p>
+	 * If either {@code root} or {@code leafNodeOffsetFunction} are {@code null}, a {@code NullPointerException} will be thrown.
+	 * <p>
+	 * If {@code width} is less than {@link #WIDTH_MINIMUM} or greater than {@link #WIDTH_MAXIMUM}, {@code quantizationBits} is not a valid number of bits, a traversal of the collapsed hierarchy would need more than {@link #STACK_SIZE} elements on
+	 * its stack, or an offset of a child or a {@link Triangle} is greater than or equal to {@code 1 << 24}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param root the root {@link Node} of the binary hierarchy
+	 * @param width the maximum number of children of each tree node
+	 * @param quantizationBits the number of bits per quantized value
+	 * @param leafNodeOffsetFunction a {@code ToIntFunction} that returns the offset of the first {@link Triangle} of a {@link LeafNode}
+	 * @return a {@code WideBoundingVolumeHierarchy} instance
+	 * @throws IllegalArgumentException thrown if, and only if, {@code width} is less than {@code WIDTH_MINIMUM} or greater than {@code WIDTH_MAXIMUM}, {@code quantizationBits} is not a valid number of bits, a traversal of the collapsed hierarchy
+	 *                                  would need more than {@code STACK_SIZE} elements on its stack, or an offset of a child or a {@code Triangle} is greater than or equal to {@code 1 << 24}
+	 * @throws NullPointerException thrown if, and only if, either {@code root} or {@code leafNodeOffsetFunction} are {@code null}
+	 */
+	public static WideBoundingVolumeHierarchy createWideBoundingVolumeHierarchy(final Node root, final int width, final int quantizationBits, final ToIntFunction<LeafNode> leafNodeOffsetFunction) {
+		Objects.requireNonNull(root, "root == null");
+		Objects.requireNonNull(leafNodeOffsetFunction, "leafNodeOffsetFunction == null");
+		
+		if(width < WIDTH_MINIMUM || width > WIDTH_MAXIMUM) {
+			throw new IllegalArgumentException(String.format("Illegal width: %s", Integer.toString(width)));
+		}
+		
+		if(quantizationBits != QUANTIZATION_BITS_NONE && quantizationBits != QUANTIZATION_BITS_8 && quantizationBits != QUANTIZATION_BITS_12) {
+			throw new IllegalArgumentException(String.format("Illegal quantization bits: %s", Integer.toString(quantizationBits)));
+		}
+		
+		final Map<Node, List<Node>> children = new IdentityHashMap<>();
+		final Map<Node, Integer> sizes = new IdentityHashMap<>();
+		final Map<Node, Integer> stackSizes = new IdentityHashMap<>();
+		
+		doCollapse(root, width, children, stackSizes);
+		
+		final int stackSize = stackSizes.get(root).intValue();
+		
+		if(stackSize > STACK_SIZE) {
+			throw new IllegalArgumentException(String.format("The hierarchy needs a stack size of %s, but only %s is supported", Integer.toString(stackSize), Integer.toString(STACK_SIZE)));
+		}
+		
+		final float[] nodes = new float[doComputeSize(root, quantizationBits, children, sizes)];
+		
+		doWrite(root, 0, nodes, quantizationBits, children, sizes, leafNodeOffsetFunction);
+		
+		return new WideBoundingVolumeHierarchy(nodes, stackSize);
+	}
+	
+	/**
+	 * Returns the size of a child in a tree node, given the number of bits per quantized value.
+	 * <p>
+	 * If {@code quantizationBits} is {@link #QUANTIZATION_BITS_NONE}, {@link #SIZE_CHILD} will be returned.
+	 * 
+	 * @param quantizationBits the number of bits per quantized value
+	 * @return the size of a child in a tree node, given the number of bits per quantized value
+	 */
+	public static int getChildSize(final int quantizationBits) {
+		return quantizationBits == QUANTIZATION_BITS_NONE ? SIZE_CHILD : 1 + 6 / (24 / quantizationBits);
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	private static float doGetHalfSurfaceArea(final Node node) {
+		final float x = node.getMaximumX() - node.getMinimumX();
+		final float y = node.getMaximumY() - node.getMinimumY();
+		final float z = node.getMaximumZ() - node.getMinimumZ();
+		
+		return x * y + y * z + z * x;
+	}
+	
+	private static int doComputeSize(final Node node, final int quantizationBits, final Map<Node, List<Node>> children, final Map<Node, Integer> sizes) {
+		int size = SIZE_NODE;
+		
+		if(node instanceof LeafNode) {
+			size += 1;
+		} else {
+			final List<Node> nodeChildren = children.get(node);
+			
+			size += quantizationBits == QUANTIZATION_BITS_NONE ? 0 : RELATIVE_OFFSET_CHILDREN_QUANTIZED - RELATIVE_OFFSET_CHILDREN;
+			size += nodeChildren.size() * getChildSize(quantizationBits);
+			
+			for(final Node child : nodeChildren) {
+				size += doComputeSize(child, quantizationBits, children, sizes);
+			}
+		}
+		
+		sizes.put(node, Integer.valueOf(size));
+		
+		return size;
+	}
+	
+	private static int doQuantize(final float value, final float origin, final float scale, final int maximum, final boolean isRoundingUp) {
+		if(scale == 0.0F) {
+			return 0;
+		}
+		
+		int quantizedValue = Math.max(0, Math.min(maximum, (int)(isRoundingUp ? Math.ceil((value - origin) / scale) : Math.floor((value - origin) / scale))));
+		
+//		Make sure the dequantized value, computed the same way as when traversing, does not end up on the wrong side of the original value because of rounding errors:
+		while(isRoundingUp && quantizedValue < maximum && origin + quantizedValue * scale < value) {
+			quantizedValue++;
+		}
+		
+		while(!isRoundingUp && quantizedValue > 0 && origin + quantizedValue * scale > value) {
+			quantizedValue--;
+		}
+		
+		return quantizedValue;
+	}
+	
+	private static int doRequireOffset(final int offset) {
+//		A float represents every int exactly only up to 1 << 24, so a larger offset would silently refer to the wrong node or Triangle:
+		if(offset < 0 || offset >= OFFSET_LIMIT) {
+			throw new IllegalArgumentException(String.format("Illegal offset: %s", Integer.toString(offset)));
+		}
+		
+		return offset;
+	}
+	
+	private static int doWrite(final Node node, final int offset, final float[] nodes, final int quantizationBits, final Map<Node, List<Node>> children, final Map<Node, Integer> sizes, final ToIntFunction<LeafNode> leafNodeOffsetFunction) {
+		if(node instanceof LeafNode) {
+			final LeafNode leafNode = LeafNode.class.cast(node);
+			
+			nodes[offset + RELATIVE_OFFSET_TYPE] = BoundingVolumeHierarchy.NODE_TYPE_LEAF;
+			nodes[offset + RELATIVE_OFFSET_TRIANGLE_COUNT] = leafNode.getTriangles().size();
+			nodes[offset + RELATIVE_OFFSET_TRIANGLE_OFFSET] = doRequireOffset(leafNodeOffsetFunction.applyAsInt(leafNode));
+		} else if(quantizationBits != QUANTIZATION_BITS_NONE) {
+			final List<Node> nodeChildren = children.get(node);
+			
+			final int childSize = getChildSize(quantizationBits);
+			final int maximum = (1 << quantizationBits) - 1;
+			final int valuesPerFloat = 24 / quantizationBits;
+			
+			final float originX = node.getMinimumX();
+			final float originY = node.getMinimumY();
+			final float originZ = node.getMinimumZ();
+			final float scaleX = (node.getMaximumX() - originX) / maximum;
+			final float scaleY = (node.getMaximumY() - originY) / maximum;
+			final float scaleZ = (node.getMaximumZ() - originZ) / maximum;
+			
+			nodes[offset + RELATIVE_OFFSET_TYPE] = quantizationBits == QUANTIZATION_BITS_8 ? NODE_TYPE_TREE_QUANTIZED_8 : NODE_TYPE_TREE_QUANTIZED_12;
+			nodes[offset + RELATIVE_OFFSET_CHILD_COUNT] = nodeChildren.size();
+			nodes[offset + RELATIVE_OFFSET_ORIGIN + 0] = originX;
+			nodes[offset + RELATIVE_OFFSET_ORIGIN + 1] = originY;
+			nodes[offset + RELATIVE_OFFSET_ORIGIN + 2] = originZ;
+			nodes[offset + RELATIVE_OFFSET_SCALE + 0] = scaleX;
+			nodes[offset + RELATIVE_OFFSET_SCALE + 1] = scaleY;
+			nodes[offset + RELATIVE_OFFSET_SCALE + 2] = scaleZ;
+			
+			int childNodeOffset = offset + RELATIVE_OFFSET_CHILDREN_QUANTIZED + nodeChildren.size() * childSize;
+			
+			for(int i = 0; i < nodeChildren.size(); i++) {
+				final Node child = nodeChildren.get(i);
+				
+				final int childOffset = offset + RELATIVE_OFFSET_CHILDREN_QUANTIZED + i * childSize;
+				
+				final int[] quantizedValues = new int[] {
+					doQuantize(child.getMinimumX(), originX, scaleX, maximum, false),
+					doQuantize(child.getMinimumY(), originY, scaleY, maximum, false),
+					doQuantize(child.getMinimumZ(), originZ, scaleZ, maximum, false),
+					doQuantize(child.getMaximumX(), originX, scaleX, maximum, true),
+					doQuantize(child.getMaximumY(), originY, scaleY, maximum, true),
+					doQuantize(child.getMaximumZ(), originZ, scaleZ, maximum, true)
+				};
+				
+				nodes[childOffset + RELATIVE_OFFSET_QUANTIZED_CHILD_OFFSET] = doRequireOffset(childNodeOffset);
+				
+				for(int j = 0; j < quantizedValues.length; j++) {
+					nodes[childOffset + RELATIVE_OFFSET_QUANTIZED_CHILD_BOUNDS + j / valuesPerFloat] += quantizedValues[j] << (j % valuesPerFloat * quantizationBits);
+				}
+				
+				childNodeOffset = doWrite(child, childNodeOffset, nodes, quantizationBits, children, sizes, leafNodeOffsetFunction);
+			}
+		} else {
+			final List<Node> nodeChildren = children.get(node);
+			
+			nodes[offset + RELATIVE_OFFSET_TYPE] = BoundingVolumeHierarchy.NODE_TYPE_TREE;
+			nodes[offset + RELATIVE_OFFSET_CHILD_COUNT] = nodeChildren.size();
+			
+			int childNodeOffset = offset + SIZE_NODE + nodeChildren.size() * SIZE_CHILD;
+			
+			for(int i = 0; i < nodeChildren.size(); i++) {
+				final Node child = nodeChildren.get(i);
+				
+				final int childOffset = offset + RELATIVE_OFFSET_CHILDREN + i * SIZE_CHILD;
+				
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_MINIMUM + 0] = child.getMinimumX();
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_MINIMUM + 1] = child.getMinimumY();
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_MINIMUM + 2] = child.getMinimumZ();
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_MAXIMUM + 0] = child.getMaximumX();
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_MAXIMUM + 1] = child.getMaximumY();
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_MAXIMUM + 2] = child.getMaximumZ();
+				nodes[childOffset + RELATIVE_OFFSET_CHILD_OFFSET] = doRequireOffset(childNodeOffset);
+				
+				childNodeOffset = doWrite(child, childNodeOffset, nodes, quantizationBits, children, sizes, leafNodeOffsetFunction);
+			}
+		}
+		
+		return offset + sizes.get(node).intValue();
+	}
+	
+	private static void doCollapse(final Node node, final int width, final Map<Node, List<Node>> children, final Map<Node, Integer> stackSizes) {
+		if(node instanceof LeafNode) {
+			stackSizes.put(node, Integer.valueOf(1));
+			
+			return;
+		}
+		
+		final List<Node> nodeChildren = new ArrayList<>();
+		
+		doAddChildren(TreeNode.class.cast(node), nodeChildren);
+		
+//		Replace the tree node child with the largest surface area by its own children, until the width has been reached:
+		while(nodeChildren.size() < width) {
+			int index = -1;
+			
+			float halfSurfaceArea = -1.0F;
+			
+			for(int i = 0; i < nodeChildren.size(); i++) {
+				final Node child = nodeChildren.get(i);
+				
+				if(child instanceof TreeNode && doGetHalfSurfaceArea(child) > halfSurfaceArea) {
+					index = i;
+					
+					halfSurfaceArea = doGetHalfSurfaceArea(child);
+				}
+			}
+			
+			if(index == -1) {
+				break;
+			}
+			
+			doAddChildren(TreeNode.class.cast(nodeChildren.remove(index)), nodeChildren);
+		}
+		
+		for(final Node child : nodeChildren) {
+			doCollapse(child, width, children, stackSizes);
+		}
+		
+//		The children are pushed onto the stack in order and popped in reverse order. So the child at index i has i elements below it while it is being traversed. Putting the children with the largest stack sizes first minimizes the stack size:
+		nodeChildren.sort((a, b) -> Integer.compare(stackSizes.get(b).intValue(), stackSizes.get(a).intValue()));
+		
+		int stackSize = 1;
+		
+		for(int i = 0; i < nodeChildren.size(); i++) {
+			stackSize = Math.max(stackSize, i + stackSizes.get(nodeChildren.get(i)).intValue());
+		}
+		
+		children.put(node, nodeChildren);
+		stackSizes.put(node, Integer.valueOf(stackSize));
+	}
+	
+	private static void doAddChildren(final TreeNode treeNode, final List<Node> nodes) {
+		treeNode.getLeft().ifPresent(nodes::add);
+		treeNode.getRight().ifPresent(nodes::add);
+	}
+}
\ No newline at end of file
@@ -35,6 +35,8 @@ import org.dayflower.pathtracer.scene.Scene;
 import org.dayflower.pathtracer.scene.Surface;
 import org.dayflower.pathtracer.scene.Texture;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.PrimitiveBoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.WideBoundingVolumeHierarchy;
 import org.dayflower.pathtracer.scene.shape.Terrain;
 import org.dayflower.pathtracer.scene.shape.Plane;
 import org.dayflower.pathtracer.scene.shape.Sphere;
@@ -54,20 +56,25 @@ import org.macroing.math4j.Vector3F;
  */
 public final class CompiledScene {
 	private final String name;
+	private final float[] boundingVolumeHierarchiesWide;
 	private final float[] camera;
 	private final float[] point2Fs;
 	private final float[] point3Fs;
+	private final float[] primitivesBoundingVolumeHierarchyBounds;
 	private final float[] primitivesObjectToWorld;
 	private final float[] primitivesWorldToObject;
 	private final float[] spheres;
 	private final float[] surfaces;
 	private final float[] terrains;
 	private final float[] textures;
+	private final float[] trianglesPrecomputed;
 	private final float[] vector3Fs;
 	private final int[] boundingVolumeHierarchies;
 	private final int[] planes;
 	private final int[] primitives;
+	private final int[] primitivesBoundingVolumeHierarchy;
 //	private final int[] primitivesEmittingLight;
+	private final int[] primitivesUnbounded;
 	private final int[] triangles;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -78,38 +85,48 @@ public final class CompiledScene {
 	 * If at least one of the parameters are {@code null}, a {@code NullPointerException} will be thrown.
 	 * 
 	 * @param name the name of this {@code CompiledScene} instance
+	 * @param boundingVolumeHierarchiesWide the array containing all the compiled {@link WideBoundingVolumeHierarchy} instances
 	 * @param camera the array containing the compiled {@link Camera} instance
 	 * @param point2Fs the array containing all the compiled {@link Point2F} instances
 	 * @param point3Fs the array containing all the compiled {@link Point3F} instances
+	 * @param primitivesBoundingVolumeHierarchyBounds the array containing the bounds of all nodes in the compiled {@link PrimitiveBoundingVolumeHierarchy} instance
 	 * @param primitivesObjectToWorld the array containing all the compiled matrices for object to world transformations
 	 * @param primitivesWorldToObject the array containing all the compiled matrices for world to object transformations
 	 * @param spheres the array containing all the compiled {@link Sphere} instances
 	 * @param surfaces the array containing all the compiled {@link Surface} instances
 	 * @param terrains the array containing all the compiled {@link Terrain} instances
 	 * @param textures the array containing all the compiled {@link Texture} instances
+	 * @param trianglesPrecomputed the array containing the precomputed data of all the compiled {@link Triangle} instances, or an array with a length of {@code 1} if it has not been precomputed
 	 * @param vector3Fs the array containing all the compiled {@link Vector3F} instances
 	 * @param boundingVolumeHierarchies the array containing all the compiled {@link BoundingVolumeHierarchy} instances
 	 * @param planes the array containing all the compiled {@link Plane} instances
 	 * @param primitives the array containing all the compiled {@link Primitive} instances
+	 * @param primitivesBoundingVolumeHierarchy the array containing all nodes in the compiled {@code PrimitiveBoundingVolumeHierarchy} instance
+	 * @param primitivesUnbounded the array containing the indices of all compiled {@code Primitive} instances that are not part of the {@code PrimitiveBoundingVolumeHierarchy} instance
 	 * @param triangles the array containing all the compiled {@link Triangle} instances
 	 * @throws NullPointerException thrown if, and only if, at least one of the parameters are {@code null}
 	 */
-	public CompiledScene(final String name, final float[] camera, final float[] point2Fs, final float[] point3Fs, final float[] primitivesObjectToWorld, final float[] primitivesWorldToObject, final float[] spheres, final float[] surfaces, final float[] terrains, final float[] textures, final float[] vector3Fs, final int[] boundingVolumeHierarchies, final int[] planes, final int[] primitives, /*final int[] primitivesEmittingLight, */final int[] triangles) {
+	public CompiledScene(final String name, final float[] boundingVolumeHierarchiesWide, final float[] camera, final float[] point2Fs, final float[] point3Fs, final float[] primitivesBoundingVolumeHierarchyBounds, final float[] primitivesObjectToWorld, final float[] primitivesWorldToObject, final float[] spheres, final float[] surfaces, final float[] terrains, final float[] textures, final float[] trianglesPrecomputed, final float[] vector3Fs, final int[] boundingVolumeHierarchies, final int[] planes, final int[] primitives, final int[] primitivesBoundingVolumeHierarchy, /*final int[] primitivesEmittingLight, */final int[] primitivesUnbounded, final int[] triangles) {
 		this.name = Objects.requireNonNull(name, "name == null");
+		this.boundingVolumeHierarchiesWide = Objects.requireNonNull(boundingVolumeHierarchiesWide, "boundingVolumeHierarchiesWide == null");
 		this.camera = Objects.requireNonNull(camera, "camera == null");
 		this.point2Fs = Objects.requireNonNull(point2Fs, "point2Fs == null");
 		this.point3Fs = Objects.requireNonNull(point3Fs, "point3Fs == null");
+		this.primitivesBoundingVolumeHierarchyBounds = Objects.requireNonNull(primitivesBoundingVolumeHierarchyBounds, "primitivesBoundingVolumeHierarchyBounds == null");
 		this.primitivesObjectToWorld = Objects.requireNonNull(primitivesObjectToWorld, "primitivesObjectToWorld == null");
 		this.primitivesWorldToObject = Objects.requireNonNull(primitivesWorldToObject, "primitivesWorldToObject == null");
 		this.spheres = Objects.requireNonNull(spheres, "spheres == null");
 		this.surfaces = Objects.requireNonNull(surfaces, "surfaces == null");
 		this.terrains = Objects.requireNonNull(terrains, "terrains == null");
 		this.textures = Objects.requireNonNull(textures, "textures == null");
+		this.trianglesPrecomputed = Objects.requireNonNull(trianglesPrecomputed, "trianglesPrecomputed == null");
 		this.vector3Fs = Objects.requireNonNull(vector3Fs, "vector3Fs == null");
 		this.boundingVolumeHierarchies = Objects.requireNonNull(boundingVolumeHierarchies, "boundingVolumeHierarchies == null");
 		this.planes = Objects.requireNonNull(planes, "planes == null");
 		this.primitives = Objects.requireNonNull(primitives, "primitives == null");
+		this.primitivesBoundingVolumeHierarchy = Objects.requireNonNull(primitivesBoundingVolumeHierarchy, "primitivesBoundingVolumeHierarchy == null");
 //		this.primitivesEmittingLight = Objects.requireNonNull(primitivesEmittingLight, "primitivesEmittingLight == null");
+		this.primitivesUnbounded = Objects.requireNonNull(primitivesUnbounded, "primitivesUnbounded == null");
 		this.triangles = Objects.requireNonNull(triangles, "triangles == null");
 	}
 	
@@ -124,6 +141,15 @@ public final class CompiledScene {
 		return this.name;
 	}
 	
+	/**
+	 * Returns the array containing all the compiled {@link WideBoundingVolumeHierarchy} instances.
+	 * 
+	 * @return the array containing all the compiled {@code WideBoundingVolumeHierarchy} instances
+	 */
+	public float[] getBoundingVolumeHierarchiesWide() {
+		return this.boundingVolumeHierarchiesWide;
+	}
+	
 	/**
 	 * Returns the array containing the compiled {@link Camera} instance.
 	 * 
@@ -151,6 +177,15 @@ public final class CompiledScene {
 		return this.point3Fs;
 	}
 	
+	/**
+	 * Returns the array containing the bounds of all nodes in the compiled {@link PrimitiveBoundingVolumeHierarchy} instance.
+	 * 
+	 * @return the array containing the bounds of all nodes in the compiled {@code PrimitiveBoundingVolumeHierarchy} instance
+	 */
+	public float[] getPrimitivesBoundingVolumeHierarchyBounds() {
+		return this.primitivesBoundingVolumeHierarchyBounds;
+	}
+	
 	/**
 	 * Returns the array containing all the compiled matrices for object to world transformations.
 	 * 
@@ -205,6 +240,18 @@ public final class CompiledScene {
 		return this.textures;
 	}
 	
+	/**
+	 * Returns the array containing the precomputed data of all the compiled {@link Triangle} instances.
+	 * <p>
+	 * For each {@code Triangle}, in the same order as in the array returned by {@link #getTriangles()}, the array contains the position of its point A followed by the edges from point A to the points B and C. If the data has not been
+	 * precomputed, the array has a length of {@code 1}.
+	 * 
+	 * @return the array containing the precomputed data of all the compiled {@code Triangle} instances
+	 */
+	public float[] getTrianglesPrecomputed() {
+		return this.trianglesPrecomputed;
+	}
+	
 	/**
 	 * Returns the array containing all the compiled {@link Vector3F} instances.
 	 * 
@@ -216,6 +263,12 @@ public final class CompiledScene {
 	
 	/**
 	 * Returns the array containing all the compiled {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * Each node has a size of {@code 7} and consists of its type, the offset to the next node in a depth-first traversal that skips its children, and the offsets to its minimum and maximum points. A tree node is followed by the offset to its left
+	 * child, its split axis and the offset to its parent. A leaf node is followed by the number of its {@link Triangle}s, the offset to the first one and the offset to its parent. The right child of a tree node is the next node of its left child. All
+	 * node offsets are relative to the root node, and the offset to the parent of the root node is {@code -1}.
+	 * <p>
+	 * The split axis is {@code 0}, {@code 1} or {@code 2} for the X-, Y- or Z-axis, along which the center of the left child is not greater than the center of the right child. If it is greater, {@code 3} is added to the axis.
 	 * 
 	 * @return the array containing all the compiled {@code BoundingVolumeHierarchy} instances
 	 */
@@ -241,6 +294,15 @@ public final class CompiledScene {
 		return this.primitives;
 	}
 	
+	/**
+	 * Returns the array containing all nodes in the compiled {@link PrimitiveBoundingVolumeHierarchy} instance.
+	 * 
+	 * @return the array containing all nodes in the compiled {@code PrimitiveBoundingVolumeHierarchy} instance
+	 */
+	public int[] getPrimitivesBoundingVolumeHierarchy() {
+		return this.primitivesBoundingVolumeHierarchy;
+	}
+	
 	/**
 	 * Returns the array containing all the compiled {@link Primitive} instances that emits light.
 	 * 
@@ -250,8 +312,22 @@ public final class CompiledScene {
 //		return this.primitivesEmittingLight;
 //	}
 	
+	/**
+	 * Returns the array containing the indices of all compiled {@link Primitive} instances that are not part of the compiled {@link PrimitiveBoundingVolumeHierarchy} instance.
+	 * <p>
+	 * The first element contains the number of indices that follow.
+	 * 
+	 * @return the array containing the indices of all compiled {@code Primitive} instances that are not part of the compiled {@code PrimitiveBoundingVolumeHierarchy} instance
+	 */
+	public int[] getPrimitivesUnbounded() {
+		return this.primitivesUnbounded;
+	}
+	
 	/**
 	 * Returns the array containing all the compiled {@link Triangle} instances.
+	 * <p>
+	 * The {@code Triangle}s are stored in the depth-first order of the leaf nodes of the compiled {@link BoundingVolumeHierarchy} instances, so each leaf node refers to a contiguous range of them. A {@code Triangle} referenced by more than one leaf node
+	 * is stored once for each of them. The {@code Triangle}s that are not part of a {@code TriangleMesh} follow after them.
 	 * 
 	 * @return the array containing all the compiled {@code Triangle} instances
 	 */
@@ -281,11 +357,16 @@ public final class CompiledScene {
 			Arrays2.writeFloatArray(dataOutputStream, this.spheres);
 			Arrays2.writeFloatArray(dataOutputStream, this.terrains);
 			Arrays2.writeIntArray(dataOutputStream, this.triangles);
+			Arrays2.writeFloatArray(dataOutputStream, this.trianglesPrecomputed);
 			Arrays2.writeIntArray(dataOutputStream, this.boundingVolumeHierarchies);
+			Arrays2.writeFloatArray(dataOutputStream, this.boundingVolumeHierarchiesWide);
 			Arrays2.writeFloatArray(dataOutputStream, this.textures);
 			Arrays2.writeFloatArray(dataOutputStream, this.surfaces);
 			Arrays2.writeIntArray(dataOutputStream, this.primitives);
 //			Arrays2.writeIntArray(dataOutputStream, this.primitivesEmittingLight);
+			Arrays2.writeIntArray(dataOutputStream, this.primitivesBoundingVolumeHierarchy);
+			Arrays2.writeFloatArray(dataOutputStream, this.primitivesBoundingVolumeHierarchyBounds);
+			Arrays2.writeIntArray(dataOutputStream, this.primitivesUnbounded);
 			Arrays2.writeFloatArray(dataOutputStream, this.primitivesObjectToWorld);
 			Arrays2.writeFloatArray(dataOutputStream, this.primitivesWorldToObject);
 			Arrays2.writeFloatArray(dataOutputStream, this.camera);
@@ -361,16 +442,21 @@ public final class CompiledScene {
 			final float[] spheres = Arrays2.readFloatArray(dataInputStream);
 			final float[] terrains = Arrays2.readFloatArray(dataInputStream);
 			final int[] triangles = Arrays2.readIntArray(dataInputStream);
+			final float[] trianglesPrecomputed = Arrays2.readFloatArray(dataInputStream);
 			final int[] boundingVolumeHierarchies = Arrays2.readIntArray(dataInputStream);
+			final float[] boundingVolumeHierarchiesWide = Arrays2.readFloatArray(dataInputStream);
 			final float[] textures = Arrays2.readFloatArray(dataInputStream);
 			final float[] surfaces = Arrays2.readFloatArray(dataInputStream);
 			final int[] primitives = Arrays2.readIntArray(dataInputStream);
 //			final int[] primitivesEmittingLight = Arrays2.readIntArray(dataInputStream);
+			final int[] primitivesBoundingVolumeHierarchy = Arrays2.readIntArray(dataInputStream);
+			final float[] primitivesBoundingVolumeHierarchyBounds = Arrays2.readFloatArray(dataInputStream);
+			final int[] primitivesUnbounded = Arrays2.readIntArray(dataInputStream);
 			final float[] primitivesObjectToWorld = Arrays2.readFloatArray(dataInputStream);
 			final float[] primitivesWorldToObject = Arrays2.readFloatArray(dataInputStream);
 			final float[] camera = Arrays2.readFloatArray(dataInputStream);
 			
-			return new CompiledScene(name, camera, point2Fs, point3Fs, primitivesObjectToWorld, primitivesWorldToObject, spheres, surfaces, terrains, textures, vector3Fs, boundingVolumeHierarchies, planes, primitives, /*primitivesEmittingLight, */triangles);
+			return new CompiledScene(name, boundingVolumeHierarchiesWide, camera, point2Fs, point3Fs, primitivesBoundingVolumeHierarchyBounds, primitivesObjectToWorld, primitivesWorldToObject, spheres, surfaces, terrains, textures, trianglesPrecomputed, vector3Fs, boundingVolumeHierarchies, planes, primitives, primitivesBoundingVolumeHierarchy, /*primitivesEmittingLight, */primitivesUnbounded, triangles);
 		} catch(final IOException e) {
 			throw new UncheckedIOException(e);
 		}
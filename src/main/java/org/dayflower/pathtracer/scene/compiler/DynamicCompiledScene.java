@@ -18,11 +18,23 @@
  */
 package org.dayflower.pathtracer.scene.compiler;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import org.dayflower.pathtracer.scene.Scene;
 import org.dayflower.pathtracer.scene.Surface;
 import org.dayflower.pathtracer.scene.Texture;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.DynamicBoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.WideBoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.shape.Triangle;
 import org.macroing.math4j.Point2F;
 import org.macroing.math4j.Point3F;
 import org.macroing.math4j.Vector3F;
@@ -34,17 +46,26 @@ import org.macroing.math4j.Vector3F;
  * <p>
  * A {@code DynamicCompiledScene} allows you to add new and update or remove existing structures. A structure may only be removed when no other structure is referencing it. When a new structure has been added, or an existing updated, pruning can be
  * performed to automatically remove structures that are not referenced. To perform pruning, call {@link #prune()}.
+ * <p>
+ * The {@link Triangle}s are kept in a {@link DynamicBoundingVolumeHierarchy}, which is updated incrementally when a {@code Triangle} is added or removed, so editing a scene does not require it to be compiled again by a {@link SceneCompiler}.
  * 
  * @since 1.0.0
  * @author J&#246;rgen Lundgren
  */
 public final class DynamicCompiledScene {
 	private static final int ARRAY_EMPTY_LENGTH = 1;
+	private static final int[] VECTOR_3_F_RELATIVE_OFFSETS = {Triangle.RELATIVE_OFFSET_A_SURFACE_NORMAL_OFFSET, Triangle.RELATIVE_OFFSET_B_SURFACE_NORMAL_OFFSET, Triangle.RELATIVE_OFFSET_C_SURFACE_NORMAL_OFFSET, Triangle.RELATIVE_OFFSET_A_SURFACE_TANGENT_OFFSET, Triangle.RELATIVE_OFFSET_B_SURFACE_TANGENT_OFFSET, Triangle.RELATIVE_OFFSET_C_SURFACE_TANGENT_OFFSET};
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	private final DynamicBoundingVolumeHierarchy dynamicBoundingVolumeHierarchy;
+	private final List<Triangle> triangleList;
+	private float[] boundingVolumeHierarchy;
 	private float[] point2Fs;
 	private float[] point3Fs;
 	private float[] surfaces;
 	private float[] textures;
+	private float[] triangles;
 	private float[] vector3Fs;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -53,16 +74,85 @@ public final class DynamicCompiledScene {
 	 * Constructs a new {@code DynamicCompiledScene} instance.
 	 */
 	public DynamicCompiledScene() {
+		this.dynamicBoundingVolumeHierarchy = new DynamicBoundingVolumeHierarchy();
+		this.triangleList = new ArrayList<>();
+		
 //		The length of "empty" arrays has to be 1. An array with a length of 0 does not seem to work in Aparapi.
+		this.boundingVolumeHierarchy = new float[ARRAY_EMPTY_LENGTH];
 		this.point2Fs = new float[ARRAY_EMPTY_LENGTH];
 		this.point3Fs = new float[ARRAY_EMPTY_LENGTH];
 		this.surfaces = new float[ARRAY_EMPTY_LENGTH];
 		this.textures = new float[ARRAY_EMPTY_LENGTH];
+		this.triangles = new float[ARRAY_EMPTY_LENGTH];
 		this.vector3Fs = new float[ARRAY_EMPTY_LENGTH];
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * Returns the array containing the compiled Bounding Volume Hierarchy (BVH) of all {@link Triangle}s.
+	 * <p>
+	 * The BVH is compiled in the format of a {@link WideBoundingVolumeHierarchy} with a width of {@code 2}, where the offsets of the {@code Triangle}s refer to the array returned by {@link #getTriangles()}. It is only compiled again if a
+	 * {@code Triangle} has been added or removed since the last time this method was called.
+	 * <p>
+	 * When the BVH is compiled, the {@code Triangle}s are reordered to match the order of its leaf nodes, so each leaf node refers to a contiguous range of them. This means the indices of the {@code Triangle}s may change.
+	 * 
+	 * @return the array containing the compiled BVH of all {@code Triangle}s
+	 */
+	public synchronized float[] getBoundingVolumeHierarchy() {
+		if(this.boundingVolumeHierarchy == null) {
+			final Optional<BoundingVolumeHierarchy> optionalBoundingVolumeHierarchy = this.dynamicBoundingVolumeHierarchy.toBoundingVolumeHierarchy();
+			
+			if(optionalBoundingVolumeHierarchy.isPresent()) {
+				final Node root = optionalBoundingVolumeHierarchy.get().getRoot();
+				
+				final Map<Triangle, Integer> triangleIndices = new HashMap<>();
+				final Map<LeafNode, Integer> leafNodeOffsets = new IdentityHashMap<>();
+				
+				for(int i = 0; i < this.triangleList.size(); i++) {
+					triangleIndices.put(this.triangleList.get(i), Integer.valueOf(i));
+				}
+				
+				final float[] triangles = new float[this.triangles.length];
+				
+				this.triangleList.clear();
+				
+//				Each Triangle is referenced by exactly one LeafNode, so the Triangles are a permutation of the current ones:
+				for(final Node node : root.toList()) {
+					if(node instanceof LeafNode) {
+						final LeafNode leafNode = LeafNode.class.cast(node);
+						
+						leafNodeOffsets.put(leafNode, Integer.valueOf(this.triangleList.size() * Triangle.SIZE));
+						
+						for(final Triangle triangle : leafNode.getTriangles()) {
+							System.arraycopy(this.triangles, triangleIndices.get(triangle).intValue() * Triangle.SIZE, triangles, this.triangleList.size() * Triangle.SIZE, Triangle.SIZE);
+							
+							this.triangleList.add(triangle);
+						}
+					}
+				}
+				
+				this.triangles = triangles;
+				this.boundingVolumeHierarchy = WideBoundingVolumeHierarchy.createWideBoundingVolumeHierarchy(root, WideBoundingVolumeHierarchy.WIDTH_MINIMUM, leafNode -> leafNodeOffsets.get(leafNode).intValue()).getNodes();
+			} else {
+				this.boundingVolumeHierarchy = new float[ARRAY_EMPTY_LENGTH];
+			}
+		}
+		
+		return this.boundingVolumeHierarchy;
+	}
+	
+	/**
+	 * Returns the array containing all the compiled {@link Triangle} instances.
+	 * 
+	 * @return the array containing all the compiled {@code Triangle} instances
+	 */
+	public synchronized float[] getTriangles() {
+		return this.triangles;
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
 	/**
 	 * Adds {@code point2F} to this {@code DynamicCompiledScene} instance.
 	 * <p>
@@ -127,6 +217,50 @@ public final class DynamicCompiledScene {
 		return doAdd(texture.toArray(), this.textures, textures -> this.textures = textures, Texture.RELATIVE_OFFSET_SIZE);
 	}
 	
+	/**
+	 * Adds {@code triangle} to this {@code DynamicCompiledScene} instance.
+	 * <p>
+	 * Returns the index of {@code triangle}.
+	 * <p>
+	 * The {@link Point2F}s, {@link Point3F}s and {@link Vector3F}s of {@code triangle} are added as well, and {@code triangle} is inserted into the Bounding Volume Hierarchy (BVH).
+	 * <p>
+	 * If {@code triangle} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param triangle the {@link Triangle} to add
+	 * @return the index of {@code triangle}
+	 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
+	 */
+	public synchronized int add(final Triangle triangle) {
+		add(triangle.getA().getPosition());
+		add(triangle.getB().getPosition());
+		add(triangle.getC().getPosition());
+		add(triangle.getA().getNormal());
+		add(triangle.getB().getNormal());
+		add(triangle.getC().getNormal());
+		add(triangle.getA().getTextureCoordinates());
+		add(triangle.getB().getTextureCoordinates());
+		add(triangle.getC().getTextureCoordinates());
+		add(triangle.getA().getTangent());
+		add(triangle.getB().getTangent());
+		add(triangle.getC().getTangent());
+		
+		final float[] structure = doToArray(triangle);
+		
+		final int index = doIndexOf(structure, this.triangles);
+		
+		if(index != -1) {
+			return index;
+		}
+		
+		this.triangleList.add(triangle);
+		
+		this.dynamicBoundingVolumeHierarchy.add(triangle);
+		
+		this.boundingVolumeHierarchy = null;
+		
+		return doAdd(structure, this.triangles, triangles -> this.triangles = triangles);
+	}
+	
 	/**
 	 * Adds {@code vector3F} to this {@code DynamicCompiledScene} instance.
 	 * <p>
@@ -194,6 +328,19 @@ public final class DynamicCompiledScene {
 		return doIndexOf(texture.toArray(), this.textures, Texture.RELATIVE_OFFSET_SIZE);
 	}
 	
+	/**
+	 * Returns the index of {@code triangle}, or {@code -1} if it does not exist.
+	 * <p>
+	 * If {@code triangle} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param triangle the {@link Triangle} to check
+	 * @return the index of {@code triangle}, or {@code -1} if it does not exist
+	 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
+	 */
+	public synchronized int indexOf(final Triangle triangle) {
+		return doIndexOf(doToArray(triangle), this.triangles);
+	}
+	
 	/**
 	 * Returns the index of {@code vector3F}, or {@code -1} if it does not exist.
 	 * <p>
@@ -216,9 +363,8 @@ public final class DynamicCompiledScene {
 	 * @return the number of references to {@code point2F}
 	 * @throws NullPointerException thrown if, and only if, {@code point2F} is {@code null}
 	 */
-	@SuppressWarnings("static-method")
 	public synchronized int referencesTo(final Point2F point2F) {
-		return 0;//TODO: Implement!
+		return doReferencesTo(indexOf(point2F), this.triangles, Triangle.SIZE, Triangle.RELATIVE_OFFSET_A_TEXTURE_COORDINATES_OFFSET, Triangle.RELATIVE_OFFSET_B_TEXTURE_COORDINATES_OFFSET, Triangle.RELATIVE_OFFSET_C_TEXTURE_COORDINATES_OFFSET);
 	}
 	
 	/**
@@ -230,9 +376,8 @@ public final class DynamicCompiledScene {
 	 * @return the number of references to {@code point3F}
 	 * @throws NullPointerException thrown if, and only if, {@code point3F} is {@code null}
 	 */
-	@SuppressWarnings("static-method")
 	public synchronized int referencesTo(final Point3F point3F) {
-		return 0;//TODO: Implement!
+		return doReferencesTo(indexOf(point3F), this.triangles, Triangle.SIZE, Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET, Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET, Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET);
 	}
 	
 	/**
@@ -272,39 +417,56 @@ public final class DynamicCompiledScene {
 	 * @return the number of references to {@code vector3F}
 	 * @throws NullPointerException thrown if, and only if, {@code vector3F} is {@code null}
 	 */
-	@SuppressWarnings("static-method")
 	public synchronized int referencesTo(final Vector3F vector3F) {
-		return 0;//TODO: Implement!
+		return doReferencesTo(indexOf(vector3F), this.triangles, Triangle.SIZE, VECTOR_3_F_RELATIVE_OFFSETS);
 	}
 	
 	/**
-	 * Removes {@code point2F} from this {@code DynamicCompiledScene} instance, if it exists.
+	 * Removes {@code point2F} from this {@code DynamicCompiledScene} instance, if it exists and is not referenced by a {@link Triangle}.
 	 * <p>
-	 * Returns the index of {@code point2F}, or {@code -1} if it does not exist.
+	 * Returns the index of {@code point2F}, or {@code -1} if it does not exist or is referenced by a {@code Triangle}.
 	 * <p>
 	 * If {@code point2F} is {@code null}, a {@code NullPointerException} will be thrown.
 	 * 
 	 * @param point2F the {@link Point3F} to remove
-	 * @return the index of {@code point2F}, or {@code -1} if it does not exist
+	 * @return the index of {@code point2F}, or {@code -1} if it does not exist or is referenced by a {@code Triangle}
 	 * @throws NullPointerException thrown if, and only if, {@code point2F} is {@code null}
 	 */
 	public synchronized int remove(final Point2F point2F) {
-		return doRemove(new float[] {point2F.x, point2F.y}, this.point2Fs, point2Fs -> this.point2Fs = point2Fs);
+		if(referencesTo(point2F) > 0) {
+			return -1;
+		}
+		
+		final int index = doRemove(new float[] {point2F.x, point2F.y}, this.point2Fs, point2Fs -> this.point2Fs = point2Fs);
+		
+//		The offsets of the Point2Fs after the removed one have to be updated in the Triangles that refer to them:
+		doUpdateReferences(index, 2, this.triangles, Triangle.SIZE, Triangle.RELATIVE_OFFSET_A_TEXTURE_COORDINATES_OFFSET, Triangle.RELATIVE_OFFSET_B_TEXTURE_COORDINATES_OFFSET, Triangle.RELATIVE_OFFSET_C_TEXTURE_COORDINATES_OFFSET);
+		
+		return index;
 	}
 	
 	/**
-	 * Removes {@code point3F} from this {@code DynamicCompiledScene} instance, if it exists.
+	 * Removes {@code point3F} from this {@code DynamicCompiledScene} instance, if it exists and is not referenced by a {@link Triangle}.
 	 * <p>
-	 * Returns the index of {@code point3F}, or {@code -1} if it does not exist.
+	 * Returns the index of {@code point3F}, or {@code -1} if it does not exist or is referenced by a {@code Triangle}.
 	 * <p>
 	 * If {@code point3F} is {@code null}, a {@code NullPointerException} will be thrown.
 	 * 
 	 * @param point3F the {@link Point3F} to remove
-	 * @return the index of {@code point3F}, or {@code -1} if it does not exist
+	 * @return the index of {@code point3F}, or {@code -1} if it does not exist or is referenced by a {@code Triangle}
 	 * @throws NullPointerException thrown if, and only if, {@code point3F} is {@code null}
 	 */
 	public synchronized int remove(final Point3F point3F) {
-		return doRemove(new float[] {point3F.x, point3F.y, point3F.z}, this.point3Fs, point3Fs -> this.point3Fs = point3Fs);
+		if(referencesTo(point3F) > 0) {
+			return -1;
+		}
+		
+		final int index = doRemove(new float[] {point3F.x, point3F.y, point3F.z}, this.point3Fs, point3Fs -> this.point3Fs = point3Fs);
+		
+//		The offsets of the Point3Fs after the removed one have to be updated in the Triangles that refer to them:
+		doUpdateReferences(index, 3, this.triangles, Triangle.SIZE, Triangle.RELATIVE_OFFSET_A_POSITION_OFFSET, Triangle.RELATIVE_OFFSET_B_POSITION_OFFSET, Triangle.RELATIVE_OFFSET_C_POSITION_OFFSET);
+		
+		return index;
 	}
 	
 	/**
@@ -338,18 +500,54 @@ public final class DynamicCompiledScene {
 	}
 	
 	/**
-	 * Removes {@code vector3F} from this {@code DynamicCompiledScene} instance, if it exists.
+	 * Removes {@code triangle} from this {@code DynamicCompiledScene} instance, if it exists.
 	 * <p>
-	 * Returns the index of {@code vector3F}, or {@code -1} if it does not exist.
+	 * Returns the index of {@code triangle}, or {@code -1} if it does not exist.
+	 * <p>
+	 * The {@link Point2F}s, {@link Point3F}s and {@link Vector3F}s of {@code triangle} are not removed, but {@code triangle} is removed from the Bounding Volume Hierarchy (BVH).
+	 * <p>
+	 * If {@code triangle} is {@code null}, a {@code NullPointerException} will be thrown.
+	 * 
+	 * @param triangle the {@link Triangle} to remove
+	 * @return the index of {@code triangle}, or {@code -1} if it does not exist
+	 * @throws NullPointerException thrown if, and only if, {@code triangle} is {@code null}
+	 */
+	public synchronized int remove(final Triangle triangle) {
+		final int index = doRemove(doToArray(triangle), this.triangles, triangles -> this.triangles = triangles);
+		
+		if(index != -1) {
+			this.triangleList.remove(index / Triangle.SIZE);
+			
+			this.dynamicBoundingVolumeHierarchy.remove(triangle);
+			
+			this.boundingVolumeHierarchy = null;
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Removes {@code vector3F} from this {@code DynamicCompiledScene} instance, if it exists and is not referenced by a {@link Triangle}.
+	 * <p>
+	 * Returns the index of {@code vector3F}, or {@code -1} if it does not exist or is referenced by a {@code Triangle}.
 	 * <p>
 	 * If {@code vector3F} is {@code null}, a {@code NullPointerException} will be thrown.
 	 * 
 	 * @param vector3F the {@link Vector3F} to remove
-	 * @return the index of {@code vector3F}, or {@code -1} if it does not exist
+	 * @return the index of {@code vector3F}, or {@code -1} if it does not exist or is referenced by a {@code Triangle}
 	 * @throws NullPointerException thrown if, and only if, {@code vector3F} is {@code null}
 	 */
 	public synchronized int remove(final Vector3F vector3F) {
-		return doRemove(new float[] {vector3F.x, vector3F.y, vector3F.z}, this.vector3Fs, vector3Fs -> this.vector3Fs = vector3Fs);
+		if(referencesTo(vector3F) > 0) {
+			return -1;
+		}
+		
+		final int index = doRemove(new float[] {vector3F.x, vector3F.y, vector3F.z}, this.vector3Fs, vector3Fs -> this.vector3Fs = vector3Fs);
+		
+//		The offsets of the Vector3Fs after the removed one have to be updated in the Triangles that refer to them:
+		doUpdateReferences(index, 3, this.triangles, Triangle.SIZE, VECTOR_3_F_RELATIVE_OFFSETS);
+		
+		return index;
 	}
 	
 	/**
@@ -367,6 +565,23 @@ public final class DynamicCompiledScene {
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	private synchronized float[] doToArray(final Triangle triangle) {
+		return new float[] {
+			indexOf(triangle.getA().getPosition()),
+			indexOf(triangle.getB().getPosition()),
+			indexOf(triangle.getC().getPosition()),
+			indexOf(triangle.getA().getNormal()),
+			indexOf(triangle.getB().getNormal()),
+			indexOf(triangle.getC().getNormal()),
+			indexOf(triangle.getA().getTextureCoordinates()),
+			indexOf(triangle.getB().getTextureCoordinates()),
+			indexOf(triangle.getC().getTextureCoordinates()),
+			indexOf(triangle.getA().getTangent()),
+			indexOf(triangle.getB().getTangent()),
+			indexOf(triangle.getC().getTangent())
+		};
+	}
+	
 	private synchronized float[] doToArray(final Surface surface) {
 		return new float[] {
 			surface.getMaterial().getType(),
@@ -505,6 +720,31 @@ public final class DynamicCompiledScene {
 		return -1;
 	}
 	
+	private static synchronized int doReferencesTo(final int index, final float[] structures, final int size, final int... relativeOffsets) {
+		/*
+		 * index:				The index of the structure to count the references to.
+		 * structures:			The set of structures that may reference the structure at 'index'.
+		 * size:				The size of each structure in the 'structures' array.
+		 * relativeOffsets:		The relative offsets in each structure of the 'structures' array that may contain a reference.
+		 */
+		
+		if(index == -1 || structures.length <= ARRAY_EMPTY_LENGTH) {
+			return 0;
+		}
+		
+		int references = 0;
+		
+		for(int i = 0; i < structures.length; i += size) {
+			for(final int relativeOffset : relativeOffsets) {
+				if((int)(structures[i + relativeOffset]) == index) {
+					references++;
+				}
+			}
+		}
+		
+		return references;
+	}
+	
 	private static synchronized int doRemove(final float[] structure, final float[] structures, final Consumer<float[]> consumer) {
 		return doRemove(structure, structures, consumer, -1);
 	}
@@ -576,4 +816,26 @@ public final class DynamicCompiledScene {
 //		Return the index of 'structure' that was removed:
 		return index;
 	}
+	
+	private static synchronized void doUpdateReferences(final int index, final int indexSize, final float[] structures, final int size, final int... relativeOffsets) {
+		/*
+		 * index:				The index of the structure that was removed.
+		 * indexSize:			The size of the structure that was removed.
+		 * structures:			The set of structures that may reference the structures after the one that was removed.
+		 * size:				The size of each structure in the 'structures' array.
+		 * relativeOffsets:		The relative offsets in each structure of the 'structures' array that may contain a reference.
+		 */
+		
+		if(index == -1 || structures.length <= ARRAY_EMPTY_LENGTH) {
+			return;
+		}
+		
+		for(int i = 0; i < structures.length; i += size) {
+			for(final int relativeOffset : relativeOffsets) {
+				if((int)(structures[i + relativeOffset]) > index) {
+					structures[i + relativeOffset] -= indexSize;
+				}
+			}
+		}
+	}
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import org.dayflower.pathtracer.scene.Surface;
 import org.dayflower.pathtracer.scene.Texture;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchyMetrics;
 import org.dayflower.pathtracer.scene.shape.Plane;
 import org.dayflower.pathtracer.scene.shape.Sphere;
 import org.dayflower.pathtracer.scene.shape.Terrain;
@@ -226,4 +227,17 @@ public final class PrintingSceneCompilerObserver implements SceneCompilerObserve
 	public void onCompilationStart(final Scene scene, final long milliseconds) {
 		System.out.printf("%s SceneCompiler: Start...%n", Long.toString(milliseconds));
 	}
+	
+	/**
+	 * Called by a {@link SceneCompiler} to report metrics about the quality of the {@link BoundingVolumeHierarchy} of a unique {@link TriangleMesh}.
+	 * 
+	 * @param scene the {@link Scene} being compiled
+	 * @param milliseconds the time the compilation process has taken this far, in milliseconds
+	 * @param triangleMesh the {@code TriangleMesh} the {@code BoundingVolumeHierarchy} was built for
+	 * @param boundingVolumeHierarchyMetrics the {@link BoundingVolumeHierarchyMetrics} of the {@code BoundingVolumeHierarchy}
+	 */
+	@Override
+	public void onMetricsBoundingVolumeHierarchy(final Scene scene, final long milliseconds, final TriangleMesh triangleMesh, final BoundingVolumeHierarchyMetrics boundingVolumeHierarchyMetrics) {
+		System.out.printf("%s SceneCompiler: BoundingVolumeHierarchy: %s Triangles: %s%n", Long.toString(milliseconds), Integer.toString(triangleMesh.getTriangles().size()), boundingVolumeHierarchyMetrics);
+	}
 }
\ No newline at end of file
@@ -18,11 +18,21 @@
  */
 package org.dayflower.pathtracer.scene.compiler;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.dayflower.pathtracer.scene.Primitive;
 import org.dayflower.pathtracer.scene.Scene;
@@ -30,6 +40,10 @@ import org.dayflower.pathtracer.scene.Shape;
 import org.dayflower.pathtracer.scene.Surface;
 import org.dayflower.pathtracer.scene.Texture;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchyCache;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchyMetrics;
+import org.dayflower.pathtracer.scene.bvh.PrimitiveBoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.WideBoundingVolumeHierarchy;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.LeafNode;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.TreeNode;
@@ -52,6 +66,12 @@ import org.macroing.math4j.Vector3F;
  * @author J&#246;rgen Lundgren
  */
 public final class SceneCompiler {
+	private final AtomicBoolean isPrecomputingTriangles;
+	private final AtomicInteger boundingVolumeHierarchyBuilderType;
+	private final AtomicInteger boundingVolumeHierarchyQuantizationBits;
+	private final AtomicInteger boundingVolumeHierarchySpatialSplitBudget;
+	private final AtomicInteger boundingVolumeHierarchyWidth;
+	private final AtomicReference<File> boundingVolumeHierarchyCacheDirectory;
 	private final List<SceneCompilerObserver> sceneCompilerObservers;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -60,6 +80,12 @@ public final class SceneCompiler {
 	 * Constructs a new {@code SceneCompiler} instance.
 	 */
 	public SceneCompiler() {
+		this.isPrecomputingTriangles = new AtomicBoolean(true);
+		this.boundingVolumeHierarchyBuilderType = new AtomicInteger(BoundingVolumeHierarchy.BUILDER_TYPE_BINNED_SAH);
+		this.boundingVolumeHierarchyQuantizationBits = new AtomicInteger(WideBoundingVolumeHierarchy.QUANTIZATION_BITS_NONE);
+		this.boundingVolumeHierarchySpatialSplitBudget = new AtomicInteger(BoundingVolumeHierarchy.SPATIAL_SPLIT_BUDGET_DEFAULT);
+		this.boundingVolumeHierarchyWidth = new AtomicInteger(2);
+		this.boundingVolumeHierarchyCacheDirectory = new AtomicReference<>();
 		this.sceneCompilerObservers = new ArrayList<>();
 	}
 	
@@ -79,20 +105,38 @@ public final class SceneCompiler {
 	public CompiledScene compile(final Scene scene) {
 		final long currentTimeMillis = System.currentTimeMillis();
 		
+		final int boundingVolumeHierarchyBuilderType = getBoundingVolumeHierarchyBuilderType();
+		final int boundingVolumeHierarchyQuantizationBits = getBoundingVolumeHierarchyQuantizationBits();
+		final int boundingVolumeHierarchySpatialSplitBudget = getBoundingVolumeHierarchySpatialSplitBudget();
+		final int boundingVolumeHierarchyWidth = getBoundingVolumeHierarchyWidth();
+		
+		final Optional<BoundingVolumeHierarchyCache> boundingVolumeHierarchyCache = getBoundingVolumeHierarchyCacheDirectory().map(BoundingVolumeHierarchyCache::new);
+		
+		final boolean isCompilingWideBoundingVolumeHierarchies = boundingVolumeHierarchyWidth > 2 || boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_NONE;
+		
 		doOnCompilationStart(scene, System.currentTimeMillis() - currentTimeMillis);
 		
 //		Retrieve all Primitives:
 		final List<Primitive> allPrimitives = doFindAllPrimitives(scene);
 		
+//		Retrieve all Primitives whose Shape instance has not been seen in a previous Primitive, so that the Shapes of instanced Primitives are only processed once:
+		final List<Primitive> allPrimitivesWithDistinctShapes = doFindAllPrimitivesWithDistinctShapes(allPrimitives);
+		
 //		Retrieve all Shapes:
-		final List<Plane> allPlanes = doFindAllPlanes(allPrimitives);
-		final List<Sphere> allSpheres = doFindAllSpheres(allPrimitives);
-		final List<Terrain> allTerrains = doFindAllTerrains(allPrimitives);
-		final List<Triangle> allTriangles = doFindAllTriangles(allPrimitives);
-		final List<TriangleMesh> allTriangleMeshes = doFindAllTriangleMeshes(allPrimitives);
+		final List<Plane> allPlanes = doFindAllPlanes(allPrimitivesWithDistinctShapes);
+		final List<Sphere> allSpheres = doFindAllSpheres(allPrimitivesWithDistinctShapes);
+		final List<Terrain> allTerrains = doFindAllTerrains(allPrimitivesWithDistinctShapes);
+		final List<Triangle> allTriangles = doFindAllTriangles(allPrimitivesWithDistinctShapes);
+		final List<TriangleMesh> allTriangleMeshes = doFindAllTriangleMeshes(allPrimitivesWithDistinctShapes);
+		
+//		Retrieve all unique TriangleMeshes:
+		final List<TriangleMesh> uniqueTriangleMeshes = doFindUniqueTriangleMeshes(allTriangleMeshes);
+		
+//		Create the BoundingVolumeHierarchy root-Node of each unique TriangleMesh, so that it is only built once, or read it from the cache if it has been built before:
+		final List<Node> uniqueBoundingVolumeHierarchyRootNodes = doCreateBoundingVolumeHierarchyRootNodes(uniqueTriangleMeshes, boundingVolumeHierarchyBuilderType, boundingVolumeHierarchySpatialSplitBudget, boundingVolumeHierarchyCache);
 		
-//		Retrieve all BoundingVolumeHierarchy root-Nodes:
-		final List<Node> allBoundingVolumeHierarchyRootNodes = doFindAllBoundingVolumeHierarchyRootNodes(allTriangleMeshes);
+//		Retrieve the BoundingVolumeHierarchy root-Nodes that should be compiled into the binary format, which stores its bounds as Point3Fs:
+		final List<Node> uniqueBinaryBoundingVolumeHierarchyRootNodes = isCompilingWideBoundingVolumeHierarchies ? Collections.emptyList() : uniqueBoundingVolumeHierarchyRootNodes;
 		
 //		Retrieve all Surfaces:
 		final List<Surface> allSurfaces = doFindAllSurfaces(allPrimitives);
@@ -101,9 +145,9 @@ public final class SceneCompiler {
 		final List<Texture> allTextures = doFindAllTextures(allSurfaces);
 		
 //		Retrieve all Point2Fs, Point3Fs and Vector3Fs:
-		final List<Point2F> allPoint2Fs = doFindAllPoint2Fs(allPrimitives);
-		final List<Point3F> allPoint3Fs = doFindAllPoint3Fs(allBoundingVolumeHierarchyRootNodes, allPrimitives);
-		final List<Vector3F> allVector3Fs = doFindAllVector3Fs(allPrimitives);
+		final List<Point2F> allPoint2Fs = doFindAllPoint2Fs(allPrimitivesWithDistinctShapes);
+		final List<Point3F> allPoint3Fs = doFindAllPoint3Fs(uniqueBinaryBoundingVolumeHierarchyRootNodes, allPrimitivesWithDistinctShapes);
+		final List<Vector3F> allVector3Fs = doFindAllVector3Fs(allPrimitivesWithDistinctShapes);
 		
 //		Retrieve all unique Primitives:
 		final List<Primitive> uniquePrimitives = doFindUniquePrimitives(allPrimitives);
@@ -114,10 +158,9 @@ public final class SceneCompiler {
 		final List<Sphere> uniqueSpheres = doFindUniqueSpheres(allSpheres);
 		final List<Terrain> uniqueTerrains = doFindUniqueTerrains(allTerrains);
 		final List<Triangle> uniqueTriangles = doFindUniqueTriangles(allTriangles);
-		final List<TriangleMesh> uniqueTriangleMeshes = doFindUniqueTriangleMeshes(allTriangleMeshes);
 		
-//		Retrieve all unique BoundingVolumeHierarchy root-Nodes:
-		final List<Node> uniqueBoundingVolumeHierarchyRootNodes = doFindUniqueBoundingVolumeHierarchyRootNodes(allBoundingVolumeHierarchyRootNodes);
+//		Retrieve all unique Triangles in the order of the LeafNodes of the BoundingVolumeHierarchy root-Nodes, so that the Triangles of each LeafNode are stored next to each other, followed by the Triangles that are not part of a TriangleMesh:
+		final List<Triangle> leafOrderedTriangles = doFindLeafOrderedTriangles(uniqueBoundingVolumeHierarchyRootNodes, uniqueTriangles);
 		
 //		Retrieve all unique Surfaces:
 		final List<Surface> uniqueSurfaces = doFindUniqueSurfaces(allSurfaces);
@@ -137,18 +180,31 @@ public final class SceneCompiler {
 		doOnComparisonTerrain(scene, System.currentTimeMillis() - currentTimeMillis, allTerrains.size(), uniqueTerrains.size());
 		doOnComparisonTriangle(scene, System.currentTimeMillis() - currentTimeMillis, allTriangles.size(), uniqueTriangles.size());
 		doOnComparisonTriangleMesh(scene, System.currentTimeMillis() - currentTimeMillis, allTriangleMeshes.size(), uniqueTriangleMeshes.size());
-		doOnComparisonBoundingVolumeHierarchyRootNode(scene, System.currentTimeMillis() - currentTimeMillis, allBoundingVolumeHierarchyRootNodes.size(), uniqueBoundingVolumeHierarchyRootNodes.size());
+		doOnComparisonBoundingVolumeHierarchyRootNode(scene, System.currentTimeMillis() - currentTimeMillis, allTriangleMeshes.size(), uniqueBoundingVolumeHierarchyRootNodes.size());
 		doOnComparisonSurface(scene, System.currentTimeMillis() - currentTimeMillis, allSurfaces.size(), uniqueSurfaces.size());
 		doOnComparisonTexture(scene, System.currentTimeMillis() - currentTimeMillis, allTextures.size(), uniqueTextures.size());
 		doOnComparisonPoint2F(scene, System.currentTimeMillis() - currentTimeMillis, allPoint2Fs.size(), uniquePoint2Fs.size());
 		doOnComparisonPoint3F(scene, System.currentTimeMillis() - currentTimeMillis, allPoint3Fs.size(), uniquePoint3Fs.size());
 		doOnComparisonVector3F(scene, System.currentTimeMillis() - currentTimeMillis, allVector3Fs.size(), uniqueVector3Fs.size());
 		
+//		Notify all SceneCompilerObservers of the quality of the BoundingVolumeHierarchy of each unique TriangleMesh:
+		for(int i = 0; i < uniqueTriangleMeshes.size(); i++) {
+			doOnMetricsBoundingVolumeHierarchy(scene, System.currentTimeMillis() - currentTimeMillis, uniqueTriangleMeshes.get(i), uniqueBoundingVolumeHierarchyRootNodes.get(i));
+		}
+		
 //		Create mappings from Shapes to Integer indices:
 		final Map<Plane, Integer> planeMappings = doCreatePlaneMappings(uniquePlanes);
 		final Map<Sphere, Integer> sphereMappings = doCreateSphereMappings(uniqueSpheres);
 		final Map<Terrain, Integer> terrainMappings = doCreateTerrainMappings(uniqueTerrains);
-		final Map<Triangle, Integer> triangleMappings = doCreateTriangleMappings(uniqueTriangles);
+		final Map<Triangle, Integer> triangleMappings = doCreateTriangleMappings(leafOrderedTriangles);
+		
+//		Create mappings from LeafNodes to the Integer index of their first Triangle:
+		final Map<LeafNode, Integer> leafNodeMappings = doCreateLeafNodeMappings(uniqueBoundingVolumeHierarchyRootNodes);
+		
+//		Collapse the BoundingVolumeHierarchy root-Nodes into WideBoundingVolumeHierarchies, if a width greater than 2 or quantization has been set:
+		final List<WideBoundingVolumeHierarchy> uniqueWideBoundingVolumeHierarchies = isCompilingWideBoundingVolumeHierarchies ? doCreateWideBoundingVolumeHierarchies(uniqueBoundingVolumeHierarchyRootNodes, boundingVolumeHierarchyWidth, boundingVolumeHierarchyQuantizationBits, leafNodeMappings) : Collections.emptyList();
+		
+		final Map<TriangleMesh, Integer> triangleMeshMappings = doCreateTriangleMeshMappings(uniqueTriangleMeshes, uniqueBinaryBoundingVolumeHierarchyRootNodes, uniqueWideBoundingVolumeHierarchies);
 		
 //		Create mappings from Surfaces to Integer indices:
 		final Map<Surface, Integer> surfaceMappings = doCreateSurfaceMappings(uniqueSurfaces);
@@ -165,6 +221,7 @@ public final class SceneCompiler {
 		final Map<Vector3F, Integer> vector3FMappings = doCreateVector3FMappings(uniqueVector3Fs);
 		
 //		Compile the scene:
+		final float[] boundingVolumeHierarchiesWide = doCompileBoundingVolumeHierarchiesWide(uniqueWideBoundingVolumeHierarchies);
 		final float[] camera = scene.getCamera().getArray();
 		final float[] point2Fs = doCompilePoint2Fs(uniquePoint2Fs);
 		final float[] point3Fs = doCompilePoint3Fs(uniquePoint3Fs);
@@ -176,15 +233,91 @@ public final class SceneCompiler {
 		final float[] textures = doCompileTextures(uniqueTextures, textureMappings);
 		final float[] vector3Fs = doCompileVector3Fs(uniqueVector3Fs);
 		
-		final int[] boundingVolumeHierarchies = doCompileBoundingVolumeHierarchies(uniqueBoundingVolumeHierarchyRootNodes, point3FMappings, triangleMappings);
+		final int[] boundingVolumeHierarchies = doCompileBoundingVolumeHierarchies(uniqueBinaryBoundingVolumeHierarchyRootNodes, point3FMappings, leafNodeMappings);
 		final int[] planes = doCompilePlanes(uniquePlanes, point3FMappings, vector3FMappings);
-		final int[] primitives = doCompilePrimitives(uniquePrimitives, uniqueTriangleMeshes, uniqueBoundingVolumeHierarchyRootNodes, planeMappings, sphereMappings, surfaceMappings, terrainMappings, triangleMappings);
+		final int[] primitives = doCompilePrimitives(uniquePrimitives, planeMappings, sphereMappings, surfaceMappings, terrainMappings, triangleMappings, triangleMeshMappings);
+		
+//		Compile the PrimitiveBoundingVolumeHierarchy over the world space bounds of all unique Primitives:
+		final PrimitiveBoundingVolumeHierarchy primitiveBoundingVolumeHierarchy = PrimitiveBoundingVolumeHierarchy.createPrimitiveBoundingVolumeHierarchy(uniquePrimitives);
+		
+		final float[] primitivesBoundingVolumeHierarchyBounds = primitiveBoundingVolumeHierarchy.getBounds();
+		
+		final int[] primitivesBoundingVolumeHierarchy = primitiveBoundingVolumeHierarchy.getNodes();
+		final int[] primitivesUnbounded = primitiveBoundingVolumeHierarchy.getUnboundedPrimitives();
 //		final int[] primitivesEmittingLight = doCompilePrimitivesEmittingLight(uniquePrimitivesEmittingLight, primitiveMappings);
-		final int[] triangles = doCompileTriangles(uniqueTriangles, point2FMappings, point3FMappings, vector3FMappings);
+		final int[] triangles = doCompileTriangles(leafOrderedTriangles, point2FMappings, point3FMappings, vector3FMappings);
+		
+		final float[] trianglesPrecomputed = isPrecomputingTriangles() ? doCompileTrianglesPrecomputed(leafOrderedTriangles) : new float[1];
 		
 		doOnCompilationEnd(scene, System.currentTimeMillis() - currentTimeMillis);
 		
-		return new CompiledScene(scene.getName(), camera, point2Fs, point3Fs, primitivesObjectToWorld, primitivesWorldToObject, spheres, surfaces, terrains, textures, vector3Fs, boundingVolumeHierarchies, planes, primitives, /*primitivesEmittingLight, */triangles);
+		return new CompiledScene(scene.getName(), boundingVolumeHierarchiesWide, camera, point2Fs, point3Fs, primitivesBoundingVolumeHierarchyBounds, primitivesObjectToWorld, primitivesWorldToObject, spheres, surfaces, terrains, textures, trianglesPrecomputed, vector3Fs, boundingVolumeHierarchies, planes, primitives, primitivesBoundingVolumeHierarchy, /*primitivesEmittingLight, */primitivesUnbounded, triangles);
+	}
+	
+	/**
+	 * Returns an {@code Optional} with the directory of the {@link BoundingVolumeHierarchyCache} used to read and write the {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * By default no directory is set, which means that the {@code BoundingVolumeHierarchy} instances are always built.
+	 * 
+	 * @return an {@code Optional} with the directory of the {@code BoundingVolumeHierarchyCache} used to read and write the {@code BoundingVolumeHierarchy} instances
+	 */
+	public Optional<File> getBoundingVolumeHierarchyCacheDirectory() {
+		return Optional.ofNullable(this.boundingVolumeHierarchyCacheDirectory.get());
+	}
+	
+	/**
+	 * Returns the builder type used to build the {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * The default builder type is {@link BoundingVolumeHierarchy#BUILDER_TYPE_BINNED_SAH}.
+	 * 
+	 * @return the builder type used to build the {@code BoundingVolumeHierarchy} instances
+	 */
+	public int getBoundingVolumeHierarchyBuilderType() {
+		return this.boundingVolumeHierarchyBuilderType.get();
+	}
+	
+	/**
+	 * Returns the number of bits per quantized value in the bounds of the compiled {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * The default number of bits is {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_NONE}.
+	 * 
+	 * @return the number of bits per quantized value in the bounds of the compiled {@code BoundingVolumeHierarchy} instances
+	 */
+	public int getBoundingVolumeHierarchyQuantizationBits() {
+		return this.boundingVolumeHierarchyQuantizationBits.get();
+	}
+	
+	/**
+	 * Returns the maximum number of duplicated {@code Triangle} references of each {@link BoundingVolumeHierarchy} instance, in percent of the number of {@code Triangle}s in it.
+	 * <p>
+	 * The default budget is {@link BoundingVolumeHierarchy#SPATIAL_SPLIT_BUDGET_DEFAULT}.
+	 * 
+	 * @return the maximum number of duplicated {@code Triangle} references of each {@code BoundingVolumeHierarchy} instance, in percent of the number of {@code Triangle}s in it
+	 */
+	public int getBoundingVolumeHierarchySpatialSplitBudget() {
+		return this.boundingVolumeHierarchySpatialSplitBudget.get();
+	}
+	
+	/**
+	 * Returns the maximum number of children of each tree node in the compiled {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * The default width is {@code 2}.
+	 * 
+	 * @return the maximum number of children of each tree node in the compiled {@code BoundingVolumeHierarchy} instances
+	 */
+	public int getBoundingVolumeHierarchyWidth() {
+		return this.boundingVolumeHierarchyWidth.get();
+	}
+	
+	/**
+	 * Returns {@code true} if, and only if, the data used by the ray-triangle intersection test is precomputed for each {@link Triangle}, {@code false} otherwise.
+	 * <p>
+	 * By default this is {@code true}.
+	 * 
+	 * @return {@code true} if, and only if, the data used by the ray-triangle intersection test is precomputed for each {@code Triangle}, {@code false} otherwise
+	 */
+	public boolean isPrecomputingTriangles() {
+		return this.isPrecomputingTriangles.get();
 	}
 	
 	/**
@@ -211,6 +344,104 @@ public final class SceneCompiler {
 		this.sceneCompilerObservers.remove(Objects.requireNonNull(sceneCompilerObserver, "sceneCompilerObserver == null"));
 	}
 	
+	/**
+	 * Sets the directory of the {@link BoundingVolumeHierarchyCache} used to read and write the {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * If a directory is set, the {@code BoundingVolumeHierarchy} of each {@code TriangleMesh} is read from it if it has been built before with the same builder type and spatial split budget, and written to it otherwise.
+	 * 
+	 * @param boundingVolumeHierarchyCacheDirectory the directory, which may be {@code null} to disable the cache
+	 */
+	public void setBoundingVolumeHierarchyCacheDirectory(final File boundingVolumeHierarchyCacheDirectory) {
+		this.boundingVolumeHierarchyCacheDirectory.set(boundingVolumeHierarchyCacheDirectory);
+	}
+	
+	/**
+	 * Sets the builder type used to build the {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * The builder type can be one of {@link BoundingVolumeHierarchy#BUILDER_TYPE_BINNED_SAH}, {@link BoundingVolumeHierarchy#BUILDER_TYPE_LINEAR}, {@link BoundingVolumeHierarchy#BUILDER_TYPE_LINEAR_OPTIMIZED},
+	 * {@link BoundingVolumeHierarchy#BUILDER_TYPE_SPATIAL_SPLIT_SAH} or {@link BoundingVolumeHierarchy#BUILDER_TYPE_SWEEP_SAH}. The spatial split builder may reference a {@code Triangle} from more than one leaf node, which lowers the overlap of the
+	 * nodes for scenes with long and thin {@code Triangle}s. The number of duplicated references is limited by the spatial split budget. The linear builders are the fastest, which makes them suitable when the scene is rebuilt often.
+	 * <p>
+	 * If {@code boundingVolumeHierarchyBuilderType} is not a valid builder type, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchyBuilderType the builder type
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchyBuilderType} is not a valid builder type
+	 */
+	public void setBoundingVolumeHierarchyBuilderType(final int boundingVolumeHierarchyBuilderType) {
+		if(boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_BINNED_SAH && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_LINEAR && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_LINEAR_OPTIMIZED && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_SPATIAL_SPLIT_SAH && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_SWEEP_SAH) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy builder type: %s", Integer.toString(boundingVolumeHierarchyBuilderType)));
+		}
+		
+		this.boundingVolumeHierarchyBuilderType.set(boundingVolumeHierarchyBuilderType);
+	}
+	
+	/**
+	 * Sets the number of bits per quantized value in the bounds of the compiled {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * The number of bits can be one of {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_NONE}, {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_8} or {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_12}. Quantization stores the bounds of
+	 * the children of each tree node inline in a {@link WideBoundingVolumeHierarchy}, relative to the bounds of the tree node itself, instead of as offsets to {@code Point3F}s.
+	 * <p>
+	 * If {@code boundingVolumeHierarchyQuantizationBits} is not a valid number of bits, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchyQuantizationBits the number of bits per quantized value
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchyQuantizationBits} is not a valid number of bits
+	 */
+	public void setBoundingVolumeHierarchyQuantizationBits(final int boundingVolumeHierarchyQuantizationBits) {
+		if(boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_NONE && boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_8 && boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_12) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy quantization bits: %s", Integer.toString(boundingVolumeHierarchyQuantizationBits)));
+		}
+		
+		this.boundingVolumeHierarchyQuantizationBits.set(boundingVolumeHierarchyQuantizationBits);
+	}
+	
+	/**
+	 * Sets the maximum number of duplicated {@code Triangle} references of each {@link BoundingVolumeHierarchy} instance, in percent of the number of {@code Triangle}s in it.
+	 * <p>
+	 * The budget is only used by the {@link BoundingVolumeHierarchy#BUILDER_TYPE_SPATIAL_SPLIT_SAH} builder. A budget of {@code 0} disables the spatial splits.
+	 * <p>
+	 * If {@code boundingVolumeHierarchySpatialSplitBudget} is less than {@code 0} or greater than {@code 1000}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchySpatialSplitBudget the maximum number of duplicated {@code Triangle} references, in percent of the number of {@code Triangle}s
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchySpatialSplitBudget} is less than {@code 0} or greater than {@code 1000}
+	 */
+	public void setBoundingVolumeHierarchySpatialSplitBudget(final int boundingVolumeHierarchySpatialSplitBudget) {
+		if(boundingVolumeHierarchySpatialSplitBudget < 0 || boundingVolumeHierarchySpatialSplitBudget > 1000) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy spatial split budget: %s", Integer.toString(boundingVolumeHierarchySpatialSplitBudget)));
+		}
+		
+		this.boundingVolumeHierarchySpatialSplitBudget.set(boundingVolumeHierarchySpatialSplitBudget);
+	}
+	
+	/**
+	 * Sets the maximum number of children of each tree node in the compiled {@link BoundingVolumeHierarchy} instances.
+	 * <p>
+	 * A width of {@code 2} compiles each {@code BoundingVolumeHierarchy} into the binary format. A width of {@code 4} or {@code 8} collapses each {@code BoundingVolumeHierarchy} into a {@link WideBoundingVolumeHierarchy}, where the bounds of the
+	 * children are stored inline in their parent node. Both formats are supported by the renderer. If quantization has been set, a width of {@code 2} will also use the {@code WideBoundingVolumeHierarchy} format.
+	 * <p>
+	 * If {@code boundingVolumeHierarchyWidth} is not {@code 2}, {@code 4} or {@code 8}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchyWidth the maximum number of children of each tree node
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchyWidth} is not {@code 2}, {@code 4} or {@code 8}
+	 */
+	public void setBoundingVolumeHierarchyWidth(final int boundingVolumeHierarchyWidth) {
+		if(boundingVolumeHierarchyWidth != 2 && boundingVolumeHierarchyWidth != 4 && boundingVolumeHierarchyWidth != 8) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy width: %s", Integer.toString(boundingVolumeHierarchyWidth)));
+		}
+		
+		this.boundingVolumeHierarchyWidth.set(boundingVolumeHierarchyWidth);
+	}
+	
+	/**
+	 * Sets whether the data used by the ray-triangle intersection test should be precomputed for each {@link Triangle}.
+	 * <p>
+	 * The precomputed data consists of the position of point A and the edges from point A to the points B and C, stored contiguously for each {@code Triangle}. This trades some memory for fewer loads and computations per intersection test.
+	 * 
+	 * @param isPrecomputingTriangles {@code true} if, and only if, the data should be precomputed, {@code false} otherwise
+	 */
+	public void setPrecomputingTriangles(final boolean isPrecomputingTriangles) {
+		this.isPrecomputingTriangles.set(isPrecomputingTriangles);
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private void doOnComparisonBoundingVolumeHierarchyRootNode(final Scene scene, final long milliseconds, final int boundingVolumeHierarchyRootNodeCountAll, final int boundingVolumeHierarchyRootNodeCountUnique) {
@@ -269,10 +500,23 @@ public final class SceneCompiler {
 		this.sceneCompilerObservers.forEach(sceneCompilerObserver -> sceneCompilerObserver.onCompilationStart(scene, milliseconds));
 	}
 	
+	private void doOnMetricsBoundingVolumeHierarchy(final Scene scene, final long milliseconds, final TriangleMesh triangleMesh, final Node boundingVolumeHierarchyRootNode) {
+//		The metrics require a full walk of the BoundingVolumeHierarchy, so they are only computed if someone is observing:
+		if(!this.sceneCompilerObservers.isEmpty()) {
+			final BoundingVolumeHierarchyMetrics boundingVolumeHierarchyMetrics = BoundingVolumeHierarchyMetrics.createBoundingVolumeHierarchyMetrics(boundingVolumeHierarchyRootNode);
+			
+			this.sceneCompilerObservers.forEach(sceneCompilerObserver -> sceneCompilerObserver.onMetricsBoundingVolumeHierarchy(scene, milliseconds, triangleMesh, boundingVolumeHierarchyMetrics));
+		}
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
-	private static List<Node> doFindAllBoundingVolumeHierarchyRootNodes(final List<TriangleMesh> triangleMeshes) {
-		return triangleMeshes.stream().map(triangleMesh -> BoundingVolumeHierarchy.createBoundingVolumeHierarchy(triangleMesh.getTriangles()).getRoot()).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+	private static List<Node> doCreateBoundingVolumeHierarchyRootNodes(final List<TriangleMesh> triangleMeshes, final int boundingVolumeHierarchyBuilderType, final int boundingVolumeHierarchySpatialSplitBudget, final Optional<BoundingVolumeHierarchyCache> boundingVolumeHierarchyCache) {
+		return triangleMeshes.stream().map(triangleMesh -> boundingVolumeHierarchyCache.isPresent() ? boundingVolumeHierarchyCache.get().createBoundingVolumeHierarchy(triangleMesh.getTriangles(), boundingVolumeHierarchyBuilderType, boundingVolumeHierarchySpatialSplitBudget) : BoundingVolumeHierarchy.createBoundingVolumeHierarchy(triangleMesh.getTriangles(), boundingVolumeHierarchyBuilderType, boundingVolumeHierarchySpatialSplitBudget)).map(BoundingVolumeHierarchy::getRoot).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+	}
+	
+	private static List<WideBoundingVolumeHierarchy> doCreateWideBoundingVolumeHierarchies(final List<Node> boundingVolumeHierarchyRootNodes, final int boundingVolumeHierarchyWidth, final int boundingVolumeHierarchyQuantizationBits, final Map<LeafNode, Integer> leafNodeMappings) {
+		return boundingVolumeHierarchyRootNodes.stream().map(boundingVolumeHierarchyRootNode -> WideBoundingVolumeHierarchy.createWideBoundingVolumeHierarchy(boundingVolumeHierarchyRootNode, boundingVolumeHierarchyWidth, boundingVolumeHierarchyQuantizationBits, leafNode -> doGetLeafNodeOffset(leafNode, leafNodeMappings))).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
 	}
 	
 	private static List<Plane> doFindAllPlanes(final List<Primitive> primitives) {
@@ -371,6 +615,12 @@ public final class SceneCompiler {
 		return scene.getPrimitives().stream().collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
 	}
 	
+	private static List<Primitive> doFindAllPrimitivesWithDistinctShapes(final List<Primitive> primitives) {
+		final Set<Shape> shapes = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		return primitives.stream().filter(primitive -> shapes.add(primitive.getShape())).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+	}
+	
 	private static List<Sphere> doFindAllSpheres(final List<Primitive> primitives) {
 		return primitives.stream().filter(primitive -> primitive.getShape() instanceof Sphere).map(primitive -> Sphere.class.cast(primitive.getShape())).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
 	}
@@ -509,14 +759,33 @@ public final class SceneCompiler {
 		return allVector3Fs;
 	}
 	
+	private static List<Triangle> doFindLeafOrderedTriangles(final List<Node> boundingVolumeHierarchyRootNodes, final List<Triangle> triangles) {
+		final List<Triangle> leafOrderedTriangles = new ArrayList<>();
+		
+//		A Triangle that has been split by a spatial split is referenced by more than one LeafNode, so it is added once for each of them:
+		for(final Node boundingVolumeHierarchyRootNode : boundingVolumeHierarchyRootNodes) {
+			for(final Node node : boundingVolumeHierarchyRootNode.toList()) {
+				if(node instanceof LeafNode) {
+					leafOrderedTriangles.addAll(LeafNode.class.cast(node).getTriangles());
+				}
+			}
+		}
+		
+		final Set<Triangle> leafTriangles = new HashSet<>(leafOrderedTriangles);
+		
+		for(final Triangle triangle : triangles) {
+			if(!leafTriangles.contains(triangle)) {
+				leafOrderedTriangles.add(triangle);
+			}
+		}
+		
+		return leafOrderedTriangles;
+	}
+	
 //	private static List<Primitive> doFindPrimitivesEmittingLight(final List<Primitive> primitives) {
 //		return primitives.stream().filter(primitive -> primitive.getSurface().getTextureEmission().isEmissive()).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
 //	}
 	
-	private static List<Node> doFindUniqueBoundingVolumeHierarchyRootNodes(final List<Node> boundingVolumeHierarchyRootNodes) {
-		return boundingVolumeHierarchyRootNodes.stream().distinct().collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-	}
-	
 	private static List<Plane> doFindUniquePlanes(final List<Plane> planes) {
 		return planes.stream().distinct().collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
 	}
@@ -561,6 +830,26 @@ public final class SceneCompiler {
 		return vector3Fs.stream().distinct().collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
 	}
 	
+	private static Map<LeafNode, Integer> doCreateLeafNodeMappings(final List<Node> boundingVolumeHierarchyRootNodes) {
+		final Map<LeafNode, Integer> leafNodeMappings = new IdentityHashMap<>();
+		
+		int i = 0;
+		
+		for(final Node boundingVolumeHierarchyRootNode : boundingVolumeHierarchyRootNodes) {
+			for(final Node node : boundingVolumeHierarchyRootNode.toList()) {
+				if(node instanceof LeafNode) {
+					final LeafNode leafNode = LeafNode.class.cast(node);
+					
+					leafNodeMappings.put(leafNode, Integer.valueOf(i * Triangle.SIZE));
+					
+					i += leafNode.getTriangles().size();
+				}
+			}
+		}
+		
+		return leafNodeMappings;
+	}
+	
 	private static Map<Plane, Integer> doCreatePlaneMappings(final List<Plane> planes) {
 		final Map<Plane, Integer> planeMappings = new HashMap<>();
 		
@@ -655,6 +944,18 @@ public final class SceneCompiler {
 		return triangleMappings;
 	}
 	
+	private static Map<TriangleMesh, Integer> doCreateTriangleMeshMappings(final List<TriangleMesh> triangleMeshes, final List<Node> boundingVolumeHierarchyRootNodes, final List<WideBoundingVolumeHierarchy> wideBoundingVolumeHierarchies) {
+		final Map<TriangleMesh, Integer> triangleMeshMappings = new HashMap<>();
+		
+		for(int i = 0, j = 0; i < triangleMeshes.size(); i++) {
+			triangleMeshMappings.put(triangleMeshes.get(i), Integer.valueOf(j));
+			
+			j += wideBoundingVolumeHierarchies.isEmpty() ? boundingVolumeHierarchyRootNodes.get(i).getSize() : wideBoundingVolumeHierarchies.get(i).getNodes().length;
+		}
+		
+		return triangleMeshMappings;
+	}
+	
 	private static Map<Vector3F, Integer> doCreateVector3FMappings(final List<Vector3F> vector3Fs) {
 		final Map<Vector3F, Integer> vector3FMappings = new HashMap<>();
 		
@@ -665,6 +966,10 @@ public final class SceneCompiler {
 		return vector3FMappings;
 	}
 	
+	private static float[] doCompileBoundingVolumeHierarchiesWide(final List<WideBoundingVolumeHierarchy> wideBoundingVolumeHierarchies) {
+		return Arrays2.toFloatArray(wideBoundingVolumeHierarchies, wideBoundingVolumeHierarchy -> wideBoundingVolumeHierarchy.getNodes(), 1);
+	}
+	
 	private static float[] doCompilePoint2Fs(final List<Point2F> point2Fs) {
 		final float[] compiledPoint2Fs = new float[point2Fs.size() * 2];
 		
@@ -803,6 +1108,32 @@ public final class SceneCompiler {
 		return Arrays2.toFloatArray(textures, texture -> doCompileTexture(texture, textureMappings), 1);
 	}
 	
+	private static float[] doCompileTrianglesPrecomputed(final List<Triangle> triangles) {
+		final float[] compiledTrianglesPrecomputed = new float[triangles.size() * Triangle.SIZE_PRECOMPUTED];
+		
+		for(int i = 0; i < triangles.size(); i++) {
+			final Triangle triangle = triangles.get(i);
+			
+			final Point3F a = triangle.getA().getPosition();
+			final Point3F b = triangle.getB().getPosition();
+			final Point3F c = triangle.getC().getPosition();
+			
+			final int offset = i * Triangle.SIZE_PRECOMPUTED;
+			
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_A_POSITION + 0] = a.x;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_A_POSITION + 1] = a.y;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_A_POSITION + 2] = a.z;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B + 0] = b.x - a.x;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B + 1] = b.y - a.y;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B + 2] = b.z - a.z;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C + 0] = c.x - a.x;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C + 1] = c.y - a.y;
+			compiledTrianglesPrecomputed[offset + Triangle.RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C + 2] = c.z - a.z;
+		}
+		
+		return compiledTrianglesPrecomputed.length > 0 ? compiledTrianglesPrecomputed : new float[1];
+	}
+	
 	private static float[] doCompileVector3Fs(final List<Vector3F> vector3Fs) {
 		final float[] compiledVector3Fs = new float[vector3Fs.size() * 3];
 		
@@ -817,20 +1148,18 @@ public final class SceneCompiler {
 		return compiledVector3Fs.length > 0 ? compiledVector3Fs : new float[1];
 	}
 	
-	private static int doGetBoundingVolumeHierarchyRootNodeOffset(final TriangleMesh triangleMesh, final List<TriangleMesh> triangleMeshes, final List<Node> boundingVolumeHierarchyRootNodes) {
-		for(int i = 0, j = 0; i < triangleMeshes.size(); i++) {
-			final TriangleMesh currentTriangleMesh = triangleMeshes.get(i);
-			
-			final Node currentBoundingVolumeHierarchyRootNode = boundingVolumeHierarchyRootNodes.get(i);
-			
-			if(triangleMesh.equals(currentTriangleMesh)) {
-				return j;
-			}
-			
-			j += currentBoundingVolumeHierarchyRootNode.getSize();
+	private static int doGetBoundingVolumeHierarchyRootNodeOffset(final TriangleMesh triangleMesh, final Map<TriangleMesh, Integer> triangleMeshMappings) {
+		final Integer offset = triangleMeshMappings.get(triangleMesh);
+		
+		if(offset == null) {
+			throw new IllegalArgumentException(String.format("No such TriangleMesh found: %s", triangleMesh));
 		}
 		
-		throw new IllegalArgumentException(String.format("No such TriangleMesh found: %s", triangleMesh));
+		return offset.intValue();
+	}
+	
+	private static int doGetLeafNodeOffset(final LeafNode leafNode, final Map<LeafNode, Integer> leafNodeMappings) {
+		return leafNodeMappings.get(leafNode).intValue();
 	}
 	
 	private static int doGetPlaneOffset(final Plane plane, final Map<Plane, Integer> planeMappings) {
@@ -845,7 +1174,7 @@ public final class SceneCompiler {
 		return point3FMappings.get(point3F).intValue();
 	}
 	
-	private static int doGetShapeOffset(final Shape shape, final List<TriangleMesh> triangleMeshes, final List<Node> boundingVolumeHierarchyRootNodes, final Map<Plane, Integer> planeMappings, final Map<Sphere, Integer> sphereMappings, final Map<Terrain, Integer> terrainMappings, final Map<Triangle, Integer> triangleMappings) {
+	private static int doGetShapeOffset(final Shape shape, final Map<Plane, Integer> planeMappings, final Map<Sphere, Integer> sphereMappings, final Map<Terrain, Integer> terrainMappings, final Map<Triangle, Integer> triangleMappings, final Map<TriangleMesh, Integer> triangleMeshMappings) {
 		if(shape instanceof Plane) {
 			return doGetPlaneOffset(Plane.class.cast(shape), planeMappings);
 		} else if(shape instanceof Sphere) {
@@ -855,12 +1184,39 @@ public final class SceneCompiler {
 		} else if(shape instanceof Triangle) {
 			return doGetTriangleOffset(Triangle.class.cast(shape), triangleMappings);
 		} else if(shape instanceof TriangleMesh) {
-			return doGetBoundingVolumeHierarchyRootNodeOffset(TriangleMesh.class.cast(shape), triangleMeshes, boundingVolumeHierarchyRootNodes);
+			return doGetBoundingVolumeHierarchyRootNodeOffset(TriangleMesh.class.cast(shape), triangleMeshMappings);
 		} else {
 			throw new IllegalArgumentException(String.format("No such Shape found: %s", shape));
 		}
 	}
 	
+	private static int doGetSplitAxis(final TreeNode treeNode) {
+		final Optional<Node> optionalLeft = treeNode.getLeft();
+		final Optional<Node> optionalRight = treeNode.getRight();
+		
+		if(!optionalLeft.isPresent() || !optionalRight.isPresent()) {
+			return 0;
+		}
+		
+		final Node left = optionalLeft.get();
+		final Node right = optionalRight.get();
+		
+//		The split axis is the axis along which the centers of the children are the farthest apart. It is offset by 3 if the center of the left child is the greater one along it, so the nearest child can be found from the sign of the ray direction:
+		final float deltaX = (right.getMaximumX() + right.getMinimumX()) - (left.getMaximumX() + left.getMinimumX());
+		final float deltaY = (right.getMaximumY() + right.getMinimumY()) - (left.getMaximumY() + left.getMinimumY());
+		final float deltaZ = (right.getMaximumZ() + right.getMinimumZ()) - (left.getMaximumZ() + left.getMinimumZ());
+		
+		final float deltaAbsX = Math.abs(deltaX);
+		final float deltaAbsY = Math.abs(deltaY);
+		final float deltaAbsZ = Math.abs(deltaZ);
+		
+		final int axis = deltaAbsX >= deltaAbsY && deltaAbsX >= deltaAbsZ ? 0 : deltaAbsY >= deltaAbsZ ? 1 : 2;
+		
+		final float delta = axis == 0 ? deltaX : axis == 1 ? deltaY : deltaZ;
+		
+		return delta < 0.0F ? axis + 3 : axis;
+	}
+	
 	private static int doGetSphereOffset(final Sphere sphere, final Map<Sphere, Integer> sphereMappings) {
 		return sphereMappings.get(sphere).intValue();
 	}
@@ -885,11 +1241,11 @@ public final class SceneCompiler {
 		return vector3FMappings.get(vector3F).intValue();
 	}
 	
-	private static int[] doCompileBoundingVolumeHierarchies(final List<Node> boundingVolumeHierarchyRootNodes, final Map<Point3F, Integer> point3FMappings, final Map<Triangle, Integer> triangleMappings) {
-		return Arrays2.toIntArray(boundingVolumeHierarchyRootNodes, mesh -> doCompileBoundingVolumeHierarchy(mesh, point3FMappings, triangleMappings), 1);
+	private static int[] doCompileBoundingVolumeHierarchies(final List<Node> boundingVolumeHierarchyRootNodes, final Map<Point3F, Integer> point3FMappings, final Map<LeafNode, Integer> leafNodeMappings) {
+		return Arrays2.toIntArray(boundingVolumeHierarchyRootNodes, mesh -> doCompileBoundingVolumeHierarchy(mesh, point3FMappings, leafNodeMappings), 1);
 	}
 	
-	private static int[] doCompileBoundingVolumeHierarchy(final Node boundingVolumeHierarchyRootNode, final Map<Point3F, Integer> point3FMappings, final Map<Triangle, Integer> triangleMappings) {
+	private static int[] doCompileBoundingVolumeHierarchy(final Node boundingVolumeHierarchyRootNode, final Map<Point3F, Integer> point3FMappings, final Map<LeafNode, Integer> leafNodeMappings) {
 		final int size = boundingVolumeHierarchyRootNode.getSize();
 		
 		final int[] boundingVolumeHierarchy = new int[size];
@@ -898,16 +1254,48 @@ public final class SceneCompiler {
 		
 		final int[] offsets = new int[nodes.size()];
 		
-		for(int i = 0, j = 0; i < nodes.size(); i++) {
-			offsets[i] = j;
+		int maximumDepth = 0;
+		
+//		Both LeafNodes and TreeNodes have a size of 7:
+		for(int i = 0; i < nodes.size(); i++) {
+			offsets[i] = i * 7;
 			
-			final Node node = nodes.get(i);
+			maximumDepth = Math.max(maximumDepth, nodes.get(i).getDepth());
+		}
+		
+//		The next index of a Node is the offset of the first Node after it with the same or a lower depth, and the left index of a TreeNode is the offset of the first Node after it with a depth one higher than its own. Both are found in a single
+//		pass over the Nodes in reverse order. The stack contains the indices of the Nodes after the current one that may still be the next Node of an earlier one, ordered by depth. Any Node with a higher depth than the current one can be
+//		removed from it, because the current Node is both closer and has a lower depth:
+		final int[] nextIndices = new int[nodes.size()];
+		final int[] leftIndices = new int[nodes.size()];
+		final int[] parentIndices = new int[nodes.size()];
+		final int[] stack = new int[nodes.size()];
+		final int[] offsetsByDepth = new int[maximumDepth + 2];
+		
+//		The parent index of a Node is the offset of the last Node before it with a depth one lower than its own:
+		for(int i = 0; i < nodes.size(); i++) {
+			final int depth = nodes.get(i).getDepth();
 			
-			if(node instanceof LeafNode) {
-				j += 5 + LeafNode.class.cast(node).getTriangles().size();
-			} else if(node instanceof TreeNode) {
-				j += 5;
+			parentIndices[i] = depth > 0 ? offsetsByDepth[depth - 1] : -1;
+			
+			offsetsByDepth[depth] = offsets[i];
+		}
+		
+		Arrays.fill(offsetsByDepth, -1);
+		
+		for(int i = nodes.size() - 1, stackSize = 0; i >= 0; i--) {
+			final int depth = nodes.get(i).getDepth();
+			
+			while(stackSize > 0 && nodes.get(stack[stackSize - 1]).getDepth() > depth) {
+				stackSize--;
 			}
+			
+			nextIndices[i] = stackSize > 0 ? offsets[stack[stackSize - 1]] : -1;
+			leftIndices[i] = offsetsByDepth[depth + 1];
+			
+			stack[stackSize++] = i;
+			
+			offsetsByDepth[depth] = offsets[i];
 		}
 		
 		for(int i = 0, j = 0; i < nodes.size(); i++) {
@@ -916,19 +1304,7 @@ public final class SceneCompiler {
 			if(node instanceof LeafNode) {
 				final LeafNode leafNode = LeafNode.class.cast(node);
 				
-				final int depth = leafNode.getDepth();
-				
-				int nextIndex = -1;
-				
-				for(int k = i + 1; k < nodes.size(); k++) {
-					final Node currentNode = nodes.get(k);
-					
-					if(currentNode.getDepth() <= depth) {
-						nextIndex = offsets[k];
-						
-						break;
-					}
-				}
+				final int nextIndex = nextIndices[i];
 				
 				final Point3F maximum = leafNode.getMaximum();
 				final Point3F minimum = leafNode.getMinimum();
@@ -941,39 +1317,15 @@ public final class SceneCompiler {
 				boundingVolumeHierarchy[j + 2] = minimumOffset;
 				boundingVolumeHierarchy[j + 3] = maximumOffset;
 				boundingVolumeHierarchy[j + 4] = leafNode.getTriangles().size();
+				boundingVolumeHierarchy[j + 5] = doGetLeafNodeOffset(leafNode, leafNodeMappings);
+				boundingVolumeHierarchy[j + 6] = parentIndices[i];
 				
-				for(int k = 0; k < leafNode.getTriangles().size(); k++) {
-					boundingVolumeHierarchy[j + 5 + k] = doGetTriangleOffset(leafNode.getTriangles().get(k), triangleMappings);
-				}
-				
-				j += 5 + leafNode.getTriangles().size();
+				j += 7;
 			} else if(node instanceof TreeNode) {
 				final TreeNode treeNode = TreeNode.class.cast(node);
 				
-				final int depth = treeNode.getDepth();
-				
-				int nextIndex = -1;
-				int leftIndex = -1;
-				
-				for(int k = i + 1; k < nodes.size(); k++) {
-					final Node currentNode = nodes.get(k);
-					
-					if(currentNode.getDepth() <= depth) {
-						nextIndex = offsets[k];
-						
-						break;
-					}
-				}
-				
-				for(int k = i + 1; k < nodes.size(); k++) {
-					final Node currentNode = nodes.get(k);
-					
-					if(currentNode.getDepth() == depth + 1) {
-						leftIndex = offsets[k];
-						
-						break;
-					}
-				}
+				final int nextIndex = nextIndices[i];
+				final int leftIndex = leftIndices[i];
 				
 				final Point3F maximum = treeNode.getMaximum();
 				final Point3F minimum = treeNode.getMinimum();
@@ -986,8 +1338,10 @@ public final class SceneCompiler {
 				boundingVolumeHierarchy[j + 2] = minimumOffset;
 				boundingVolumeHierarchy[j + 3] = maximumOffset;
 				boundingVolumeHierarchy[j + 4] = leftIndex;
+				boundingVolumeHierarchy[j + 5] = doGetSplitAxis(treeNode);
+				boundingVolumeHierarchy[j + 6] = parentIndices[i];
 				
-				j += 5;
+				j += 7;
 			}
 		}
 		
@@ -1007,16 +1361,16 @@ public final class SceneCompiler {
 		return Arrays2.toIntArray(planes, plane -> doCompilePlane(plane, point3FMappings, vector3FMappings), 1);
 	}
 	
-	private static int[] doCompilePrimitive(final Primitive primitive, final List<TriangleMesh> triangleMeshes, final List<Node> boundingVolumeHierarchyRootNodes, final Map<Plane, Integer> planeMappings, final Map<Sphere, Integer> sphereMappings, final Map<Surface, Integer> surfaceMappings, final Map<Terrain, Integer> terrainMappings, final Map<Triangle, Integer> triangleMappings) {
+	private static int[] doCompilePrimitive(final Primitive primitive, final Map<Plane, Integer> planeMappings, final Map<Sphere, Integer> sphereMappings, final Map<Surface, Integer> surfaceMappings, final Map<Terrain, Integer> terrainMappings, final Map<Triangle, Integer> triangleMappings, final Map<TriangleMesh, Integer> triangleMeshMappings) {
 		return new int[] {
 			primitive.getShape().getType(),
-			doGetShapeOffset(primitive.getShape(), triangleMeshes, boundingVolumeHierarchyRootNodes, planeMappings, sphereMappings, terrainMappings, triangleMappings),
+			doGetShapeOffset(primitive.getShape(), planeMappings, sphereMappings, terrainMappings, triangleMappings, triangleMeshMappings),
 			doGetSurfaceOffset(primitive.getSurface(), surfaceMappings)
 		};
 	}
 	
-	private static int[] doCompilePrimitives(final List<Primitive> primitives, final List<TriangleMesh> triangleMeshes, final List<Node> boundingVolumeHierarchyRootNodes, final Map<Plane, Integer> planeMappings, final Map<Sphere, Integer> sphereMappings, final Map<Surface, Integer> surfaceMappings, final Map<Terrain, Integer> terrainMappings, final Map<Triangle, Integer> triangleMappings) {
-		return Arrays2.toIntArray(primitives, primitive -> doCompilePrimitive(primitive, triangleMeshes, boundingVolumeHierarchyRootNodes, planeMappings, sphereMappings, surfaceMappings, terrainMappings, triangleMappings), 1);
+	private static int[] doCompilePrimitives(final List<Primitive> primitives, final Map<Plane, Integer> planeMappings, final Map<Sphere, Integer> sphereMappings, final Map<Surface, Integer> surfaceMappings, final Map<Terrain, Integer> terrainMappings, final Map<Triangle, Integer> triangleMappings, final Map<TriangleMesh, Integer> triangleMeshMappings) {
+		return Arrays2.toIntArray(primitives, primitive -> doCompilePrimitive(primitive, planeMappings, sphereMappings, surfaceMappings, terrainMappings, triangleMappings, triangleMeshMappings), 1);
 	}
 	
 //	private static int[] doCompilePrimitivesEmittingLight(final List<Primitive> primitivesEmittingLight, final Map<Primitive, Integer> primitiveMappings) {
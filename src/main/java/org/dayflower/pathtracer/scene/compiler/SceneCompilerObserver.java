@@ -24,6 +24,7 @@ import org.dayflower.pathtracer.scene.Surface;
 import org.dayflower.pathtracer.scene.Texture;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
 import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy.Node;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchyMetrics;
 import org.dayflower.pathtracer.scene.shape.Plane;
 import org.dayflower.pathtracer.scene.shape.Sphere;
 import org.dayflower.pathtracer.scene.shape.Terrain;
@@ -175,4 +176,14 @@ public interface SceneCompilerObserver {
 	 * @param milliseconds the time the compilation process has taken this far, in milliseconds
 	 */
 	void onCompilationStart(final Scene scene, final long milliseconds);
+	
+	/**
+	 * Called by a {@link SceneCompiler} to report metrics about the quality of the {@link BoundingVolumeHierarchy} of a unique {@link TriangleMesh}.
+	 * 
+	 * @param scene the {@link Scene} being compiled
+	 * @param milliseconds the time the compilation process has taken this far, in milliseconds
+	 * @param triangleMesh the {@code TriangleMesh} the {@code BoundingVolumeHierarchy} was built for
+	 * @param boundingVolumeHierarchyMetrics the {@link BoundingVolumeHierarchyMetrics} of the {@code BoundingVolumeHierarchy}
+	 */
+	void onMetricsBoundingVolumeHierarchy(final Scene scene, final long milliseconds, final TriangleMesh triangleMesh, final BoundingVolumeHierarchyMetrics boundingVolumeHierarchyMetrics);
 }
\ No newline at end of file
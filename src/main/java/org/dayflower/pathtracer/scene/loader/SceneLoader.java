@@ -22,9 +22,12 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.dayflower.pathtracer.scene.Scene;
+import org.dayflower.pathtracer.scene.bvh.BoundingVolumeHierarchy;
+import org.dayflower.pathtracer.scene.bvh.WideBoundingVolumeHierarchy;
 import org.dayflower.pathtracer.scene.compiler.CompiledScene;
 import org.dayflower.pathtracer.scene.compiler.PrintingSceneCompilerObserver;
 import org.dayflower.pathtracer.scene.compiler.SceneCompiler;
@@ -36,6 +39,10 @@ import org.dayflower.pathtracer.scene.compiler.SceneCompiler;
  * @author J&#246;rgen Lundgren
  */
 public final class SceneLoader {
+	private final AtomicInteger boundingVolumeHierarchyBuilderType;
+	private final AtomicInteger boundingVolumeHierarchyQuantizationBits;
+	private final AtomicInteger boundingVolumeHierarchySpatialSplitBudget;
+	private final AtomicInteger boundingVolumeHierarchyWidth;
 	private final AtomicReference<String> name;
 	private final File directory;
 	private final Map<String, CompiledScene> compiledScenes;
@@ -93,6 +100,10 @@ public final class SceneLoader {
 	 * @throws NullPointerException thrown if, and only if, either {@code directory} or {@code name} are {@code null}
 	 */
 	public SceneLoader(final File directory, final boolean isCompilingExistingScene, final String name) {
+		this.boundingVolumeHierarchyBuilderType = new AtomicInteger(BoundingVolumeHierarchy.BUILDER_TYPE_BINNED_SAH);
+		this.boundingVolumeHierarchyQuantizationBits = new AtomicInteger(WideBoundingVolumeHierarchy.QUANTIZATION_BITS_NONE);
+		this.boundingVolumeHierarchySpatialSplitBudget = new AtomicInteger(BoundingVolumeHierarchy.SPATIAL_SPLIT_BUDGET_DEFAULT);
+		this.boundingVolumeHierarchyWidth = new AtomicInteger(2);
 		this.name = new AtomicReference<>(Objects.requireNonNull(name, "name == null"));
 		this.directory = Objects.requireNonNull(directory, "directory == null");
 		this.compiledScenes = new HashMap<>();
@@ -120,6 +131,11 @@ public final class SceneLoader {
 				final
 				SceneCompiler sceneCompiler = new SceneCompiler();
 				sceneCompiler.addSceneCompilerObserver(new PrintingSceneCompilerObserver());
+				sceneCompiler.setBoundingVolumeHierarchyBuilderType(getBoundingVolumeHierarchyBuilderType());
+				sceneCompiler.setBoundingVolumeHierarchyCacheDirectory(Scenes.getBoundingVolumeHierarchyCacheDirectory(getDirectory()));
+				sceneCompiler.setBoundingVolumeHierarchyQuantizationBits(getBoundingVolumeHierarchyQuantizationBits());
+				sceneCompiler.setBoundingVolumeHierarchySpatialSplitBudget(getBoundingVolumeHierarchySpatialSplitBudget());
+				sceneCompiler.setBoundingVolumeHierarchyWidth(getBoundingVolumeHierarchyWidth());
 				
 				final
 				CompiledScene compiledScene = sceneCompiler.compile(scene);
@@ -162,6 +178,50 @@ public final class SceneLoader {
 		return this.name.get();
 	}
 	
+	/**
+	 * Returns the builder type used to build the Bounding Volume Hierarchies.
+	 * <p>
+	 * See {@link SceneCompiler#setBoundingVolumeHierarchyBuilderType(int)} for more information.
+	 * 
+	 * @return the builder type used to build the Bounding Volume Hierarchies
+	 */
+	public int getBoundingVolumeHierarchyBuilderType() {
+		return this.boundingVolumeHierarchyBuilderType.get();
+	}
+	
+	/**
+	 * Returns the number of bits per quantized value in the bounds of the compiled Bounding Volume Hierarchies.
+	 * <p>
+	 * See {@link SceneCompiler#setBoundingVolumeHierarchyQuantizationBits(int)} for more information.
+	 * 
+	 * @return the number of bits per quantized value in the bounds of the compiled Bounding Volume Hierarchies
+	 */
+	public int getBoundingVolumeHierarchyQuantizationBits() {
+		return this.boundingVolumeHierarchyQuantizationBits.get();
+	}
+	
+	/**
+	 * Returns the maximum number of duplicated triangle references of each Bounding Volume Hierarchy, in percent of the number of triangles in it.
+	 * <p>
+	 * See {@link SceneCompiler#setBoundingVolumeHierarchySpatialSplitBudget(int)} for more information.
+	 * 
+	 * @return the maximum number of duplicated triangle references of each Bounding Volume Hierarchy, in percent of the number of triangles in it
+	 */
+	public int getBoundingVolumeHierarchySpatialSplitBudget() {
+		return this.boundingVolumeHierarchySpatialSplitBudget.get();
+	}
+	
+	/**
+	 * Returns the maximum number of children of each tree node in the compiled Bounding Volume Hierarchies.
+	 * <p>
+	 * See {@link SceneCompiler#setBoundingVolumeHierarchyWidth(int)} for more information.
+	 * 
+	 * @return the maximum number of children of each tree node in the compiled Bounding Volume Hierarchies
+	 */
+	public int getBoundingVolumeHierarchyWidth() {
+		return this.boundingVolumeHierarchyWidth.get();
+	}
+	
 	/**
 	 * Returns {@code true} if, and only if, compilation of existing scene is enabled, {@code false} otherwise.
 	 * 
@@ -179,6 +239,80 @@ public final class SceneLoader {
 		this.scenes.clear();
 	}
 	
+	/**
+	 * Sets the builder type used to build the Bounding Volume Hierarchies.
+	 * <p>
+	 * The builder type is only used when a scene is compiled. See {@link SceneCompiler#setBoundingVolumeHierarchyBuilderType(int)} for more information.
+	 * <p>
+	 * If {@code boundingVolumeHierarchyBuilderType} is not {@link BoundingVolumeHierarchy#BUILDER_TYPE_BINNED_SAH}, {@link BoundingVolumeHierarchy#BUILDER_TYPE_LINEAR}, {@link BoundingVolumeHierarchy#BUILDER_TYPE_LINEAR_OPTIMIZED},
+	 * {@link BoundingVolumeHierarchy#BUILDER_TYPE_SPATIAL_SPLIT_SAH} or {@link BoundingVolumeHierarchy#BUILDER_TYPE_SWEEP_SAH}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchyBuilderType the builder type
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchyBuilderType} is not {@code BUILDER_TYPE_BINNED_SAH}, {@code BUILDER_TYPE_LINEAR}, {@code BUILDER_TYPE_LINEAR_OPTIMIZED}, {@code BUILDER_TYPE_SPATIAL_SPLIT_SAH} or {@code BUILDER_TYPE_SWEEP_SAH}
+	 */
+	public void setBoundingVolumeHierarchyBuilderType(final int boundingVolumeHierarchyBuilderType) {
+		if(boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_BINNED_SAH && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_LINEAR && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_LINEAR_OPTIMIZED && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_SPATIAL_SPLIT_SAH && boundingVolumeHierarchyBuilderType != BoundingVolumeHierarchy.BUILDER_TYPE_SWEEP_SAH) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy builder type: %s", Integer.toString(boundingVolumeHierarchyBuilderType)));
+		}
+		
+		this.boundingVolumeHierarchyBuilderType.set(boundingVolumeHierarchyBuilderType);
+	}
+	
+	/**
+	 * Sets the number of bits per quantized value in the bounds of the compiled Bounding Volume Hierarchies.
+	 * <p>
+	 * The number of bits is only used when a scene is compiled. See {@link SceneCompiler#setBoundingVolumeHierarchyQuantizationBits(int)} for more information.
+	 * <p>
+	 * If {@code boundingVolumeHierarchyQuantizationBits} is not {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_NONE}, {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_8} or {@link WideBoundingVolumeHierarchy#QUANTIZATION_BITS_12}, an
+	 * {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchyQuantizationBits the number of bits per quantized value
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchyQuantizationBits} is not {@code QUANTIZATION_BITS_NONE}, {@code QUANTIZATION_BITS_8} or {@code QUANTIZATION_BITS_12}
+	 */
+	public void setBoundingVolumeHierarchyQuantizationBits(final int boundingVolumeHierarchyQuantizationBits) {
+		if(boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_NONE && boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_8 && boundingVolumeHierarchyQuantizationBits != WideBoundingVolumeHierarchy.QUANTIZATION_BITS_12) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy quantization bits: %s", Integer.toString(boundingVolumeHierarchyQuantizationBits)));
+		}
+		
+		this.boundingVolumeHierarchyQuantizationBits.set(boundingVolumeHierarchyQuantizationBits);
+	}
+	
+	/**
+	 * Sets the maximum number of duplicated triangle references of each Bounding Volume Hierarchy, in percent of the number of triangles in it.
+	 * <p>
+	 * The budget is only used when a scene is compiled. See {@link SceneCompiler#setBoundingVolumeHierarchySpatialSplitBudget(int)} for more information.
+	 * <p>
+	 * If {@code boundingVolumeHierarchySpatialSplitBudget} is less than {@code 0} or greater than {@code 1000}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchySpatialSplitBudget the maximum number of duplicated triangle references, in percent of the number of triangles
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchySpatialSplitBudget} is less than {@code 0} or greater than {@code 1000}
+	 */
+	public void setBoundingVolumeHierarchySpatialSplitBudget(final int boundingVolumeHierarchySpatialSplitBudget) {
+		if(boundingVolumeHierarchySpatialSplitBudget < 0 || boundingVolumeHierarchySpatialSplitBudget > 1000) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy spatial split budget: %s", Integer.toString(boundingVolumeHierarchySpatialSplitBudget)));
+		}
+		
+		this.boundingVolumeHierarchySpatialSplitBudget.set(boundingVolumeHierarchySpatialSplitBudget);
+	}
+	
+	/**
+	 * Sets the maximum number of children of each tree node in the compiled Bounding Volume Hierarchies.
+	 * <p>
+	 * The width is only used when a scene is compiled. See {@link SceneCompiler#setBoundingVolumeHierarchyWidth(int)} for more information.
+	 * <p>
+	 * If {@code boundingVolumeHierarchyWidth} is not {@code 2}, {@code 4} or {@code 8}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param boundingVolumeHierarchyWidth the maximum number of children of each tree node
+	 * @throws IllegalArgumentException thrown if, and only if, {@code boundingVolumeHierarchyWidth} is not {@code 2}, {@code 4} or {@code 8}
+	 */
+	public void setBoundingVolumeHierarchyWidth(final int boundingVolumeHierarchyWidth) {
+		if(boundingVolumeHierarchyWidth != 2 && boundingVolumeHierarchyWidth != 4 && boundingVolumeHierarchyWidth != 8) {
+			throw new IllegalArgumentException(String.format("Illegal BoundingVolumeHierarchy width: %s", Integer.toString(boundingVolumeHierarchyWidth)));
+		}
+		
+		this.boundingVolumeHierarchyWidth.set(boundingVolumeHierarchyWidth);
+	}
+	
 	/**
 	 * Sets the scene name.
 	 * <p>
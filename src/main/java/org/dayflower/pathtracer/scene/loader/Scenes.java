@@ -66,6 +66,10 @@ final class Scenes {
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
+	public static File getBoundingVolumeHierarchyCacheDirectory(final File directory) {
+		return new File(getBoundingVolumeHierarchyCacheDirectoryname(directory));
+	}
+	
 	public static File getModelFile(final File directory, final String name) {
 		return new File(getModelFilename(directory, name));
 	}
@@ -481,6 +485,10 @@ final class Scenes {
 		return scene;
 	}
 	
+	public static String getBoundingVolumeHierarchyCacheDirectoryname(final File directory) {
+		return String.format("%s/model/bvh", directory.getAbsolutePath());
+	}
+	
 	public static String getModelFilename(final File directory, final String name) {
 		return String.format("%s/model/%s", directory.getAbsolutePath(), name);
 	}
@@ -126,10 +126,13 @@ public final class Terrain extends Shape {
 		final float scale = 10.0F;
 		final float scaleReciprocal = 1.0F / scale;
 		
+		final float originYScaled = origin.y * scaleReciprocal;
+		
 		float t = 0.0F;
 		
+//		The height of the terrain is never above 1.0 in the scaled space. A ray that starts above it and never gets below it before the march ends cannot hit the terrain, so the march is skipped by letting it end before it starts:
 		final float tMinimum = 0.001F;
-		final float tMaximum = 10.0F;
+		final float tMaximum = originYScaled >= 1.0F && (direction.y >= 0.0F || originYScaled - 1.0F >= -direction.y * 10.0F) ? 0.0F : 10.0F;
 		
 		float tDelta = 0.01F;
 		
@@ -98,11 +98,31 @@ public final class Triangle extends Shape {
 	 */
 	public static final int RELATIVE_OFFSET_C_TEXTURE_COORDINATES_OFFSET = 8;
 	
+	/**
+	 * The relative offset of the A Position parameter in the precomputed {@code float} array. The value is {@code 0}.
+	 */
+	public static final int RELATIVE_OFFSET_PRECOMPUTED_A_POSITION = 0;
+	
+	/**
+	 * The relative offset of the Edge AB parameter in the precomputed {@code float} array. The value is {@code 3}.
+	 */
+	public static final int RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_B = 3;
+	
+	/**
+	 * The relative offset of the Edge AC parameter in the precomputed {@code float} array. The value is {@code 6}.
+	 */
+	public static final int RELATIVE_OFFSET_PRECOMPUTED_EDGE_A_C = 6;
+	
 	/**
 	 * The size of a {@code Triangle} in the {@code float} array. The size is {@code 9}.
 	 */
 	public static final int SIZE = 12;
 	
+	/**
+	 * The size of a {@code Triangle} in the precomputed {@code float} array. The size is {@code 9}.
+	 */
+	public static final int SIZE_PRECOMPUTED = 9;
+	
 	/**
 	 * The type number associated with a {@code Triangle}. The number is {@code 4}.
 	 */
@@ -48,6 +48,7 @@ public final class TriangleMesh extends Shape {
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	private final List<Triangle> triangles;
+	private final int hashCode;
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
 	
@@ -65,6 +66,7 @@ public final class TriangleMesh extends Shape {
 		super(TYPE);
 		
 		this.triangles = new ArrayList<>(triangles);
+		this.hashCode = Objects.hash(this.triangles);
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -134,6 +136,8 @@ public final class TriangleMesh extends Shape {
 			return true;
 		} else if(!(object instanceof TriangleMesh)) {
 			return false;
+		} else if(this.hashCode != TriangleMesh.class.cast(object).hashCode) {
+			return false;
 		} else if(!Objects.equals(this.triangles, TriangleMesh.class.cast(object).triangles)) {
 			return false;
 		} else {
@@ -158,6 +162,6 @@ public final class TriangleMesh extends Shape {
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(this.triangles);
+		return this.hashCode;
 	}
 }
\ No newline at end of file
@@ -19,9 +19,14 @@
 package org.dayflower.pathtracer.test;
 
 import org.dayflower.pathtracer.scene.compiler.DynamicCompiledScene;
+import org.dayflower.pathtracer.scene.shape.Triangle;
+import org.dayflower.pathtracer.scene.shape.Triangle.Vertex;
 import org.dayflower.pathtracer.scene.texture.CheckerboardTexture;
 import org.dayflower.pathtracer.scene.texture.ConstantTexture;
 import org.macroing.image4j.Color;
+import org.macroing.math4j.Point2F;
+import org.macroing.math4j.Point3F;
+import org.macroing.math4j.Vector3F;
 
 public final class DynamicCompiledSceneTest {
 	private DynamicCompiledSceneTest() {
@@ -43,5 +48,19 @@ public final class DynamicCompiledSceneTest {
 		System.out.println("* Remove: " + dynamicCompiledScene.remove(new CheckerboardTexture(Color.RED, Color.BLACK)));
 		System.out.println("* Remove: " + dynamicCompiledScene.remove(new ConstantTexture(Color.BLACK)));
 		System.out.println("* Remove: " + dynamicCompiledScene.remove(new ConstantTexture(Color.BLACK)));
+		
+		final Triangle triangleA = new Triangle(new Vertex(new Point2F(0.0F, 0.0F), new Point3F(0.0F, 0.0F, 0.0F), Vector3F.z(), Vector3F.x()), new Vertex(new Point2F(1.0F, 0.0F), new Point3F(1.0F, 0.0F, 0.0F), Vector3F.z(), Vector3F.x()), new Vertex(new Point2F(0.0F, 1.0F), new Point3F(0.0F, 1.0F, 0.0F), Vector3F.z(), Vector3F.x()));
+		final Triangle triangleB = triangleA.translateX(2.0F);
+		
+		System.out.println("* Add: " + dynamicCompiledScene.add(triangleA));
+		System.out.println("* Add: " + dynamicCompiledScene.add(triangleB));
+		System.out.println("* BVH: " + dynamicCompiledScene.getBoundingVolumeHierarchy().length);
+		System.out.println("* ReferencesTo: " + dynamicCompiledScene.referencesTo(new Point3F(0.0F, 0.0F, 0.0F)));
+		System.out.println("* Remove: " + dynamicCompiledScene.remove(new Point3F(0.0F, 0.0F, 0.0F)));
+		System.out.println("* Remove: " + dynamicCompiledScene.remove(triangleA));
+		System.out.println("* ReferencesTo: " + dynamicCompiledScene.referencesTo(new Point3F(0.0F, 0.0F, 0.0F)));
+		System.out.println("* Remove: " + dynamicCompiledScene.remove(new Point3F(0.0F, 0.0F, 0.0F)));
+		System.out.println("* IndexOf: " + dynamicCompiledScene.indexOf(triangleB));
+		System.out.println("* BVH: " + dynamicCompiledScene.getBoundingVolumeHierarchy().length);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2015 - 2021 J&#246;rgen Lundgren
+ * 
+ * This file is part of Dayflower.
+ * 
+ * Dayflower is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Dayflower is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Dayflower. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dayflower.pathtracer.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@code TileScheduler} splits an image into tiles and hands them out to the workers that render them.
+ * <p>
+ * The tiles are ordered by their distance to the center of the image, so the center of the image is rendered first. The pixel indices of all tiles are stored in that order, tile by tile, in the array returned by {@link #getPixels()}. This
+ * means that the pixels of any number of consecutive tiles form a contiguous range in that array.
+ * <p>
+ * The tiles are claimed by calling {@link #nextTiles(int)}. This method is thread-safe, so any number of workers can pull tiles until none remain. Calling {@link #reset()} makes all tiles available again.
+ * 
+ * @since 1.0.0
+ * @author J&#246;rgen Lundgren
+ */
+public final class TileScheduler {
+	private final AtomicInteger tileIndex;
+	private final int tileCount;
+	private final int[] pixelOffsets;
+	private final int[] pixels;
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Constructs a new {@code TileScheduler} instance.
+	 * <p>
+	 * The tiles along the right and bottom edges of the image may be smaller than {@code tileWidth} and {@code tileHeight}.
+	 * <p>
+	 * If either {@code resolutionX}, {@code resolutionY}, {@code tileWidth} or {@code tileHeight} is less than {@code 1}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param resolutionX the resolution along the X-axis
+	 * @param resolutionY the resolution along the Y-axis
+	 * @param tileWidth the width of a tile
+	 * @param tileHeight the height of a tile
+	 * @throws IllegalArgumentException thrown if, and only if, either {@code resolutionX}, {@code resolutionY}, {@code tileWidth} or {@code tileHeight} is less than {@code 1}
+	 */
+	public TileScheduler(final int resolutionX, final int resolutionY, final int tileWidth, final int tileHeight) {
+		if(resolutionX < 1 || resolutionY < 1 || tileWidth < 1 || tileHeight < 1) {
+			throw new IllegalArgumentException(String.format("resolutionX < 1 || resolutionY < 1 || tileWidth < 1 || tileHeight < 1: resolutionX=%s, resolutionY=%s, tileWidth=%s, tileHeight=%s", Integer.toString(resolutionX), Integer.toString(resolutionY), Integer.toString(tileWidth), Integer.toString(tileHeight)));
+		}
+		
+		final int tileCountX = (resolutionX + tileWidth - 1) / tileWidth;
+		final int tileCountY = (resolutionY + tileHeight - 1) / tileHeight;
+		final int tileCount = tileCountX * tileCountY;
+		
+		final float centerX = resolutionX * 0.5F;
+		final float centerY = resolutionY * 0.5F;
+		
+		final float[] distances = new float[tileCount];
+		
+		final Integer[] tiles = new Integer[tileCount];
+		
+		for(int tile = 0; tile < tileCount; tile++) {
+			final int tileX = tile % tileCountX;
+			final int tileY = tile / tileCountX;
+			
+			final float deltaX = (tileX * tileWidth + Math.min(tileWidth, resolutionX - tileX * tileWidth) * 0.5F) - centerX;
+			final float deltaY = (tileY * tileHeight + Math.min(tileHeight, resolutionY - tileY * tileHeight) * 0.5F) - centerY;
+			
+			distances[tile] = deltaX * deltaX + deltaY * deltaY;
+			
+			tiles[tile] = Integer.valueOf(tile);
+		}
+		
+//		The sort is stable, so tiles at the same distance from the center keep their row-major order:
+		Arrays.sort(tiles, Comparator.comparingDouble(tile -> distances[tile.intValue()]));
+		
+		this.tileIndex = new AtomicInteger();
+		this.tileCount = tileCount;
+		this.pixelOffsets = new int[tileCount + 1];
+		this.pixels = new int[resolutionX * resolutionY];
+		
+		for(int i = 0, j = 0; i < tileCount; i++) {
+			final int tileX = tiles[i].intValue() % tileCountX;
+			final int tileY = tiles[i].intValue() / tileCountX;
+			
+			final int minimumX = tileX * tileWidth;
+			final int minimumY = tileY * tileHeight;
+			final int maximumX = Math.min(minimumX + tileWidth, resolutionX);
+			final int maximumY = Math.min(minimumY + tileHeight, resolutionY);
+			
+			this.pixelOffsets[i] = j;
+			
+			for(int y = minimumY; y < maximumY; y++) {
+				for(int x = minimumX; x < maximumX; x++) {
+					this.pixels[j++] = y * resolutionX + x;
+				}
+			}
+			
+			this.pixelOffsets[i + 1] = j;
+		}
+	}
+	
+	////////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Returns {@code true} if, and only if, there are tiles left to claim, {@code false} otherwise.
+	 * 
+	 * @return {@code true} if, and only if, there are tiles left to claim, {@code false} otherwise
+	 */
+	public boolean hasNextTiles() {
+		return this.tileIndex.get() < this.tileCount;
+	}
+	
+	/**
+	 * Returns the offset into the array returned by {@link #getPixels()} at which the pixels of the tile at index {@code tile} start.
+	 * <p>
+	 * If {@code tile} is equal to {@link #getTileCount()}, the total number of pixels is returned. So the pixels of the tiles from index {@code a} (inclusive) to index {@code b} (exclusive) are found from offset {@code getPixelOffset(a)}
+	 * (inclusive) to offset {@code getPixelOffset(b)} (exclusive).
+	 * <p>
+	 * If {@code tile} is less than {@code 0} or greater than {@code getTileCount()}, an {@code ArrayIndexOutOfBoundsException} will be thrown.
+	 * 
+	 * @param tile the index of the tile
+	 * @return the offset into the array returned by {@code getPixels()} at which the pixels of the tile at index {@code tile} start
+	 * @throws ArrayIndexOutOfBoundsException thrown if, and only if, {@code tile} is less than {@code 0} or greater than {@code getTileCount()}
+	 */
+	public int getPixelOffset(final int tile) {
+		return this.pixelOffsets[tile];
+	}
+	
+	/**
+	 * Returns the number of tiles.
+	 * 
+	 * @return the number of tiles
+	 */
+	public int getTileCount() {
+		return this.tileCount;
+	}
+	
+	/**
+	 * Claims up to {@code count} consecutive tiles and returns the index of the first one, or {@code -1} if there are no tiles left to claim.
+	 * <p>
+	 * The claimed tiles are the ones from the returned index (inclusive) to {@code Math.min(index + count, getTileCount())} (exclusive). No tile is claimed twice until {@link #reset()} is called.
+	 * <p>
+	 * If {@code count} is less than {@code 1}, an {@code IllegalArgumentException} will be thrown.
+	 * 
+	 * @param count the maximum number of tiles to claim
+	 * @return the index of the first tile claimed, or {@code -1} if there are no tiles left to claim
+	 * @throws IllegalArgumentException thrown if, and only if, {@code count} is less than {@code 1}
+	 */
+	public int nextTiles(final int count) {
+		if(count < 1) {
+			throw new IllegalArgumentException(String.format("count < 1: count=%s", Integer.toString(count)));
+		}
+		
+		if(!hasNextTiles()) {
+			return -1;
+		}
+		
+		final int tile = this.tileIndex.getAndAdd(count);
+		
+		return tile < this.tileCount ? tile : -1;
+	}
+	
+	/**
+	 * Returns a copy of the pixel indices of all tiles, ordered tile by tile with the tiles closest to the center first.
+	 * <p>
+	 * A pixel index is computed as {@code y * resolutionX + x}.
+	 * 
+	 * @return a copy of the pixel indices of all tiles, ordered tile by tile with the tiles closest to the center first
+	 */
+	public int[] getPixels() {
+		return this.pixels.clone();
+	}
+	
+	/**
+	 * Resets this {@code TileScheduler} instance, so that all tiles can be claimed again, starting with the ones closest to the center.
+	 */
+	public void reset() {
+		this.tileIndex.set(0);
+	}
+}
\ No newline at end of file